@@ -0,0 +1,308 @@
+package org.jbei.ice.benchmark;
+
+import org.sbolstandard.core2.SBOLDocument;
+import org.sbolstandard.core2.SBOLReader;
+import org.sbolstandard.core2.SBOLWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Files used as input by the benchmarks. Each item is a synthetic file that is generated (deterministically) to be
+ * representative in size and structure of what is uploaded to a registry:
+ * <ul>
+ * <li>{@link #PLASMID} a 5.4kb circular plasmid with 12 annotated genes in GenBank format</li>
+ * <li>{@link #GENOME} a 4.6Mb bacterial genome with 4,300 annotated genes in GenBank format</li>
+ * <li>{@link #PLASMID_FASTA} and {@link #GENOME_FASTA} the same sequences in FASTA format</li>
+ * <li>{@link #TRACE} an ABI sequencing trace with 900 base calls</li>
+ * <li>{@link #SBOL} the plasmid as an SBOL 2 document</li>
+ * </ul>
+ * Real files can be used instead by placing them (with the names of the items) in a directory and specifying the
+ * directory using the <code>ice.benchmark.corpus</code> system property, e.g.
+ * <code>-Djmh.args="-jvmArgs -Dice.benchmark.corpus=/path/to/corpus"</code>
+ *
+ * @author Hector Plahar
+ */
+public enum Corpus {
+
+    PLASMID("plasmid.gb"),
+    GENOME("genome.gb"),
+    PLASMID_FASTA("plasmid.fasta"),
+    GENOME_FASTA("genome.fasta"),
+    TRACE("trace.ab1"),
+    SBOL("plasmid.xml");
+
+    public static final String CORPUS_DIRECTORY_PROPERTY = "ice.benchmark.corpus";
+
+    private static final int PLASMID_LENGTH = 5386;
+    private static final int PLASMID_GENES = 12;
+    private static final int GENOME_LENGTH = 4_641_652;
+    private static final int GENOME_GENES = 4300;
+    private static final int TRACE_BASES = 900;
+    private static final int SCANS_PER_BASE = 12;
+    private static final char[] BASES = {'a', 'c', 'g', 't'};
+    private static final char[] AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY".toCharArray();
+
+    private final String fileName;
+    private byte[] bytes;
+
+    Corpus(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return contents of the file for this item
+     * @throws IOException on exception reading or generating the file
+     */
+    public synchronized byte[] getBytes() throws IOException {
+        if (bytes != null)
+            return bytes;
+
+        String directory = System.getProperty(CORPUS_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            Path path = Paths.get(directory, fileName);
+            if (Files.exists(path)) {
+                bytes = Files.readAllBytes(path);
+                return bytes;
+            }
+        }
+
+        bytes = generate();
+        return bytes;
+    }
+
+    public String getText() throws IOException {
+        return new String(getBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] generate() throws IOException {
+        switch (this) {
+            case PLASMID:
+                return genBank("pGEN1", PLASMID_LENGTH, PLASMID_GENES, true).getBytes(StandardCharsets.UTF_8);
+
+            case GENOME:
+                return genBank("GENOME1", GENOME_LENGTH, GENOME_GENES, false).getBytes(StandardCharsets.UTF_8);
+
+            case PLASMID_FASTA:
+                return fasta("pGEN1", PLASMID_LENGTH).getBytes(StandardCharsets.UTF_8);
+
+            case GENOME_FASTA:
+                return fasta("GENOME1", GENOME_LENGTH).getBytes(StandardCharsets.UTF_8);
+
+            case TRACE:
+                return trace(TRACE_BASES);
+
+            case SBOL:
+                return sbol(PLASMID.getBytes());
+
+            default:
+                throw new IllegalStateException("Unknown corpus item " + this);
+        }
+    }
+
+    /**
+     * Random (seeded with the length so the same sequence is returned for each call) dna sequence
+     */
+    public static String sequence(int length) {
+        Random random = new Random(length);
+        char[] residues = new char[length];
+        for (int i = 0; i < length; i += 1) {
+            residues[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return new String(residues);
+    }
+
+    /**
+     * Generates GenBank text for a sequence of the specified length with a gene and a CDS (with qualifiers and
+     * translation) for each gene
+     */
+    public static String genBank(String name, int length, int geneCount, boolean circular) {
+        Random random = new Random(length + geneCount);
+        String sequence = sequence(length);
+        StringBuilder builder = new StringBuilder(length * 2);
+        builder.append(String.format("LOCUS       %-16s%11d bp    DNA     %-8s BCT 01-JAN-2016\n", name, length,
+                circular ? "circular" : "linear"));
+        builder.append("DEFINITION  Synthetic ").append(name).append(", complete sequence.\n");
+        builder.append("ACCESSION   ").append(name).append("\n");
+        builder.append("VERSION     ").append(name).append(".1\n");
+        builder.append("KEYWORDS    .\n");
+        builder.append("SOURCE      Escherichia coli\n");
+        builder.append("  ORGANISM  Escherichia coli\n");
+        builder.append("            Bacteria; Proteobacteria; Gammaproteobacteria; Enterobacterales;\n");
+        builder.append("            Enterobacteriaceae; Escherichia.\n");
+        builder.append("REFERENCE   1  (bases 1 to ").append(length).append(")\n");
+        builder.append("  AUTHORS   Doe,J.\n");
+        builder.append("  TITLE     Direct Submission\n");
+        builder.append("  JOURNAL   Unpublished\n");
+        builder.append("FEATURES             Location/Qualifiers\n");
+        builder.append("     source          1..").append(length).append("\n");
+        builder.append("                     /organism=\"Escherichia coli\"\n");
+        builder.append("                     /mol_type=\"genomic DNA\"\n");
+
+        int region = length / geneCount;
+        for (int i = 0; i < geneCount; i += 1) {
+            int start = i * region + 1 + random.nextInt(Math.max(1, region / 10));
+            int codons = (region - (start - i * region)) * 8 / 10 / 3;
+            int end = start + codons * 3 - 1;
+            String location = start + ".." + end;
+            if (random.nextBoolean())
+                location = "complement(" + location + ")";
+
+            String locusTag = String.format("%s_%05d", name, i + 1);
+            builder.append(String.format("     %-16s%s\n", "gene", location));
+            builder.append("                     /locus_tag=\"").append(locusTag).append("\"\n");
+            builder.append(String.format("     %-16s%s\n", "CDS", location));
+            builder.append("                     /locus_tag=\"").append(locusTag).append("\"\n");
+            builder.append("                     /codon_start=1\n");
+            builder.append("                     /transl_table=11\n");
+            builder.append("                     /product=\"hypothetical protein ").append(i + 1).append("\"\n");
+            builder.append("                     /note=\"synthetic feature\"\n");
+
+            StringBuilder translation = new StringBuilder("/translation=\"M");
+            for (int j = 1; j < codons - 1; j += 1) {
+                translation.append(AMINO_ACIDS[random.nextInt(AMINO_ACIDS.length)]);
+            }
+            translation.append('"');
+            for (int j = 0; j < translation.length(); j += 58) {
+                builder.append("                     ")
+                        .append(translation, j, Math.min(translation.length(), j + 58)).append('\n');
+            }
+        }
+
+        builder.append("ORIGIN\n");
+        for (int i = 0; i < length; i += 60) {
+            builder.append(String.format("%9d", i + 1));
+            for (int j = i; j < Math.min(length, i + 60); j += 10) {
+                builder.append(' ').append(sequence, j, Math.min(length, j + 10));
+            }
+            builder.append('\n');
+        }
+        builder.append("//\n");
+        return builder.toString();
+    }
+
+    public static String fasta(String name, int length) {
+        String sequence = sequence(length);
+        StringBuilder builder = new StringBuilder(length + length / 70 + 100);
+        builder.append('>').append(name).append(" Synthetic ").append(name).append(", complete sequence\n");
+        for (int i = 0; i < length; i += 70) {
+            builder.append(sequence, i, Math.min(length, i + 70)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Converts genbank to an SBOL 2 (rdf/xml) document
+     */
+    private static byte[] sbol(byte[] genBank) throws IOException {
+        try {
+            SBOLReader.setURIPrefix("http://registry.jbei.org/benchmark");
+            SBOLDocument document = SBOLReader.read(new ByteArrayInputStream(genBank));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SBOLWriter.write(document, out);
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new IOException("Could not convert genbank to SBOL", e);
+        } finally {
+            SBOLReader.unsetURIPrefix();
+        }
+    }
+
+    /**
+     * Generates an ABIF (ABI sequencer) file with the records read by {@link org.jbei.ice.lib.parsers.abi.ABITrace}:
+     * four channels of trace data (DATA 9-12), the base order (FWO_), base calls (PBAS 2) and peak locations
+     * (PLOC 2). Each base call is a gaussian peak in its channel over a low level of noise
+     */
+    public static byte[] trace(int baseCount) throws IOException {
+        Random random = new Random(baseCount);
+        String bases = sequence(baseCount).toUpperCase();
+        String order = "GATC";
+        int scans = baseCount * SCANS_PER_BASE;
+
+        short[][] channels = new short[4][scans];
+        short[] locations = new short[baseCount];
+        for (int i = 0; i < scans; i += 1) {
+            for (short[] channel : channels) {
+                channel[i] = (short) random.nextInt(40);
+            }
+        }
+        for (int i = 0; i < baseCount; i += 1) {
+            int peak = i * SCANS_PER_BASE + SCANS_PER_BASE / 2;
+            locations[i] = (short) peak;
+            short[] channel = channels[order.indexOf(bases.charAt(i))];
+            int height = 500 + random.nextInt(1000);
+            for (int j = Math.max(0, peak - 6); j < Math.min(scans, peak + 6); j += 1) {
+                double distance = (j - peak) / 2.0;
+                channel[j] += (short) (height * Math.exp(-distance * distance / 2));
+            }
+        }
+
+        // data (following 128 byte header)
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        int headerSize = 128;
+        int[] channelOffsets = new int[4];
+        for (int i = 0; i < 4; i += 1) {
+            channelOffsets[i] = headerSize + dataOut.size();
+            for (short value : channels[i]) {
+                dataOut.writeShort(value);
+            }
+        }
+        int basesOffset = headerSize + dataOut.size();
+        dataOut.writeBytes(bases);
+        int locationsOffset = headerSize + dataOut.size();
+        for (short location : locations) {
+            dataOut.writeShort(location);
+        }
+
+        // directory
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        DataOutputStream directoryOut = new DataOutputStream(directory);
+        for (int i = 1; i <= 8; i += 1) {
+            writeDirectoryEntry(directoryOut, "DATA", i, 4, 2, 0, 0);
+        }
+        for (int i = 0; i < 4; i += 1) {
+            writeDirectoryEntry(directoryOut, "DATA", 9 + i, 4, 2, scans, channelOffsets[i]);
+        }
+        int fwo = (order.charAt(0) << 24) | (order.charAt(1) << 16) | (order.charAt(2) << 8) | order.charAt(3);
+        writeDirectoryEntry(directoryOut, "FWO_", 1, 2, 1, 4, fwo);
+        writeDirectoryEntry(directoryOut, "PBAS", 1, 2, 1, baseCount, basesOffset);
+        writeDirectoryEntry(directoryOut, "PBAS", 2, 2, 1, baseCount, basesOffset);
+        writeDirectoryEntry(directoryOut, "PLOC", 1, 4, 2, baseCount, locationsOffset);
+        writeDirectoryEntry(directoryOut, "PLOC", 2, 4, 2, baseCount, locationsOffset);
+        int entries = directoryOut.size() / 28;
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream fileOut = new DataOutputStream(file);
+        fileOut.writeBytes("ABIF");
+        fileOut.writeShort(101);
+        writeDirectoryEntry(fileOut, "tdir", 1, 1023, 28, entries, headerSize + dataOut.size());
+        fileOut.write(new byte[headerSize - fileOut.size()]);
+        data.writeTo(fileOut);
+        directory.writeTo(fileOut);
+        return file.toByteArray();
+    }
+
+    private static void writeDirectoryEntry(DataOutputStream out, String name, int number, int type, int size,
+                                            int count, int offset) throws IOException {
+        out.writeBytes(name);
+        out.writeInt(number);
+        out.writeShort(type);
+        out.writeShort(size);
+        out.writeInt(count);
+        out.writeInt(count * size);
+        out.writeInt(offset);
+        out.writeInt(0);
+    }
+}
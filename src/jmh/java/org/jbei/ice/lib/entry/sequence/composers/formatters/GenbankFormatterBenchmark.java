@@ -0,0 +1,53 @@
+package org.jbei.ice.lib.entry.sequence.composers.formatters;
+
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.entry.sequence.SequenceController;
+import org.jbei.ice.lib.parsers.genbank.GenBankParser;
+import org.jbei.ice.storage.model.Part;
+import org.jbei.ice.storage.model.Sequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of stored sequences (as done for downloads) using {@link GenbankFormatter} for a plasmid and a
+ * bacterial genome
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenbankFormatterBenchmark {
+
+    @Param({"PLASMID", "GENOME"})
+    private Corpus file;
+
+    private Sequence sequence;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() throws Exception {
+        sequence = SequenceController.dnaSequenceToSequence(
+                new GenBankParser().parse(new StringReader(file.getText())));
+        Part part = new Part();
+        part.setPartNumber("JBx_000001");
+        part.setName(file.name().toLowerCase());
+        part.setShortDescription("benchmark " + file.getFileName());
+        sequence.setEntry(part);
+    }
+
+    @Benchmark
+    public int format() throws Exception {
+        out.reset();
+        GenbankFormatter formatter = new GenbankFormatter(sequence.getEntry().getName());
+        formatter.setCircular(file == Corpus.PLASMID);
+        formatter.format(sequence, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,78 @@
+package org.jbei.ice.lib.entry.sequence.composers.formatters;
+
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.entry.sequence.SequenceController;
+import org.jbei.ice.lib.parsers.genbank.GenBankParser;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.Part;
+import org.jbei.ice.storage.model.Sequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of stored sequences (as done for downloads) using {@link SBOLFormatter}. Only the plasmid is used; the
+ * (schema validating) SBOL 1 writer takes minutes for a genome sized sequence
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SBOLFormatterBenchmark {
+
+    private Sequence sequence;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    /**
+     * The formatters look up the uri prefix in the configuration so they require a (mock) database
+     */
+    @State(Scope.Thread)
+    public static class Database {
+
+        @Setup(Level.Trial)
+        public void initialize() {
+            HibernateUtil.initializeMock();
+        }
+
+        @Setup(Level.Iteration)
+        public void begin() {
+            HibernateUtil.beginTransaction();
+        }
+
+        @TearDown(Level.Iteration)
+        public void commit() {
+            HibernateUtil.commitTransaction();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        sequence = SequenceController.dnaSequenceToSequence(
+                new GenBankParser().parse(new StringReader(Corpus.PLASMID.getText())));
+        Part part = new Part();
+        part.setPartNumber("JBx_000001");
+        part.setName("plasmid");
+        part.setShortDescription("benchmark " + Corpus.PLASMID.getFileName());
+        sequence.setEntry(part);
+    }
+
+    @Benchmark
+    public int sbol1(Database database) throws Exception {
+        out.reset();
+        new SBOLFormatter(true).format(sequence, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int sbol2(Database database) throws Exception {
+        out.reset();
+        new SBOLFormatter(false).format(sequence, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,41 @@
+package org.jbei.ice.lib.parsers.abi;
+
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.dto.DNASequence;
+import org.jbei.ice.lib.parsers.ABIParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading of sequencing traces: parsing of the trace file ({@link ABITrace}) and extraction of the base calls
+ * ({@link ABIParser}) as done when a trace is uploaded
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ABITraceBenchmark {
+
+    private byte[] trace;
+
+    @Setup
+    public void setUp() throws IOException {
+        trace = Corpus.TRACE.getBytes();
+    }
+
+    @Benchmark
+    public ABITrace trace() {
+        return new ABITrace(trace);
+    }
+
+    @Benchmark
+    public DNASequence parse() throws Exception {
+        return new ABIParser().parse(trace);
+    }
+}
@@ -0,0 +1,37 @@
+package org.jbei.ice.lib.parsers.fasta;
+
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.dto.DNASequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link FastaParser} for a plasmid and a bacterial genome
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FastaParserBenchmark {
+
+    @Param({"PLASMID_FASTA", "GENOME_FASTA"})
+    private Corpus file;
+
+    private String fasta;
+
+    @Setup
+    public void setUp() throws IOException {
+        fasta = file.getText();
+    }
+
+    @Benchmark
+    public DNASequence parse() throws Exception {
+        return new FastaParser().parse(fasta);
+    }
+}
@@ -0,0 +1,49 @@
+package org.jbei.ice.lib.parsers.genbank;
+
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.dto.DNASequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single pass {@link GenBankParser} with the previous (split then parse)
+ * {@link LegacyGenBankParser} for a plasmid and a bacterial genome
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenBankParserBenchmark {
+
+    @Param({"PLASMID", "GENOME"})
+    private Corpus file;
+
+    private String genbank;
+
+    @Setup
+    public void setUp() throws IOException {
+        genbank = file.getText();
+    }
+
+    @Benchmark
+    public DNASequence legacy() throws Exception {
+        return new LegacyGenBankParser().parse(genbank);
+    }
+
+    @Benchmark
+    public DNASequence singlePass() throws Exception {
+        return new GenBankParser().parse(genbank);
+    }
+
+    @Benchmark
+    public DNASequence singlePassReader() throws Exception {
+        return new GenBankParser().parse(new StringReader(genbank));
+    }
+}
@@ -0,0 +1,44 @@
+package org.jbei.ice.lib.parsers.sbol;
+
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.dto.DNASequence;
+import org.openjdk.jmh.annotations.*;
+import org.sbolstandard.core2.SBOLDocument;
+import org.sbolstandard.core2.SBOLReader;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading of SBOL documents and their conversion to a sequence; the steps of {@link SBOLParser#parse} that do not
+ * involve creating entries
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SBOLParserBenchmark {
+
+    private byte[] sbol;
+    private SBOLDocument document;
+
+    @Setup
+    public void setUp() throws Exception {
+        sbol = Corpus.SBOL.getBytes();
+        document = SBOLReader.read(new ByteArrayInputStream(sbol));
+    }
+
+    @Benchmark
+    public SBOLDocument read() throws Exception {
+        return SBOLReader.read(new ByteArrayInputStream(sbol));
+    }
+
+    @Benchmark
+    public DNASequence toDNASequence() {
+        return SBOLParser.toDNASequence(document);
+    }
+}
@@ -0,0 +1,92 @@
+package org.jbei.ice.lib.utils;
+
+import org.biojava.bio.seq.DNATools;
+import org.jbei.ice.benchmark.Corpus;
+import org.jbei.ice.lib.parsers.genbank.GenBankParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SequenceUtils} operations performed when sequences are saved (hashes of the sequence and of its reverse
+ * complement), when features are indexed (reverse complement) and displayed (translation) for a plasmid and a
+ * bacterial genome. The <code>bioJava</code> benchmarks are the previous implementations (using BioJava symbol
+ * lists) for comparison
+ *
+ * @author Hector Plahar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SequenceUtilsBenchmark {
+
+    @Param({"PLASMID", "GENOME"})
+    private Corpus file;
+
+    private String sequence;
+    private byte[] sequenceBytes;
+    private String codingSequence;
+
+    @Setup
+    public void setUp() throws Exception {
+        sequence = new GenBankParser().parse(new StringReader(file.getText())).getSequence();
+        sequenceBytes = sequence.getBytes("US-ASCII");
+        // biojava translation requires complete codons
+        codingSequence = sequence.substring(0, sequence.length() - sequence.length() % 3);
+    }
+
+    @Benchmark
+    public String reverseComplement() throws Exception {
+        return SequenceUtils.reverseComplement(sequence);
+    }
+
+    @Benchmark
+    public byte[] reverseComplementBytes() throws Exception {
+        return SequenceUtils.reverseComplement(sequenceBytes);
+    }
+
+    @Benchmark
+    public String reverseComplementBioJava() throws Exception {
+        return DNATools.reverseComplement(DNATools.createDNA(sequence)).seqString();
+    }
+
+    @Benchmark
+    public String translateToProtein() throws Exception {
+        return SequenceUtils.translateToProtein(codingSequence);
+    }
+
+    @Benchmark
+    public String translateToProteinBioJava() throws Exception {
+        return DNATools.toProtein(DNATools.createDNA(codingSequence)).seqString();
+    }
+
+    @Benchmark
+    public String[] translateSixFrames() throws Exception {
+        return SequenceUtils.translateSixFrames(sequence);
+    }
+
+    @Benchmark
+    public String calculateSequenceHash() {
+        return SequenceUtils.calculateSequenceHash(sequence);
+    }
+
+    @Benchmark
+    public String calculateSequenceHashString() {
+        return Utils.encryptSHA(sequence.trim().toLowerCase());
+    }
+
+    @Benchmark
+    public String calculateReverseComplementSequenceHash() throws Exception {
+        return SequenceUtils.calculateReverseComplementSequenceHash(sequence);
+    }
+
+    @Benchmark
+    public String calculateReverseComplementSequenceHashBioJava() throws Exception {
+        String reverseComplement = DNATools.reverseComplement(DNATools.createDNA(sequence)).seqString();
+        return Utils.encryptSHA(reverseComplement.trim().toLowerCase());
+    }
+}
@@ -1,11 +1,16 @@
 package org.jbei.ice;
 
 import org.jbei.ice.lib.account.AccountController;
+import org.jbei.ice.lib.bulkupload.BulkUploadController;
 import org.jbei.ice.lib.config.ConfigurationController;
 import org.jbei.ice.lib.entry.sequence.annotation.AutoAnnotationBlastDbBuildTask;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.lib.search.SearchController;
+import org.jbei.ice.lib.search.SequenceSearchEngine;
 import org.jbei.ice.lib.search.blast.BlastPlus;
+import org.jbei.ice.lib.search.kmer.KmerSequenceIndex;
+import org.jbei.ice.storage.DAOFactory;
 
 /**
  * Responsible for initializing the ICE application
@@ -24,6 +29,9 @@ public class ApplicationInitialize {
         GroupController groupController = new GroupController();
         groupController.createOrRetrievePublicGroup();
 
+        // populate the group hierarchy for groups created before it was maintained
+        DAOFactory.getGroupClosureDAO().rebuildIfIncomplete();
+
         // check for and create admin account
         AccountController accountController = new AccountController();
         accountController.createAdminAccount();
@@ -34,8 +42,14 @@ public class ApplicationInitialize {
 
         // check blast
         BlastPlus.scheduleBlastIndexRebuildTask(false);
+        if (SearchController.getSequenceSearchEngine() == SequenceSearchEngine.KMER)
+            KmerSequenceIndex.getInstance().scheduleBuild();
 
         AutoAnnotationBlastDbBuildTask autoAnnotationBlastDbBuildTask = new AutoAnnotationBlastDbBuildTask();
         IceExecutorService.getInstance().runTask(autoAnnotationBlastDbBuildTask);
+
+        // continue processing of uploaded files interrupted by shutdown
+        BulkUploadController bulkUploadController = new BulkUploadController();
+        bulkUploadController.resumeProcessing();
     }
 }
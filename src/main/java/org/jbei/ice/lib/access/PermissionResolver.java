@@ -0,0 +1,183 @@
+package org.jbei.ice.lib.access;
+
+import org.jbei.ice.lib.dto.CacheStatistics;
+import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.hibernate.dao.PermissionDAO;
+import org.jbei.ice.storage.model.Account;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the entries that an account is able to read or write for sets of entries, using one query for each
+ * set instead of separate permission checks for each entry.
+ * <p>
+ * The effective groups of an account (the groups it belongs to, their parent groups and the public group) are
+ * computed once and cached. The cache is bounded by the number of accounts (least recently used accounts are
+ * removed) and is invalidated by the group and account data accessors when groups or group memberships change
+ * (once immediately and again when the transaction that made the change commits).
+ * Administrative privileges are not taken into account
+ *
+ * @author Hector Plahar
+ */
+public class PermissionResolver {
+
+    public static final String REGION = "account-groups";
+
+    private static final int MAX_ACCOUNTS = 10000;
+
+    // access ordered; account id -> ids of effective groups
+    private static final LinkedHashMap<Long, Set<Long>> ACCOUNT_GROUPS = new LinkedHashMap<>(16, 0.75f, true);
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong PUTS = new AtomicLong();
+
+    private final PermissionDAO permissionDAO;
+
+    public PermissionResolver() {
+        this.permissionDAO = DAOFactory.getPermissionDAO();
+    }
+
+    /**
+     * Invalidates the cached groups of all accounts. Called when groups or group memberships change
+     */
+    public static void invalidate() {
+        clear();
+        HibernateUtil.afterCommit(PermissionResolver::clear);
+    }
+
+    /**
+     * Invalidates the cached groups of the account. Called when the group memberships of the account change
+     *
+     * @param account account whose groups have changed
+     */
+    public static void invalidate(Account account) {
+        long accountId = account.getId();
+        clear(accountId);
+        HibernateUtil.afterCommit(() -> clear(accountId));
+    }
+
+    private static void clear(long accountId) {
+        synchronized (ACCOUNT_GROUPS) {
+            GENERATION.incrementAndGet();
+            ACCOUNT_GROUPS.remove(accountId);
+        }
+    }
+
+    private static void clear() {
+        synchronized (ACCOUNT_GROUPS) {
+            GENERATION.incrementAndGet();
+            ACCOUNT_GROUPS.clear();
+        }
+    }
+
+    /**
+     * Retrieves the identifiers of the effective groups of the account; the groups it is a member of, their parent
+     * groups and the public group
+     *
+     * @param account account whose groups are being retrieved. If null, only the public group is returned
+     * @return unmodifiable set of group identifiers
+     */
+    public Set<Long> getGroupIds(Account account) {
+        if (account == null)
+            return Collections.singleton(new GroupController().getPublicGroupId());
+
+        long generation;
+        synchronized (ACCOUNT_GROUPS) {
+            Set<Long> groupIds = ACCOUNT_GROUPS.get(account.getId());
+            if (groupIds != null) {
+                HITS.incrementAndGet();
+                return groupIds;
+            }
+            generation = GENERATION.get();
+        }
+
+        MISSES.incrementAndGet();
+        Set<Long> groupIds = Collections.unmodifiableSet(new GroupController().getAllAccountGroups(account));
+
+        synchronized (ACCOUNT_GROUPS) {
+            // discard if invalidated while the groups were being retrieved
+            if (generation == GENERATION.get()) {
+                ACCOUNT_GROUPS.put(account.getId(), groupIds);
+                PUTS.incrementAndGet();
+                Iterator<Long> iterator = ACCOUNT_GROUPS.keySet().iterator();
+                while (ACCOUNT_GROUPS.size() > MAX_ACCOUNTS && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return groupIds;
+    }
+
+    /**
+     * @param account  account to check permissions for
+     * @param entryIds unique identifiers of entries to check
+     * @return identifiers of the entries that the account can read
+     * @see PermissionDAO#getReadableEntryIds(Account, Set, Collection)
+     */
+    public Set<Long> canRead(Account account, Collection<Long> entryIds) {
+        if (entryIds.isEmpty())
+            return new HashSet<>();
+        return permissionDAO.getReadableEntryIds(account, getGroupIds(account), entryIds);
+    }
+
+    /**
+     * @param account  account to check permissions for
+     * @param entryIds unique identifiers of entries to check
+     * @return identifiers of the entries that the account can write to
+     * @see PermissionDAO#getWritableEntryIds(Account, Set, Collection)
+     */
+    public Set<Long> canWrite(Account account, Collection<Long> entryIds) {
+        return canWrite(account, entryIds, false);
+    }
+
+    /**
+     * @param account        account to check permissions for
+     * @param entryIds       unique identifiers of entries to check
+     * @param includeFolders whether write permissions on folders that contain the entries are included
+     * @return identifiers of the entries that the account can write to
+     * @see PermissionDAO#getWritableEntryIds(Account, Set, Collection, boolean)
+     */
+    public Set<Long> canWrite(Account account, Collection<Long> entryIds, boolean includeFolders) {
+        if (entryIds.isEmpty())
+            return new HashSet<>();
+        return permissionDAO.getWritableEntryIds(account, getGroupIds(account), entryIds, includeFolders);
+    }
+
+    /**
+     * Filters the list of entries, removing those that the account cannot read or that are not visible
+     *
+     * @param account account to filter entries by
+     * @param entries list of entry ids to filter
+     * @return filtered list, in the same order
+     */
+    public List<Long> getCanReadEntries(Account account, List<Long> entries) {
+        if (entries.isEmpty())
+            return new ArrayList<>();
+        return permissionDAO.getCanReadEntries(account, getGroupIds(account), entries);
+    }
+
+    public static CacheStatistics getStatistics() {
+        int count;
+        synchronized (ACCOUNT_GROUPS) {
+            count = ACCOUNT_GROUPS.size();
+        }
+
+        long hits = HITS.get();
+        long misses = MISSES.get();
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        cacheStatistics.setRegion(REGION);
+        cacheStatistics.setHitCount(hits);
+        cacheStatistics.setMissCount(misses);
+        cacheStatistics.setPutCount(PUTS.get());
+        cacheStatistics.setElementCount(count);
+        if (hits + misses > 0)
+            cacheStatistics.setHitRatio((double) hits / (hits + misses));
+        return cacheStatistics;
+    }
+}
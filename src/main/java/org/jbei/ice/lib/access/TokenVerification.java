@@ -10,16 +10,18 @@ import org.jbei.ice.storage.model.RemotePartner;
 
 /**
  * Verifies the different tokens that ICE handles including <code>API</code> token,
- * <code>Web of registries token</code>
+ * <code>Web of registries token</code>. Successful verifications are cached in {@link VerifiedTokenCache}
  *
  * @author Hector Plahar
  */
 public class TokenVerification {
 
     private final TokenHash tokenHash;
+    private final VerifiedTokenCache cache;
 
     public TokenVerification() {
         this.tokenHash = new TokenHash();
+        this.cache = VerifiedTokenCache.getInstance();
     }
 
     public String verifyAPIKey(String token, String clientId, String userId) {
@@ -29,9 +31,13 @@ public class TokenVerification {
         if (key == null)
             throw new PermissionException("Invalid client Id " + clientId);
 
-        String hash_token = tokenHash.encrypt(token, clientId + key.getSecret() + clientId);
-        if (!hash_token.equalsIgnoreCase(key.getHashedToken()))
-            throw new PermissionException("Invalid token");
+        String cacheKey = cache.getKey("api", clientId, token);
+        if (!cache.isVerified(cacheKey, key.getHashedToken())) {
+            String hash_token = tokenHash.encrypt(token, clientId + key.getSecret() + clientId);
+            if (!hash_token.equalsIgnoreCase(key.getHashedToken()))
+                throw new PermissionException("Invalid token");
+            cache.put(cacheKey, key.getHashedToken());
+        }
 
         // if the api belongs to an admin, accept whatever user id they present
         Account account = DAOFactory.getAccountDAO().getByEmail(key.getOwnerEmail());
@@ -49,9 +55,13 @@ public class TokenVerification {
         if (remotePartner == null)
             return null;
 
-        String hash = this.tokenHash.encrypt(token + url, remotePartner.getSalt());
-        if (!hash.equals(remotePartner.getAuthenticationToken()))
-            return null;
+        String cacheKey = cache.getKey("partner", url, token);
+        if (!cache.isVerified(cacheKey, remotePartner.getAuthenticationToken())) {
+            String hash = this.tokenHash.encrypt(token + url, remotePartner.getSalt());
+            if (!hash.equals(remotePartner.getAuthenticationToken()))
+                return null;
+            cache.put(cacheKey, remotePartner.getAuthenticationToken());
+        }
         return remotePartner.toDataTransferObject();
     }
 }
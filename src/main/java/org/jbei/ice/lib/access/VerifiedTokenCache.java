@@ -0,0 +1,178 @@
+package org.jbei.ice.lib.access;
+
+import org.jbei.ice.lib.dto.CacheStatistics;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of successful token verifications, used by {@link TokenVerification} to avoid repeating the (deliberately
+ * slow) key derivation of {@link org.jbei.ice.lib.account.TokenHash} for every request made with the same
+ * credentials.
+ * <p>
+ * Entries are keyed by an HMAC-SHA256 digest (using a random key generated for each process) of the credentials
+ * so raw tokens are not held in memory. Each entry records the stored hash the token was verified against and is
+ * only used while that hash is unchanged, the entry has not expired and the cache has not been invalidated.
+ * The number of entries is bounded; least recently used entries are removed when the bound is exceeded.
+ * Changes to api keys and remote partners invalidate the cache
+ *
+ * @author Hector Plahar
+ */
+public class VerifiedTokenCache {
+
+    public static final String REGION = "verified-tokens";
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static VerifiedTokenCache INSTANCE;
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Mac> mac;
+
+    // access ordered
+    private final LinkedHashMap<String, Verification> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+
+    /**
+     * @param maxEntries maximum number of verifications held
+     * @param timeToLive time (in ms) after which a verification has to be repeated
+     */
+    VerifiedTokenCache(int maxEntries, long timeToLive) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::createMac);
+    }
+
+    public static synchronized VerifiedTokenCache getInstance() {
+        if (INSTANCE == null)
+            INSTANCE = new VerifiedTokenCache(MAX_ENTRIES, TIME_TO_LIVE);
+        return INSTANCE;
+    }
+
+    /**
+     * @param parts credentials e.g. client id and token. Null values are treated as empty
+     * @return cache key for the credentials
+     */
+    public String getKey(String... parts) {
+        Mac digest = mac.get();
+        for (int i = 0; i < parts.length; i += 1) {
+            if (i > 0)
+                digest.update((byte) 0);
+            if (parts[i] != null)
+                digest.update(parts[i].getBytes(StandardCharsets.UTF_8));
+        }
+        return DatatypeConverter.printBase64Binary(digest.doFinal());
+    }
+
+    /**
+     * @param key        cache key for the credentials
+     * @param storedHash current stored hash of the token the credentials are verified against
+     * @return true if the credentials were verified against the same stored hash and the verification has not
+     * expired
+     */
+    public boolean isVerified(String key, String storedHash) {
+        synchronized (entries) {
+            Verification verification = entries.get(key);
+            if (verification != null) {
+                if (verification.expires > System.currentTimeMillis()
+                        && verification.storedHash.equals(storedHash)) {
+                    hits.incrementAndGet();
+                    return true;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records a successful verification of the credentials
+     *
+     * @param key        cache key for the credentials
+     * @param storedHash stored hash of the token the credentials were verified against
+     */
+    public void put(String key, String storedHash) {
+        if (storedHash == null)
+            return;
+
+        synchronized (entries) {
+            entries.put(key, new Verification(storedHash, System.currentTimeMillis() + timeToLive));
+            Iterator<Map.Entry<String, Verification>> iterator = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        puts.incrementAndGet();
+    }
+
+    /**
+     * Removes all verifications. Called when the records that tokens are verified against change
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        int count;
+        synchronized (entries) {
+            count = entries.size();
+        }
+
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        cacheStatistics.setRegion(REGION);
+        cacheStatistics.setHitCount(hitCount);
+        cacheStatistics.setMissCount(missCount);
+        cacheStatistics.setPutCount(puts.get());
+        cacheStatistics.setElementCount(count);
+        if (hitCount + missCount > 0)
+            cacheStatistics.setHitRatio((double) hitCount / (hitCount + missCount));
+        return cacheStatistics;
+    }
+
+    private Mac createMac() {
+        try {
+            Mac digest = Mac.getInstance(HMAC_ALGORITHM);
+            digest.init(secretKey);
+            return digest;
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 is required to be supported by all java platforms
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Verification {
+        private final String storedHash;
+        private final long expires;
+
+        Verification(String storedHash, long expires) {
+            this.storedHash = storedHash;
+            this.expires = expires;
+        }
+    }
+}
@@ -2,32 +2,87 @@ package org.jbei.ice.lib.account;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.account.session.DatabaseSessionStore;
+import org.jbei.ice.lib.account.session.MemorySessionStore;
+import org.jbei.ice.lib.account.session.SessionStore;
+import org.jbei.ice.lib.account.session.SessionStoreType;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.model.Account;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Creates and maintains the web application sessions for users who have successfully authenticated
+ * Creates and maintains the web application sessions for users who have successfully authenticated.
+ * Sessions are kept in the {@link SessionStore} selected by {@link ConfigurationKey#SESSION_STORE} (read when the
+ * first session is accessed) and expire after {@link #MAX_AGE} or when they have not been used for
+ * {@link #IDLE_TIMEOUT}
  *
  * @author Hector Plahar
  */
 public class UserSessions {
 
-    private final static ConcurrentHashMap<String, Set<String>> userSessionMap = new ConcurrentHashMap<>();
+    public static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    public static final long IDLE_TIMEOUT = TimeUnit.DAYS.toMillis(7);
 
-    public static String getUserIdBySession(String sessionId) {
-        for (Map.Entry<String, Set<String>> entrySet : userSessionMap.entrySet()) {
-            if (entrySet.getValue().contains(sessionId)) {
-                return entrySet.getKey();
+    // expired sessions are removed (when a session is created) at most once per interval
+    private static final long CLEANUP_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    // database store
+    private static final long CACHE_TIME_TO_LIVE = TimeUnit.SECONDS.toMillis(30);
+    private static final long ACCESS_RESOLUTION = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_CACHED_SESSIONS = 10000;
+
+    private static volatile SessionStore store;
+    private static final AtomicLong nextCleanup = new AtomicLong();
+
+    // created on first use since the configured type is read from the database; only that first use locks
+    protected static SessionStore getStore() {
+        SessionStore sessionStore = store;
+        if (sessionStore != null)
+            return sessionStore;
+
+        synchronized (UserSessions.class) {
+            if (store == null) {
+                SessionStoreType type = getSessionStoreType();
+                Logger.info("Using " + type.name().toLowerCase() + " session store");
+                if (type == SessionStoreType.DATABASE) {
+                    store = new DatabaseSessionStore(MAX_AGE, IDLE_TIMEOUT, CACHE_TIME_TO_LIVE, ACCESS_RESOLUTION,
+                            MAX_CACHED_SESSIONS);
+                } else {
+                    store = new MemorySessionStore(MAX_AGE, IDLE_TIMEOUT);
+                }
             }
+            return store;
         }
-        return null;
+    }
+
+    /**
+     * @return session store type specified in the configuration. Defaults to MEMORY if the configured value is not
+     * valid
+     */
+    public static SessionStoreType getSessionStoreType() {
+        String value = Utils.getConfigValue(ConfigurationKey.SESSION_STORE);
+        try {
+            return SessionStoreType.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Logger.warn("Invalid session store \"" + value + "\". Using MEMORY");
+            return SessionStoreType.MEMORY;
+        }
+    }
+
+    /**
+     * @param sessionId unique session identifier
+     * @return identifier of user the session belongs to or null if the session does not exist or has expired
+     */
+    public static String getUserIdBySession(String sessionId) {
+        if (StringUtils.isEmpty(sessionId))
+            return null;
+        return getStore().getUserId(sessionId);
     }
 
     /**
@@ -44,12 +99,12 @@ public class UserSessions {
     }
 
     protected static void putSession(String userId, String sessionId) {
-        Set<String> sessionIds = userSessionMap.get(userId);
-        if (sessionIds == null) {
-            sessionIds = new HashSet<>();
-            userSessionMap.put(userId, sessionIds);
-        }
-        sessionIds.add(sessionId);
+        SessionStore sessionStore = getStore();
+        long now = System.currentTimeMillis();
+        long cleanup = nextCleanup.get();
+        if (now >= cleanup && nextCleanup.compareAndSet(cleanup, now + CLEANUP_INTERVAL))
+            sessionStore.removeExpired();
+        sessionStore.put(sessionId, userId);
     }
 
     /**
@@ -70,15 +125,15 @@ public class UserSessions {
     }
 
     /**
-     * Invalidates the session id for the specified user
-     * by removing the stored session id
+     * Invalidates the sessions of the specified user
+     * by removing the stored session ids
      *
      * @param userId unique user id
      */
     public static void invalidateSession(String userId) {
         if (userId == null)
             return;
-        userSessionMap.remove(userId);
+        getStore().removeUserSessions(userId);
     }
 
     /**
@@ -0,0 +1,167 @@
+package org.jbei.ice.lib.account.session;
+
+import org.jbei.ice.lib.utils.Utils;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.UserSessionDAO;
+import org.jbei.ice.storage.model.UserSessionModel;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Session store backed by the <code>user_session</code> table so that sessions survive restarts and can be shared
+ * by several instances using the same database. Sessions are stored by the SHA-256 hash of their id; the id
+ * itself is only held in the local cache.
+ * <p>
+ * Sessions read from the database are held in a bounded local cache for a short time so that most requests do
+ * not need a query. As a result, a session removed by another instance can still be used on this one until its
+ * cached copy expires. Access times are written to the database at most once per
+ * <code>accessResolution</code> for each session.
+ * <p>
+ * Methods must be called with an active transaction
+ *
+ * @author Hector Plahar
+ */
+public class DatabaseSessionStore implements SessionStore {
+
+    private final long maxAge;
+    private final long idleTimeout;
+    private final long cacheTimeToLive;
+    private final long accessResolution;
+    private final int maxCachedSessions;
+    private final UserSessionDAO dao;
+
+    // access ordered
+    private final LinkedHashMap<String, CachedSession> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxAge            maximum age (in ms) of a session
+     * @param idleTimeout       maximum time (in ms) between accesses of a session
+     * @param cacheTimeToLive   time (in ms) a session is used from the local cache before it is read again
+     * @param accessResolution  minimum time (in ms) between writes of the access time of a session
+     * @param maxCachedSessions maximum number of sessions held in the local cache
+     */
+    public DatabaseSessionStore(long maxAge, long idleTimeout, long cacheTimeToLive, long accessResolution,
+                                int maxCachedSessions) {
+        this.maxAge = maxAge;
+        this.idleTimeout = idleTimeout;
+        this.cacheTimeToLive = cacheTimeToLive;
+        this.accessResolution = accessResolution;
+        this.maxCachedSessions = maxCachedSessions;
+        this.dao = DAOFactory.getUserSessionDAO();
+    }
+
+    @Override
+    public String getUserId(String sessionId) {
+        long now = System.currentTimeMillis();
+        CachedSession cached;
+        synchronized (cache) {
+            cached = cache.get(sessionId);
+            if (cached != null && cached.cachedUntil <= now) {
+                cache.remove(sessionId);
+                cached = null;
+            }
+        }
+
+        if (cached == null) {
+            // read through
+            UserSessionModel model = dao.getBySessionHash(hash(sessionId));
+            if (model == null)
+                return null;
+            cached = new CachedSession(model.toUserSession(sessionId), now + cacheTimeToLive);
+            cache(sessionId, cached);
+        }
+
+        UserSession session = cached.session;
+        if (session.isExpired(now, maxAge, idleTimeout)) {
+            remove(sessionId);
+            return null;
+        }
+
+        if (now - cached.lastWritten >= accessResolution) {
+            dao.updateLastAccessTime(hash(sessionId), new Date(now));
+            cached.lastWritten = now;
+        }
+        session.setLastAccessed(now);
+        return session.getUserId();
+    }
+
+    @Override
+    public void put(String sessionId, String userId) {
+        long now = System.currentTimeMillis();
+        String sessionHash = hash(sessionId);
+        UserSessionModel model = dao.getBySessionHash(sessionHash);
+        boolean exists = model != null;
+        if (!exists)
+            model = new UserSessionModel();
+        model.setSessionHash(sessionHash);
+        model.setUserId(userId);
+        model.setCreationTime(new Date(now));
+        model.setLastAccessTime(new Date(now));
+        if (exists)
+            dao.update(model);
+        else
+            dao.create(model);
+
+        cache(sessionId, new CachedSession(model.toUserSession(sessionId), now + cacheTimeToLive));
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        synchronized (cache) {
+            cache.remove(sessionId);
+        }
+        dao.deleteBySessionHash(hash(sessionId));
+    }
+
+    @Override
+    public void removeUserSessions(String userId) {
+        synchronized (cache) {
+            cache.values().removeIf(cached -> cached.session.getUserId().equals(userId));
+        }
+        dao.deleteByUserId(userId);
+    }
+
+    @Override
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            cache.values().removeIf(cached -> cached.session.isExpired(now, maxAge, idleTimeout));
+        }
+        dao.deleteExpired(new Date(now - maxAge), new Date(now - idleTimeout));
+    }
+
+    /**
+     * @return SHA-256 hash of the session id, which is what is stored in the database
+     */
+    static String hash(String sessionId) {
+        return Utils.encryptSha256(sessionId);
+    }
+
+    private void cache(String sessionId, CachedSession cached) {
+        synchronized (cache) {
+            cache.put(sessionId, cached);
+            Iterator<Map.Entry<String, CachedSession>> iterator = cache.entrySet().iterator();
+            while (cache.size() > maxCachedSessions && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static class CachedSession {
+        private final UserSession session;
+        private final long cachedUntil;
+
+        // last access time stored in the database
+        private volatile long lastWritten;
+
+        CachedSession(UserSession session, long cachedUntil) {
+            this.session = session;
+            this.cachedUntil = cachedUntil;
+            this.lastWritten = session.getLastAccessed();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.jbei.ice.lib.account.session;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session store that holds sessions in memory. Sessions are indexed by their identifier, and the identifiers of
+ * the sessions of each user are also held so that they can all be removed when the user logs out.
+ * Sessions are lost when the application is restarted
+ *
+ * @author Hector Plahar
+ */
+public class MemorySessionStore implements SessionStore {
+
+    private final long maxAge;
+    private final long idleTimeout;
+
+    private final ConcurrentHashMap<String, UserSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> userSessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAge      maximum age (in ms) of a session
+     * @param idleTimeout maximum time (in ms) between accesses of a session
+     */
+    public MemorySessionStore(long maxAge, long idleTimeout) {
+        this.maxAge = maxAge;
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public String getUserId(String sessionId) {
+        UserSession session = sessions.get(sessionId);
+        if (session == null)
+            return null;
+
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now, maxAge, idleTimeout)) {
+            remove(sessionId);
+            return null;
+        }
+
+        session.setLastAccessed(now);
+        return session.getUserId();
+    }
+
+    @Override
+    public void put(String sessionId, String userId) {
+        long now = System.currentTimeMillis();
+        UserSession session = new UserSession(sessionId, userId, now, now);
+
+        // the set of user sessions is locked while the session is added so that it cannot be missed by a
+        // concurrent removal of the user's sessions
+        UserSession[] previous = new UserSession[1];
+        userSessions.compute(userId, (key, sessionIds) -> {
+            if (sessionIds == null)
+                sessionIds = ConcurrentHashMap.newKeySet();
+            sessionIds.add(sessionId);
+            previous[0] = sessions.put(sessionId, session);
+            return sessionIds;
+        });
+
+        if (previous[0] != null && !previous[0].getUserId().equals(userId))
+            removeFromUser(previous[0].getUserId(), sessionId);
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        UserSession session = sessions.remove(sessionId);
+        if (session != null)
+            removeFromUser(session.getUserId(), sessionId);
+    }
+
+    @Override
+    public void removeUserSessions(String userId) {
+        userSessions.computeIfPresent(userId, (key, sessionIds) -> {
+            for (String sessionId : sessionIds) {
+                sessions.remove(sessionId);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        for (UserSession session : sessions.values()) {
+            if (session.isExpired(now, maxAge, idleTimeout))
+                remove(session.getSessionId());
+        }
+    }
+
+    private void removeFromUser(String userId, String sessionId) {
+        userSessions.computeIfPresent(userId, (key, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+}
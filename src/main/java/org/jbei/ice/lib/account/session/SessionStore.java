@@ -0,0 +1,49 @@
+package org.jbei.ice.lib.account.session;
+
+/**
+ * Storage for the web application sessions of users who have successfully authenticated. Sessions are looked up
+ * directly by their identifier and expire when they reach their maximum age or have not been used for longer than
+ * the idle timeout.
+ * <p>
+ * Implementations must be thread safe
+ *
+ * @author Hector Plahar
+ */
+public interface SessionStore {
+
+    /**
+     * Retrieves the user the session belongs to and records the access for the idle timeout
+     *
+     * @param sessionId unique session identifier
+     * @return identifier of user the session belongs to or null if there is no session with that identifier or the
+     * session has expired
+     */
+    String getUserId(String sessionId);
+
+    /**
+     * Stores a new session for the user. An existing session with the same identifier is replaced
+     *
+     * @param sessionId unique session identifier
+     * @param userId    identifier of user the session belongs to
+     */
+    void put(String sessionId, String userId);
+
+    /**
+     * Removes the session with the specified identifier
+     *
+     * @param sessionId unique session identifier
+     */
+    void remove(String sessionId);
+
+    /**
+     * Removes all the sessions of the specified user
+     *
+     * @param userId unique user identifier
+     */
+    void removeUserSessions(String userId);
+
+    /**
+     * Removes sessions that have expired
+     */
+    void removeExpired();
+}
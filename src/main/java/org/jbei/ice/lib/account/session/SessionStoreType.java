@@ -0,0 +1,16 @@
+package org.jbei.ice.lib.account.session;
+
+/**
+ * Backends available for storing user sessions. Selected using
+ * {@link org.jbei.ice.lib.dto.ConfigurationKey#SESSION_STORE}
+ *
+ * @author Hector Plahar
+ */
+public enum SessionStoreType {
+
+    // sessions are held in memory and are lost on restart
+    MEMORY,
+
+    // sessions are stored in the database (with a local cache) and can be shared by several instances
+    DATABASE
+}
@@ -0,0 +1,51 @@
+package org.jbei.ice.lib.account.session;
+
+/**
+ * Session of a user who has successfully authenticated
+ *
+ * @author Hector Plahar
+ */
+public class UserSession {
+
+    private final String sessionId;
+    private final String userId;
+    private final long created;
+    private volatile long lastAccessed;
+
+    public UserSession(String sessionId, String userId, long created, long lastAccessed) {
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.created = created;
+        this.lastAccessed = lastAccessed;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getLastAccessed() {
+        return lastAccessed;
+    }
+
+    public void setLastAccessed(long lastAccessed) {
+        this.lastAccessed = lastAccessed;
+    }
+
+    /**
+     * @param now         current time in ms
+     * @param maxAge      maximum age (in ms) of a session
+     * @param idleTimeout maximum time (in ms) between accesses of a session
+     * @return true if the session has expired
+     */
+    public boolean isExpired(long now, long maxAge, long idleTimeout) {
+        return now - created > maxAge || now - lastAccessed > idleTimeout;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Helper class for dealing with bulk CSV uploads
@@ -53,38 +54,32 @@ public class BulkCSVUpload {
     }
 
     /**
-     * Processes the csv upload
+     * Processes the csv upload, creating a new bulk upload for its entries if the file validates
      *
      * @return wrapper around id of created bulk upload or error message
      */
     public ProcessedBulkUpload processUpload() {
+        return processUpload(0);
+    }
+
+    /**
+     * Processes the csv upload, creating entries for its rows in the specified bulk upload. If rows of the file were
+     * processed by an earlier, interrupted run then entries are created only for the remaining rows
+     *
+     * @param uploadId unique identifier for bulk upload to create entries in. If 0, a new one is created once the
+     *                 file validates
+     * @return wrapper around id of the bulk upload or error message
+     */
+    public ProcessedBulkUpload processUpload(long uploadId) {
         ProcessedBulkUpload processedBulkUpload = new ProcessedBulkUpload();
+        List<BulkUploadError> errors = new ArrayList<>();
 
         try (FileInputStream inputStream = new FileInputStream(csvFilePath.toFile())) {
-            try {
-                List<PartWithSample> updates = getBulkUploadDataFromFile(inputStream);
-
-                // create actual entries
-                BulkEntryCreator creator = new BulkEntryCreator();
-                long uploadId = creator.createBulkUpload(userId, addType);
-
-                // create entries
-                if (!creator.createEntries(userId, uploadId, updates, null)) {
-                    String errorMsg = "Error creating entries for upload";
-                    throw new IOException(errorMsg);
-                    //todo: delete upload id
-                }
-                processedBulkUpload.setUploadId(uploadId);
-            } catch (IOException e) {
-                // validation exception; convert entries to headers
-                processedBulkUpload.setSuccess(false);
-                processedBulkUpload.setUserMessage("Validation failed");
-                for (EntryField field : invalidFields) {
-                    processedBulkUpload.getHeaders().add(new EntryHeaderValue(false, field));
-                }
-                Logger.error(e);
-                return processedBulkUpload;
-            }
+            List<PartWithSample> updates = getBulkUploadDataFromFile(inputStream, errors::add);
+            if (updates == null)
+                return validationFailed(processedBulkUpload, errors);
+
+            processedBulkUpload.setUploadId(createEntries(uploadId, updates, null));
         } catch (IOException e) {
             // general server error
             processedBulkUpload.setSuccess(false);
@@ -95,6 +90,68 @@ public class BulkCSVUpload {
         return processedBulkUpload;
     }
 
+    /**
+     * Validates the rows of the uploaded file. Each row that fails validation is reported to the listener as
+     * it is encountered
+     *
+     * @param listener receives validation errors
+     * @throws IOException on exception reading the file
+     */
+    public void validate(Consumer<BulkUploadError> listener) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(csvFilePath.toFile())) {
+            getBulkUploadDataFromFile(inputStream, listener);
+        }
+    }
+
+    /**
+     * Creates entries for the validated rows of the file
+     *
+     * @param uploadId unique identifier for bulk upload to create entries in. If 0, a new one is created
+     * @param updates  validated rows
+     * @param files    source of sequence and attachment files referenced in the rows. null if not available
+     * @return unique identifier for the bulk upload
+     * @throws IOException if the entries could not be created
+     */
+    protected long createEntries(long uploadId, List<PartWithSample> updates, BulkUploadFiles files)
+            throws IOException {
+        BulkEntryCreator creator = new BulkEntryCreator();
+        if (uploadId == 0)
+            uploadId = creator.createBulkUpload(userId, addType);
+
+        if (!creator.createEntries(userId, uploadId, updates, files))
+            throw new IOException("Error creating entries for upload");
+        return uploadId;
+    }
+
+    /**
+     * Sets the result of processing for a file that failed validation. The fields that failed validation in any row
+     * are returned as headers
+     */
+    protected ProcessedBulkUpload validationFailed(ProcessedBulkUpload processedBulkUpload,
+                                                   List<BulkUploadError> errors) {
+        processedBulkUpload.setSuccess(false);
+        if (errors.size() == 1 && errors.get(0).getMessage() != null)
+            processedBulkUpload.setUserMessage(errors.get(0).getMessage());
+        else
+            processedBulkUpload.setUserMessage("Validation failed for " + errors.size() + " row(s)");
+
+        for (EntryField field : invalidFields) {
+            processedBulkUpload.getHeaders().add(new EntryHeaderValue(false, field));
+        }
+        return processedBulkUpload;
+    }
+
+    /**
+     * Checks that files referenced in a row are available. Csv uploads do not include files so references are not
+     * checked
+     *
+     * @param data part data for row
+     * @return message describing missing file or null if all referenced files are available
+     */
+    protected String checkFiles(PartData data) {
+        return null;
+    }
+
     EntryType detectSubType(String field) {
         String[] fieldNames = field.split("\\s+");
         return EntryType.nameToType(fieldNames[0]);
@@ -166,9 +223,21 @@ public class BulkCSVUpload {
         return headers;
     }
 
-    // NOTE: this also validates the part data (with the exception of the actual files)
-    List<PartWithSample> getBulkUploadDataFromFile(InputStream inputStream) throws IOException {
+    /**
+     * Reads and validates the rows of the file. All rows are validated, with each row that fails validation
+     * reported to the listener (with its line number) as it is encountered, and the fields that failed validation
+     * collected in {@link #invalidFields}. A file whose headers cannot be parsed is reported as an error for line 1
+     *
+     * @param inputStream contents of csv file. Closed when done
+     * @param listener    receives validation errors
+     * @return rows of the file or null if any failed validation
+     * @throws IOException on exception reading the file
+     */
+    List<PartWithSample> getBulkUploadDataFromFile(InputStream inputStream, Consumer<BulkUploadError> listener)
+            throws IOException {
         List<PartWithSample> partDataList = new LinkedList<>();
+        invalidFields.clear();
+        int errorCount = 0;
 
         // initialize parser to null; when not-null in the loop below, then the header has been parsed
         CSVParser parser = null;
@@ -178,8 +247,10 @@ public class BulkCSVUpload {
         try {
             LineIterator it = IOUtils.lineIterator(inputStream, "UTF-8");
             int index = 0;
+            int lineNumber = 0;
             while (it.hasNext()) {
                 String line = it.nextLine().trim();
+                lineNumber += 1;
 
                 // check if first time parsing (first line)
                 if (parser == null) {
@@ -192,8 +263,13 @@ public class BulkCSVUpload {
                         parser = new CSVParser();
 
                     // get column headers
-                    String[] fieldStrArray = parser.parseLine(line);
-                    headers = processColumnHeaders(fieldStrArray);
+                    try {
+                        String[] fieldStrArray = parser.parseLine(line);
+                        headers = processColumnHeaders(fieldStrArray);
+                    } catch (IOException e) {
+                        listener.accept(new BulkUploadError(lineNumber, e.getMessage()));
+                        return null;
+                    }
                     continue;
                 }
 
@@ -201,10 +277,6 @@ public class BulkCSVUpload {
                 if (StringUtils.isBlank(line) || line.replaceAll(",", "").trim().isEmpty())
                     continue;
 
-                // at this point we must have headers since that should be the first item in the file
-                if (headers == null)
-                    throw new IOException("Could not parse file headers");
-
                 // parser != null; process line contents with available headers
                 String[] valuesArray = parser.parseLine(line);
                 PartData partData = new PartData(addType);
@@ -214,70 +286,94 @@ public class BulkCSVUpload {
                     partData.getLinkedParts().add(new PartData(subType));
                 }
 
-                // for each column
-                for (int i = 0; i < valuesArray.length; i += 1) {
-                    HeaderValue headerForColumn = headers.get(i);
-
-                    // process sample information
-                    if (headerForColumn.isSampleField()) {
-                        // todo : move to another method
-                        if (partSample == null)
-                            partSample = new PartSample();
-                        setPartSampleData(((SampleHeaderValue) headerForColumn).getSampleField(),
-                                partSample, valuesArray[i]);
-                    } else {
-                        EntryHeaderValue entryHeaderValue = (EntryHeaderValue) headerForColumn;
-                        EntryField field = entryHeaderValue.getEntryField();
-                        PartData data;
-                        String value = valuesArray[i];
-                        boolean isSubType = entryHeaderValue.isSubType();
-
-                        if (isSubType)
-                            data = partData.getLinkedParts().get(0);
-                        else
-                            data = partData;
-
-                        // get the data for the field
-                        switch (field) {
-                            case ATT_FILENAME:
-                                ArrayList<AttachmentInfo> attachments = data.getAttachments();
-                                if (attachments == null) {
-                                    attachments = new ArrayList<>();
-                                }
-                                attachments.clear();
-                                attachments.add(new AttachmentInfo(value));
-                                break;
-
-                            case SEQ_FILENAME:
-                                data.setSequenceFileName(value);
-                                break;
-
-                            case SEQ_TRACE_FILES:
-                                // todo
-                                break;
-
-                            case EXISTING_PART_NUMBER:
-                                Entry entry = DAOFactory.getEntryDAO().getByPartNumber(value);
-                                if (entry == null)
-                                    throw new IOException("Could not locate part number \"" + value + "\" for linking");
-                                PartData toLink = entry.toDataTransferObject();
-                                data.getLinkedParts().add(toLink);
-                                break;
-
-                            default:
-                                partData = EntryUtil.setPartDataFromField(partData, value, field, isSubType);
+                try {
+                    // for each column
+                    for (int i = 0; i < valuesArray.length; i += 1) {
+                        HeaderValue headerForColumn = headers.get(i);
+                        if (headerForColumn == null)
+                            throw new IOException("Value in column " + (i + 1) + " does not have a header");
+
+                        // process sample information
+                        if (headerForColumn.isSampleField()) {
+                            // todo : move to another method
+                            if (partSample == null)
+                                partSample = new PartSample();
+                            setPartSampleData(((SampleHeaderValue) headerForColumn).getSampleField(),
+                                    partSample, valuesArray[i]);
+                        } else {
+                            EntryHeaderValue entryHeaderValue = (EntryHeaderValue) headerForColumn;
+                            EntryField field = entryHeaderValue.getEntryField();
+                            PartData data;
+                            String value = valuesArray[i];
+                            boolean isSubType = entryHeaderValue.isSubType();
+
+                            if (isSubType)
+                                data = partData.getLinkedParts().get(0);
+                            else
+                                data = partData;
+
+                            // get the data for the field
+                            switch (field) {
+                                case ATT_FILENAME:
+                                    ArrayList<AttachmentInfo> attachments = data.getAttachments();
+                                    if (attachments == null) {
+                                        attachments = new ArrayList<>();
+                                        data.setAttachments(attachments);
+                                    }
+                                    attachments.clear();
+                                    attachments.add(new AttachmentInfo(value));
+                                    break;
+
+                                case SEQ_FILENAME:
+                                    data.setSequenceFileName(value);
+                                    break;
+
+                                case SEQ_TRACE_FILES:
+                                    // todo
+                                    break;
+
+                                case EXISTING_PART_NUMBER:
+                                    Entry entry = DAOFactory.getEntryDAO().getByPartNumber(value);
+                                    if (entry == null)
+                                        throw new IOException("Could not locate part number \"" + value
+                                                + "\" for linking");
+                                    PartData toLink = entry.toDataTransferObject();
+                                    data.getLinkedParts().add(toLink);
+                                    break;
+
+                                default:
+                                    partData = EntryUtil.setPartDataFromField(partData, value, field, isSubType);
+                            }
                         }
                     }
+                } catch (IOException e) {
+                    listener.accept(new BulkUploadError(lineNumber, e.getMessage()));
+                    errorCount += 1;
+                    continue;
                 }
 
                 // validate
                 List<EntryField> fields = EntryUtil.validates(partData);
                 if (!fields.isEmpty()) {
-                    invalidFields.clear();
-                    invalidFields.addAll(fields);
-                    return null;
+                    for (EntryField field : fields) {
+                        if (!invalidFields.contains(field))
+                            invalidFields.add(field);
+                    }
+                    listener.accept(new BulkUploadError(lineNumber, fields));
+                    errorCount += 1;
+                    continue;
                 }
 
+                String missingFile = checkFiles(partData);
+                if (missingFile != null) {
+                    listener.accept(new BulkUploadError(lineNumber, missingFile));
+                    errorCount += 1;
+                    continue;
+                }
+
+                if (errorCount > 0)
+                    continue;
+
                 partData.setIndex(index);
                 PartWithSample partWithSample = new PartWithSample(partSample, partData);
                 partDataList.add(partWithSample);
@@ -287,7 +383,12 @@ public class BulkCSVUpload {
             IOUtils.closeQuietly(inputStream);
         }
 
-        return partDataList;
+        if (parser == null) {
+            listener.accept(new BulkUploadError(1, "Could not parse file headers"));
+            return null;
+        }
+
+        return errorCount == 0 ? partDataList : null;
     }
 
     protected void setPartSampleData(SampleField sampleField, PartSample partSample, String data) {
@@ -17,17 +17,22 @@ import org.jbei.ice.lib.email.EmailFactory;
 import org.jbei.ice.lib.entry.*;
 import org.jbei.ice.lib.entry.sample.SampleService;
 import org.jbei.ice.lib.entry.sequence.SequenceController;
+import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.search.blast.BlastPlus;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.servlet.InfoToModelFactory;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.BulkUploadDAO;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.hibernate.dao.EntryDAO;
+import org.jbei.ice.storage.hibernate.search.EntryIndexingInterceptor;
+import org.jbei.ice.storage.hibernate.search.HibernateSearch;
 import org.jbei.ice.storage.model.*;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
 
@@ -38,6 +43,9 @@ import java.util.*;
  */
 public class BulkEntryCreator {
 
+    // number of rows of an uploaded file that are created in each transaction
+    protected static final int CHUNK_SIZE = 100;
+
     private final BulkUploadDAO dao;
     private final EntryDAO entryDAO;
     private final EntryCreator creator;
@@ -224,6 +232,14 @@ public class BulkEntryCreator {
         ProcessedBulkUpload processedBulkUpload = new ProcessedBulkUpload();
         processedBulkUpload.setUploadId(id);
 
+        // processing status is only set while entries are being created for uploaded files
+        if (status == BulkUploadStatus.PROCESSING)
+            return retryProcessing(upload, processedBulkUpload);
+
+        // entries are still being created for the uploaded file
+        if (upload.getStatus() == BulkUploadStatus.PROCESSING)
+            return null;
+
         switch (status) {
             case PENDING_APPROVAL:
             default:
@@ -259,6 +275,26 @@ public class BulkEntryCreator {
         }
     }
 
+    /**
+     * Processes the uploaded file of a bulk upload that failed again. Entry creation resumes after the rows
+     * recorded as processed (and committed) by the failed run
+     */
+    protected ProcessedBulkUpload retryProcessing(BulkUpload upload, ProcessedBulkUpload processedBulkUpload) {
+        if (upload.getStatus() != BulkUploadStatus.FAILED || upload.getFilePath() == null)
+            return null;
+
+        Logger.info("Retrying processing of bulk upload " + upload.getId() + " at row "
+                + upload.getProcessedRowCount());
+        upload.setStatus(BulkUploadStatus.PROCESSING);
+        upload.setMessage(null);
+        upload.setLastUpdateTime(new Date());
+        dao.update(upload);
+
+        BulkUploadTask task = new BulkUploadTask(upload.getId());
+        HibernateUtil.afterCommit(() -> IceExecutorService.getInstance().runTask(task));
+        return processedBulkUpload;
+    }
+
     /**
      * Submits a bulk import that has been saved. This action is restricted to the owner of the
      * draft or to administrators.
@@ -457,141 +493,319 @@ public class BulkEntryCreator {
         DAOFactory.getPermissionDAO().create(permission);
     }
 
-    public boolean createEntries(String userId, long draftId, List<PartWithSample> data, HashMap<String, InputStream> files) {
+    /**
+     * Creates entries (and samples, sequences and attachments where available) for rows of an uploaded file and
+     * adds them to the specified bulk upload.
+     * <p>
+     * Rows are processed in chunks of {@link #CHUNK_SIZE}, each in its own transaction, and the number of processed
+     * rows is recorded in the bulk upload (whose status is {@link BulkUploadStatus#PROCESSING} until all rows are
+     * done) so that progress can be monitored. Indexing of the created entries and updates to the blast index
+     * are done once at the end or, if a chunk fails, for the entries of the chunks already committed before the
+     * exception is rethrown.
+     * <p>
+     * If the bulk upload is already {@link BulkUploadStatus#PROCESSING} (i.e. an earlier run was interrupted, e.g. by
+     * a server restart) then creation resumes after the rows recorded as processed.
+     * <p>
+     * Note that this commits the current transaction (and begins a new one) after each chunk, so previously
+     * loaded objects are detached
+     *
+     * @param userId  unique identifier for user creating entries. Must have write privileges on the upload
+     * @param draftId unique identifier for bulk upload entries are being created for
+     * @param data    rows of uploaded file
+     * @param files   source of sequence and attachment files referenced in the rows. Each file is opened when the row
+     *                referencing it is processed. May be null if the upload does not include files
+     * @return true if the entries were created, false if the bulk upload could not be retrieved
+     */
+    public boolean createEntries(String userId, long draftId, List<PartWithSample> data, BulkUploadFiles files) {
         BulkUpload draft = dao.get(draftId);
         if (draft == null)
             return false;
 
         // check permissions
         authorization.expectWrite(userId, draft);
-        SampleService sampleService = new SampleService();
-        EntryAuthorization entryAuthorization = new EntryAuthorization();
 
-        for (PartWithSample partWithSample : data) {
-            if (partWithSample == null)
-                continue;
-
-            PartData partData = partWithSample.getPartData();
-            if (partData == null)
-                continue;
+        // rows created (and committed) by an earlier run
+        int start = 0;
+        if (draft.getStatus() == BulkUploadStatus.PROCESSING)
+            start = Math.min(draft.getProcessedRowCount(), data.size());
 
-            Entry entry = InfoToModelFactory.infoToEntry(partData);
-            if (entry == null)
-                continue;
+        draft.setStatus(BulkUploadStatus.PROCESSING);
+        draft.setRowCount(data.size());
+        draft.setProcessedRowCount(start);
+        dao.update(draft);
 
-            entry.setVisibility(Visibility.DRAFT.getValue());
-            Account account = accountController.getByEmail(userId);
-            entry.setOwner(account.getFullName());
-            entry.setOwnerEmail(account.getEmail());
-
-            // check if there is any linked parts. create if so (expect a max of 1)
-            if (partData.getLinkedParts() != null && partData.getLinkedParts().size() > 0) {
-                // create linked
-                PartData linked = partData.getLinkedParts().get(0);
-
-                // for existing the link already....exists so just verify
-                if (linked.getId() == 0) {
-                    Entry linkedEntry = InfoToModelFactory.infoToEntry(linked);
-                    if (linkedEntry != null) {
-                        linkedEntry.setVisibility(Visibility.DRAFT.getValue());
-                        linkedEntry.setOwner(account.getFullName());
-                        linkedEntry.setOwnerEmail(account.getEmail());
-                        linkedEntry = entryDAO.create(linkedEntry);
-
-                        linked.setId(linkedEntry.getId());
-                        linked.setModificationTime(linkedEntry.getModificationTime().getTime());
-
-                        addWritePermission(account, linkedEntry);
-
-                        // check for attachments and sequences for linked entry
-                        saveFiles(linked, linkedEntry, files);
-                        entry.getLinkedEntries().add(linkedEntry);
-                    }
-                }
+        Account account = accountController.getByEmail(userId);
+        String partNumberPrefix = EntryUtil.getPartNumberPrefix();
+        Map<String, Account> principalInvestigators = new HashMap<>();
+        List<Long> createdEntryIds = new ArrayList<>();
+        List<Sequence> sequences = new ArrayList<>();
 
-                entry = entryDAO.create(entry);
+        boolean completed = false;
+        EntryIndexingInterceptor.setDeferred(true);
+        try {
+            for (int i = start; i < data.size(); i += CHUNK_SIZE) {
+                List<PartWithSample> chunk = data.subList(i, Math.min(data.size(), i + CHUNK_SIZE));
+                List<Long> uploadEntryIds = new ArrayList<>(chunk.size());
+                List<Long> chunkEntryIds = new ArrayList<>();
+                List<Sequence> chunkSequences = new ArrayList<>();
+
+                // lookups are done before (and links and samples added after) the entries of the chunk are saved.
+                // queries in between would flush the session for each row and prevent the inserts being batched
+                getPrincipalInvestigators(chunk, principalInvestigators);
+                List<Entry> chunkEntries = new ArrayList<>(chunk.size());
+                List<PartWithSample> chunkRows = new ArrayList<>(chunk.size());
+                for (PartWithSample partWithSample : chunk) {
+                    Entry entry = createEntry(account, partWithSample, files, partNumberPrefix,
+                            principalInvestigators, chunkEntryIds, chunkSequences);
+                    if (entry == null)
+                        continue;
 
-                // attempt to get linked entry and add
-                if (linked.getId() != 0) {
-                    Entry linkedEntry = entryDAO.get(linked.getId());
-                    if (linkedEntry != null && entryAuthorization.canWriteThoroughCheck(userId, entry)) {
-                        EntryLinks links = new EntryLinks(userId, Long.toString(entry.getId()));
-                        links.addLink(linked, LinkType.CHILD);
-                    }
+                    uploadEntryIds.add(entry.getId());
+                    chunkEntries.add(entry);
+                    chunkRows.add(partWithSample);
                 }
-            } else {
-                entry = entryDAO.create(entry);
-            }
 
-            // check for pi
-            String piEmail = entry.getPrincipalInvestigatorEmail();
-            if (StringUtils.isNotEmpty(piEmail)) {
-                Account pi = DAOFactory.getAccountDAO().getByEmail(piEmail);
-                if (pi != null) {
-                    // add write permission for the PI
-                    addWritePermission(pi, entry);
+                for (int j = 0; j < chunkEntries.size(); j += 1) {
+                    addLinkAndSample(userId, chunkEntries.get(j), chunkRows.get(j));
                 }
+
+                dao.addEntries(draftId, uploadEntryIds);
+
+                // record progress and commit chunk
+                draft = dao.get(draftId);
+                draft.setProcessedRowCount(i + chunk.size());
+                draft.setLastUpdateTime(new Date());
+                dao.update(draft);
+                HibernateUtil.commitTransaction();
+                HibernateUtil.beginTransaction();
+                createdEntryIds.addAll(chunkEntryIds);
+                sequences.addAll(chunkSequences);
             }
+            completed = true;
+        } finally {
+            EntryIndexingInterceptor.setDeferred(false);
+            if (!completed)
+                indexCommitted(draftId, createdEntryIds, sequences);
+        }
 
-            // add write permissions for owner
-            addWritePermission(account, entry);
+        draft = dao.get(draftId);
+        draft.setStatus(BulkUploadStatus.IN_PROGRESS);
+        dao.update(draft);
+
+        // entries created by an earlier run have not been indexed
+        if (start > 0) {
+            Set<Long> created = new HashSet<>(createdEntryIds);
+            List<Long> earlierIds = new ArrayList<>();
+            for (Long id : dao.getEntryIdsWithLinks(draft)) {
+                if (!created.contains(id))
+                    earlierIds.add(id);
+            }
+            createdEntryIds.addAll(earlierIds);
+            for (int i = 0; i < earlierIds.size(); i += CHUNK_SIZE) {
+                List<Long> ids = earlierIds.subList(i, Math.min(earlierIds.size(), i + CHUNK_SIZE));
+                sequences.addAll(DAOFactory.getSequenceDAO().getByEntries(ids));
+            }
+        }
 
-            draft.getContents().add(entry);
+        HibernateSearch.getInstance().index(createdEntryIds);
+        BlastPlus.scheduleBlastIndexUpdateTask(sequences);
+        return true;
+    }
 
-            dao.update(draft);
+    /**
+     * Indexes the entries (and schedules blast index updates for the sequences) of the chunks that were committed
+     * before creating the entries for an upload failed. The transaction of the failed chunk is rolled back
+     */
+    private void indexCommitted(long draftId, List<Long> entryIds, List<Sequence> sequences) {
+        try {
+            HibernateUtil.rollbackTransaction();
+            HibernateUtil.beginTransaction();
+            if (entryIds.isEmpty())
+                return;
+
+            Logger.info("Indexing " + entryIds.size() + " entries created for bulk upload " + draftId
+                    + " before failure");
+            HibernateSearch.getInstance().index(entryIds);
+            BlastPlus.scheduleBlastIndexUpdateTask(sequences);
+            HibernateUtil.commitTransaction();
+            HibernateUtil.beginTransaction();
+        } catch (Exception e) {
+            Logger.error(e);
+        }
+    }
 
-            // save files
-            saveFiles(partData, entry, files);
+    /**
+     * Retrieves the accounts for principal investigators of the specified rows that have not already been retrieved.
+     * Emails without an account are mapped to null
+     */
+    private void getPrincipalInvestigators(List<PartWithSample> rows, Map<String, Account> principalInvestigators) {
+        for (PartWithSample partWithSample : rows) {
+            if (partWithSample == null || partWithSample.getPartData() == null)
+                continue;
 
-            // save sample, if available
-            PartSample partSample = partWithSample.getPartSample();
-            if (partSample == null)
+            String piEmail = partWithSample.getPartData().getPrincipalInvestigatorEmail();
+            if (StringUtils.isEmpty(piEmail))
                 continue;
 
-            sampleService.createSample(userId, Long.toString(entry.getId()), partSample, null);
+            String key = piEmail.trim().toLowerCase();
+            if (!principalInvestigators.containsKey(key))
+                principalInvestigators.put(key, DAOFactory.getAccountDAO().getByEmail(piEmail));
         }
+    }
 
-        return true;
+    /**
+     * Creates the entry (and new linked entry, if any) for a single row of an uploaded file. Links to existing
+     * entries and samples are added separately by {@link #addLinkAndSample(String, Entry, PartWithSample)}
+     *
+     * @return the created entry or null if the row does not contain valid entry information
+     */
+    private Entry createEntry(Account account, PartWithSample partWithSample, BulkUploadFiles files,
+                              String partNumberPrefix, Map<String, Account> principalInvestigators,
+                              List<Long> createdEntryIds, List<Sequence> sequences) {
+        if (partWithSample == null)
+            return null;
+
+        PartData partData = partWithSample.getPartData();
+        if (partData == null)
+            return null;
+
+        Entry entry = InfoToModelFactory.infoToEntry(partData);
+        if (entry == null)
+            return null;
+
+        entry.setVisibility(Visibility.DRAFT.getValue());
+        entry.setOwner(account.getFullName());
+        entry.setOwnerEmail(account.getEmail());
+
+        // check if there is any linked parts. create if so (expect a max of 1)
+        if (partData.getLinkedParts() != null && partData.getLinkedParts().size() > 0) {
+            // create linked
+            PartData linked = partData.getLinkedParts().get(0);
+
+            // for existing the link already....exists so just verify
+            if (linked.getId() == 0) {
+                Entry linkedEntry = InfoToModelFactory.infoToEntry(linked);
+                if (linkedEntry != null) {
+                    linkedEntry.setVisibility(Visibility.DRAFT.getValue());
+                    linkedEntry.setOwner(account.getFullName());
+                    linkedEntry.setOwnerEmail(account.getEmail());
+                    linkedEntry = entryDAO.create(linkedEntry, partNumberPrefix);
+                    createdEntryIds.add(linkedEntry.getId());
+
+                    linked.setId(linkedEntry.getId());
+                    linked.setModificationTime(linkedEntry.getModificationTime().getTime());
+
+                    addWritePermission(account, linkedEntry);
+
+                    // check for attachments and sequences for linked entry
+                    Sequence sequence = saveFiles(linked, linkedEntry, files);
+                    if (sequence != null)
+                        sequences.add(sequence);
+                    entry.getLinkedEntries().add(linkedEntry);
+                }
+            }
+        }
+
+        entry = entryDAO.create(entry, partNumberPrefix);
+        createdEntryIds.add(entry.getId());
+
+        // check for pi
+        String piEmail = entry.getPrincipalInvestigatorEmail();
+        if (StringUtils.isNotEmpty(piEmail)) {
+            Account pi = principalInvestigators.get(piEmail.trim().toLowerCase());
+            if (pi != null) {
+                // add write permission for the PI
+                addWritePermission(pi, entry);
+            }
+        }
+
+        // add write permissions for owner
+        addWritePermission(account, entry);
+
+        // save files
+        Sequence sequence = saveFiles(partData, entry, files);
+        if (sequence != null)
+            sequences.add(sequence);
+        return entry;
     }
 
-    protected void saveFiles(PartData data, Entry entry, HashMap<String, InputStream> files) {
-        // check sequence
-        try {
-            String sequenceName = data.getSequenceFileName();
-            if (!StringUtils.isBlank(sequenceName)) {
-                String sequenceString = IOUtils.toString(files.get(sequenceName));
-                DNASequence dnaSequence = SequenceController.parse(sequenceString);
+    /**
+     * Adds the link to the linked entry (if any) and creates the sample (if available) for an entry created
+     * for a row of an uploaded file
+     */
+    private void addLinkAndSample(String userId, Entry entry, PartWithSample partWithSample) {
+        PartData partData = partWithSample.getPartData();
+
+        // attempt to get linked entry and add
+        if (partData.getLinkedParts() != null && partData.getLinkedParts().size() > 0) {
+            PartData linked = partData.getLinkedParts().get(0);
+            if (linked.getId() != 0) {
+                Entry linkedEntry = entryDAO.get(linked.getId());
+                if (linkedEntry != null && new EntryAuthorization().canWriteThoroughCheck(userId, entry)) {
+                    EntryLinks links = new EntryLinks(userId, Long.toString(entry.getId()));
+                    links.addLink(linked, LinkType.CHILD);
+                }
+            }
+        }
+
+        // save sample, if available
+        PartSample partSample = partWithSample.getPartSample();
+        if (partSample != null)
+            new SampleService().createSample(userId, Long.toString(entry.getId()), partSample, null);
+    }
+
+    /**
+     * Saves the sequence and attachment files referenced in the part data (if any) for a newly created entry.
+     * Each file is read from its source as it is saved; attachments are copied directly to the attachments directory
+     *
+     * @return the saved sequence, if the part data references a sequence file that could be parsed. The caller is
+     * responsible for adding it to the blast index
+     */
+    protected Sequence saveFiles(PartData data, Entry entry, BulkUploadFiles files) {
+        if (files == null)
+            return null;
+
+        Sequence result = null;
 
-                if (dnaSequence == null || dnaSequence.getSequence().equals("")) {
-                    Logger.error("Couldn't parse sequence file " + sequenceName);
+        // check sequence
+        String sequenceName = data.getSequenceFileName();
+        if (!StringUtils.isBlank(sequenceName)) {
+            try (InputStream inputStream = files.open(sequenceName)) {
+                if (inputStream == null) {
+                    Logger.error("Sequence file " + sequenceName + " is not available");
                 } else {
-                    Sequence sequence = SequenceController.dnaSequenceToSequence(dnaSequence);
-                    sequence.setSequenceUser(sequenceString);
-                    sequence.setEntry(entry);
-                    sequence.setFileName(sequenceName);
-                    Sequence result = DAOFactory.getSequenceDAO().saveSequence(sequence);
-                    if (result != null)
-                        BlastPlus.scheduleBlastIndexRebuildTask(true);
+                    String sequenceString = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+                    DNASequence dnaSequence = SequenceController.parse(sequenceString);
+
+                    if (dnaSequence == null || dnaSequence.getSequence().equals("")) {
+                        Logger.error("Couldn't parse sequence file " + sequenceName);
+                    } else {
+                        Sequence sequence = SequenceController.dnaSequenceToSequence(dnaSequence);
+                        sequence.setSequenceUser(sequenceString);
+                        sequence.setEntry(entry);
+                        sequence.setFileName(sequenceName);
+                        result = DAOFactory.getSequenceDAO().saveSequence(sequence);
+                    }
                 }
+            } catch (IOException e) {
+                Logger.error(e);
             }
-        } catch (IOException e) {
-            Logger.error(e);
         }
 
         // check attachment
-        try {
-            if (data.getAttachments() != null && !data.getAttachments().isEmpty()) {
-                String attachmentName = data.getAttachments().get(0).getFilename();
-                InputStream attachmentStream = files.get(attachmentName);
-
-                // clear
-                List<Attachment> attachments = DAOFactory.getAttachmentDAO().getByEntry(entry);
-                if (attachments != null && !attachments.isEmpty()) {
-                    for (Attachment attachment : attachments) {
-                        String dataDir = Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY);
-                        File attachmentDir = Paths.get(dataDir, "attachments").toFile();
-                        DAOFactory.getAttachmentDAO().delete(attachmentDir, attachment);
-                    }
+        if (data.getAttachments() != null && !data.getAttachments().isEmpty()) {
+            String attachmentName = data.getAttachments().get(0).getFilename();
+            if (StringUtils.isBlank(attachmentName))
+                return result;
+
+            // entry is new so there are no existing attachments to clear
+            try (InputStream attachmentStream = files.open(attachmentName)) {
+                String dataDir = Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY);
+                File attachmentDir = Paths.get(dataDir, "attachments").toFile();
+
+                if (attachmentStream == null) {
+                    Logger.error("Attachment file " + attachmentName + " is not available");
+                    return result;
                 }
 
                 Attachment attachment = new Attachment();
@@ -600,12 +814,11 @@ public class BulkEntryCreator {
                 String fileId = Utils.generateUUID();
                 attachment.setFileId(fileId);
                 attachment.setFileName(attachmentName);
-                String dataDir = Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY);
-                File attachmentDir = Paths.get(dataDir, "attachments").toFile();
                 DAOFactory.getAttachmentDAO().save(attachmentDir, attachment, attachmentStream);
+            } catch (Exception e) {
+                Logger.error(e);
             }
-        } catch (Exception e) {
-            Logger.error(e);
         }
+        return result;
     }
 }
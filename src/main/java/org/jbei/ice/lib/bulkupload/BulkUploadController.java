@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Controller for dealing with bulk imports (including drafts)
@@ -221,6 +222,71 @@ public class BulkUploadController {
         return info;
     }
 
+    /**
+     * Retrieves the progress of creating entries for an uploaded file. Only users with read access to the upload
+     * can retrieve it
+     *
+     * @param userId identifier for account of user requesting
+     * @param id     unique identifier for bulk upload
+     * @return progress of the upload or null if it cannot be found
+     * @throws PermissionException if the user does not have read access to the upload
+     */
+    public BulkUploadProgress getProgress(String userId, long id) {
+        BulkUpload upload = dao.get(id);
+        if (upload == null)
+            return null;
+
+        authorization.expectRead(userId, upload);
+        BulkUploadProgress progress = new BulkUploadProgress();
+        progress.setId(upload.getId());
+        progress.setStatus(upload.getStatus());
+        progress.setRowCount(upload.getRowCount());
+        progress.setProcessedRowCount(upload.getProcessedRowCount());
+        progress.setMessage(upload.getMessage());
+        return progress;
+    }
+
+    /**
+     * Validates the uploaded file of a bulk upload, reporting each row that fails validation to the listener as it
+     * is encountered. Nothing is reported for uploads that were not created from a file or whose entries
+     * have all been created
+     *
+     * @param userId   identifier for account of user requesting
+     * @param id       unique identifier for bulk upload
+     * @param listener receives validation errors
+     * @throws PermissionException if the user does not have read access to the upload
+     * @throws IOException         on exception reading the file
+     */
+    public void validateFile(String userId, long id, Consumer<BulkUploadError> listener) throws IOException {
+        BulkUpload upload = dao.get(id);
+        if (upload == null)
+            return;
+
+        authorization.expectRead(userId, upload);
+        if (upload.getFilePath() == null)
+            return;
+
+        EntryType type = EntryType.nameToType(upload.getImportType());
+        FileBulkUpload fileBulkUpload = new FileBulkUpload(upload.getAccount().getEmail(),
+                Paths.get(upload.getFilePath()), type);
+        fileBulkUpload.validate(listener);
+    }
+
+    /**
+     * Schedules tasks to continue creating entries for uploaded files whose processing was interrupted
+     * (e.g. by a server shutdown)
+     */
+    public void resumeProcessing() {
+        for (BulkUpload upload : dao.retrieveByStatus(BulkUploadStatus.PROCESSING)) {
+            if (upload.getFilePath() == null)
+                continue;
+
+            Logger.info("Resuming processing of bulk upload " + upload.getId() + " at row "
+                    + upload.getProcessedRowCount());
+            IceExecutorService.getInstance().runTask(new BulkUploadTask(upload.getId()));
+        }
+    }
+
     protected PartData setFileData(String userId, Entry entry, PartData partData) {
         SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
 
@@ -8,6 +8,10 @@ import org.jbei.ice.storage.hibernate.dao.BulkUploadDAO;
 import org.jbei.ice.storage.model.BulkUpload;
 import org.jbei.ice.storage.model.Entry;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 
 /**
  * Task to delete bulk uploads with a status of draft and their contents.
@@ -37,9 +41,18 @@ public class BulkUploadDeleteTask extends Task {
         BulkUploadAuthorization authorization = new BulkUploadAuthorization();
         authorization.expectWrite(userId, upload);
 
-        if (upload.getStatus() != BulkUploadStatus.IN_PROGRESS)
+        if (upload.getStatus() != BulkUploadStatus.IN_PROGRESS && upload.getStatus() != BulkUploadStatus.FAILED)
             return;
 
+        // remove retained upload file
+        if (upload.getFilePath() != null) {
+            try {
+                Files.deleteIfExists(Paths.get(upload.getFilePath()));
+            } catch (IOException e) {
+                Logger.warn("Could not delete uploaded file " + upload.getFilePath() + ": " + e.getMessage());
+            }
+        }
+
         // delete all associated entries that have a status of draft
         for (Entry entry : upload.getContents()) {
             for (Entry linkedEntry : entry.getLinkedEntries()) {
@@ -58,4 +71,14 @@ public class BulkUploadDeleteTask extends Task {
 
         dao.delete(upload);
     }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return 2;
+    }
+
+    @Override
+    public String getDeduplicationKey() {
+        return getClass().getName() + ":" + bulkUploadId;
+    }
 }
@@ -0,0 +1,63 @@
+package org.jbei.ice.lib.bulkupload;
+
+import org.jbei.ice.lib.dto.entry.EntryField;
+import org.jbei.ice.storage.IDataTransferModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation error for a row of an uploaded file. Either the fields of the row that failed validation or a
+ * message describing the error (e.g. a referenced file is missing) is available
+ *
+ * @author Hector Plahar
+ */
+public class BulkUploadError implements IDataTransferModel {
+
+    private int row;
+    private List<EntryField> fields;
+    private String message;
+
+    public BulkUploadError() {
+        fields = new ArrayList<>();
+    }
+
+    public BulkUploadError(int row, List<EntryField> fields) {
+        this.row = row;
+        this.fields = new ArrayList<>(fields);
+    }
+
+    public BulkUploadError(int row, String message) {
+        this();
+        this.row = row;
+        this.message = message;
+    }
+
+    /**
+     * @return line number of the row in the uploaded csv file (the header is line 1), or 0 if the error is not
+     * specific to a row (e.g. a zip archive without a csv file)
+     */
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public List<EntryField> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<EntryField> fields) {
+        this.fields = fields;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
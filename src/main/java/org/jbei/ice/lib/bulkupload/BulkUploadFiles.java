@@ -0,0 +1,23 @@
+package org.jbei.ice.lib.bulkupload;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Source of the sequence and attachment files referenced (by name) in rows of an uploaded file. Files are opened
+ * as the rows referencing them are processed so that only the contents of the file being saved is read at any time
+ *
+ * @author Hector Plahar
+ */
+@FunctionalInterface
+public interface BulkUploadFiles {
+
+    /**
+     * Opens the named file
+     *
+     * @param name name of file as referenced in a row
+     * @return stream for the contents of the file, which the caller must close, or null if the file is not available
+     * @throws IOException on exception opening the file
+     */
+    InputStream open(String name) throws IOException;
+}
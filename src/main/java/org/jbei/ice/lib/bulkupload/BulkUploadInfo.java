@@ -23,6 +23,8 @@ public class BulkUploadInfo extends AbstractFolder {
     private long lastUpdate;
     private AccountTransfer account;
     private BulkUploadStatus status;
+    private int rowCount;
+    private int processedRowCount;
     private ArrayList<PartData> entryList;
     private ArrayList<AccessPermission> permissions;
 
@@ -91,6 +93,29 @@ public class BulkUploadInfo extends AbstractFolder {
         this.status = status;
     }
 
+    /**
+     * @return number of rows in the file the upload was created from, if any
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return number of rows of the uploaded file that have been processed. Increases while the status is
+     * {@link BulkUploadStatus#PROCESSING}
+     */
+    public int getProcessedRowCount() {
+        return processedRowCount;
+    }
+
+    public void setProcessedRowCount(int processedRowCount) {
+        this.processedRowCount = processedRowCount;
+    }
+
     public ArrayList<AccessPermission> getPermissions() {
         return this.permissions;
     }
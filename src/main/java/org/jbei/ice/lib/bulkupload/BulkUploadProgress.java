@@ -0,0 +1,66 @@
+package org.jbei.ice.lib.bulkupload;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Progress of creating entries for an uploaded file
+ *
+ * @author Hector Plahar
+ */
+public class BulkUploadProgress implements IDataTransferModel {
+
+    private long id;
+    private BulkUploadStatus status;
+    private int rowCount;
+    private int processedRowCount;
+    private String message;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return status of the upload. Entries are being created while this is {@link BulkUploadStatus#PROCESSING}
+     */
+    public BulkUploadStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BulkUploadStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * @return number of rows in the uploaded file. 0 until the file has been validated
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getProcessedRowCount() {
+        return processedRowCount;
+    }
+
+    public void setProcessedRowCount(int processedRowCount) {
+        this.processedRowCount = processedRowCount;
+    }
+
+    /**
+     * @return reason processing failed, if the status is {@link BulkUploadStatus#FAILED}
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
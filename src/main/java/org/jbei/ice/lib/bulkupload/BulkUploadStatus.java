@@ -14,5 +14,11 @@ public enum BulkUploadStatus implements IDataTransferModel {
     APPROVED,
     PENDING_APPROVAL,
     BULK_EDIT,
-    IN_PROGRESS
+    IN_PROGRESS,
+
+    // entries for an uploaded file are being created. changes to IN_PROGRESS when done
+    PROCESSING,
+
+    // entries for an uploaded file could not be created (e.g. rows failed validation)
+    FAILED
 }
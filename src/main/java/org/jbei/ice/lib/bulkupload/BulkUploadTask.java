@@ -0,0 +1,103 @@
+package org.jbei.ice.lib.bulkupload;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.entry.EntryType;
+import org.jbei.ice.lib.executor.Task;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.hibernate.dao.BulkUploadDAO;
+import org.jbei.ice.storage.model.BulkUpload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+
+/**
+ * Task to validate an uploaded (csv or zip) file and create entries for its rows in the bulk upload created for it.
+ * The number of rows processed is recorded in the bulk upload after each chunk of rows (see
+ * {@link BulkEntryCreator#createEntries}) so a task that is interrupted (e.g. by a server restart) resumes from that
+ * row when it is next run.
+ * <p>
+ * When all entries have been created the status of the upload is {@link BulkUploadStatus#IN_PROGRESS} and the file
+ * is removed. If the file fails validation, the status is set to {@link BulkUploadStatus#FAILED} and the file is
+ * retained so the validation errors can be retrieved. On a server error, the upload is also marked as failed but the
+ * entries created for the chunks committed before the error (which are indexed) are kept along with the number of
+ * processed rows, so that retrying the upload (see {@link BulkEntryCreator#updateStatus}) continues after them
+ *
+ * @author Hector Plahar
+ */
+public class BulkUploadTask extends Task {
+
+    private final long uploadId;
+
+    public BulkUploadTask(long uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    @Override
+    public void execute() {
+        BulkUploadDAO dao = DAOFactory.getBulkUploadDAO();
+        BulkUpload upload = dao.get(uploadId);
+        if (upload == null) {
+            Logger.error("Could not locate bulk upload " + uploadId + " for processing");
+            return;
+        }
+
+        if (upload.getStatus() != BulkUploadStatus.PROCESSING || upload.getFilePath() == null)
+            return;
+
+        String userId = upload.getAccount().getEmail();
+        EntryType type = EntryType.nameToType(upload.getImportType());
+        Path path = Paths.get(upload.getFilePath());
+        Logger.info(userId + ": processing file for bulk upload " + uploadId);
+
+        ProcessedBulkUpload processed;
+        try {
+            processed = new FileBulkUpload(userId, path, type).process(uploadId);
+        } catch (Exception e) {
+            // leave as processing to resume when restarted
+            if (Thread.currentThread().isInterrupted())
+                throw new RuntimeException("Processing of bulk upload " + uploadId + " interrupted", e);
+
+            Logger.error(e);
+            HibernateUtil.rollbackTransaction();
+            HibernateUtil.beginTransaction();
+            processed = new ProcessedBulkUpload();
+            processed.setSuccess(false);
+            processed.setUserMessage("Server error processing upload. It can be retried to continue creating "
+                    + "entries for the remaining rows.");
+        }
+
+        // entries are created in separate transactions so retrieve again
+        upload = dao.get(uploadId);
+        if (upload == null)
+            return;
+
+        if (processed.isSuccess()) {
+            upload.setFilePath(null);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                Logger.warn("Could not delete uploaded file " + path + ": " + e.getMessage());
+            }
+        } else {
+            upload.setStatus(BulkUploadStatus.FAILED);
+            upload.setMessage(processed.getUserMessage());
+        }
+        upload.setLastUpdateTime(new Date());
+        dao.update(upload);
+        Logger.info(userId + ": completed processing of bulk upload " + uploadId + " with status " + upload.getStatus());
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return 2;
+    }
+
+    @Override
+    public String getDeduplicationKey() {
+        return getClass().getName() + ":" + uploadId;
+    }
+}
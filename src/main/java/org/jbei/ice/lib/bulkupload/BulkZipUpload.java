@@ -1,19 +1,14 @@
 package org.jbei.ice.lib.bulkupload;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.common.logging.Logger;
-import org.jbei.ice.lib.dto.entry.EntryField;
 import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.dto.entry.PartData;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -21,20 +16,21 @@ import java.util.zip.ZipFile;
  * Bulk Upload with zip files. It is expected that the zip contains a csv
  * of the upload with the attachment and sequences files containing
  * the names of the files (which are to be enclosed in the zip)
+ * <p>
+ * The contents of the archive are never held in memory: the csv is streamed from the archive and the members
+ * referenced in its rows are located using the central directory of the archive and streamed when the row is
+ * processed (sequences are parsed and attachments are copied to the data directory)
  *
  * @author Hector Plahar
  */
 public class BulkZipUpload extends BulkCSVUpload {
 
     private final Path zipFilePath;
-    private final EntryType addType;
-    private final String userId;
+    private final Set<String> fileNames = new HashSet<>();  // names of files in archive, other than the csv
 
     public BulkZipUpload(String userId, Path path, EntryType addType) {
         super(userId, path, addType);
-        this.userId = userId;
         this.zipFilePath = path;
-        this.addType = addType;
     }
 
     /**
@@ -42,116 +38,113 @@ public class BulkZipUpload extends BulkCSVUpload {
      * This means that a .csv cannot be used as an attachment
      * </p>
      * Also, all dot files are ignored
+     *
+     * @param uploadId unique identifier for bulk upload to create entries in. If 0, a new one is created once the
+     *                 file validates
      */
-    public ProcessedBulkUpload processUpload() {
+    @Override
+    public ProcessedBulkUpload processUpload(long uploadId) {
         ProcessedBulkUpload processedBulkUpload = new ProcessedBulkUpload();
-        String csvFile = null;
-        HashMap<String, InputStream> files = new HashMap<>();
-
-        try {
-            ZipFile zipFile = new ZipFile(zipFilePath.toFile());
-            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
-
-
-            // go through zip elements
-            while (enumeration.hasMoreElements()) {
-                ZipEntry zipEntry = enumeration.nextElement();
-                // does not go into directories for now
-                if (zipEntry.isDirectory())
-                    continue;
-
-                String name = zipEntry.getName();
-                if (name.contains("/"))
-                    name = name.substring(name.lastIndexOf("/") + 1);
-
-                // ignore all dot files
-                if (name.startsWith("."))
-                    continue;
-
-                // get main csv
-                if (name.endsWith(".csv")) {
-                    if (csvFile != null) {
-                        processedBulkUpload.setSuccess(false);
-                        processedBulkUpload.setUserMessage("Duplicate csv file in zip archive. It should only contain one.");
-                        return processedBulkUpload;
-                    }
-                    csvFile = IOUtils.toString(zipFile.getInputStream(zipEntry));
-                } else {
-                    InputStream inputStream = zipFile.getInputStream(zipEntry);
-                    files.put(name, inputStream);
-                }
-            }
+
+        try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+            HashMap<String, ZipEntry> zipEntries = new HashMap<>();
+            ZipEntry csvEntry = readEntries(zipFile, zipEntries);
+
+            // retrieve the partData and validates (including that files referenced in rows are available)
+            List<BulkUploadError> errors = new ArrayList<>();
+            List<PartWithSample> updates = super.getBulkUploadDataFromFile(zipFile.getInputStream(csvEntry),
+                    errors::add);
+            if (updates == null)
+                return validationFailed(processedBulkUpload, errors);
+
+            // create actual registry parts. each member is read (using the index of the archive) only when the
+            // row referencing it is processed
+            BulkUploadFiles files = name -> {
+                ZipEntry zipEntry = zipEntries.get(name);
+                return zipEntry == null ? null : zipFile.getInputStream(zipEntry);
+            };
+            processedBulkUpload.setUploadId(createEntries(uploadId, updates, files));
+            return processedBulkUpload;
         } catch (IOException e) {
+            Logger.error(e);
             processedBulkUpload.setSuccess(false);
-            processedBulkUpload.setUserMessage(e.getCause().getMessage());
+            processedBulkUpload.setUserMessage(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
             return processedBulkUpload;
         }
+    }
 
-        if (csvFile == null) {
-            processedBulkUpload.setSuccess(false);
-            processedBulkUpload.setUserMessage("Could not find a csv file in the zip archive");
-            return processedBulkUpload;
+    @Override
+    public void validate(Consumer<BulkUploadError> listener) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+            ZipEntry csvEntry;
+            try {
+                csvEntry = readEntries(zipFile, new HashMap<>());
+            } catch (IOException e) {
+                listener.accept(new BulkUploadError(0, e.getMessage()));
+                return;
+            }
+            super.getBulkUploadDataFromFile(zipFile.getInputStream(csvEntry), listener);
         }
+    }
 
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(csvFile.getBytes())) {
-
-            // retrieve the partData and validates
-            List<PartWithSample> updates = super.getBulkUploadDataFromFile(inputStream);
-            if (updates == null) {
-                processedBulkUpload.setSuccess(false);
-                processedBulkUpload.setUserMessage("Validation failed");
-                for (EntryField field : invalidFields) {
-                    processedBulkUpload.getHeaders().add(new EntryHeaderValue(false, field));
-                }
-                return processedBulkUpload;
-            }
+    @Override
+    protected String checkFiles(PartData data) {
+        String sequenceFile = data.getSequenceFileName();
+        if (StringUtils.isNotBlank(sequenceFile) && !fileNames.contains(sequenceFile))
+            return "Sequence file \"" + sequenceFile + "\" not found in the zip archive";
 
-            // validate files to ensure that for each partData with a file, that the file is available
-            for (PartWithSample partWithSample : updates) {
-
-                // check sequences
-                PartData data = partWithSample.getPartData();
-                String sequenceFile = data.getSequenceFileName();
-                if (StringUtils.isNotBlank(sequenceFile) && files.get(sequenceFile) == null) {
-                    processedBulkUpload.setSuccess(false);
-                    processedBulkUpload.setUserMessage("Sequence file \"" + sequenceFile
-                            + "\" not found in the zip archive");
-                    return processedBulkUpload;
-                }
-
-                // check attachments
-                String attachmentFile;
-                if (data.getAttachments() != null && !data.getAttachments().isEmpty()) {
-                    attachmentFile = data.getAttachments().get(0).getFilename();
-                    if (StringUtils.isNotBlank(attachmentFile) && files.get(attachmentFile) == null) {
-                        processedBulkUpload.setSuccess(false);
-                        processedBulkUpload.setUserMessage("Attachment file \"" + sequenceFile
-                                + "\" not found in the zip archive");
-                        return processedBulkUpload;
-                    }
-                }
-
-                // todo : trace sequences
-            }
+        if (data.getAttachments() != null && !data.getAttachments().isEmpty()) {
+            String attachmentFile = data.getAttachments().get(0).getFilename();
+            if (StringUtils.isNotBlank(attachmentFile) && !fileNames.contains(attachmentFile))
+                return "Attachment file \"" + attachmentFile + "\" not found in the zip archive";
+        }
 
-            // create actual registry parts
-            BulkEntryCreator creator = new BulkEntryCreator();
-            long uploadId = creator.createBulkUpload(userId, addType);
+        // todo : trace sequences
+        return null;
+    }
 
-            // create entries
-            if (!creator.createEntries(userId, uploadId, updates, files)) {
-                String errorMsg = "Error creating entries for upload";
-                throw new IOException(errorMsg);
-                //todo: delete upload id
+    /**
+     * Retrieves the csv file and the (attachment and sequence) files in the zip archive. Directories and dot files
+     * are ignored
+     *
+     * @param zipFile zip archive
+     * @param files   map to add files (other than the csv) to, by name
+     * @return csv file entry
+     * @throws IOException if the archive does not contain exactly one csv file
+     */
+    private ZipEntry readEntries(ZipFile zipFile, Map<String, ZipEntry> files) throws IOException {
+        ZipEntry csvEntry = null;
+        fileNames.clear();
+        Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+
+        // go through zip elements
+        while (enumeration.hasMoreElements()) {
+            ZipEntry zipEntry = enumeration.nextElement();
+            // does not go into directories for now
+            if (zipEntry.isDirectory())
+                continue;
+
+            String name = zipEntry.getName();
+            if (name.contains("/"))
+                name = name.substring(name.lastIndexOf("/") + 1);
+
+            // ignore all dot files
+            if (name.startsWith("."))
+                continue;
+
+            // get main csv
+            if (name.endsWith(".csv")) {
+                if (csvEntry != null)
+                    throw new IOException("Duplicate csv file in zip archive. It should only contain one.");
+                csvEntry = zipEntry;
+            } else {
+                files.put(name, zipEntry);
+                fileNames.add(name);
             }
-
-            processedBulkUpload.setUploadId(uploadId);
-            return processedBulkUpload;
-        } catch (IOException e) {
-            Logger.error(e);
-            processedBulkUpload.setSuccess(false);
-            processedBulkUpload.setUserMessage(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
-            return processedBulkUpload;
         }
+
+        if (csvEntry == null)
+            throw new IOException("Could not find a csv file in the zip archive");
+        return csvEntry;
     }
 }
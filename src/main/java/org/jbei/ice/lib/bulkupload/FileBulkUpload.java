@@ -2,10 +2,16 @@ package org.jbei.ice.lib.bulkupload;
 
 import org.jbei.ice.lib.dto.entry.EntryField;
 import org.jbei.ice.lib.dto.entry.EntryType;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.hibernate.dao.BulkUploadDAO;
+import org.jbei.ice.storage.model.BulkUpload;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Processes bulk uploads. Supported file formats are "csv", "zip" and "xml", with the latter being for SBOL
@@ -41,18 +47,6 @@ public class FileBulkUpload {
     public ProcessedBulkUpload process() throws IOException {
         String fileName = filePath.toFile().getName();
 
-        // process csv
-        if (fileName.endsWith(".csv")) {
-            BulkCSVUpload upload = new BulkCSVUpload(account, filePath, addType);
-            return upload.processUpload();
-        }
-
-        // process zip
-        if (fileName.endsWith(".zip")) {
-            BulkZipUpload upload = new BulkZipUpload(account, filePath, addType);
-            return upload.processUpload();
-        }
-
         // process sbol
         if (fileName.endsWith(".xml")) {
             BulkFileSBOLUpload upload = new BulkFileSBOLUpload(account, filePath, addType);
@@ -62,6 +56,73 @@ public class FileBulkUpload {
             return processedBulkUpload;
         }
 
+        // process csv or zip
+        return getCSVUpload().processUpload();
+    }
+
+    /**
+     * Accepts the file for processing in the background. For csv and zip files, a bulk upload with status
+     * {@link BulkUploadStatus#PROCESSING} is created and a {@link BulkUploadTask} to validate the file and
+     * create its entries is scheduled to run once the current transaction commits. The progress of the task is
+     * recorded in the bulk upload. SBOL files are processed immediately
+     *
+     * @return wrapper around id of the bulk upload
+     * @throws IOException if the file type is not supported
+     */
+    public ProcessedBulkUpload submit() throws IOException {
+        String fileName = filePath.toFile().getName();
+        if (fileName.endsWith(".xml"))
+            return process();
+
+        if (!fileName.endsWith(".csv") && !fileName.endsWith(".zip"))
+            throw new IOException("Unsupported file type " + fileName);
+
+        BulkUploadDAO dao = DAOFactory.getBulkUploadDAO();
+        long uploadId = new BulkEntryCreator().createBulkUpload(account, addType);
+        BulkUpload upload = dao.get(uploadId);
+        upload.setStatus(BulkUploadStatus.PROCESSING);
+        upload.setFilePath(filePath.toAbsolutePath().toString());
+        dao.update(upload);
+
+        BulkUploadTask task = new BulkUploadTask(uploadId);
+        HibernateUtil.afterCommit(() -> IceExecutorService.getInstance().runTask(task));
+
+        ProcessedBulkUpload processedBulkUpload = new ProcessedBulkUpload();
+        processedBulkUpload.setUploadId(uploadId);
+        return processedBulkUpload;
+    }
+
+    /**
+     * Processes the csv or zip file, creating entries in the specified bulk upload
+     *
+     * @param uploadId unique identifier for bulk upload
+     * @return wrapper around id of bulk upload or error message
+     * @throws IOException if the file type is not supported
+     * @see BulkCSVUpload#processUpload(long)
+     */
+    public ProcessedBulkUpload process(long uploadId) throws IOException {
+        return getCSVUpload().processUpload(uploadId);
+    }
+
+    /**
+     * Validates the rows of the csv or zip file. Rows that fail validation are reported to the listener as they
+     * are encountered
+     *
+     * @param listener receives validation errors
+     * @throws IOException if the file type is not supported or on exception reading the file
+     */
+    public void validate(Consumer<BulkUploadError> listener) throws IOException {
+        getCSVUpload().validate(listener);
+    }
+
+    private BulkCSVUpload getCSVUpload() throws IOException {
+        String fileName = filePath.toFile().getName();
+        if (fileName.endsWith(".csv"))
+            return new BulkCSVUpload(account, filePath, addType);
+
+        if (fileName.endsWith(".zip"))
+            return new BulkZipUpload(account, filePath, addType);
+
         throw new IOException("Unsupported file type " + fileName);
     }
 
@@ -1,14 +1,21 @@
 package org.jbei.ice.lib.config;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.PermissionResolver;
+import org.jbei.ice.lib.access.VerifiedTokenCache;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.CacheStatistics;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.Setting;
+import org.jbei.ice.lib.entry.sequence.SequenceFormatCache;
 import org.jbei.ice.lib.net.WoRController;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.hibernate.dao.ConfigurationDAO;
 import org.jbei.ice.storage.model.Configuration;
 
@@ -17,6 +24,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Hector Plahar
@@ -142,4 +150,48 @@ public class ConfigurationController {
 
         return null;
     }
+
+    /**
+     * Retrieves the hit, miss and put counts for each second-level cache region as well as for the query cache
+     * and the tiers of the rendered sequence format cache
+     *
+     * @param userId unique identifier for user making request. Must have administrative privileges
+     * @return statistics for each cache region
+     * @throws PermissionException if the user is not an administrator
+     */
+    public List<CacheStatistics> getCacheStatistics(String userId) {
+        if (!new AccountController().isAdministrator(userId))
+            throw new PermissionException("Cannot retrieve cache statistics without admin privileges");
+
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        List<CacheStatistics> results = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+            if (regionStatistics == null)
+                continue;
+
+            results.add(createCacheStatistics(region, regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(), regionStatistics.getPutCount(),
+                    regionStatistics.getElementCountInMemory()));
+        }
+
+        results.add(createCacheStatistics("query", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(), 0));
+        results.addAll(SequenceFormatCache.getInstance().getStatistics());
+        results.add(VerifiedTokenCache.getInstance().getStatistics());
+        results.add(PermissionResolver.getStatistics());
+        return results;
+    }
+
+    private CacheStatistics createCacheStatistics(String region, long hits, long misses, long puts, long elements) {
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        cacheStatistics.setRegion(region);
+        cacheStatistics.setHitCount(hits);
+        cacheStatistics.setMissCount(misses);
+        cacheStatistics.setPutCount(puts);
+        cacheStatistics.setElementCount(elements);
+        if (hits + misses > 0)
+            cacheStatistics.setHitRatio((double) hits / (hits + misses));
+        return cacheStatistics;
+    }
 }
@@ -0,0 +1,71 @@
+package org.jbei.ice.lib.dto;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Usage statistics for a second-level (or query) cache region since the application was started
+ *
+ * @author Hector Plahar
+ */
+public class CacheStatistics implements IDataTransferModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private String region;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long elementCount;
+    private double hitRatio;
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public void setPutCount(long putCount) {
+        this.putCount = putCount;
+    }
+
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    public void setElementCount(long elementCount) {
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * @return ratio of hits to lookups (hits and misses), or 0 if there have been no lookups
+     */
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public void setHitRatio(double hitRatio) {
+        this.hitRatio = hitRatio;
+    }
+}
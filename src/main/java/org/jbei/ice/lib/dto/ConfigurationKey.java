@@ -27,6 +27,8 @@ public enum ConfigurationKey implements IDataTransferModel {
     PART_NUMBER_DELIMITER("_"),
 
     BLAST_INSTALL_DIR(""),
+    SEQUENCE_SEARCH_ENGINE("BLAST"),
+    SESSION_STORE("MEMORY"),
 
     NEW_REGISTRATION_ALLOWED("NO"),
     PASSWORD_CHANGE_ALLOWED("YES"),
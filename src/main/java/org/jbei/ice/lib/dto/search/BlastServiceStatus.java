@@ -0,0 +1,113 @@
+package org.jbei.ice.lib.dto.search;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Queue depth, process counts and latency statistics (in milliseconds) for the blast execution service
+ *
+ * @author Hector Plahar
+ */
+public class BlastServiceStatus implements IDataTransferModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private int poolSize;
+    private int queueDepth;
+    private int runningProcesses;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long processes;
+    private long averageWaitTime;
+    private long maxWaitTime;
+    private long averageExecutionTime;
+    private long maxExecutionTime;
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getRunningProcesses() {
+        return runningProcesses;
+    }
+
+    public void setRunningProcesses(int runningProcesses) {
+        this.runningProcesses = runningProcesses;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getProcesses() {
+        return processes;
+    }
+
+    public void setProcesses(long processes) {
+        this.processes = processes;
+    }
+
+    public long getAverageWaitTime() {
+        return averageWaitTime;
+    }
+
+    public void setAverageWaitTime(long averageWaitTime) {
+        this.averageWaitTime = averageWaitTime;
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    public void setMaxWaitTime(long maxWaitTime) {
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public long getAverageExecutionTime() {
+        return averageExecutionTime;
+    }
+
+    public void setAverageExecutionTime(long averageExecutionTime) {
+        this.averageExecutionTime = averageExecutionTime;
+    }
+
+    public long getMaxExecutionTime() {
+        return maxExecutionTime;
+    }
+
+    public void setMaxExecutionTime(long maxExecutionTime) {
+        this.maxExecutionTime = maxExecutionTime;
+    }
+}
@@ -0,0 +1,20 @@
+package org.jbei.ice.lib.dto.search;
+
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Outcome of searching a single web of registries partner
+ *
+ * @author Hector Plahar
+ */
+public enum PartnerSearchState implements IDataTransferModel {
+
+    // partner returned results (possibly none)
+    COMPLETED,
+
+    // partner did not respond before the partner timeout or the search deadline
+    TIMED_OUT,
+
+    // partner could not be contacted or returned an error
+    FAILED
+}
@@ -0,0 +1,61 @@
+package org.jbei.ice.lib.dto.search;
+
+import org.jbei.ice.lib.dto.web.RegistryPartner;
+import org.jbei.ice.storage.IDataTransferModel;
+
+/**
+ * Status of the search of a single partner as part of a web of registries search
+ *
+ * @author Hector Plahar
+ */
+public class PartnerSearchStatus implements IDataTransferModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private RegistryPartner partner;
+    private PartnerSearchState state;
+    private long resultCount;
+    private long time;  // milliseconds
+
+    public PartnerSearchStatus() {
+    }
+
+    public PartnerSearchStatus(RegistryPartner partner, PartnerSearchState state, long resultCount, long time) {
+        this.partner = partner;
+        this.state = state;
+        this.resultCount = resultCount;
+        this.time = time;
+    }
+
+    public RegistryPartner getPartner() {
+        return partner;
+    }
+
+    public void setPartner(RegistryPartner partner) {
+        this.partner = partner;
+    }
+
+    public PartnerSearchState getState() {
+        return state;
+    }
+
+    public void setState(PartnerSearchState state) {
+        this.state = state;
+    }
+
+    public long getResultCount() {
+        return resultCount;
+    }
+
+    public void setResultCount(long resultCount) {
+        this.resultCount = resultCount;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+}
@@ -21,6 +21,7 @@ public class SearchResults implements IDataTransferModel {
     private long resultCount;
     private LinkedList<SearchResult> results;
     private SearchQuery query;
+    private List<PartnerSearchStatus> partnerStatus;  // web of registries searches only
 
     public SearchResults() {
         results = new LinkedList<>();
@@ -57,6 +58,17 @@ public class SearchResults implements IDataTransferModel {
         this.query = query;
     }
 
+    /**
+     * @return status of each partner searched for web of registries searches; null otherwise
+     */
+    public List<PartnerSearchStatus> getPartnerStatus() {
+        return partnerStatus;
+    }
+
+    public void setPartnerStatus(List<PartnerSearchStatus> partnerStatus) {
+        this.partnerStatus = partnerStatus;
+    }
+
     public static void sort(ColumnField sortField, LinkedList<SearchResult> results) {
         Comparator<SearchResult> comparator;
         switch (sortField) {
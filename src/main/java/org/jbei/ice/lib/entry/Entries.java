@@ -1,5 +1,6 @@
 package org.jbei.ice.lib.entry;
 
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.dto.entry.EntryType;
@@ -9,20 +10,16 @@ import org.jbei.ice.lib.dto.folder.FolderType;
 import org.jbei.ice.lib.dto.search.SearchQuery;
 import org.jbei.ice.lib.dto.search.SearchResult;
 import org.jbei.ice.lib.dto.search.SearchResults;
-import org.jbei.ice.lib.group.GroupController;
 import org.jbei.ice.lib.search.SearchController;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.AccountDAO;
 import org.jbei.ice.storage.hibernate.dao.EntryDAO;
-import org.jbei.ice.storage.hibernate.dao.PermissionDAO;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Folder;
-import org.jbei.ice.storage.model.Group;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * @author Hector Plahar
@@ -30,7 +27,6 @@ import java.util.Set;
 public class Entries extends HasEntry {
 
     private final EntryDAO dao;
-    private final PermissionDAO permissionDAO;
     private final AccountDAO accountDAO;
     private final EntryAuthorization authorization;
     private final String userId;
@@ -41,7 +37,6 @@ public class Entries extends HasEntry {
      */
     public Entries(String userId) {
         this.dao = DAOFactory.getEntryDAO();
-        this.permissionDAO = DAOFactory.getPermissionDAO();
         this.accountDAO = DAOFactory.getAccountDAO();
         this.userId = userId;
         this.authorization = new EntryAuthorization();
@@ -49,8 +44,8 @@ public class Entries extends HasEntry {
 
     public boolean updateVisibility(List<Long> entryIds, Visibility visibility) {
         Account account = accountDAO.getByEmail(userId);
-        Set<Group> accountGroups = new GroupController().getAllGroups(account);
-        if (!new AccountController().isAdministrator(userId) && !permissionDAO.canWrite(account, accountGroups, entryIds))
+        if (!new AccountController().isAdministrator(userId)
+                && !new PermissionResolver().canWrite(account, entryIds).containsAll(entryIds))
             return false;
 
         for (long entryId : entryIds) {
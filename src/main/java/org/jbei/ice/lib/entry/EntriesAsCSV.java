@@ -1,7 +1,8 @@
 package org.jbei.ice.lib.entry;
 
 import com.opencsv.CSVWriter;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
@@ -9,7 +10,9 @@ import org.jbei.ice.lib.dto.entry.EntryField;
 import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.entry.sequence.ByteArrayWrapper;
 import org.jbei.ice.lib.entry.sequence.SequenceController;
-import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.executor.Task;
+import org.jbei.ice.lib.executor.TaskStatus;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.AccountDAO;
@@ -18,29 +21,47 @@ import org.jbei.ice.storage.hibernate.dao.PermissionDAO;
 import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
-import org.jbei.ice.storage.model.Group;
 import org.jbei.ice.storage.model.Sequence;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 /**
- * Representation of a list of entries as a CSV file with option to include associated sequences
+ * Representation of a list of entries as a CSV file with option to include associated sequences (in which case
+ * the CSV file and the sequence files are written as a zip archive).
+ * <p>
+ * The output is written as it is generated, with entries read in batches of {@link #BATCH_SIZE}, so memory used
+ * does not depend on the number of entries. Sequences are formatted in parallel by tasks on the executor service
+ * (each batch by a separate task), with at most {@link #FORMAT_BATCHES_IN_PROGRESS} batches formatted ahead of the
+ * one being written out. A batch whose task has not been started by the executor when it is due to be written
+ * is formatted by the writing thread instead, so the download does not wait for other tasks queued on the executor.
+ * Large sequences are formatted directly into the archive when it is their turn
  *
  * @author Hector Plahar
  */
 public class EntriesAsCSV {
 
+    private static final int BATCH_SIZE = 100;
+    private static final int FORMAT_BATCHES_IN_PROGRESS = 4;
+    private static final long FORMAT_TIMEOUT_MINUTES = 10;
+    private static final int STREAMED_SEQUENCE_LENGTH = 100_000;
+
+    // exports prepared for download, by key; removed when retrieved or expired
+    private static final Map<String, EntriesAsCSV> PREPARED = new ConcurrentHashMap<>();
+    private static final long PREPARED_EXPIRATION_MS = TimeUnit.MINUTES.toMillis(10);
+
     private Path csvPath;
     private List<Long> entries;
     private boolean includeSequences;
     private String[] formats;
+    private long prepared;
     private EntryDAO dao;
     private SequenceDAO sequenceDAO;
     private AccountDAO accountDAO;
@@ -68,14 +89,7 @@ public class EntriesAsCSV {
      */
     public boolean setSelectedEntries(String userId, EntrySelection selection) {
         Entries retriever = new Entries(userId);
-        this.entries = retriever.getEntriesFromSelectionContext(selection);
-        try {
-            writeList(userId);
-            return true;
-        } catch (IOException e) {
-            Logger.error(e);
-            return false;
-        }
+        return setEntries(userId, retriever.getEntriesFromSelectionContext(selection));
     }
 
     /**
@@ -97,6 +111,51 @@ public class EntriesAsCSV {
         }
     }
 
+    /**
+     * Prepares the selected entries (that the user can read) for download without extracting them. The export is
+     * written when retrieved (using the returned key) with {@link #getPrepared(String)} and then {@link #write}
+     *
+     * @param userId    identifier of user making request
+     * @param selection selection indicating source of entries
+     * @return key for retrieving the export or null if there are no entries
+     */
+    public String prepare(String userId, EntrySelection selection) {
+        Entries retriever = new Entries(userId);
+        this.entries = retriever.getEntriesFromSelectionContext(selection);
+        filterEntries(userId);
+        if (entries == null)
+            return null;
+
+        // remove expired
+        long now = System.currentTimeMillis();
+        PREPARED.values().removeIf(export -> now - export.prepared > PREPARED_EXPIRATION_MS);
+
+        this.prepared = now;
+        String key = Utils.generateUUID();
+        PREPARED.put(key, this);
+        return key;
+    }
+
+    /**
+     * Retrieves (and removes) a prepared export
+     *
+     * @param key key returned by {@link #prepare(String, EntrySelection)}
+     * @return export or null if none is prepared with the specified key or it has expired
+     */
+    public static EntriesAsCSV getPrepared(String key) {
+        EntriesAsCSV export = PREPARED.remove(key);
+        if (export == null || System.currentTimeMillis() - export.prepared > PREPARED_EXPIRATION_MS)
+            return null;
+        return export;
+    }
+
+    /**
+     * @return name of file for the export; a zip archive if sequences are included
+     */
+    public String getFileName() {
+        return includeSequences ? "entries.zip" : "entries.csv";
+    }
+
     protected String[] getCSVHeaders(List<EntryField> fields) {
 
         // get headers
@@ -114,66 +173,120 @@ public class EntriesAsCSV {
     }
 
     /**
-     * Iterate through list of entries and extract values
+     * Filters the entries to those the user is allowed to see if the user is not an admin
+     *
+     * @param userId identifier of user making request
+     */
+    private void filterEntries(String userId) {
+        Account account = this.accountDAO.getByEmail(userId);
+        if (account.getType() != AccountType.ADMIN && entries != null && !entries.isEmpty())
+            entries = new PermissionResolver().getCanReadEntries(account, entries);
+    }
+
+    /**
+     * Iterate through list of entries and extract values to a file in the temporary directory
      *
      * @param userId identifier of user making request
      * @throws IOException on Exception write values to file
      */
     private void writeList(String userId) throws IOException {
-
-        // filter entries based on what the user is allowed to see if the user is not an admin
-        Account account = this.accountDAO.getByEmail(userId);
-        Set<Group> accountGroups = new GroupController().getAllGroups(account);
-        if (account.getType() != AccountType.ADMIN)
-            entries = permissionDAO.getCanReadEntries(account, accountGroups, entries);
+        filterEntries(userId);
 
         if (entries == null) {
             Logger.warn("No entries to convert to csv format");
             return;
         }
 
-        // write headers
         Path tmpPath = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
-        File tmpFile = File.createTempFile("ice-", ".csv", tmpPath.toFile());
+        File tmpFile = includeSequences ? File.createTempFile("zip-", ".zip", tmpPath.toFile())
+                : File.createTempFile("ice-", ".csv", tmpPath.toFile());
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+            write(outputStream);
+        }
         csvPath = tmpFile.toPath();
-        FileWriter fileWriter = new FileWriter(tmpFile);
+    }
 
+    /**
+     * Writes the entries as csv to the output stream. If sequences are included, the csv (as <code>entries.csv</code>)
+     * and the sequences of the entries (in each of the requested formats) are written as a zip archive.
+     * The stream is not closed
+     *
+     * @param outputStream stream to write to
+     * @throws IOException on exception writing
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        if (!includeSequences) {
+            writeCSV(outputStream);
+            return;
+        }
+
+        ZipOutputStream zos = new ZipOutputStream(new CloseShieldOutputStream(outputStream));
+        zos.putNextEntry(new ZipEntry("entries.csv"));
+        List<Long> sequenceEntries = writeCSV(zos);
+        zos.closeEntry();
+        writeSequences(sequenceEntries, zos);
+        zos.finish();
+        zos.flush();
+    }
+
+    /**
+     * Writes the fields of the entries as csv, reading the entries in batches
+     *
+     * @return identifiers of entries with sequences (if sequences are included)
+     */
+    private List<Long> writeCSV(OutputStream outputStream) throws IOException {
+        List<Long> sequenceEntries = new ArrayList<>();
         List<EntryField> fields = getEntryFields();
         String[] headers = getCSVHeaders(fields);
 
-        try (CSVWriter writer = new CSVWriter(fileWriter)) {
-
+        Writer out = new OutputStreamWriter(new CloseShieldOutputStream(outputStream), StandardCharsets.UTF_8);
+        try (CSVWriter writer = new CSVWriter(new BufferedWriter(out))) {
             writer.writeNext(headers);
 
-            Set<Long> sequenceSet = new HashSet<>();
-
-            // write entry fields
-            for (long entryId : entries) {
-                Entry entry = dao.get(entryId);
-
-                //  get contents and write data out
-                String[] line = new String[fields.size() + 3];
-                line[0] = entry.getCreationTime().toString();
-                line[1] = entry.getPartNumber();
-                int i = 1;
-                for (EntryField field : fields) {
-                    line[i + 1] = EntryUtil.entryFieldToValue(entry, field);
-                    i += 1;
+            for (int start = 0; start < entries.size(); start += BATCH_SIZE) {
+                List<Long> batch = entries.subList(start, Math.min(entries.size(), start + BATCH_SIZE));
+                Map<Long, Entry> batchEntries = new HashMap<>();
+                for (Entry entry : dao.getEntriesByIdSet(batch)) {
+                    batchEntries.put(entry.getId(), entry);
                 }
-
-                if (this.includeSequences && sequenceDAO.hasSequence(entryId)) {
-                    line[i + 1] = getSequenceName(entry);
-                    sequenceSet.add(entryId);
-                } else {
-                    line[i + 1] = "";
+                Set<Long> withSequence = this.includeSequences
+                        ? sequenceDAO.getEntriesWithSequence(batch, false) : Collections.emptySet();
+
+                // write entry fields
+                for (long entryId : batch) {
+                    Entry entry = batchEntries.get(entryId);
+                    if (entry == null)
+                        continue;
+
+                    //  get contents and write data out
+                    String[] line = new String[fields.size() + 3];
+                    line[0] = entry.getCreationTime().toString();
+                    line[1] = entry.getPartNumber();
+                    int i = 1;
+                    for (EntryField field : fields) {
+                        line[i + 1] = EntryUtil.entryFieldToValue(entry, field);
+                        i += 1;
+                    }
+
+                    if (withSequence.contains(entryId)) {
+                        line[i + 1] = getSequenceName(entry);
+                        sequenceEntries.add(entryId);
+                    } else {
+                        line[i + 1] = "";
+                    }
+
+                    writer.writeNext(line);
                 }
 
-                writer.writeNext(line);
+                // release batch from session. sequence (loaded with entry) cascades to the entry so is evicted too
+                for (Entry entry : batchEntries.values()) {
+                    if (entry.getSequence() != null)
+                        sequenceDAO.evict(entry.getSequence());
+                    dao.evict(entry);
+                }
             }
-
-            writer.close();
-            writeZip(userId, sequenceSet);
         }
+        return sequenceEntries;
     }
 
     private String getSequenceName(Entry entry) {
@@ -186,10 +299,8 @@ public class EntriesAsCSV {
 
         switch (format.toLowerCase()) {
             case "original":
-                Sequence sequence = sequenceDAO.getByEntry(entry);
-                if (sequence == null)
-                    return "";
-                return sequence.getFileName();
+                String fileName = sequenceDAO.getSequenceFilename(entry);
+                return fileName == null ? "" : fileName;
 
             case "genbank":
             default:
@@ -204,57 +315,83 @@ public class EntriesAsCSV {
         }
     }
 
-    private boolean writeZip(String userId, Set<Long> sequenceSet) {
-        SequenceController sequenceController = new SequenceController();
-        Path tmpPath = Paths.get(Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY));
-        try {
-            File tmpZip = File.createTempFile("zip-", ".zip", tmpPath.toFile());
-
-            // out
-            FileOutputStream fos = new FileOutputStream(tmpZip);
-            ZipOutputStream zos = new ZipOutputStream(fos);
-
-            // get sequence formats
-            for (long entryId : sequenceSet) {
-                for (String format : formats) {
-                    ByteArrayWrapper wrapper = sequenceController.getSequenceFile(userId, entryId, format);
-                    putZipEntry(wrapper, zos);
-                }
-            }
+    /**
+     * Writes the sequences of the specified entries (in each requested format) to the zip archive. Each batch of
+     * entries is formatted by a separate task and the results are written in order as they become available
+     */
+    private void writeSequences(List<Long> sequenceEntries, ZipOutputStream zos) throws IOException {
+        Deque<FormatTask> inProgress = new ArrayDeque<>();
+        Set<String> names = new HashSet<>();
+
+        for (int start = 0; start < sequenceEntries.size(); start += BATCH_SIZE) {
+            List<Long> batch = sequenceEntries.subList(start, Math.min(sequenceEntries.size(), start + BATCH_SIZE));
+            FormatTask task = new FormatTask(new ArrayList<>(batch), formats);
+            IceExecutorService.getInstance().runTask(task);
+
+            // could not be queued
+            if (task.getStatus() == TaskStatus.EXCEPTION)
+                task.execute();
+            inProgress.add(task);
+
+            if (inProgress.size() >= FORMAT_BATCHES_IN_PROGRESS)
+                putZipEntries(inProgress.removeFirst(), zos, names);
+        }
 
-            // write the csv file
-            FileInputStream fis = new FileInputStream(csvPath.toFile());
-            ByteArrayWrapper wrapper = new ByteArrayWrapper(IOUtils.toByteArray(fis), "entries.csv");
-            putZipEntry(wrapper, zos);
-            zos.close();
-            csvPath = tmpZip.toPath();
-            return true;
-        } catch (Exception e) {
-            Logger.error(e);
-            return false;
+        while (!inProgress.isEmpty()) {
+            putZipEntries(inProgress.removeFirst(), zos, names);
         }
     }
 
-    protected void putZipEntry(ByteArrayWrapper wrapper, ZipOutputStream zos) {
+    private void putZipEntries(FormatTask task, ZipOutputStream zos, Set<String> names) throws IOException {
+        // no-op if the task has already been started by the executor
+        task.execute();
+
+        List<SequenceFile> files;
         try {
-            byte[] buffer = new byte[1024];
+            files = task.future.get(FORMAT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted formatting sequences", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Could not format sequences", e);
+        }
 
-            zos.putNextEntry(new ZipEntry(wrapper.getName()));
+        for (SequenceFile file : files) {
+            if (!names.add(file.name)) {
+                Logger.warn("Skipping duplicate sequence file " + file.name);
+                continue;
+            }
 
-            ByteArrayInputStream bis = new ByteArrayInputStream(wrapper.getBytes());
-            int length;
-            while ((length = bis.read(buffer)) > 0) {
-                zos.write(buffer, 0, length);
+            if (file.bytes != null) {
+                putZipEntry(new ByteArrayWrapper(file.bytes, file.name), zos);
+                continue;
             }
-            bis.close();
+
+            // large sequences are formatted directly into the archive
+            List<Sequence> sequences = sequenceDAO.getByEntries(Collections.singletonList(file.entryId));
+            if (sequences.isEmpty())
+                continue;
+
+            Sequence sequence = sequences.get(0);
+            zos.putNextEntry(new ZipEntry(file.name));
+            new SequenceController().writeSequenceFile(sequence, file.format, zos);
             zos.closeEntry();
-        } catch (Exception e) {
-            Logger.error(e);
+            sequenceDAO.evict(sequence);
         }
     }
 
+    protected void putZipEntry(ByteArrayWrapper wrapper, ZipOutputStream zos) throws IOException {
+        zos.putNextEntry(new ZipEntry(wrapper.getName()));
+        zos.write(wrapper.getBytes());
+        zos.closeEntry();
+    }
+
     protected List<EntryField> getEntryFields() {
-        Set<String> recordTypes = new HashSet<>(dao.getRecordTypes(entries));
+        Set<String> recordTypes = new HashSet<>();
+        for (int start = 0; start < entries.size(); start += BATCH_SIZE) {
+            recordTypes.addAll(dao.getRecordTypes(entries.subList(start, Math.min(entries.size(),
+                    start + BATCH_SIZE))));
+        }
         List<EntryField> fields = EntryFields.getCommonFields();
 
         for (String recordType : recordTypes) {
@@ -285,4 +422,84 @@ public class EntriesAsCSV {
     public Path getFilePath() {
         return csvPath;
     }
+
+    /**
+     * Sequence of an entry in one of the requested formats. The formatted bytes are not set for sequences that are
+     * formatted directly into the archive
+     */
+    private static class SequenceFile {
+
+        private final long entryId;
+        private final String format;
+        private final String name;
+        private final byte[] bytes;
+
+        SequenceFile(long entryId, String format, String name, byte[] bytes) {
+            this.entryId = entryId;
+            this.format = format;
+            this.name = name;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Task for formatting the sequences of a batch of entries in each of the requested formats. The sequences are
+     * retrieved in the session of the task. The formatted files are made available through a future. Sequences
+     * longer than {@link #STREAMED_SEQUENCE_LENGTH} are not formatted by the task, so the memory used for a batch
+     * is bounded. The task is run once, by either the executor or the thread writing the archive, whichever
+     * starts it first
+     */
+    private static class FormatTask extends Task {
+
+        private final List<Long> entryIds;
+        private final String[] formats;
+        private final CompletableFuture<List<SequenceFile>> future = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        FormatTask(List<Long> entryIds, String[] formats) {
+            this.entryIds = entryIds;
+            this.formats = formats;
+        }
+
+        @Override
+        public void execute() {
+            if (!started.compareAndSet(false, true))
+                return;
+
+            try {
+                Map<Long, Sequence> sequences = new HashMap<>();
+                for (Sequence sequence : DAOFactory.getSequenceDAO().getByEntries(entryIds)) {
+                    sequences.put(sequence.getEntry().getId(), sequence);
+                }
+
+                SequenceController sequenceController = new SequenceController();
+                List<SequenceFile> files = new ArrayList<>();
+                for (Long entryId : entryIds) {
+                    Sequence sequence = sequences.get(entryId);
+                    if (sequence == null)
+                        continue;
+
+                    boolean streamed = sequence.getSequence() != null
+                            && sequence.getSequence().length() > STREAMED_SEQUENCE_LENGTH;
+                    for (String format : formats) {
+                        if (streamed) {
+                            String name = sequenceController.getSequenceFileName(sequence, format);
+                            files.add(new SequenceFile(entryId, format, name, null));
+                        } else {
+                            ByteArrayWrapper wrapper = sequenceController.getSequenceFile(sequence, format);
+                            files.add(new SequenceFile(entryId, format, wrapper.getName(), wrapper.getBytes()));
+                        }
+                    }
+                }
+                future.complete(files);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int getConcurrencyLimit() {
+            return Math.max(1, Runtime.getRuntime().availableProcessors());
+        }
+    }
 }
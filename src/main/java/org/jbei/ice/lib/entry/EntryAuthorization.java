@@ -1,8 +1,8 @@
 package org.jbei.ice.lib.entry;
 
 import org.jbei.ice.lib.access.Authorization;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.access.PermissionsController;
-import org.jbei.ice.lib.dto.folder.FolderType;
 import org.jbei.ice.lib.group.GroupController;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.PermissionDAO;
@@ -11,6 +11,9 @@ import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Folder;
 import org.jbei.ice.storage.model.Group;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -20,11 +23,13 @@ public class EntryAuthorization extends Authorization<Entry> {
 
     private final PermissionDAO permissionDAO;
     private final GroupController groupController;
+    private final PermissionResolver permissionResolver;
 
     public EntryAuthorization() {
         super(DAOFactory.getEntryDAO());
         permissionDAO = DAOFactory.getPermissionDAO();
         groupController = new GroupController();
+        permissionResolver = new PermissionResolver();
     }
 
     public boolean canRead(String userId, Entry entry) {
@@ -36,40 +41,9 @@ public class EntryAuthorization extends Authorization<Entry> {
         if (super.canRead(userId, entry) || super.canWrite(userId, entry))
             return true;
 
+        // explicit, group (including parent groups) or folder permissions, or in a public folder
         Account account = getAccount(userId);
-
-        // get groups for account. if account is null, this will return everyone group
-        Set<Group> accountGroups = groupController.getAllGroups(account);
-
-        // check read permission through group membership
-        // ie. belongs to group that has read privileges for entry (or a group whose parent group does)
-        if (permissionDAO.hasPermissionMulti(entry, null, null, accountGroups, true, false))
-            return true;
-
-        if (permissionDAO.hasPermissionMulti(entry, null, null, accountGroups, false, true))
-            return true;
-
-        // check explicit read permission
-        if (permissionDAO.hasPermissionMulti(entry, null, account, null, true, false))
-            return true;
-
-        Set<Folder> entryFolders = entry.getFolders();
-
-        // is in a public folder
-        for (Folder folder : entryFolders) {
-            if (folder.getType() == FolderType.PUBLIC)
-                return true;
-        }
-
-        // can any group that account belongs to read any folder that entry is contained in?
-        if (permissionDAO.hasPermissionMulti(null, entryFolders, null, accountGroups, true, false))
-            return true;
-
-        // can account read any folder that entry is contained in?
-        if (permissionDAO.hasPermissionMulti(null, entryFolders, account, null, true, false))
-            return true;
-
-        return canWrite(userId, entry);
+        return !permissionResolver.canRead(account, Collections.singleton(entry.getId())).isEmpty();
     }
 
     @Override
@@ -77,21 +51,41 @@ public class EntryAuthorization extends Authorization<Entry> {
         if (super.canWrite(userId, entry))
             return true;
 
+        // explicit or group (including parent groups) write permissions
         Account account = getAccount(userId);
+        return !permissionResolver.canWrite(account, Collections.singleton(entry.getId())).isEmpty();
+    }
 
-        // check explicit write permission
-        if (permissionDAO.hasPermissionMulti(entry, null, account, null, false, true))
-            return true;
-
-        // check group permissions
-        // get groups for account
-        Set<Group> accountGroups = groupController.getAllGroups(account);
+    /**
+     * Determines which of the specified entries the user can write to. Performs the same checks as
+     * {@link #canWrite(String, Entry)} but with a fixed number of queries for the whole list
+     *
+     * @param userId  unique identifier for user
+     * @param entries entries to check
+     * @return identifiers of the entries that the user can write to
+     */
+    public Set<Long> getWritableEntries(String userId, List<Entry> entries) {
+        Set<Long> writable = new HashSet<>();
+        if (userId == null || entries.isEmpty())
+            return writable;
+
+        boolean isAdmin = isAdmin(userId);
+        Set<Long> remaining = new HashSet<>();
+        for (Entry entry : entries) {
+            String owner = getOwner(entry);
+            if (isAdmin || owner == null || userId.equals(owner))
+                writable.add(entry.getId());
+            else
+                remaining.add(entry.getId());
+        }
 
-        // check group permissions
-        if (permissionDAO.hasPermissionMulti(entry, null, null, accountGroups, false, true))
-            return true;
+        if (remaining.isEmpty())
+            return writable;
 
-        return false;
+        // explicit or group write permissions
+        Account account = getAccount(userId);
+        writable.addAll(permissionResolver.canWrite(account, remaining));
+        return writable;
     }
 
     public boolean canWriteThoroughCheck(String userId, Entry entry) {
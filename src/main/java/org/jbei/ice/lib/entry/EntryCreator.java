@@ -116,9 +116,9 @@ public class EntryCreator extends HasEntry {
             }
         }
 
-        // rebuild blast database
+        // update blast database
         if (sequenceDAO.hasSequence(entry.getId())) {
-            BlastPlus.scheduleBlastIndexRebuildTask(true);
+            BlastPlus.scheduleBlastIndexUpdateTask(sequenceDAO.getByEntry(entry));
         }
 
         return entry;
@@ -238,8 +238,8 @@ public class EntryCreator extends HasEntry {
             FeaturedDNASequence dnaSequence = sequenceController.sequenceToDNASequence(sequence);
             sequence = SequenceController.dnaSequenceToSequence(dnaSequence);
             sequence.setEntry(entry);
-            sequenceDAO.saveSequence(sequence);
-            BlastPlus.scheduleBlastIndexRebuildTask(true);
+            sequence = sequenceDAO.saveSequence(sequence);
+            BlastPlus.scheduleBlastIndexUpdateTask(sequence);
         }
 
         PartData copy = new PartData(EntryType.nameToType(entry.getRecordType()));
@@ -11,7 +11,6 @@ import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Group;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -73,13 +72,7 @@ public class OwnerEntries {
                     accountGroups, sort, asc, start, limit, filter);
         }
 
-        ArrayList<PartData> data = new ArrayList<>();
-        for (Entry entry : entries) {
-            PartData info = ModelToInfoFactory.createTableViewData(account.getEmail(), entry, false);
-            info.setViewCount(DAOFactory.getAuditDAO().getHistoryCount(entry));
-            data.add(info);
-        }
-        return data;
+        return ModelToInfoFactory.createTableViewData(account.getEmail(), entries, false, true);
     }
 
     public long getNumberOfOwnerEntries() {
@@ -10,7 +10,6 @@ import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Group;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -47,12 +46,6 @@ public class SharedEntries {
         accountGroups.remove(publicGroup);
         List<Entry> entries = this.entryDAO.sharedWithUserEntries(account, accountGroups, field, asc, start, limit, filter);
 
-        ArrayList<PartData> data = new ArrayList<>();
-        for (Entry entry : entries) {
-            PartData info = ModelToInfoFactory.createTableViewData(account.getEmail(), entry, false);
-            info.setViewCount(DAOFactory.getAuditDAO().getHistoryCount(entry));
-            data.add(info);
-        }
-        return data;
+        return ModelToInfoFactory.createTableViewData(account.getEmail(), entries, false, true);
     }
 }
@@ -52,14 +52,7 @@ public class VisibleEntries {
             results = dao.retrieveVisibleEntries(account, accountGroups, field, asc, start, limit, filter);
         }
 
-        ArrayList<PartData> data = new ArrayList<>();
-        for (Entry entry : results) {
-            PartData info = ModelToInfoFactory.createTableViewData(account.getEmail(), entry, false);
-            info.setViewCount(DAOFactory.getAuditDAO().getHistoryCount(entry));
-            data.add(info);
-        }
-
-        return data;
+        return ModelToInfoFactory.createTableViewData(account.getEmail(), new ArrayList<>(results), false, true);
     }
 
     /**
@@ -116,7 +116,7 @@ public class PartSequence extends HasEntry {
                 sequence.setFileName(fileName);
 
             Sequence result = sequenceDAO.saveSequence(sequence);
-            BlastPlus.scheduleBlastIndexRebuildTask(true);
+            BlastPlus.scheduleBlastIndexUpdateTask(result);
             SequenceInfo info = result.toDataTransferObject();
             info.setSequence(dnaSequence);
             return info;
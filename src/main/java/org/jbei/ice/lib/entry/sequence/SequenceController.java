@@ -23,8 +23,7 @@ import org.jbei.ice.storage.hibernate.dao.EntryDAO;
 import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
 import org.jbei.ice.storage.model.*;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -37,6 +36,19 @@ import java.util.*;
  */
 public class SequenceController extends HasEntry {
 
+    // formats whose rendered outputs are cached, and the extension of the file for each
+    private static final Map<String, String> CACHED_FORMAT_EXTENSIONS = new HashMap<>();
+
+    static {
+        CACHED_FORMAT_EXTENSIONS.put("genbank", ".gb");
+        CACHED_FORMAT_EXTENSIONS.put("fasta", ".fasta");
+        CACHED_FORMAT_EXTENSIONS.put("sbol1", ".xml");
+        CACHED_FORMAT_EXTENSIONS.put("sbol2", ".xml");
+        CACHED_FORMAT_EXTENSIONS.put("pigeons", ".txt");
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
     private final SequenceDAO dao;
     private final EntryDAO entryDAO;
     private final EntryAuthorization authorization;
@@ -58,7 +70,7 @@ public class SequenceController extends HasEntry {
     public Sequence save(String userId, Sequence sequence) {
         authorization.expectWrite(userId, sequence.getEntry());
         Sequence result = dao.saveSequence(sequence);
-        BlastPlus.scheduleBlastIndexRebuildTask(true);
+        BlastPlus.scheduleBlastIndexUpdateTask(result);
         return result;
     }
 
@@ -92,7 +104,6 @@ public class SequenceController extends HasEntry {
         if (sequence == null)
             return null;
 
-        BlastPlus.scheduleBlastIndexRebuildTask(true);
         SequenceAnalysisController sequenceAnalysisController = new SequenceAnalysisController();
         sequenceAnalysisController.rebuildAllAlignments(entry);
         return sequenceToDNASequence(sequence);
@@ -126,6 +137,7 @@ public class SequenceController extends HasEntry {
                 }
             }
 
+            SequenceFormatCache.getInstance().invalidate(oldSequence.getId());
             oldSequence.setSequenceUser(sequence.getSequenceUser());
             oldSequence.setSequence(sequence.getSequence());
             oldSequence.setFwdHash(sequence.getFwdHash());
@@ -133,7 +145,7 @@ public class SequenceController extends HasEntry {
             result = dao.updateSequence(oldSequence, sequence.getSequenceFeatures());
         }
 
-        BlastPlus.scheduleBlastIndexRebuildTask(true);
+        BlastPlus.scheduleBlastIndexUpdateTask(result);
         return result;
     }
 
@@ -146,8 +158,9 @@ public class SequenceController extends HasEntry {
             return true;
 
         String tmpDir = new ConfigurationController().getPropertyValue(ConfigurationKey.TEMPORARY_DIRECTORY);
+        SequenceFormatCache.getInstance().invalidate(sequence.getId());
         dao.deleteSequence(sequence, tmpDir);
-        BlastPlus.scheduleBlastIndexRebuildTask(true);
+        BlastPlus.scheduleBlastIndexDeleteTask(partId);
         return true;
     }
 
@@ -161,23 +174,6 @@ public class SequenceController extends HasEntry {
         return GeneralParser.getInstance().parse(sequence);
     }
 
-    /**
-     * Generate a formatted text of a given {@link IFormatter} from the given {@link Sequence}.
-     *
-     * @param sequence
-     * @param formatter
-     * @return Text of a formatted sequence.
-     */
-    protected String compose(Sequence sequence, IFormatter formatter) {
-        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        try {
-            formatter.format(sequence, byteStream);
-        } catch (FormatterException | IOException e) {
-            Logger.error(e);
-        }
-        return byteStream.toString();
-    }
-
     // responds to remote requested entry sequence
     public FeaturedDNASequence getRequestedSequence(RegistryPartner requestingPartner, String remoteUserId,
                                                     String token, String entryId, long folderId) {
@@ -315,7 +311,7 @@ public class SequenceController extends HasEntry {
         if (!StringUtils.isEmpty(sequenceString)) {
             fwdHash = SequenceUtils.calculateSequenceHash(sequenceString);
             try {
-                revHash = SequenceUtils.calculateSequenceHash(SequenceUtils.reverseComplement(sequenceString));
+                revHash = SequenceUtils.calculateReverseComplementSequenceHash(sequenceString);
             } catch (UtilityException e) {
                 revHash = "";
             }
@@ -414,23 +410,111 @@ public class SequenceController extends HasEntry {
     }
 
     public ByteArrayWrapper getSequenceFile(String userId, long partId, String type) {
+        Sequence sequence = getByPart(userId, partId);
+        if (sequence == null)
+            return new ByteArrayWrapper(new byte[]{'\0'}, "no_sequence");
+
+        return getSequenceFile(sequence, type);
+    }
+
+    /**
+     * Retrieves the sequence for a part
+     *
+     * @param userId unique identifier for user making request. Must have read access to the part
+     * @param partId unique identifier for part
+     * @return sequence or null if the part does not have one
+     * @throws PermissionException if the user does not have read access to the part
+     */
+    public Sequence getByPart(String userId, long partId) {
         Entry entry = entryDAO.get(partId);
         authorization.expectRead(userId, entry);
+        return dao.getByEntry(entry);
+    }
 
-        Sequence sequence = dao.getByEntry(entry);
-        if (sequence == null)
-            return new ByteArrayWrapper(new byte[]{'\0'}, "no_sequence");
+    /**
+     * Formats the sequence. Callers are responsible for checking that the user has read access to the entry
+     * the sequence is associated with
+     *
+     * @param sequence sequence to format
+     * @param type     format type (e.g. "original", "genbank", "fasta", "sbol1", "sbol2")
+     * @return formatted sequence and name of file for it
+     */
+    public ByteArrayWrapper getSequenceFile(Sequence sequence, String type) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            writeSequenceFile(sequence, type, outputStream);
+        } catch (Exception e) {
+            Logger.error("Failed to generate " + type + " file for download!", e);
+            return new ByteArrayWrapper(new byte[]{'\0'}, "sequence_error");
+        }
+        return new ByteArrayWrapper(outputStream.toByteArray(), getSequenceFileName(sequence, type));
+    }
+
+    /**
+     * @param sequence sequence
+     * @param type     format type (e.g. "original", "genbank", "fasta", "sbol1", "sbol2")
+     * @return name of file for the sequence in the specified format
+     */
+    public String getSequenceFileName(Sequence sequence, String type) {
+        String format = type.toLowerCase();
+        Entry entry = sequence.getEntry();
+        switch (format) {
+            case "original":
+                String name = sequence.getFileName();
+                if (StringUtils.isEmpty(name))
+                    name = entry.getPartNumber() + ".gb";
+                return name;
+
+            case "pigeoni":
+                return entry.getPartNumber() + ".png";
+
+            default:
+                String extension = CACHED_FORMAT_EXTENSIONS.get(format);
+                return entry.getPartNumber() + (extension == null ? ".gb" : extension);
+        }
+    }
+
+    /**
+     * Formats the sequence, writing it to the specified stream as it is generated. Formatted outputs are cached
+     * (see {@link SequenceFormatCache}). Callers are responsible for checking that the user has read access to the
+     * entry the sequence is associated with
+     *
+     * @param sequence     sequence to format
+     * @param type         format type (e.g. "original", "genbank", "fasta", "sbol1", "sbol2")
+     * @param outputStream stream to write the formatted sequence to. Not closed
+     * @throws IOException on exception formatting the sequence or writing to the stream
+     */
+    public void writeSequenceFile(Sequence sequence, String type, OutputStream outputStream) throws IOException {
+        String format = type.toLowerCase();
+        if (!CACHED_FORMAT_EXTENSIONS.containsKey(format)) {
+            if ("original".equals(format) || "pigeoni".equals(format)) {
+                formatSequence(sequence, format, outputStream);
+                return;
+            }
+            format = "genbank";
+        }
+
+        SequenceFormatCache cache = SequenceFormatCache.getInstance();
+        String key = SequenceFormatCache.getKey(sequence, format);
+        if (cache.write(key, outputStream))
+            return;
+
+        try (SequenceFormatCache.CachingOutputStream cachingStream = cache.newOutputStream(key, outputStream)) {
+            formatSequence(sequence, format, cachingStream);
+            cachingStream.commit();
+        }
+    }
 
-        String name;
-        String sequenceString;
+    protected void formatSequence(Sequence sequence, String format, OutputStream outputStream) throws IOException {
+        Entry entry = sequence.getEntry();
+        // formatters write in small pieces
+        OutputStream bufferedStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
 
         try {
-            switch (type.toLowerCase()) {
+            switch (format) {
                 case "original":
-                    sequenceString = sequence.getSequenceUser();
-                    name = sequence.getFileName();
-                    if (StringUtils.isEmpty(name))
-                        name = entry.getPartNumber() + ".gb";
+                    if (sequence.getSequenceUser() != null)
+                        bufferedStream.write(sequence.getSequenceUser().getBytes());
                     break;
 
                 case "genbank":
@@ -438,46 +522,41 @@ public class SequenceController extends HasEntry {
                     GenbankFormatter genbankFormatter = new GenbankFormatter(entry.getName());
                     // TODO
                     genbankFormatter.setCircular((entry instanceof Plasmid) ? ((Plasmid) entry).getCircular() : false);
-                    sequenceString = compose(sequence, genbankFormatter);
-                    name = entry.getPartNumber() + ".gb";
+                    genbankFormatter.format(sequence, bufferedStream);
                     break;
 
                 case "fasta":
-                    FastaFormatter formatter = new FastaFormatter(sequence.getEntry().getName());
-                    sequenceString = compose(sequence, formatter);
-                    name = entry.getPartNumber() + ".fasta";
+                    new FastaFormatter(entry.getName()).format(sequence, bufferedStream);
                     break;
 
                 case "sbol1":
-                    sequenceString = compose(sequence, new SBOLFormatter(true));
-                    name = entry.getPartNumber() + ".xml";
+                    new SBOLFormatter(true).format(sequence, bufferedStream);
                     break;
 
                 case "sbol2":
-                    sequenceString = compose(sequence, new SBOLFormatter(false));
-                    name = entry.getPartNumber() + ".xml";
+                    new SBOLFormatter(false).format(sequence, bufferedStream);
                     break;
 
                 case "pigeoni":
-                    try {
-                        URI uri = PigeonSBOLv.generatePigeonVisual(sequence);
-                        byte[] bytes = IOUtils.toByteArray(uri.toURL().openStream());
-                        return new ByteArrayWrapper(bytes, entry.getPartNumber() + ".png");
-                    } catch (Exception e) {
-                        Logger.error(e);
-                        return new ByteArrayWrapper(new byte[]{'\0'}, "sequence_error");
+                    URI uri = PigeonSBOLv.generatePigeonVisual(sequence);
+                    if (uri == null)
+                        throw new IOException("Could not generate pigeon image");
+                    try (InputStream inputStream = uri.toURL().openStream()) {
+                        IOUtils.copy(inputStream, bufferedStream);
                     }
+                    break;
 
                 case "pigeons":
-                    sequenceString = PigeonSBOLv.generatePigeonScript(sequence);
-                    name = entry.getPartNumber() + ".txt";
+                    String script = PigeonSBOLv.generatePigeonScript(sequence);
+                    if (script == null)
+                        throw new IOException("Could not generate pigeon script");
+                    bufferedStream.write(script.getBytes());
                     break;
             }
-        } catch (Exception e) {
-            Logger.error("Failed to generate genbank file for download!", e);
-            return new ByteArrayWrapper(new byte[]{'\0'}, "sequence_error");
+        } catch (FormatterException e) {
+            throw new IOException(e);
         }
 
-        return new ByteArrayWrapper(sequenceString.getBytes(), name);
+        bufferedStream.flush();
     }
 }
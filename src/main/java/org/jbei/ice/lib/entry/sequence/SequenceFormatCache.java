@@ -0,0 +1,472 @@
+package org.jbei.ice.lib.entry.sequence;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.CacheStatistics;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.utils.Utils;
+import org.jbei.ice.storage.model.Entry;
+import org.jbei.ice.storage.model.Sequence;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of sequences rendered in the download formats (genbank, fasta, sbol etc). Rendered outputs are keyed by
+ * sequence id, format and the last modification time of the entry and are held in two tiers:
+ * <ol>
+ * <li>an in-memory LRU bounded by the total size of the outputs it holds</li>
+ * <li>a directory in the temporary directory, also bounded by total size; least recently used files are removed
+ * when the bound is exceeded</li>
+ * </ol>
+ * Outputs for a sequence are invalidated by {@link SequenceController} when it is updated or deleted
+ *
+ * @author Hector Plahar
+ */
+public class SequenceFormatCache {
+
+    public static final String CACHE_DIR_NAME = "sequence-formats";
+
+    private static final long MEMORY_LIMIT = 32L * 1024 * 1024;
+    private static final long MEMORY_ITEM_LIMIT = 1024 * 1024;
+    private static final long DISK_LIMIT = 512L * 1024 * 1024;
+
+    private static SequenceFormatCache INSTANCE;
+
+    private final Path directory;
+    private final long memoryLimit;
+    private final long memoryItemLimit;
+    private final long diskLimit;
+
+    // access ordered
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+    private long diskSize;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+
+    /**
+     * @param directory       directory for on-disk tier; if null, outputs are only held in memory
+     * @param memoryLimit     maximum total size (in bytes) of outputs held in memory
+     * @param memoryItemLimit maximum size of an output to be held in memory. Larger outputs are only held on disk
+     * @param diskLimit       maximum total size of outputs held on disk
+     */
+    SequenceFormatCache(Path directory, long memoryLimit, long memoryItemLimit, long diskLimit) {
+        this.directory = directory;
+        this.memoryLimit = memoryLimit;
+        this.memoryItemLimit = memoryItemLimit;
+        this.diskLimit = diskLimit;
+        if (directory != null)
+            loadDiskIndex();
+    }
+
+    public static synchronized SequenceFormatCache getInstance() {
+        if (INSTANCE == null) {
+            String tmpDir = Utils.getConfigValue(ConfigurationKey.TEMPORARY_DIRECTORY);
+            Path directory = StringUtils.isEmpty(tmpDir) ? null : Paths.get(tmpDir, CACHE_DIR_NAME);
+            INSTANCE = new SequenceFormatCache(directory, MEMORY_LIMIT, MEMORY_ITEM_LIMIT, DISK_LIMIT);
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return cache key for the sequence in the specified format
+     */
+    public static String getKey(Sequence sequence, String format) {
+        Entry entry = sequence.getEntry();
+        long modified = entry == null || entry.getModificationTime() == null ? 0
+                : entry.getModificationTime().getTime();
+        return sequence.getId() + "-" + format + "-" + modified;
+    }
+
+    /**
+     * Retrieves rendered output, checking memory first and then disk. Outputs found on disk are moved into memory
+     *
+     * @param key cache key (see {@link #getKey(Sequence, String)})
+     * @return rendered output or null if it is not cached
+     */
+    public byte[] get(String key) {
+        synchronized (memory) {
+            byte[] bytes = memory.get(key);
+            if (bytes != null) {
+                memoryHits.incrementAndGet();
+                return bytes;
+            }
+        }
+
+        byte[] bytes = readFromDisk(key);
+        if (bytes == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        diskHits.incrementAndGet();
+        putInMemory(key, bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes rendered output, if cached, to the specified stream. Outputs that are too large to be held in memory are
+     * copied from disk
+     *
+     * @param key          cache key (see {@link #getKey(Sequence, String)})
+     * @param outputStream stream to write the output to
+     * @return true if the output was cached (and written), false otherwise
+     * @throws IOException on exception writing to the stream
+     */
+    public boolean write(String key, OutputStream outputStream) throws IOException {
+        byte[] bytes;
+        synchronized (memory) {
+            bytes = memory.get(key);
+        }
+        if (bytes != null) {
+            memoryHits.incrementAndGet();
+            outputStream.write(bytes);
+            return true;
+        }
+
+        Long length = null;
+        if (directory != null) {
+            synchronized (disk) {
+                length = disk.get(key);
+            }
+        }
+
+        if (length != null && length > memoryItemLimit) {
+            try {
+                Files.copy(directory.resolve(key), outputStream);
+                diskHits.incrementAndGet();
+                return true;
+            } catch (NoSuchFileException e) {
+                // removed by invalidation or eviction
+                misses.incrementAndGet();
+                return false;
+            }
+        }
+
+        bytes = get(key);
+        if (bytes == null)
+            return false;
+        outputStream.write(bytes);
+        return true;
+    }
+
+    /**
+     * Caches rendered output in memory (if it is not too large) and on disk
+     *
+     * @param key   cache key (see {@link #getKey(Sequence, String)})
+     * @param bytes rendered output
+     */
+    public void put(String key, byte[] bytes) {
+        puts.incrementAndGet();
+        putInMemory(key, bytes);
+        writeToDisk(key, bytes);
+    }
+
+    /**
+     * Creates a stream for rendering output that is written to the specified target and also captured for caching
+     * (in memory if it is small enough and in a temporary file on disk). The captured output is only cached if
+     * {@link CachingOutputStream#commit()} is called before the stream is closed
+     *
+     * @param key    cache key (see {@link #getKey(Sequence, String)})
+     * @param target stream the rendered output is written to. Not closed when the returned stream is closed
+     * @return caching stream
+     */
+    public CachingOutputStream newOutputStream(String key, OutputStream target) {
+        return new CachingOutputStream(key, target);
+    }
+
+    /**
+     * Removes all cached outputs for the sequence with the specified id
+     *
+     * @param sequenceId unique identifier for sequence
+     */
+    public void invalidate(long sequenceId) {
+        String prefix = sequenceId + "-";
+        synchronized (memory) {
+            Iterator<Map.Entry<String, byte[]>> iterator = memory.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, byte[]> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    memorySize -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (directory == null)
+            return;
+
+        List<String> removed = new ArrayList<>();
+        synchronized (disk) {
+            Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Long> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    diskSize -= entry.getValue();
+                    removed.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        removed.forEach(this::deleteFile);
+    }
+
+    /**
+     * @return usage statistics for the memory and disk tiers
+     */
+    public List<CacheStatistics> getStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<>();
+        long memoryMisses = diskHits.get() + misses.get();
+        int memoryCount;
+        synchronized (memory) {
+            memoryCount = memory.size();
+        }
+        statistics.add(createStatistics(CACHE_DIR_NAME + ".memory", memoryHits.get(), memoryMisses, memoryCount));
+
+        int diskCount;
+        synchronized (disk) {
+            diskCount = disk.size();
+        }
+        statistics.add(createStatistics(CACHE_DIR_NAME + ".disk", diskHits.get(), misses.get(), diskCount));
+        return statistics;
+    }
+
+    private CacheStatistics createStatistics(String region, long hits, long misses, long elements) {
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        cacheStatistics.setRegion(region);
+        cacheStatistics.setHitCount(hits);
+        cacheStatistics.setMissCount(misses);
+        cacheStatistics.setPutCount(puts.get());
+        cacheStatistics.setElementCount(elements);
+        if (hits + misses > 0)
+            cacheStatistics.setHitRatio((double) hits / (hits + misses));
+        return cacheStatistics;
+    }
+
+    private void putInMemory(String key, byte[] bytes) {
+        if (bytes.length > memoryItemLimit)
+            return;
+
+        synchronized (memory) {
+            byte[] previous = memory.put(key, bytes);
+            if (previous != null)
+                memorySize -= previous.length;
+            memorySize += bytes.length;
+
+            // evict least recently used
+            Iterator<byte[]> iterator = memory.values().iterator();
+            while (memorySize > memoryLimit && iterator.hasNext()) {
+                memorySize -= iterator.next().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (directory == null)
+            return null;
+
+        synchronized (disk) {
+            // also updates access order
+            if (disk.get(key) == null)
+                return null;
+        }
+
+        try {
+            return Files.readAllBytes(directory.resolve(key));
+        } catch (NoSuchFileException e) {
+            // removed by invalidation or eviction
+            return null;
+        } catch (IOException e) {
+            Logger.warn("Could not read cached sequence " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] bytes) {
+        if (directory == null || bytes.length > diskLimit)
+            return;
+
+        try {
+            Path tmp = createTempFile(key);
+            Files.write(tmp, bytes);
+            moveToDisk(key, tmp, bytes.length);
+        } catch (IOException e) {
+            Logger.warn("Could not write cached sequence " + key + ": " + e.getMessage());
+        }
+    }
+
+    private Path createTempFile(String key) throws IOException {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, key, ".tmp");
+    }
+
+    private void moveToDisk(String key, Path tmp, long length) throws IOException {
+        if (length > diskLimit) {
+            Files.deleteIfExists(tmp);
+            return;
+        }
+
+        Files.move(tmp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (disk) {
+            Long previous = disk.put(key, length);
+            if (previous != null)
+                diskSize -= previous;
+            diskSize += length;
+
+            Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+            while (diskSize > diskLimit && iterator.hasNext()) {
+                Map.Entry<String, Long> entry = iterator.next();
+                diskSize -= entry.getValue();
+                evicted.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        evicted.forEach(this::deleteFile);
+    }
+
+    private void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key));
+        } catch (IOException e) {
+            Logger.warn("Could not delete cached sequence " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the index of outputs retained on disk (e.g. from before a restart), in order of last modification
+     */
+    private void loadDiskIndex() {
+        File[] files = directory.toFile().listFiles();
+        if (files == null)
+            return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp")) {
+                file.delete();
+                continue;
+            }
+            disk.put(file.getName(), file.length());
+            diskSize += file.length();
+        }
+    }
+
+    /**
+     * Stream that writes rendered output to a target stream while capturing it for the cache
+     */
+    public class CachingOutputStream extends OutputStream {
+
+        private final String key;
+        private final OutputStream target;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream file;
+        private Path tmp;
+        private long length;
+        private boolean committed;
+
+        CachingOutputStream(String key, OutputStream target) {
+            this.key = key;
+            this.target = target;
+            if (directory == null)
+                return;
+
+            try {
+                tmp = createTempFile(key);
+                file = new BufferedOutputStream(Files.newOutputStream(tmp));
+            } catch (IOException e) {
+                Logger.warn("Could not create cache file for sequence " + key + ": " + e.getMessage());
+                tmp = null;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            length += len;
+
+            if (buffer != null) {
+                if (length > memoryItemLimit)
+                    buffer = null;
+                else
+                    buffer.write(b, off, len);
+            }
+
+            if (file != null) {
+                try {
+                    file.write(b, off, len);
+                } catch (IOException e) {
+                    Logger.warn("Could not write cache file for sequence " + key + ": " + e.getMessage());
+                    discardFile();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        /**
+         * Caches the output written so far. Called when the output has been completely rendered
+         */
+        public void commit() throws IOException {
+            flush();
+            committed = true;
+            puts.incrementAndGet();
+            if (buffer != null)
+                putInMemory(key, buffer.toByteArray());
+
+            if (file != null) {
+                try {
+                    file.close();
+                    file = null;
+                    moveToDisk(key, tmp, length);
+                } catch (IOException e) {
+                    Logger.warn("Could not cache sequence " + key + ": " + e.getMessage());
+                    discardFile();
+                }
+            }
+        }
+
+        /**
+         * Discards the captured output if it has not been committed. The target stream is not closed
+         */
+        @Override
+        public void close() {
+            if (!committed)
+                discardFile();
+            buffer = null;
+        }
+
+        private void discardFile() {
+            if (tmp == null)
+                return;
+
+            try {
+                if (file != null)
+                    file.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                Logger.warn("Could not delete cache file for sequence " + key + ": " + e.getMessage());
+            }
+            file = null;
+            tmp = null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.jbei.ice.lib.entry.sequence.annotation;
 
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.account.AccountType;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.DNAFeature;
@@ -15,10 +16,8 @@ import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.*;
 import org.jbei.ice.storage.model.*;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * ICE Annotations with support for generating potential annotations for a specified entry
@@ -31,8 +30,7 @@ public class Annotations {
     private final String userId;
     private final FeatureDAO featureDAO;
     private final SequenceFeatureDAO sequenceFeatureDAO;
-    private final PermissionDAO permissionDAO;
-    private final GroupDAO groupDAO;
+    private final PermissionResolver permissionResolver;
     private final FeatureCurationModelDAO curationModelDAO;
     private final EntryDAO entryDAO;
     private final AccountDAO accountDAO;
@@ -41,8 +39,7 @@ public class Annotations {
         this.sequenceDAO = DAOFactory.getSequenceDAO();
         this.featureDAO = DAOFactory.getFeatureDAO();
         this.sequenceFeatureDAO = DAOFactory.getSequenceFeatureDAO();
-        this.permissionDAO = DAOFactory.getPermissionDAO();
-        this.groupDAO = DAOFactory.getGroupDAO();
+        this.permissionResolver = new PermissionResolver();
         this.userId = userId;
         this.curationModelDAO = DAOFactory.getFeatureCurationModelDAO();
         this.entryDAO = DAOFactory.getEntryDAO();
@@ -111,7 +108,6 @@ public class Annotations {
 
             // check permissions
             Account account = accountDAO.getByEmail(userId);
-            Set<Group> groups = new HashSet<>(this.groupDAO.retrieveMemberGroups(account));
 
             for (DNAFeature dnaFeature : features) {
                 Feature feature = this.featureDAO.get(dnaFeature.getId());
@@ -122,7 +118,7 @@ public class Annotations {
                     continue;
 
                 if (!isAdministrator()) {
-                    entries = this.permissionDAO.getCanReadEntries(account, groups, entries);
+                    entries = this.permissionResolver.getCanReadEntries(account, entries);
                     if (entries.isEmpty())
                         continue;
                 }
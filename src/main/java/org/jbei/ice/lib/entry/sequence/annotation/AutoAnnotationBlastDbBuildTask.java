@@ -116,4 +116,12 @@ public class AutoAnnotationBlastDbBuildTask extends Task {
             }
         }, date);
     }
+
+    /**
+     * Only one-off rebuilds are de-duplicated; the scheduled rebuild task runs for the lifetime of the application
+     */
+    @Override
+    public String getDeduplicationKey() {
+        return runOnce ? getClass().getName() : null;
+    }
 }
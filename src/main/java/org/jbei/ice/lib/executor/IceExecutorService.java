@@ -1,21 +1,50 @@
 package org.jbei.ice.lib.executor;
 
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.TaskInfo;
 
+import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Runs tasks in one of two lanes ({@link TaskLane}), each with its own threads, so that batch tasks such as index
+ * rebuilds do not delay interactive tasks. Tasks of a type that specifies a concurrency limit are held back
+ * (without occupying a thread) while the limit is reached, and a task is not queued if an identical one
+ * (see {@link Task#getDeduplicationKey()}) is already waiting to be run.
+ * <p>
+ * Queued, running and recently finished tasks are tracked for reporting
+ *
  * @author Hector Plahar
  */
 public class IceExecutorService {
 
     private static final IceExecutorService INSTANCE = new IceExecutorService();
-    private final ExecutorService pool;
+    private static final int INTERACTIVE_POOL_SIZE = 10;
+    private static final int BATCH_POOL_SIZE = 5;
+    private static final int FINISHED_HISTORY_SIZE = 100;
+
+    private final ExecutorService interactivePool;
+    private final ExecutorService batchPool;
+    private final AtomicLong taskIds = new AtomicLong();
+
+    // guarded by "this"
+    private final Map<Long, Task> queued = new LinkedHashMap<>();
+    private final Map<Long, Task> running = new LinkedHashMap<>();
+    private final LinkedList<Task> finished = new LinkedList<>();
+    private final Map<Class<?>, Integer> dispatchedCounts = new HashMap<>();
+    private final Map<Class<?>, LinkedList<Task>> heldTasks = new HashMap<>();
 
     private IceExecutorService() {
-        pool = Executors.newFixedThreadPool(5, r -> {
+        interactivePool = Executors.newFixedThreadPool(INTERACTIVE_POOL_SIZE, r -> {
+            Thread thread = new Thread(r);
+            thread.setPriority(Thread.NORM_PRIORITY);
+            return thread;
+        });
+        batchPool = Executors.newFixedThreadPool(BATCH_POOL_SIZE, r -> {
             Thread thread = new Thread(r);
             thread.setPriority(Thread.MIN_PRIORITY);
             return thread;
@@ -28,28 +57,135 @@ public class IceExecutorService {
 
     public void stopService() {
         Logger.info("Shutting down executor service");
-        pool.shutdown(); // Disable new tasks from being submitted
+        interactivePool.shutdown(); // Disable new tasks from being submitted
+        batchPool.shutdown();
         try {
             // Wait a while for existing tasks to terminate
-            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
-                pool.shutdownNow(); // Cancel currently executing tasks
+            if (!awaitTermination()) {
+                interactivePool.shutdownNow(); // Cancel currently executing tasks
+                batchPool.shutdownNow();
                 // Wait a while for tasks to respond to being cancelled
-                if (!pool.awaitTermination(10, TimeUnit.SECONDS))
+                if (!awaitTermination())
                     Logger.info("Executor service did not terminate");
             }
         } catch (InterruptedException ie) {
             // (Re-)Cancel if current thread also interrupted
-            pool.shutdownNow();
+            interactivePool.shutdownNow();
+            batchPool.shutdownNow();
             // Preserve interrupt status
             Thread.currentThread().interrupt();
         }
     }
 
-    public void runTask(Task task) {
+    private boolean awaitTermination() throws InterruptedException {
+        return interactivePool.awaitTermination(10, TimeUnit.SECONDS)
+                && batchPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Submits the task to be run in its lane. The task is not queued if a task with the same deduplication key
+     * is already waiting to be run
+     *
+     * @param task task to run
+     * @return true if the task was queued, false if it is a duplicate of a waiting task
+     */
+    public synchronized boolean runTask(Task task) {
         if (task == null)
-            return;
+            return false;
+
+        String key = task.getDeduplicationKey();
+        if (key != null) {
+            for (Task queuedTask : queued.values()) {
+                if (key.equals(queuedTask.getDeduplicationKey())) {
+                    Logger.info("Task " + key + " is already queued");
+                    return false;
+                }
+            }
+        }
+
+        task.setId(taskIds.incrementAndGet());
+        task.setSubmitted(System.currentTimeMillis());
+        task.setStatus(TaskStatus.PENDING);
+        queued.put(task.getId(), task);
+
+        int limit = task.getConcurrencyLimit();
+        if (limit > 0 && dispatchedCounts.getOrDefault(task.getClass(), 0) >= limit) {
+            heldTasks.computeIfAbsent(task.getClass(), k -> new LinkedList<>()).add(task);
+            return true;
+        }
 
         Logger.info("Adding task to executor service");
-        pool.execute(new TaskHandler(task));
+        dispatch(task);
+        return true;
+    }
+
+    /**
+     * @return information about queued, running and recently finished tasks (in that order)
+     */
+    public synchronized List<TaskInfo> getTasks() {
+        List<TaskInfo> tasks = new ArrayList<>();
+        for (Task task : queued.values()) {
+            tasks.add(toTaskInfo(task));
+        }
+        for (Task task : running.values()) {
+            tasks.add(toTaskInfo(task));
+        }
+        for (Task task : finished) {
+            tasks.add(toTaskInfo(task));
+        }
+        return tasks;
+    }
+
+    synchronized void taskStarted(Task task) {
+        queued.remove(task.getId());
+        running.put(task.getId(), task);
+        task.setStarted(System.currentTimeMillis());
+    }
+
+    synchronized void taskFinished(Task task) {
+        task.setFinished(System.currentTimeMillis());
+        running.remove(task.getId());
+        finished.addFirst(task);
+        if (finished.size() > FINISHED_HISTORY_SIZE)
+            finished.removeLast();
+
+        dispatchedCounts.merge(task.getClass(), -1, Integer::sum);
+        LinkedList<Task> held = heldTasks.get(task.getClass());
+        if (held != null && !held.isEmpty())
+            dispatch(held.removeFirst());
+    }
+
+    private void dispatch(Task task) {
+        dispatchedCounts.merge(task.getClass(), 1, Integer::sum);
+        ExecutorService pool = task.getLane() == TaskLane.INTERACTIVE ? interactivePool : batchPool;
+        try {
+            pool.execute(new TaskHandler(task, this));
+        } catch (RejectedExecutionException e) {
+            Logger.error("Could not run task: " + e.getMessage());
+            dispatchedCounts.merge(task.getClass(), -1, Integer::sum);
+            queued.remove(task.getId());
+            task.setStatus(TaskStatus.EXCEPTION);
+        }
+    }
+
+    private static TaskInfo toTaskInfo(Task task) {
+        TaskInfo info = new TaskInfo();
+        info.setId(task.getId());
+        String type = task.getClass().getSimpleName();
+        info.setType(type.isEmpty() ? task.getClass().getName() : type);
+        info.setLane(task.getLane().name());
+        info.setStatus(task.getStatus().name());
+        info.setSubmitted(task.getSubmitted());
+        info.setStarted(task.getStarted());
+        info.setFinished(task.getFinished());
+
+        long now = System.currentTimeMillis();
+        if (task.getStarted() == 0) {
+            info.setWaitTime(now - task.getSubmitted());
+        } else {
+            info.setWaitTime(task.getStarted() - task.getSubmitted());
+            info.setRunTime((task.getFinished() == 0 ? now : task.getFinished()) - task.getStarted());
+        }
+        return info;
     }
 }
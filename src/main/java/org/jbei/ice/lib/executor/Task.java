@@ -7,10 +7,39 @@ package org.jbei.ice.lib.executor;
  */
 public abstract class Task {
 
-    private TaskStatus status = TaskStatus.NEW;
+    private volatile TaskStatus status = TaskStatus.NEW; // set by the thread running the task
+    private long id;
+    private long submitted;
+    private long started;
+    private long finished;
 
     public abstract void execute();
 
+    /**
+     * @return lane this task is run in. Defaults to {@link TaskLane#BATCH}
+     */
+    public TaskLane getLane() {
+        return TaskLane.BATCH;
+    }
+
+    /**
+     * @return maximum number of tasks of this type that can be running at the same time. Defaults to 0 which
+     * is no limit other than the number of threads available in the lane
+     */
+    public int getConcurrencyLimit() {
+        return 0;
+    }
+
+    /**
+     * Key for identifying tasks that would do the same work. A task is not queued if another one with the same key
+     * is already waiting to be run
+     *
+     * @return key for this task or null (default) if it should always be queued
+     */
+    public String getDeduplicationKey() {
+        return null;
+    }
+
     void setStatus(TaskStatus status) {
         this.status = status;
     }
@@ -18,4 +47,39 @@ public abstract class Task {
     public TaskStatus getStatus() {
         return this.status;
     }
+
+    /**
+     * @return identifier assigned by the executor service when the task is submitted
+     */
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    void setStarted(long started) {
+        this.started = started;
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    void setFinished(long finished) {
+        this.finished = finished;
+    }
 }
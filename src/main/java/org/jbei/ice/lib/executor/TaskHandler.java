@@ -11,13 +11,16 @@ import org.jbei.ice.storage.hibernate.HibernateUtil;
 class TaskHandler implements Runnable {
 
     private final Task task;
+    private final IceExecutorService service;
 
-    public TaskHandler(Task task) {
+    public TaskHandler(Task task, IceExecutorService service) {
         this.task = task;
+        this.service = service;
     }
 
     @Override
     public void run() {
+        service.taskStarted(task);
         try {
             this.task.setStatus(TaskStatus.IN_PROGRESS);
             HibernateUtil.beginTransaction();
@@ -28,6 +31,8 @@ class TaskHandler implements Runnable {
             Logger.error(caught);
             HibernateUtil.rollbackTransaction();
             this.task.setStatus(TaskStatus.EXCEPTION);
+        } finally {
+            service.taskFinished(task);
         }
     }
 }
@@ -0,0 +1,12 @@
+package org.jbei.ice.lib.executor;
+
+/**
+ * Lanes that tasks are run in by the ice executor service. Each lane has its own threads so that long running
+ * batch tasks cannot delay interactive tasks that a request is waiting on
+ *
+ * @author Hector Plahar
+ */
+public enum TaskLane {
+    INTERACTIVE,    // short tasks whose results are waited on by a user request
+    BATCH           // background tasks such as index rebuilds
+}
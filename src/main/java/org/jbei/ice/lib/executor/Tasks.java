@@ -0,0 +1,46 @@
+package org.jbei.ice.lib.executor;
+
+import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.account.AccountController;
+import org.jbei.ice.lib.dto.TaskInfo;
+import org.jbei.ice.lib.dto.common.Results;
+
+import java.util.List;
+
+/**
+ * Reporting on tasks that have been submitted to the ice executor service
+ *
+ * @author Hector Plahar
+ */
+public class Tasks {
+
+    private final String userId;
+    private final AccountController accountController;
+
+    public Tasks(String userId) {
+        this.userId = userId;
+        this.accountController = new AccountController();
+    }
+
+    /**
+     * Retrieves the queued, running and recently finished tasks along with how long they waited to be run and
+     * have been running (or ran) for
+     *
+     * @param status optional status to filter the tasks by
+     * @return tasks matching the status, or all tracked tasks if no status is specified
+     * @throws PermissionException if the requesting user does not have administrative privileges
+     */
+    public Results<TaskInfo> get(TaskStatus status) {
+        if (!accountController.isAdministrator(userId))
+            throw new PermissionException("Administrative privileges required to view tasks");
+
+        List<TaskInfo> tasks = IceExecutorService.getInstance().getTasks();
+        if (status != null)
+            tasks.removeIf(task -> !status.name().equals(task.getStatus()));
+
+        Results<TaskInfo> results = new Results<>();
+        results.setData(tasks);
+        results.setResultCount(tasks.size());
+        return results;
+    }
+}
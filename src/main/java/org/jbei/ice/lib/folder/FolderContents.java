@@ -2,6 +2,7 @@ package org.jbei.ice.lib.folder;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.access.PermissionsController;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.account.AccountTransfer;
@@ -16,10 +17,8 @@ import org.jbei.ice.lib.dto.folder.FolderDetails;
 import org.jbei.ice.lib.dto.folder.FolderType;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
 import org.jbei.ice.lib.entry.Entries;
-import org.jbei.ice.lib.entry.EntryAuthorization;
 import org.jbei.ice.lib.entry.EntrySelection;
 import org.jbei.ice.lib.entry.EntrySelectionType;
-import org.jbei.ice.lib.group.GroupController;
 import org.jbei.ice.lib.net.RemoteContact;
 import org.jbei.ice.lib.net.RemoteTransfer;
 import org.jbei.ice.storage.DAOFactory;
@@ -31,7 +30,9 @@ import org.jbei.ice.storage.hibernate.dao.RemoteShareModelDAO;
 import org.jbei.ice.storage.model.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -119,9 +120,8 @@ public class FolderContents {
     }
 
     protected FolderDetails addEntriesToTransferredFolder(List<Long> entries, Folder folder) {
-        List<Entry> entryModelList = DAOFactory.getEntryDAO().getEntriesByIdSet(entries);  // todo : performance
-        Logger.info("Adding " + entryModelList.size() + " transferred entries to folder " + folder.getId());
-        folderDAO.addFolderContents(folder, entryModelList);
+        int count = folderDAO.addFolderEntries(folder, entries);
+        Logger.info("Added " + count + " transferred entries to folder " + folder.getId());
         return folder.toDataTransferObject();
     }
 
@@ -173,9 +173,8 @@ public class FolderContents {
     protected List<FolderDetails> addEntriesToFolders(String userId, List<Long> entries, List<FolderDetails> folders) {
         Account account = DAOFactory.getAccountDAO().getByEmail(userId);
         PermissionDAO permissionDAO = DAOFactory.getPermissionDAO();
-        Set<Group> accountGroups = new GroupController().getAllGroups(account);
         if (!folderAuthorization.isAdmin(userId))
-            entries = DAOFactory.getPermissionDAO().getCanReadEntries(account, accountGroups, entries);
+            entries = new PermissionResolver().getCanReadEntries(account, entries);
 
         if (entries.isEmpty())
             return new ArrayList<>();
@@ -197,11 +196,10 @@ public class FolderContents {
                 Logger.info("Adding entries to remote folder " + folder.getId());
                 addToRemoteFolder(account, folder, entries);
             } else {
-                List<Entry> entryModelList = DAOFactory.getEntryDAO().getEntriesByIdSet(entries);
-                folderDAO.addFolderContents(folder, entryModelList);
+                folderDAO.addFolderEntries(folder, entries);
                 if (folder.isPropagatePermissions()) {
                     Set<Permission> folderPermissions = permissionDAO.getFolderPermissions(folder);
-                    addEntryPermission(userId, folderPermissions, entryModelList);
+                    addEntryPermission(userId, account, folderPermissions, entries);
                 }
 
                 details.setCount(folderDAO.getFolderSize(folder.getId(), null, true));
@@ -279,10 +277,7 @@ public class FolderContents {
 
         // retrieve folder contents
         List<Entry> results = folderDAO.retrieveFolderContents(folderId, pageParameters, visibleOnly);
-        for (Entry entry : results) {
-            PartData info = ModelToInfoFactory.createTableViewData(userId, entry, false);
-            details.getEntries().add(info);
-        }
+        details.getEntries().addAll(ModelToInfoFactory.createTableViewData(userId, results, false, false));
         return details;
     }
 
@@ -428,25 +423,42 @@ public class FolderContents {
         return filteredPermissions;
     }
 
-    private void addEntryPermission(String userId, Set<Permission> permissions, List<Entry> entries) {
+    // adds the folder permissions to the entries that the user can write to (directly or through a folder),
+    // with a fixed number of queries for each permission instead of for each entry
+    private void addEntryPermission(String userId, Account account, Set<Permission> permissions, List<Long> entries) {
+        if (permissions.isEmpty())
+            return;
+
         PermissionDAO permissionDAO = DAOFactory.getPermissionDAO();
-        EntryAuthorization entryAuthorization = new EntryAuthorization();
+        List<Long> writable = new ArrayList<>(entries);
+        if (!folderAuthorization.isAdmin(userId))
+            writable.retainAll(new PermissionResolver().canWrite(account, entries, true));
+        if (writable.isEmpty())
+            return;
 
+        Map<Long, Entry> entryModels = new HashMap<>();
         for (Permission folderPermission : permissions) {
-            for (Entry entry : entries) {
-                if (!entryAuthorization.canWriteThoroughCheck(userId, entry))
-                    continue;
+            // skip the entries that already have the permission
+            Set<Long> existing = permissionDAO.getEntryIdsWithPermission(writable, folderPermission.getAccount(),
+                    folderPermission.getGroup(), folderPermission.isCanRead(), folderPermission.isCanWrite());
+
+            List<Long> missing = new ArrayList<>();
+            for (Long entryId : writable) {
+                if (!existing.contains(entryId) && !entryModels.containsKey(entryId))
+                    missing.add(entryId);
+            }
+            for (Entry entry : DAOFactory.getEntryDAO().getEntriesByIdSet(missing)) {
+                entryModels.put(entry.getId(), entry);
+            }
 
-                // does the permissions already exists
-                if (permissionDAO.hasPermission(entry, null, null, folderPermission.getAccount(),
-                        folderPermission.getGroup(), folderPermission.isCanRead(), folderPermission.isCanWrite())) {
+            for (Long entryId : writable) {
+                Entry entry = entryModels.get(entryId);
+                if (entry == null || existing.contains(entryId))
                     continue;
-                }
 
                 Permission permission = new Permission();
                 permission.setEntry(entry);
-                if (entry != null)
-                    entry.getPermissions().add(permission);
+                entry.getPermissions().add(permission);
                 permission.setGroup(folderPermission.getGroup());
                 permission.setAccount(folderPermission.getAccount());
                 permission.setCanRead(folderPermission.isCanRead());
@@ -171,10 +171,7 @@ public class CollectionEntries {
                                                        int offset, int limit, String user, String filter) {
         List<Entry> entries = entryDAO.getByVisibility(user, visibility, field, asc, offset, limit, filter);
         Results<PartData> results = new Results<>();
-        for (Entry entry : entries) {
-            PartData info = ModelToInfoFactory.createTableViewData(userId, entry, false);
-            results.getData().add(info);
-        }
+        results.getData().addAll(ModelToInfoFactory.createTableViewData(userId, entries, false, false));
         results.setResultCount(entryDAO.getByVisibilityCount(user, visibility, filter));
         return results;
     }
@@ -1,6 +1,7 @@
 package org.jbei.ice.lib.group;
 
 import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.account.AccountTransfer;
 import org.jbei.ice.lib.account.AccountType;
@@ -9,6 +10,7 @@ import org.jbei.ice.lib.dto.group.GroupType;
 import org.jbei.ice.lib.dto.group.UserGroup;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.GroupClosureDAO;
 import org.jbei.ice.storage.hibernate.dao.GroupDAO;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Group;
@@ -23,11 +25,16 @@ public class GroupController {
     public static final String PUBLIC_GROUP_DESCRIPTION = "All users are members of this group";
     public static final String PUBLIC_GROUP_UUID = "8746a64b-abd5-4838-a332-02c356bbeac0";
 
+    // identifier of the public group; set once it is known to be committed
+    private static volatile Long publicGroupId;
+
     private final AccountController accountController;
     private final GroupDAO dao;
+    private final GroupClosureDAO closureDAO;
 
     public GroupController() {
         dao = new GroupDAO();
+        closureDAO = DAOFactory.getGroupClosureDAO();
         accountController = new AccountController();
     }
 
@@ -51,11 +58,18 @@ public class GroupController {
         return isOwner || accountController.isAdministrator(userId);
     }
 
+    /**
+     * Retrieves the UUIDs of the groups that the user owns or is a member of, their parent groups and the
+     * public group
+     *
+     * @param userId user identifier; typically email
+     * @return set of group UUIDs
+     */
     public Set<String> retrieveAccountGroupUUIDs(String userId) {
         Account account = accountController.getByEmail(userId);
         Set<String> uuids = new HashSet<>();
         if (account != null) {
-            uuids.addAll(dao.getMemberGroupUUIDs(account));
+            uuids.addAll(closureDAO.getAccountGroupUUIDs(account));
         }
         uuids.add(PUBLIC_GROUP_UUID);
         return uuids;
@@ -129,8 +143,10 @@ public class GroupController {
 
     public Group createOrRetrievePublicGroup() {
         Group publicGroup = dao.get(PUBLIC_GROUP_UUID);
-        if (publicGroup != null)
+        if (publicGroup != null) {
+            publicGroupId = publicGroup.getId();
             return publicGroup;
+        }
 
         publicGroup = new Group();
         publicGroup.setLabel(PUBLIC_GROUP_NAME);
@@ -162,29 +178,38 @@ public class GroupController {
             return groups;
         }
 
-        Set<Long> groupIds = getAllAccountGroups(account);
+        Set<Long> groupIds = new PermissionResolver().getGroupIds(account);
         return dao.getByIdList(groupIds);
     }
 
     /**
-     * Retrieve all parent {@link Group}s of a given {@link Account}.
+     * Retrieve all parent {@link Group}s of a given {@link Account}. The results are not cached; use
+     * {@link PermissionResolver#getGroupIds(Account)} for the cached set
      *
      * @param account Account to query on.
      * @return Set of Group ids.
      */
-    protected Set<Long> getAllAccountGroups(Account account) {
-        HashSet<Long> accountGroups = new HashSet<>();
-
-        for (Group group : account.getGroups()) {
-            accountGroups = getParentGroups(group, accountGroups);
-        }
+    public Set<Long> getAllAccountGroups(Account account) {
+        Set<Long> accountGroups = closureDAO.getAccountGroupIds(account);
 
         // Everyone belongs to the everyone group
-        Group everybodyGroup = createOrRetrievePublicGroup();
-        accountGroups.add(everybodyGroup.getId());
+        accountGroups.add(getPublicGroupId());
         return accountGroups;
     }
 
+    /**
+     * Retrieves the identifier of the public group, creating the group if it does not exist. The identifier is
+     * retained after the first call so that subsequent calls do not need to retrieve the group
+     *
+     * @return unique identifier of the public group
+     */
+    public long getPublicGroupId() {
+        Long id = publicGroupId;
+        if (id != null)
+            return id;
+        return createOrRetrievePublicGroup().getId();
+    }
+
     public ArrayList<Group> getAllPublicGroupsForAccount(Account account) {
         ArrayList<Group> groups = new ArrayList<>();
         for (Group group : account.getGroups()) {
@@ -193,25 +218,4 @@ public class GroupController {
         }
         return groups;
     }
-
-    /**
-     * Retrieve all parent {@link Group}s of a given group.
-     *
-     * @param group    Group to query on.
-     * @param groupIds optional set of group ids. Can be empty.
-     * @return Set of Parent group ids.
-     */
-    protected HashSet<Long> getParentGroups(Group group, HashSet<Long> groupIds) {
-        if (groupIds.contains(group.getId())) {
-            return groupIds;
-        } else {
-            groupIds.add(group.getId());
-            Group parentGroup = group.getParent();
-            if (parentGroup != null) {
-                getParentGroups(parentGroup, groupIds);
-            }
-        }
-
-        return groupIds;
-    }
 }
@@ -7,6 +7,8 @@ import org.jbei.ice.lib.utils.FileUtils;
 import org.jbei.ice.lib.utils.UtilityException;
 import org.jbei.ice.lib.utils.Utils;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,7 +49,7 @@ public class GenBankParser extends AbstractParser {
             VERSION_TAG, NID_TAG, PROJECT_TAG, DBLINK_TAG, KEYWORDS_TAG, SEGMENT_TAG, SOURCE_TAG,
             ORGANISM_TAG, REFERENCE_TAG, COMMENT_TAG, FEATURES_TAG, BASE_COUNT_TAG, CONTIG_TAG,
             ORIGIN_TAG, END_TAG, BASE_TAG};
-    private static final String[] IGNORE_TAGS = {BASE_TAG,};
+    private static final Set<String> ACCEPTED_TAGS = new HashSet<>(Arrays.asList(NORMAL_TAGS));
 
     private static final Pattern startStopPattern = Pattern.compile("[<>]*(\\d+)\\.\\.[<>]*(\\d+)");
     private static final Pattern startOnlyPattern = Pattern.compile("\\d+");
@@ -58,173 +60,214 @@ public class GenBankParser extends AbstractParser {
         return errors;
     }
 
+    /**
+     * Parses genbank text. See {@link #parse(Reader)}
+     *
+     * @param textSequence genbank text
+     * @return parsed sequence or null if the text could not be parsed (the text is recorded and reported)
+     * @throws InvalidFormatParserException if the text is not in the genbank format
+     */
     // TODO parse source feature tag with xdb_ref
     @Override
     public DNASequence parse(String textSequence) throws InvalidFormatParserException {
         if (textSequence == null || textSequence.isEmpty())
             throw new InvalidFormatParserException("Cannot parse empty genbank sequence");
 
-        FeaturedDNASequence sequence = null;
         try {
-            textSequence = cleanSequence(textSequence);
-
-            ArrayList<Tag> tags = splitTags(textSequence, NORMAL_TAGS, IGNORE_TAGS);
-            tags = parseTags(tags);
-
-            sequence = new FeaturedDNASequence();
-            for (final Tag tag : tags) {
-                if (tag instanceof LocusTag) {
-                    sequence.setName(((LocusTag) tag).getLocusName());
-                    sequence.setIsCircular(((LocusTag) tag).isCircular());
-                } else if (tag instanceof OriginTag) {
-                    sequence.setSequence(((OriginTag) tag).getSequence());
-                } else if (tag instanceof FeaturesTag) {
-                    sequence.setFeatures(((FeaturesTag) tag).getFeatures());
-                }
-            }
+            return parseLines(new BufferedReader(new StringReader(textSequence)));
         } catch (NullPointerException | StringIndexOutOfBoundsException e) {
             recordParsingError(textSequence, e);
+        } catch (IOException e) {
+            throw new InvalidFormatParserException(e);
         }
-        return sequence;
+        return null;
     }
 
     /**
-     * If there is a parsing error of interest, write the file to disk, and send an email to admin.
+     * Parses genbank text in a single pass over its lines. Tags other than <code>LOCUS</code>,
+     * <code>FEATURES</code> and <code>ORIGIN</code> are skipped; features and sequence are built up as their lines
+     * are read so the text does not need to be held in memory
+     *
+     * @param reader reader for genbank text
+     * @return parsed sequence
+     * @throws InvalidFormatParserException if the text is not in the genbank format or cannot be parsed
      */
-    private void recordParsingError(final String fileText, final Exception e)
-            throws InvalidFormatParserException {
-        final String message = "Error parsing genBank file. Please examine the recorded file.";
+    public DNASequence parse(Reader reader) throws InvalidFormatParserException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader);
         try {
-            FileUtils.recordAndReportFile(message, fileText, e);
-        } catch (final UtilityException e1) {
-            throw new InvalidFormatParserException("failed to write error");
+            return parseLines(bufferedReader);
+        } catch (NullPointerException | StringIndexOutOfBoundsException | IOException e) {
+            throw new InvalidFormatParserException("Error parsing genbank file", e);
         }
     }
 
-    private ArrayList<Tag> splitTags(final String block, final String[] acceptedTags,
-                                     final String[] ignoredTags) throws InvalidFormatParserException {
-        final ArrayList<Tag> result = new ArrayList<>();
+    /**
+     * Parses genbank text read from the input stream
+     *
+     * @param inputStream input stream for genbank text
+     * @return parsed sequence
+     * @throws InvalidFormatParserException if the text is not in the genbank format or cannot be parsed
+     */
+    public DNASequence parse(InputStream inputStream) throws InvalidFormatParserException {
+        return parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
 
-        StringBuilder rawBlock = new StringBuilder();
-        final String[] lines = block.split("\n");
-        String[] lineChunks;
-        Tag currentTag = null;
+    private FeaturedDNASequence parseLines(BufferedReader reader) throws IOException, InvalidFormatParserException {
+        FeaturedDNASequence sequence = new FeaturedDNASequence();
+        String currentTag = null;
+        StringBuilder locusBlock = null;
+        StringBuilder residues = null;
+        FeaturesBlock featuresBlock = null;
+        int lineCount = 0;
+        boolean hasLocus = false;
+        String line;
 
-        // see if first two lines contain the "LOCUS" keyword. If not, don't even bother
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty())
+                continue;
 
-        if (lines.length >= 1 && !lines[0].contains("LOCUS")) {
-            if (lines.length == 1 || !lines[1].contains("LOCUS")) {
-                throw new InvalidFormatParserException("Not a valid Genbank format: No Locus line.");
+            // see if first two lines contain the "LOCUS" keyword. If not, don't even bother
+            if (!hasLocus) {
+                lineCount += 1;
+                hasLocus = line.contains(LOCUS_TAG);
+                if (!hasLocus && lineCount == 2)
+                    throw new InvalidFormatParserException("Not a valid Genbank format: No Locus line.");
             }
-        }
 
-        for (final String line : lines) {
-            lineChunks = line.trim().split(" +");
-            final String putativeTag = lineChunks[0].trim();
-            if (Arrays.asList(acceptedTags).contains(putativeTag)) {
-                if (currentTag != null) { // deleteExpiredSessions previous tag
-                    currentTag.setRawBody(rawBlock.toString());
-                    if (!Arrays.asList(ignoredTags).contains(currentTag.getKey())) {
-                        result.add(currentTag);
-                    }
+            String tag = getTag(line);
+            if (tag != null) {
+                completeTag(sequence, currentTag, locusBlock, residues, featuresBlock);
+                currentTag = tag;
+                switch (tag) {
+                    case LOCUS_TAG:
+                        locusBlock = new StringBuilder(line).append('\n');
+                        break;
+
+                    case ORIGIN_TAG:
+                        residues = new StringBuilder();
+                        break;
+
+                    case FEATURES_TAG:
+                        featuresBlock = new FeaturesBlock();
+                        break;
                 }
-
-                rawBlock = new StringBuilder();
-                rawBlock.append(line);
-                rawBlock.append("\n");
-                currentTag = new Tag(Tag.Type.REGULAR);
-                currentTag.setKey(putativeTag);
-
-            } else {
-                rawBlock.append(line);
-                rawBlock.append("\n");
+                continue;
             }
-        }
-        if (currentTag != null) {
-            currentTag.setRawBody(rawBlock.toString());
-            result.add(currentTag); // push the last one
-        }
-        return result;
-    }
 
-    private ArrayList<Tag> parseTags(final ArrayList<Tag> tags) throws InvalidFormatParserException {
-        for (int i = 0; i < tags.size(); i++) {
-            final Tag tag = tags.get(i);
-            switch (tag.getKey()) {
-                default:
-                    parseNormalTag(tag);
+            if (currentTag == null)
+                continue;
+
+            switch (currentTag) {
+                case LOCUS_TAG:
+                    locusBlock.append(line).append('\n');
                     break;
 
                 case ORIGIN_TAG:
-                    tags.set(i, parseOriginTag(tag));
+                    appendResidues(line, residues);
                     break;
 
                 case FEATURES_TAG:
-                    tags.set(i, parseFeaturesTag(tag));
+                    featuresBlock.add(line);
                     break;
+            }
+        }
 
-                case REFERENCE_TAG:
-                    tags.set(i, parseReferenceTag(tag));
-                    break;
+        if (!hasLocus)
+            throw new InvalidFormatParserException("Not a valid Genbank format: No Locus line.");
 
-                case LOCUS_TAG:
-                    tags.set(i, parseLocusTag(tag));
-                    break;
+        completeTag(sequence, currentTag, locusBlock, residues, featuresBlock);
+        return sequence;
+    }
 
-                case SOURCE_TAG:
-                    // ??
-                    break;
-            }
-        }
-        return tags;
+    /**
+     * @return the tag that the line starts, if any
+     */
+    private String getTag(String line) {
+        int start = 0;
+        int length = line.length();
+        while (start < length && line.charAt(start) <= ' ')
+            start += 1;
+
+        int end = start;
+        while (end < length && line.charAt(end) != ' ')
+            end += 1;
+
+        // trailing whitespace
+        int tagEnd = end;
+        while (tagEnd > start && line.charAt(tagEnd - 1) <= ' ')
+            tagEnd -= 1;
+
+        if (tagEnd == start)
+            return null;
+
+        String putativeTag = line.substring(start, tagEnd);
+        return ACCEPTED_TAGS.contains(putativeTag) ? putativeTag : null;
     }
 
-    private Tag parseNormalTag(final Tag tag) {
-        String value = "";
-        final String[] lines = tag.getRawBody().split("\n");
-        final String[] firstLine = lines[0].split(" +");
-        if (firstLine.length == 1) {
-            // empty value
-            tag.setValue("");
-        } else {
-            firstLine[0] = "";
-            value = Utils.join(" ", Arrays.asList(firstLine));
-            lines[0] = "";
-            for (int i = 1; i < lines.length; i++) {
-                lines[i] = lines[i].trim();
-            }
-            value = value + " " + Utils.join(" ", Arrays.asList(lines));
+    private void completeTag(FeaturedDNASequence sequence, String tag, StringBuilder locusBlock,
+                             StringBuilder residues, FeaturesBlock featuresBlock)
+            throws InvalidFormatParserException {
+        if (tag == null)
+            return;
+
+        switch (tag) {
+            case LOCUS_TAG:
+                Tag locus = new Tag(Tag.Type.LOCUS);
+                locus.setKey(tag);
+                locus.setRawBody(locusBlock.toString());
+                LocusTag locusTag = parseLocusTag(locus);
+                sequence.setName(locusTag.getLocusName());
+                sequence.setIsCircular(locusTag.isCircular());
+                break;
+
+            case ORIGIN_TAG:
+                sequence.setSequence(residues.toString());
+                break;
+
+            case FEATURES_TAG:
+                sequence.setFeatures(featuresBlock.complete());
+                break;
         }
-        tag.setValue(value.trim());
-        return tag;
     }
 
-    private OriginTag parseOriginTag(final Tag tag) {
-        final OriginTag result = new OriginTag();
-        String value = "";
-        final StringBuilder sequence = new StringBuilder();
-
-        final String[] lines = tag.getRawBody().split("\n");
-        String[] chunks;
-
-        if (lines[0].startsWith(ORIGIN_TAG)) {
-            if (lines[0].split(" +").length > 1) { // grab value of origin
-                value = lines[0].split(" +")[1];
-            }
-        }
-        for (int i = 1; i < lines.length; i++) {
-            chunks = lines[i].trim().split(" +");
-            if (chunks[0].matches("\\d*")) { // sometimes sequence block is un-numbered fasta
-                chunks[0] = "";
-            }
-            sequence.append(Utils.join("", Arrays.asList(chunks)).toLowerCase());
+    /**
+     * Appends the residues in a line of the origin block. The line may start with the (ignored) position of the
+     * first residue; blocks of residues are separated by spaces
+     */
+    private void appendResidues(String line, StringBuilder residues) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ')
+            start += 1;
+        while (end > start && line.charAt(end - 1) <= ' ')
+            end -= 1;
+
+        // sometimes sequence block is un-numbered fasta
+        int position = start;
+        while (position < end && line.charAt(position) >= '0' && line.charAt(position) <= '9')
+            position += 1;
+        if (position == end || line.charAt(position) == ' ')
+            start = position;
+
+        for (int i = start; i < end; i += 1) {
+            char c = line.charAt(i);
+            if (c != ' ')
+                residues.append(Character.toLowerCase(c));
         }
+    }
 
-        result.setKey(tag.getKey());
-        result.setValue(value);
-        result.setSequence(sequence.toString());
-
-        return result;
+    /**
+     * If there is a parsing error of interest, write the file to disk, and send an email to admin.
+     */
+    private void recordParsingError(final String fileText, final Exception e)
+            throws InvalidFormatParserException {
+        final String message = "Error parsing genBank file. Please examine the recorded file.";
+        try {
+            FileUtils.recordAndReportFile(message, fileText, e);
+        } catch (final UtilityException e1) {
+            throw new InvalidFormatParserException("failed to write error");
+        }
     }
 
     protected FeaturesTag parseFeaturesTag(final Tag tag) throws InvalidFormatParserException {
@@ -242,30 +285,43 @@ public class GenBankParser extends AbstractParser {
             return result;
         }
 
-        StringBuilder qualifierBlock = new StringBuilder();
-        DNAFeature dnaFeature = null;
-
+        FeaturesBlock featuresBlock = new FeaturesBlock();
         for (int i = 1; i < lines.length; i += 1) {
-            String line = lines[i].trim();
+            featuresBlock.add(lines[i]);
+        }
+        result.setFeatures(featuresBlock.complete());
+        return result;
+    }
+
+    /**
+     * Features parsed from the lines (following the first) of a features block, as they are added
+     */
+    private class FeaturesBlock {
+
+        private final List<DNAFeature> features = new ArrayList<>();
+        private StringBuilder qualifierBlock = new StringBuilder();
+        private DNAFeature dnaFeature;
+
+        void add(String line) throws InvalidFormatParserException {
+            line = line.trim();
             boolean isQualifier = (line.startsWith("/") && line.contains("="));
             if (isQualifier) {
-                if (!qualifierBlock.toString().isEmpty() && !qualifierBlock.toString().endsWith("\n"))  // and is not an empty string
+                if (qualifierBlock.length() > 0 && qualifierBlock.charAt(qualifierBlock.length() - 1) != '\n')
                     qualifierBlock.append("\n");
                 qualifierBlock.append(line);
-//                .append("\n");
-                continue;
+                return;
             }
 
             // expect format to be TYPE\\s+location
             String[] chunks = line.trim().split("\\s+");
             if (chunks.length < 2) {
                 qualifierBlock.append(line);
-                continue;
+                return;
             }
 
             if (dnaFeature != null) {
                 dnaFeature = parseQualifiers(qualifierBlock.toString(), dnaFeature);
-                result.getFeatures().add(dnaFeature);
+                features.add(dnaFeature);
                 qualifierBlock = new StringBuilder();
             }
 
@@ -309,11 +365,14 @@ public class GenBankParser extends AbstractParser {
             }
         }
 
-        if (dnaFeature != null) {
-            dnaFeature = parseQualifiers(qualifierBlock.toString(), dnaFeature);
-            result.getFeatures().add(dnaFeature);
+        List<DNAFeature> complete() {
+            if (dnaFeature != null) {
+                dnaFeature = parseQualifiers(qualifierBlock.toString(), dnaFeature);
+                features.add(dnaFeature);
+                dnaFeature = null;
+            }
+            return features;
         }
-        return result;
     }
 
     private List<GenbankLocation> parseGenbankLocation(String input) throws InvalidFormatParserException {
@@ -488,15 +547,6 @@ public class GenBankParser extends AbstractParser {
         return result;
     }
 
-    // TODO
-    private ReferenceTag parseReferenceTag(final Tag tag) throws InvalidFormatParserException {
-        final String lines[] = tag.getRawBody().split("\n");
-        final String putativeValue = lines[0].split(" +")[1];
-        tag.setValue(putativeValue);
-
-        return null;
-    }
-
     private LocusTag parseLocusTag(final Tag tag) {
         final LocusTag result = new LocusTag();
         result.setRawBody(tag.getRawBody());
@@ -19,6 +19,7 @@ import org.jbei.ice.storage.model.Part;
 import org.jbei.ice.storage.model.Sequence;
 import org.sbolstandard.core2.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -107,26 +108,10 @@ public class SBOLParser {
         }
 
         // convert to genbank
-        Sequence sequence = null;
-        DNASequence dnaSequence = null;
-
-        try {
-            out.reset();
-            SBOLWriter.write(sbolDocument, out, "GENBANK");
-            if (out.size() > 0) {
-                GenBankParser parser = new GenBankParser();
-
-                String genBankString = out.toString();
-                dnaSequence = parser.parse(genBankString);
-                sequence = SequenceController.dnaSequenceToSequence(dnaSequence);
-            }
-        } catch (InvalidFormatParserException e) {
-            Logger.error("Error parsing generated genBank: " + e.getMessage());
-        } catch (SBOLConversionException | IOException e) {
-            Logger.error("Error converting SBOL to genBank: " + e.getMessage());
-        }
+        DNASequence dnaSequence = toDNASequence(sbolDocument);
 
         // convert to ice data model (sequence)
+        Sequence sequence = SequenceController.dnaSequenceToSequence(dnaSequence);
         if (sequence == null) {
             sequence = new Sequence();
         }
@@ -148,6 +133,28 @@ public class SBOLParser {
         return sequenceInfo;
     }
 
+    /**
+     * Converts the SBOL document to genbank and parses the result
+     *
+     * @param sbolDocument SBOL document to convert
+     * @return sequence parsed from the converted document or null if the document could not be converted
+     */
+    protected static DNASequence toDNASequence(SBOLDocument sbolDocument) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SBOLWriter.write(sbolDocument, out, "GENBANK");
+            if (out.size() > 0) {
+                GenBankParser parser = new GenBankParser();
+                return parser.parse(new ByteArrayInputStream(out.toByteArray()));
+            }
+        } catch (InvalidFormatParserException e) {
+            Logger.error("Error parsing generated genBank: " + e.getMessage());
+        } catch (SBOLConversionException | IOException e) {
+            Logger.error("Error converting SBOL to genBank: " + e.getMessage());
+        }
+        return null;
+    }
+
     protected long createNewEntry(TopLevel moduleDefinition, SBOLDocument document) {
         String identity = moduleDefinition.getIdentity().toString();
         String description = moduleDefinition.getDescription();
@@ -30,4 +30,14 @@ public class RebuildLuceneIndexTask extends Task {
             Logger.warn("Indexing incomplete");
         }
     }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return 1;
+    }
+
+    @Override
+    public String getDeduplicationKey() {
+        return getClass().getName();
+    }
 }
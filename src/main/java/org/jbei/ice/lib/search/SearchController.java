@@ -4,10 +4,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.jbei.ice.lib.access.PermissionException;
 import org.jbei.ice.lib.account.AccountController;
 import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.lib.dto.search.*;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.search.blast.BlastException;
+import org.jbei.ice.lib.search.blast.BlastExecutionService;
 import org.jbei.ice.lib.search.blast.BlastPlus;
+import org.jbei.ice.lib.search.kmer.KmerSequenceIndex;
+import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.hibernate.search.HibernateSearch;
 
 import java.util.HashMap;
@@ -39,7 +43,7 @@ public class SearchController {
                 query.getBlastQuery().setBlastProgram(BlastProgram.BLAST_N);
 
             try {
-                blastResults = BlastPlus.runBlast(query.getBlastQuery());
+                blastResults = runSequenceSearch(query.getBlastQuery());
             } catch (BlastException e) {
                 Logger.error("Exception running blast " + e.getMessage());
             }
@@ -67,6 +71,45 @@ public class SearchController {
         }
     }
 
+    /**
+     * Runs a sequence search using the configured sequence search engine. When the k-mer engine is selected,
+     * nucleotide searches are answered from the k-mer sequence index if it finds high identity matches,
+     * and using BLAST otherwise
+     *
+     * @param blastQuery wrapper around sequence query
+     * @return mapping of entry id to search result hit details
+     * @throws BlastException on exception running blast
+     */
+    protected HashMap<String, SearchResult> runSequenceSearch(BlastQuery blastQuery) throws BlastException {
+        if (blastQuery.getBlastProgram() == BlastProgram.BLAST_N
+                && getSequenceSearchEngine() == SequenceSearchEngine.KMER) {
+            KmerSequenceIndex index = KmerSequenceIndex.getInstance();
+            if (index.isBuilt()) {
+                HashMap<String, SearchResult> results = index.search(blastQuery.getSequence());
+                if (results != null)
+                    return results;
+            } else {
+                index.scheduleBuild();
+            }
+        }
+
+        return BlastPlus.runBlast(blastQuery);
+    }
+
+    /**
+     * @return sequence search engine specified in the configuration. Defaults to BLAST if the configured
+     * value is not valid
+     */
+    public static SequenceSearchEngine getSequenceSearchEngine() {
+        String value = Utils.getConfigValue(ConfigurationKey.SEQUENCE_SEARCH_ENGINE);
+        try {
+            return SequenceSearchEngine.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Logger.warn("Invalid sequence search engine \"" + value + "\". Using BLAST");
+            return SequenceSearchEngine.BLAST;
+        }
+    }
+
     /**
      * Rebuilds the search indices. Admin privileges required
      *
@@ -100,6 +143,20 @@ public class SearchController {
         }
     }
 
+    /**
+     * Retrieves the queue depth and latency statistics for the service that runs blast queries
+     *
+     * @param userId unique identifier for user making request. Must have administrative privileges
+     * @return status of the blast execution service
+     * @throws PermissionException if the user does not have administrative privileges
+     */
+    public BlastServiceStatus getBlastServiceStatus(String userId) {
+        if (!accountController.isAdministrator(userId))
+            throw new PermissionException("Administrative privileges required to perform this action");
+
+        return BlastExecutionService.getInstance().getStatus();
+    }
+
     /**
      * Parses the query string checking for terms and phrases. A quote is used to indicate
      * the boundaries of a phrase
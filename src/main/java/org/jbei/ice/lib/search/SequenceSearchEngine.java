@@ -0,0 +1,17 @@
+package org.jbei.ice.lib.search;
+
+/**
+ * Engines available for running sequence searches. Selected using
+ * {@link org.jbei.ice.lib.dto.ConfigurationKey#SEQUENCE_SEARCH_ENGINE}
+ *
+ * @author Hector Plahar
+ */
+public enum SequenceSearchEngine {
+
+    // all sequence searches are run using BLAST+
+    BLAST,
+
+    // nucleotide searches are answered from the in-memory k-mer index when it finds high-identity
+    // matches, falling back to BLAST+ otherwise
+    KMER
+}
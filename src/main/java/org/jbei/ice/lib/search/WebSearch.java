@@ -1,41 +1,64 @@
 package org.jbei.ice.lib.search;
 
 import org.jbei.ice.lib.common.logging.Logger;
-import org.jbei.ice.lib.dto.search.SearchQuery;
-import org.jbei.ice.lib.dto.search.SearchResult;
-import org.jbei.ice.lib.dto.search.SearchResults;
+import org.jbei.ice.lib.dto.search.*;
 import org.jbei.ice.lib.dto.web.RegistryPartner;
 import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.executor.Task;
-import org.jbei.ice.lib.executor.TaskStatus;
+import org.jbei.ice.lib.executor.TaskLane;
 import org.jbei.ice.services.rest.IceRestClient;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.dao.RemotePartnerDAO;
 import org.jbei.ice.storage.model.RemotePartner;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Search for other ICE instances
+ * Search for other ICE instances. Partners are searched concurrently; each partner has
+ * {@link #PARTNER_TIMEOUT_SECONDS} to respond to a request and the whole search is bounded by
+ * {@link #SEARCH_DEADLINE_SECONDS}, after which whatever results are available are returned along with the
+ * status of each partner. Searches of partners that time out are cancelled and the requests themselves are
+ * sent with a read timeout so that they do not hold on to executor threads
  *
  * @author Hector Plahar
  */
 public class WebSearch {
 
+    private static final int RETRIEVE_COUNT_LIMIT_PER_INSTANCE = 20;
+    private static final long PARTNER_TIMEOUT_SECONDS = 10;
+    private static final long SEARCH_DEADLINE_SECONDS = 30;
+
     private final RemotePartnerDAO remotePartnerDAO;
+    private final long partnerTimeout;
+    private final long searchDeadline;
 
     public WebSearch() {
+        this(TimeUnit.SECONDS.toMillis(PARTNER_TIMEOUT_SECONDS), TimeUnit.SECONDS.toMillis(SEARCH_DEADLINE_SECONDS));
+    }
+
+    /**
+     * @param partnerTimeout maximum time (in milliseconds) to wait for a partner to respond to a request
+     * @param searchDeadline maximum time (in milliseconds) for the whole search
+     */
+    protected WebSearch(long partnerTimeout, long searchDeadline) {
         this.remotePartnerDAO = DAOFactory.getRemotePartnerDAO();
+        this.partnerTimeout = partnerTimeout;
+        this.searchDeadline = searchDeadline;
     }
 
     /**
      * Searches all registries in the web of registries configuration with this
      * registry. Without some sort of indexing locally or in some central location,
-     * this will be slow for large numbers of results
+     * this will be slow for large numbers of results.
+     * <p>
+     * Pages of results are retrieved from partners until there are enough results for the requested page. Results
+     * from all partners are merged by score. Partners that time out or fail are not contacted for further pages
+     * and are reported in the partner status of the results
      *
      * @param query wrapper around search query
      * @return list of search results
@@ -46,118 +69,228 @@ public class WebSearch {
         if (partners == null)
             return null;
 
-        final int RETRIEVE_COUNT_LIMIT_PER_INSTANCE = 20;
-
         // single page limit
         final int offset = query.getParameters().getStart();
         final int limit = query.getParameters().getRetrieveCount();
 
-        // set per instance limit
-        query.getParameters().setRetrieveCount(RETRIEVE_COUNT_LIMIT_PER_INSTANCE);
+        long deadline = System.currentTimeMillis() + searchDeadline;
+        List<RemotePartner> searchPartners = new LinkedList<>();
+        for (RemotePartner partner : partners) {
+            if (partner.getUrl() == null || partner.getPartnerStatus() != RemotePartnerStatus.APPROVED)
+                continue;
+            searchPartners.add(partner);
+        }
 
-        int offsetCount = 0;
+        Map<Long, PartnerSearchStatus> statuses = new LinkedHashMap<>();
+        List<SearchResult> merged = new ArrayList<>();
         int perPageOffset = 0;
-        SearchResults results;
 
-        // run search at least once
-        do {
-            query.getParameters().setStart(perPageOffset);
-            results = runSearch(partners, query);
-            if (results.getResultCount() == 0)
-                break;
-            offsetCount += results.getResults().size();
-            perPageOffset += RETRIEVE_COUNT_LIMIT_PER_INSTANCE;
-        } while (offsetCount <= offset);
+        while (!searchPartners.isEmpty()) {
+            int pageCount = 0;
 
-        // sort the results
-//        Collections.sort(resultsList, new Comparator<SearchResult>() {
-//            @Override
-//            public int compare(SearchResult o1, SearchResult o2) {
-//                return Double.compare(o2.getScore(), o1.getScore());
-//            }
-//        });
+            for (PartnerSearch search : runSearch(searchPartners, query, perPageOffset, deadline)) {
+                PartnerSearchStatus status = statuses.get(search.partner.getId());
+                if (status == null) {
+                    statuses.put(search.partner.getId(), search.status);
+                } else {
+                    status.setState(search.status.getState());
+                    status.setTime(status.getTime() + search.status.getTime());
+                    status.setResultCount(Math.max(status.getResultCount(), search.status.getResultCount()));
+                }
 
-        int toIndex = limit;
-        int size = results.getResults().size();
+                if (search.results == null) {
+                    searchPartners.remove(search.partner);
+                    continue;
+                }
 
-        if (toIndex > size)
-            toIndex = size;
+                merged.addAll(search.results);
+                pageCount += search.results.size();
 
-        List<SearchResult> subSet = new LinkedList<>(results.getResults().subList(0, toIndex));
-        results.setResults(subSet);
+                // no more results available from this partner
+                if (search.results.size() < RETRIEVE_COUNT_LIMIT_PER_INSTANCE)
+                    searchPartners.remove(search.partner);
+            }
 
+            if (pageCount == 0 || merged.size() >= offset + limit || System.currentTimeMillis() >= deadline)
+                break;
+            perPageOffset += RETRIEVE_COUNT_LIMIT_PER_INSTANCE;
+        }
+
+        // merge by score
+        merged.sort((o1, o2) -> Float.compare(o2.getScore(), o1.getScore()));
+
+        long total = 0;
+        for (PartnerSearchStatus status : statuses.values()) {
+            total += status.getResultCount();
+        }
+
+        SearchResults results = new SearchResults();
+        int fromIndex = Math.min(offset, merged.size());
+        int toIndex = Math.min(offset + limit, merged.size());
+        results.setResults(merged.subList(fromIndex, toIndex));
+        results.setResultCount(total);
+        results.setPartnerStatus(new ArrayList<>(statuses.values()));
         return results;
     }
 
-    // the paging params need to be removed from the query object
-    protected SearchResults runSearch(List<RemotePartner> partners, SearchQuery query) {
-        List<Task> searchTasks = new LinkedList<>();
-        SearchResults searchResults = new SearchResults();
-        HashMap<Long, Long> partnerCounts = new HashMap<>();
-
+    /**
+     * Runs the query against each partner concurrently and waits for each to complete until its timeout
+     * (counted from submission) or the search deadline, whichever comes first. Searches that do not complete
+     * in time are cancelled
+     *
+     * @param partners partners to search
+     * @param query    search query. Each partner is sent its own copy with the specified start
+     * @param start    offset of the page of results to retrieve from each partner
+     * @param deadline time by which the whole search must complete
+     * @return result of searching each partner
+     */
+    protected List<PartnerSearch> runSearch(List<RemotePartner> partners, SearchQuery query, int start,
+                                            long deadline) {
+        List<SearchTask> searchTasks = new ArrayList<>();
+        long submitted = System.currentTimeMillis();
         for (RemotePartner partner : partners) {
-            if (partner.getUrl() == null || partner.getPartnerStatus() != RemotePartnerStatus.APPROVED)
-                continue;
-
-            searchTasks.add(runSearchThread(partner, query, searchResults, partnerCounts));
+            SearchQuery partnerQuery = copyQuery(query, start, RETRIEVE_COUNT_LIMIT_PER_INSTANCE);
+            SearchTask searchTask = new SearchTask(partner, partner.toDataTransferObject(), partnerQuery);
+            IceExecutorService.getInstance().runTask(searchTask);
+            searchTasks.add(searchTask);
         }
 
-        while (!searchTasks.isEmpty()) {
-            Iterator<Task> iterator = searchTasks.iterator();
-            while (iterator.hasNext()) {
-                TaskStatus status = iterator.next().getStatus();
-                if (status == TaskStatus.COMPLETED || status == TaskStatus.EXCEPTION)
-                    iterator.remove();
+        long partnerDeadline = Math.min(submitted + partnerTimeout, deadline);
+        List<PartnerSearch> searches = new ArrayList<>();
+        for (SearchTask searchTask : searchTasks) {
+            SearchResults results = null;
+            PartnerSearchState state;
+            try {
+                long wait = Math.max(0, partnerDeadline - System.currentTimeMillis());
+                results = searchTask.future.get(wait, TimeUnit.MILLISECONDS);
+                state = results == null ? PartnerSearchState.FAILED : PartnerSearchState.COMPLETED;
+            } catch (TimeoutException e) {
+                Logger.warn("Search of partner " + searchTask.partner.getUrl() + " timed out");
+                searchTask.cancel();
+                state = PartnerSearchState.TIMED_OUT;
+            } catch (ExecutionException e) {
+                Logger.warn("Exception contacting partner " + searchTask.partner.getUrl() + " : "
+                        + e.getCause().getMessage());
+                state = PartnerSearchState.FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                searchTask.cancel();
+                state = PartnerSearchState.TIMED_OUT;
             }
-        }
 
-        long total = 0;
-        for (long id : partnerCounts.keySet()) {
-            total += partnerCounts.get(id);
+            long time = (state == PartnerSearchState.TIMED_OUT ? System.currentTimeMillis() : searchTask.completed)
+                    - submitted;
+            long count = results == null ? 0 : results.getResultCount();
+            PartnerSearchStatus status = new PartnerSearchStatus(searchTask.registryPartner, state, count, time);
+            searches.add(new PartnerSearch(searchTask.partner, status, results == null ? null : results.getResults()));
         }
-        searchResults.setResultCount(total);
-        return searchResults;
+        return searches;
+    }
+
+    /**
+     * Sends the search query to the specified partner. The request times out after the partner timeout
+     *
+     * @param partner partner to search
+     * @param query   search query
+     * @return results returned by the partner, or null if the partner did not return any
+     */
+    protected SearchResults searchPartner(RemotePartner partner, SearchQuery query) {
+        IceRestClient client = IceRestClient.getInstance();
+        return client.postWor(partner.getUrl(), "/rest/search", query, SearchResults.class, null,
+                partner.getApiKey(), (int) partnerTimeout);
     }
 
-    protected SearchTask runSearchThread(RemotePartner partner, SearchQuery query, SearchResults searchResults,
-                                         HashMap<Long, Long> counts) {
-        SearchTask searchTask = new SearchTask(partner, query, searchResults, counts);
-        IceExecutorService.getInstance().runTask(searchTask);
-        return searchTask;
+    private static SearchQuery copyQuery(SearchQuery query, int start, int retrieveCount) {
+        SearchQuery copy = new SearchQuery();
+        copy.setQueryString(query.getQueryString());
+        copy.setBlastQuery(query.getBlastQuery());
+        copy.setBioSafetyOption(query.getBioSafetyOption());
+        copy.setEntryTypes(query.getEntryTypes());
+        if (query.getFieldFilters() != null)
+            copy.setFieldFilters(new ArrayList<>(query.getFieldFilters()));
+
+        SearchQuery.Parameters parameters = query.getParameters();
+        SearchQuery.Parameters copyParameters = copy.getParameters();
+        copyParameters.setSortField(parameters.getSortField());
+        copyParameters.setSortAscending(parameters.isSortAscending());
+        copyParameters.setHasSequence(parameters.getHasSequence());
+        copyParameters.setHasAttachment(parameters.getHasAttachment());
+        copyParameters.setHasSample(parameters.getHasSample());
+        copyParameters.setStart(start);
+        copyParameters.setRetrieveCount(retrieveCount);
+        return copy;
+    }
+
+    /**
+     * Result of searching a single partner
+     */
+    protected static class PartnerSearch {
+        private final RemotePartner partner;
+        private final PartnerSearchStatus status;
+        private final List<SearchResult> results;
+
+        PartnerSearch(RemotePartner partner, PartnerSearchStatus status, List<SearchResult> results) {
+            this.partner = partner;
+            this.status = status;
+            this.results = results;
+        }
     }
 
-    public static class SearchTask extends Task {
+    /**
+     * Task for searching a partner. The outcome is made available through a future. A cancelled task is not
+     * run if it has not started; otherwise the thread running it is interrupted
+     */
+    private class SearchTask extends Task {
 
         private final RemotePartner partner;
+        private final RegistryPartner registryPartner;
         private final SearchQuery query;
-        private final SearchResults results;
-        private final HashMap<Long, Long> counts;
+        private final CompletableFuture<SearchResults> future = new CompletableFuture<>();
+        private volatile long completed;
+        private Thread runner; // guarded by "this"
 
-        public SearchTask(RemotePartner partner, SearchQuery query, SearchResults results, HashMap<Long, Long> counts) {
+        SearchTask(RemotePartner partner, RegistryPartner registryPartner, SearchQuery query) {
             this.partner = partner;
+            this.registryPartner = registryPartner;
             this.query = query;
-            this.results = results;
-            this.counts = counts;
+        }
+
+        @Override
+        public TaskLane getLane() {
+            return TaskLane.INTERACTIVE;
+        }
+
+        synchronized void cancel() {
+            if (future.cancel(true) && runner != null)
+                runner.interrupt();
         }
 
         @Override
         public void execute() {
-            try {
-                IceRestClient client = IceRestClient.getInstance();
-                SearchResults results = client.postWor(partner.getUrl(), "/rest/search", query,
-                        SearchResults.class, null, partner.getApiKey());
-                if (results == null)
+            synchronized (this) {
+                if (future.isDone())
                     return;
+                runner = Thread.currentThread();
+            }
 
-                RegistryPartner registryPartner = partner.toDataTransferObject();
-                for (SearchResult result : results.getResults()) {
-                    result.setPartner(registryPartner);
-                    this.results.getResults().add(result);
+            try {
+                SearchResults results = searchPartner(partner, query);
+                if (results != null) {
+                    for (SearchResult result : results.getResults()) {
+                        result.setPartner(registryPartner);
+                    }
                 }
-
-                counts.put(this.partner.getId(), results.getResultCount());
+                completed = System.currentTimeMillis();
+                future.complete(results);
             } catch (Exception e) {
-                Logger.warn("Exception contacting partner " + partner.getUrl() + " : " + e.getMessage());
+                completed = System.currentTimeMillis();
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // clear the interrupt from a cancellation so that it does not affect the next task on this thread
+                    Thread.interrupted();
+                }
             }
         }
     }
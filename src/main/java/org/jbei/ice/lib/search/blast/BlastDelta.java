@@ -0,0 +1,189 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Files for the blast delta database in a blast database folder: the fasta file with the records for changed
+ * sequences, the list of entries whose records in the main database are no longer valid and the time
+ * the delta was started. Formatting the delta fasta file into a blast database is left to {@link BlastPlus}
+ *
+ * @author Hector Plahar
+ */
+class BlastDelta {
+
+    static final String FASTA_FILE_NAME = "deltafastafile";
+    static final String EXCLUDED_IDS_FILE_NAME = "excluded_ids";
+    static final String START_TIME_FILE_NAME = "delta_start";
+    static final String ID_PREFIX = "d";
+
+    private static final String DELIMITER = ",";
+
+    private final Path blastFolder;
+    private final int mergeThreshold;
+    private final long maxAge;
+
+    /**
+     * @param blastFolder    folder for the blast search database
+     * @param mergeThreshold number of changed entries after which the delta should be merged
+     * @param maxAge         time (in ms) after which the delta should be merged
+     */
+    BlastDelta(Path blastFolder, int mergeThreshold, long maxAge) {
+        this.blastFolder = blastFolder;
+        this.mergeThreshold = mergeThreshold;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Re-writes the delta fasta file without the records for the changed entries and appends the new records
+     *
+     * @param updates entry id to new fasta record, or null if the sequence for the entry was removed
+     * @return number of records in the delta fasta file
+     * @throws IOException on exception writing the file
+     */
+    int writeFasta(Map<Long, String> updates) throws IOException {
+        Path fastaFile = Paths.get(blastFolder.toString(), FASTA_FILE_NAME);
+        Path newFastaFile = Paths.get(blastFolder.toString(), FASTA_FILE_NAME + ".new");
+        int recordCount = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(newFastaFile, Charset.defaultCharset())) {
+            // keep records for entries that have not changed
+            if (Files.exists(fastaFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(fastaFile, Charset.defaultCharset())) {
+                    String line;
+                    boolean skip = false;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith(">")) {
+                            skip = updates.containsKey(getRecordEntryId(line));
+                            if (!skip)
+                                recordCount += 1;
+                        }
+
+                        if (!skip)
+                            writer.write(line + "\n");
+                    }
+                }
+            }
+
+            for (String record : updates.values()) {
+                if (record == null)
+                    continue;
+                writer.write(record);
+                recordCount += 1;
+            }
+        }
+        Files.move(newFastaFile, fastaFile, StandardCopyOption.REPLACE_EXISTING);
+        return recordCount;
+    }
+
+    /**
+     * Adds the entries to the exclusion list. The start time of the delta is recorded when the list is created
+     *
+     * @param entryIds ids of entries whose records in the main database are no longer valid
+     * @return all excluded entry ids
+     * @throws IOException on exception writing the list
+     */
+    Set<Long> addExcludedIds(Collection<Long> entryIds) throws IOException {
+        Path startTimeFile = Paths.get(blastFolder.toString(), START_TIME_FILE_NAME);
+        if (!Files.exists(startTimeFile)) {
+            Files.write(startTimeFile, Long.toString(System.currentTimeMillis()).getBytes(Charset.defaultCharset()));
+        }
+
+        Set<Long> excluded = getExcludedIds();
+        Path excludedIdsFile = Paths.get(blastFolder.toString(), EXCLUDED_IDS_FILE_NAME);
+        try (BufferedWriter writer = Files.newBufferedWriter(excludedIdsFile, Charset.defaultCharset(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Long entryId : entryIds) {
+                if (excluded.add(entryId))
+                    writer.write(entryId + "\n");
+            }
+        }
+        return excluded;
+    }
+
+    /**
+     * @return ids of entries whose records in the main blast database are no longer valid
+     */
+    Set<Long> getExcludedIds() {
+        Set<Long> excluded = new HashSet<>();
+        Path excludedIdsFile = Paths.get(blastFolder.toString(), EXCLUDED_IDS_FILE_NAME);
+        if (!Files.exists(excludedIdsFile))
+            return excluded;
+
+        try {
+            for (String line : Files.readAllLines(excludedIdsFile, Charset.defaultCharset())) {
+                if (!line.trim().isEmpty())
+                    excluded.add(Long.decode(line.trim()));
+            }
+        } catch (IOException | NumberFormatException e) {
+            Logger.error(e);
+        }
+        return excluded;
+    }
+
+    /**
+     * @return time (in ms) the delta was started or -1 if it is not known
+     */
+    long getStartTime() {
+        Path startTimeFile = Paths.get(blastFolder.toString(), START_TIME_FILE_NAME);
+        if (!Files.exists(startTimeFile))
+            return -1;
+
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(startTimeFile), Charset.defaultCharset()).trim());
+        } catch (IOException | NumberFormatException e) {
+            Logger.error(e);
+            return -1;
+        }
+    }
+
+    /**
+     * The delta should be merged into the main database once the number of changed entries (updates and removals,
+     * which are all in the exclusion list) reaches the merge threshold or the delta is older than the maximum age
+     *
+     * @param excludedCount number of entries in the exclusion list
+     * @param now           current time (in ms)
+     * @return true if the delta should be merged
+     */
+    boolean isMergeDue(int excludedCount, long now) {
+        if (excludedCount >= mergeThreshold)
+            return true;
+
+        long startTime = getStartTime();
+        return startTime != -1 && now - startTime > maxAge;
+    }
+
+    /**
+     * Removes the delta fasta file, exclusion list and start time
+     *
+     * @throws IOException on exception deleting the files
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(Paths.get(blastFolder.toString(), FASTA_FILE_NAME));
+        Files.deleteIfExists(Paths.get(blastFolder.toString(), EXCLUDED_IDS_FILE_NAME));
+        Files.deleteIfExists(Paths.get(blastFolder.toString(), START_TIME_FILE_NAME));
+    }
+
+    static long getRecordEntryId(String fastaHeader) {
+        int start = 1 + ID_PREFIX.length();
+        int end = fastaHeader.indexOf(DELIMITER);
+        if (end < start)
+            return -1;
+
+        try {
+            return Long.decode(fastaHeader.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.search.BlastServiceStatus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded execution service for blast queries against a blast database. Queries are queued and run by a fixed
+ * number of workers (one per available processor) so that concurrent searches and auto-annotation requests do not
+ * result in an unbounded number of simultaneous blast processes.
+ * <p>
+ * Queries that are waiting for the same program, database and options are coalesced into a single multi-query
+ * FASTA invocation when a worker becomes available. The query id (<code>qseqid</code>) is added to the output format
+ * for such runs and used to demultiplex the output lines so that each caller receives exactly the output it would have
+ * received if its query had been run on its own. If the program exits with an error for a combined run, the queries
+ * are run again one at a time so that only the query that actually causes the error fails.
+ *
+ * @author Hector Plahar
+ */
+public class BlastExecutionService {
+
+    private static final BlastExecutionService INSTANCE = new BlastExecutionService();
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final String QUERY_ID_PREFIX = "q";
+    private static final String DEFAULT_QUERY_ID_PREFIX = "Query_";
+    private static final String CSV_OUTPUT_FORMAT = "10 ";
+    private static final int MAX_LOGGED_ERROR_LENGTH = 4000;
+
+    private final ExecutorService pool;
+    private final int poolSize;
+    private final LinkedList<PendingQuery> pending = new LinkedList<>();
+    private final AtomicLong queryIds = new AtomicLong();
+
+    // statistics
+    private final AtomicInteger runningProcesses = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong processes = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final AtomicLong totalExecutionTime = new AtomicLong();
+    private final AtomicLong maxExecutionTime = new AtomicLong();
+
+    private BlastExecutionService() {
+        poolSize = Runtime.getRuntime().availableProcessors();
+        pool = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "blast-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static BlastExecutionService getInstance() {
+        return INSTANCE;
+    }
+
+    public void stopService() {
+        Logger.info("Shutting down blast execution service");
+        pool.shutdownNow();
+        synchronized (pending) {
+            for (PendingQuery query : pending) {
+                query.result.completeExceptionally(new BlastException("Blast execution service stopped"));
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Queues a query for execution and waits for its output
+     *
+     * @param program  path to the blast program executable
+     * @param blastDb  value for the <code>-db</code> option (one or more space separated database paths, each quoted if it contains spaces)
+     * @param sequence query sequence (or FASTA formatted sequences) passed to the program on standard input
+     * @param options  additional command line options for the program
+     * @return output of the blast program for the query, or null if the program exited with an error
+     * @throws BlastException on exception running the program or if interrupted while waiting for the output
+     */
+    public String execute(String program, String blastDb, String sequence, String... options) throws BlastException {
+        PendingQuery query = new PendingQuery(program, blastDb, sequence, options);
+        submitted.incrementAndGet();
+        synchronized (pending) {
+            pending.add(query);
+        }
+
+        try {
+            pool.execute(this::runPending);
+        } catch (RejectedExecutionException e) {
+            synchronized (pending) {
+                pending.remove(query);
+            }
+            failed.incrementAndGet();
+            throw new BlastException(e);
+        }
+
+        try {
+            return query.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlastException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BlastException)
+                throw (BlastException) e.getCause();
+            throw new BlastException(e.getCause());
+        }
+    }
+
+    /**
+     * @return current queue depth, process counts and latency statistics
+     */
+    public BlastServiceStatus getStatus() {
+        BlastServiceStatus status = new BlastServiceStatus();
+        status.setPoolSize(poolSize);
+        synchronized (pending) {
+            status.setQueueDepth(pending.size());
+        }
+        status.setRunningProcesses(runningProcesses.get());
+        status.setSubmitted(submitted.get());
+        status.setCompleted(completed.get());
+        status.setFailed(failed.get());
+        status.setProcesses(processes.get());
+        long done = completed.get() + failed.get();
+        if (done > 0) {
+            status.setAverageWaitTime(totalWaitTime.get() / done);
+            status.setAverageExecutionTime(totalExecutionTime.get() / done);
+        }
+        status.setMaxWaitTime(maxWaitTime.get());
+        status.setMaxExecutionTime(maxExecutionTime.get());
+        return status;
+    }
+
+    /**
+     * Takes the oldest waiting query (if any) along with all other waiting queries that can be run with it and runs
+     * them. Each submitted query schedules one of these so every query is picked up by the time its own run starts,
+     * if not earlier as part of another batch.
+     */
+    private void runPending() {
+        List<PendingQuery> batch = new ArrayList<>();
+        synchronized (pending) {
+            if (pending.isEmpty())
+                return;
+
+            PendingQuery first = pending.removeFirst();
+            batch.add(first);
+            if (first.isBatchable()) {
+                Iterator<PendingQuery> iterator = pending.iterator();
+                while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                    PendingQuery query = iterator.next();
+                    if (query.isBatchable() && query.key.equals(first.key)) {
+                        batch.add(query);
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        for (PendingQuery query : batch) {
+            updateMax(maxWaitTime, start - query.submitted);
+            totalWaitTime.addAndGet(start - query.submitted);
+        }
+
+        runningProcesses.incrementAndGet();
+        processes.incrementAndGet();
+        try {
+            if (batch.size() == 1) {
+                PendingQuery query = batch.get(0);
+                complete(query, runProcess(query.getCommand(query.options), query.sequence), start);
+            } else {
+                runBatch(batch, start);
+            }
+        } catch (BlastException e) {
+            for (PendingQuery query : batch) {
+                fail(query, e, start);
+            }
+        } catch (RuntimeException e) {
+            for (PendingQuery query : batch) {
+                fail(query, new BlastException(e), start);
+            }
+            Logger.warn("Exception running blast: " + e.getMessage());
+        } finally {
+            runningProcesses.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs the queries in a single invocation of the program and distributes the output lines to the queries
+     * that they belong to using the query id in the first column
+     */
+    private void runBatch(List<PendingQuery> batch, long start) throws BlastException {
+        Map<String, PendingQuery> queries = new HashMap<>();
+        Map<PendingQuery, StringBuilder> outputs = new HashMap<>();
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < batch.size(); i += 1) {
+            PendingQuery query = batch.get(i);
+            queries.put(query.id, query);
+            // blast assigns this id if it does not use the fasta header
+            queries.put(DEFAULT_QUERY_ID_PREFIX + (i + 1), query);
+            outputs.put(query, new StringBuilder());
+            input.append('>').append(query.id).append('\n').append(query.sequence.trim()).append('\n');
+        }
+
+        PendingQuery first = batch.get(0);
+        String[] options = Arrays.copyOf(first.options, first.options.length);
+        for (int i = 0; i < options.length - 1; i += 1) {
+            if ("-outfmt".equals(options[i])) {
+                options[i + 1] = CSV_OUTPUT_FORMAT + "qseqid " + options[i + 1].substring(CSV_OUTPUT_FORMAT.length());
+                break;
+            }
+        }
+
+        String output = runProcess(first.getCommand(options), input.toString());
+        if (output == null) {
+            Logger.warn("Combined run of " + batch.size() + " blast queries failed. Running them individually");
+            for (PendingQuery query : batch) {
+                processes.incrementAndGet();
+                try {
+                    complete(query, runProcess(query.getCommand(query.options), query.sequence), start);
+                } catch (BlastException e) {
+                    fail(query, e, start);
+                } catch (RuntimeException e) {
+                    fail(query, new BlastException(e), start);
+                }
+            }
+            return;
+        }
+
+        for (String line : output.split("\n")) {
+            int index = line.indexOf(',');
+            if (index == -1)
+                continue;
+
+            PendingQuery query = queries.get(line.substring(0, index));
+            if (query == null) {
+                Logger.warn("Could not match blast output line to query: " + line);
+                continue;
+            }
+            outputs.get(query).append(line.substring(index + 1)).append('\n');
+        }
+
+        for (PendingQuery query : batch) {
+            complete(query, outputs.get(query).toString(), start);
+        }
+    }
+
+    private void complete(PendingQuery query, String output, long start) {
+        recordExecutionTime(start);
+        completed.incrementAndGet();
+        query.result.complete(output);
+    }
+
+    private void fail(PendingQuery query, BlastException exception, long start) {
+        recordExecutionTime(start);
+        failed.incrementAndGet();
+        query.result.completeExceptionally(exception);
+    }
+
+    private void recordExecutionTime(long start) {
+        long time = System.currentTimeMillis() - start;
+        totalExecutionTime.addAndGet(time);
+        updateMax(maxExecutionTime, time);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    /**
+     * Runs the command, writing the input to its standard input. Standard error is read concurrently (so that the
+     * process cannot block writing to it) and logged if the process exits with an error. Errors are logged as
+     * warnings since workers do not have the transaction that error logging needs to look up notification settings
+     *
+     * @param command program and arguments
+     * @param input   value to write to standard input
+     * @return standard output of the process, or null if the process exited with a non-zero value
+     * @throws BlastException on exception running the process
+     */
+    private static String runProcess(String[] command, String input) throws BlastException {
+        try {
+            Process process = Runtime.getRuntime().exec(command);
+            BlastPlus.ProcessResultReader reader = new BlastPlus.ProcessResultReader(process.getInputStream());
+            BlastPlus.ProcessResultReader errorReader = new BlastPlus.ProcessResultReader(process.getErrorStream());
+            reader.start();
+            errorReader.start();
+            try (BufferedWriter programInputWriter = new BufferedWriter(
+                    new OutputStreamWriter(process.getOutputStream()))) {
+                programInputWriter.write(input);
+            }
+
+            final int exitValue = process.waitFor();
+            reader.join();
+            errorReader.join();
+            String errorOutput = errorReader.toString().trim();
+            if (exitValue != 0 && !errorOutput.isEmpty())
+                Logger.warn("Blast error output: " + StringUtils.abbreviate(errorOutput, MAX_LOGGED_ERROR_LENGTH));
+
+            switch (exitValue) {
+                case 0:
+                    return reader.toString();
+
+                case 1:
+                    Logger.warn("Error in query sequence(s) or BLAST options");
+                    break;
+
+                case 2:
+                    Logger.warn("Error in BLAST database");
+                    break;
+
+                default:
+                    Logger.warn("Unknown exit value " + exitValue);
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlastException(e);
+        } catch (IOException e) {
+            Logger.warn("Exception running " + command[0] + ": " + e.getMessage());
+            throw new BlastException(e);
+        }
+    }
+
+    /**
+     * Query waiting for execution
+     */
+    private class PendingQuery {
+        private final String id;
+        private final String key;
+        private final String program;
+        private final String blastDb;
+        private final String sequence;
+        private final String[] options;
+        private final long submitted;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        PendingQuery(String program, String blastDb, String sequence, String[] options) {
+            this.id = QUERY_ID_PREFIX + queryIds.incrementAndGet();
+            this.program = program;
+            this.blastDb = blastDb;
+            this.sequence = sequence == null ? "" : sequence;
+            this.options = options;
+            this.key = program + '\n' + blastDb + '\n' + StringUtils.join(options, '\n');
+            this.submitted = System.currentTimeMillis();
+        }
+
+        /**
+         * Queries can be combined with others if they consist of a single sequence (no fasta header) and
+         * produce comma separated output that the query id can be added to
+         */
+        boolean isBatchable() {
+            if (sequence.indexOf('>') != -1 || StringUtils.isBlank(sequence))
+                return false;
+
+            for (int i = 0; i < options.length - 1; i += 1) {
+                if ("-outfmt".equals(options[i]))
+                    return options[i + 1].startsWith(CSV_OUTPUT_FORMAT);
+            }
+            return false;
+        }
+
+        String[] getCommand(String[] options) {
+            String[] command = new String[3 + options.length];
+            command[0] = program;
+            command[1] = "-db";
+            command[2] = blastDb;
+            System.arraycopy(options, 0, command, 3, options.length);
+            return command;
+        }
+    }
+}
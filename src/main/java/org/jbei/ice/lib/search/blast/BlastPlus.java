@@ -6,7 +6,6 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.biojava.bio.seq.DNATools;
 import org.biojava.bio.seq.RNATools;
-import org.biojava.bio.symbol.IllegalAlphabetException;
 import org.biojava.bio.symbol.IllegalSymbolException;
 import org.biojava.bio.symbol.SymbolList;
 import org.jbei.ice.lib.common.logging.Logger;
@@ -20,15 +19,17 @@ import org.jbei.ice.lib.dto.search.BlastQuery;
 import org.jbei.ice.lib.dto.search.SearchResult;
 import org.jbei.ice.lib.executor.IceExecutorService;
 import org.jbei.ice.lib.parsers.bl2seq.Bl2SeqResult;
+import org.jbei.ice.lib.search.kmer.KmerSequenceIndex;
 import org.jbei.ice.lib.utils.SequenceUtils;
+import org.jbei.ice.lib.utils.UtilityException;
 import org.jbei.ice.lib.utils.Utils;
 import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.hibernate.dao.FeatureDAO;
 import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
 import org.jbei.ice.storage.hibernate.dao.SequenceFeatureDAO;
-import org.jbei.ice.storage.model.Feature;
+import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Sequence;
-import org.jbei.ice.storage.model.SequenceFeature;
 
 import java.io.*;
 import java.nio.channels.FileLock;
@@ -38,11 +39,18 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * Enables (command line) interaction with BLAST+
  * <p>
  * Current usage is for blast searches and auto-annotation support
+ * <p>
+ * Sequence changes are not written to the main search database. They are recorded in a small delta database
+ * (which is searched along with the main one) and the ids of the affected entries are added to an exclusion list that
+ * is used to filter out main database hits that are no longer valid. The delta is merged into the main database
+ * (by rebuilding it) once {@link #DELTA_MERGE_THRESHOLD} entries have changed or it is older than a day, and
+ * on start up.
  *
  * @author Hector Plahar
  */
@@ -53,16 +61,35 @@ public class BlastPlus {
     private static final String DELIMITER = ",";
     private static final String LOCK_FILE_NAME = "write.lock";
     private static final String AUTO_ANNOTATION_FOLDER_NAME = "auto-annotation";
+    private static final int FASTA_BATCH_SIZE = 1000;
+    private static final String BLAST_DELTA_DB_NAME = "ice_delta";
+    private static final String DELTA_ID_PREFIX = BlastDelta.ID_PREFIX;
+    private static final int DELTA_MERGE_THRESHOLD = 1000;
+    private static final long DELTA_MAX_AGE_HOURS = 24;
+    private static final String STAGING_FOLDER_NAME = "staging";
+
+    // serializes changes to the delta database and the exclusion list, including the merge into the main database
+    private static final Object DELTA_LOCK = new Object();
+
+    // entry id to fasta record (or null for removal) for changes that have not been applied to the delta database
+    private static final Map<Long, String> PENDING_DELTA_UPDATES = new LinkedHashMap<>();
+    private static boolean deltaUpdateScheduled;
+    private static volatile Set<Long> excludedIds;
+
+    // changes applied to the delta database while the main database is being rebuilt (null if no rebuild is running).
+    // the rebuild may have read the sequences before these changes so they are re-applied after the swap
+    private static Map<Long, String> rebuildDeltaUpdates;
 
     /**
      * Runs a blast query in the specified database folder
-     * using the specified options
+     * using the specified options. The query is queued with the {@link BlastExecutionService} which bounds the number
+     * of concurrent blast processes and may run it together with other queries for the same database
      *
      * @param dbFolder location of the blast database
      * @param query    wrapper around blast query including options such as blast type
      * @param options  command line options for blast
      * @return results of the query run. An empty string is returned if the specified blast database does not exist
-     * in the ice data directory
+     * in the ice data directory and null if blast exits with an error
      * @throws BlastException on exception running blast on the command line
      */
     static String runBlastQuery(String dbFolder, BlastQuery query, String... options) throws BlastException {
@@ -75,40 +102,18 @@ public class BlastPlus {
                 return "";
             }
 
-            String[] blastCommand = new String[3 + options.length];
-            blastCommand[0] = command;
-            blastCommand[1] = "-db";
-            blastCommand[2] = blastDb;
-            System.arraycopy(options, 0, blastCommand, 3, options.length);
-
-            Process process = Runtime.getRuntime().exec(blastCommand);
-            ProcessResultReader reader = new ProcessResultReader(process.getInputStream());
-            reader.start();
-            BufferedWriter programInputWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
-
-            programInputWriter.write(query.getSequence());
-            programInputWriter.flush();
-            programInputWriter.close();
-            process.getOutputStream().close();
-
-            // TODO this should go into the thread itself & have future wait on it
-            final int exitValue = process.waitFor();
-            switch (exitValue) {
-                case 0:
-                    return reader.toString();
-
-                case 1:
-                    Logger.error("Error in query sequence(s) or BLAST options");
-                    break;
-
-                case 2:
-                    Logger.error("Error in BLAST database");
-                    break;
-
-                default:
-                    Logger.error("Unknown exit value " + exitValue);
+            // also search the delta database (if any) for the main search database. blast splits the -db value
+            // on spaces so each path is quoted in case the data directory contains spaces
+            if (BLAST_DB_FOLDER.equals(dbFolder)) {
+                Path deltaDb = Paths.get(Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY), dbFolder,
+                        BLAST_DELTA_DB_NAME);
+                if (Files.exists(Paths.get(deltaDb.toString() + ".nsq")))
+                    blastDb = "\"" + blastDb + "\" \"" + deltaDb.toString() + "\"";
             }
-            return null;
+
+            return BlastExecutionService.getInstance().execute(command, blastDb, query.getSequence(), options);
+        } catch (BlastException e) {
+            throw e;
         } catch (Exception e) {
             Logger.error(e);
             throw new BlastException(e);
@@ -249,7 +254,8 @@ public class BlastPlus {
     }
 
     /**
-     * Processes the result of a blast search
+     * Processes the result of a blast search. Hits from the main database for entries in the exclusion list
+     * are dropped since the delta database contains the current sequence (if any) for those entries
      *
      * @param blastOutput result output from running blast on the command line
      * @param queryLength length of query sequence
@@ -258,11 +264,19 @@ public class BlastPlus {
     private static LinkedHashMap<String, SearchResult> processBlastOutput(String blastOutput, int queryLength) {
         LinkedHashMap<String, SearchResult> hashMap = new LinkedHashMap<>();
 
+        Set<Long> excluded = getExcludedIds();
+
         try (CSVReader reader = new CSVReader(new StringReader(blastOutput))) {
             List<String[]> lines = reader.readAll();
             reader.close();
 
             for (String[] line : lines) {
+                if (line[0].startsWith(DELTA_ID_PREFIX)) {
+                    line[0] = line[0].substring(DELTA_ID_PREFIX.length());
+                } else if (excluded.contains(Long.decode(line[0]))) {
+                    continue;
+                }
+
                 SearchResult info = parseBlastOutputLine(line);
 
                 info.setQueryLength(queryLength);
@@ -292,6 +306,12 @@ public class BlastPlus {
         return Files.exists(path, LinkOption.NOFOLLOW_LINKS);
     }
 
+    private static boolean deltaDatabaseExists() {
+        String dataDir = Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY);
+        return Files.exists(Paths.get(dataDir, BLAST_DB_FOLDER, BlastDelta.FASTA_FILE_NAME))
+                || Files.exists(Paths.get(dataDir, BLAST_DB_FOLDER, BlastDelta.EXCLUDED_IDS_FILE_NAME));
+    }
+
     public static void rebuildFeaturesBlastDatabase(String featureFolder) throws IOException {
         String blastInstallDir = Utils.getConfigValue(ConfigurationKey.BLAST_INSTALL_DIR);
         if (StringUtils.isEmpty(blastInstallDir)) {
@@ -337,7 +357,7 @@ public class BlastPlus {
                 if (lock == null)
                     return;
                 Logger.info("Rebuilding features blast database...");
-                rebuildSequenceDatabase(blastDir, blastFolder, true);
+                rebuildSequenceDatabase(blastDir, blastFolder, true, null);
                 Logger.info("Blast features database rebuild complete");
             }
         } catch (OverlappingFileLockException l) {
@@ -359,6 +379,19 @@ public class BlastPlus {
      * @throws BlastException
      */
     public static void rebuildDatabase(boolean force) throws BlastException {
+        rebuildDatabase(force, null);
+    }
+
+    /**
+     * Re-builds the blast database, notifying the specified callback of the number of sequences written
+     * to the fasta file as the rebuild progresses
+     *
+     * @param force    set to true to force a rebuild. Use with caution
+     * @param progress optional callback notified with the number of sequences processed and the total
+     * @throws BlastException
+     * @see #rebuildDatabase(boolean)
+     */
+    public static void rebuildDatabase(boolean force, BiConsumer<Long, Long> progress) throws BlastException {
         String blastInstallDir = Utils.getConfigValue(ConfigurationKey.BLAST_INSTALL_DIR);
         if (StringUtils.isEmpty(blastInstallDir)) {
             Logger.warn("Blast install directory not available. Aborting blast rebuild");
@@ -394,7 +427,7 @@ public class BlastPlus {
                 }
             }
 
-            if (!force && blastDatabaseExists()) {
+            if (!force && blastDatabaseExists() && !deltaDatabaseExists()) {
                 Logger.info("Blast database found in " + blastFolder.toAbsolutePath().toString());
                 return;
             }
@@ -409,7 +442,7 @@ public class BlastPlus {
                 if (lock == null)
                     return;
                 Logger.info("Rebuilding blast database");
-                rebuildSequenceDatabase(blastDir, blastFolder, false);
+                rebuildSequenceDatabase(blastDir, blastFolder, false, progress);
                 Logger.info("Blast database rebuild complete");
             }
         } catch (OverlappingFileLockException l) {
@@ -487,21 +520,234 @@ public class BlastPlus {
         IceExecutorService.getInstance().runTask(task);
     }
 
+    /**
+     * Schedule task to add the specified sequence to the blast index, replacing any existing sequence
+     * for the same entry. The fasta record is created immediately but the task is only scheduled (and the k-mer
+     * sequence index, if built, only updated) once the current transaction commits.
+     *
+     * @param sequence new or updated sequence. Must be associated with an entry
+     */
+    public static void scheduleBlastIndexUpdateTask(Sequence sequence) {
+        if (sequence == null || sequence.getEntry() == null)
+            return;
+
+        scheduleBlastIndexUpdateTask(Collections.singletonList(sequence));
+    }
+
+    /**
+     * Schedule a single task to add the specified sequences to the blast index. Used when a large number of
+     * sequences are created together (e.g. bulk uploads)
+     *
+     * @param sequences new or updated sequences. Each must be associated with an entry
+     * @see #scheduleBlastIndexUpdateTask(Sequence)
+     */
+    public static void scheduleBlastIndexUpdateTask(Collection<Sequence> sequences) {
+        Map<Long, String> records = new LinkedHashMap<>();
+        Map<Long, String> values = new LinkedHashMap<>();
+        for (Sequence sequence : sequences) {
+            if (sequence == null || sequence.getEntry() == null)
+                continue;
+
+            Entry entry = sequence.getEntry();
+            values.put(entry.getId(), sequence.getSequence());
+            records.put(entry.getId(), createFastaRecord(DELTA_ID_PREFIX + entry.getId(), entry.getRecordType(),
+                    entry.getName(), entry.getPartNumber(), sequence.getSequence()));
+        }
+
+        if (records.isEmpty())
+            return;
+
+        HibernateUtil.afterCommit(() -> {
+            values.forEach(KmerSequenceIndex.getInstance()::update);
+            scheduleDeltaUpdates(records);
+        });
+    }
+
+    /**
+     * Schedule task to remove the sequence for the specified entry from the blast index once the current
+     * transaction commits. The sequence is also removed from the k-mer sequence index (if built)
+     *
+     * @param entryId unique identifier for entry whose sequence was deleted
+     */
+    public static void scheduleBlastIndexDeleteTask(long entryId) {
+        HibernateUtil.afterCommit(() -> {
+            KmerSequenceIndex.getInstance().update(entryId, null);
+            scheduleDeltaUpdates(Collections.singletonMap(entryId, null));
+        });
+    }
+
+    private static void scheduleDeltaUpdates(Map<Long, String> records) {
+        synchronized (PENDING_DELTA_UPDATES) {
+            // latest change for an entry wins and is applied after changes to other entries made before it
+            for (Map.Entry<Long, String> record : records.entrySet()) {
+                PENDING_DELTA_UPDATES.remove(record.getKey());
+                PENDING_DELTA_UPDATES.put(record.getKey(), record.getValue());
+            }
+            if (deltaUpdateScheduled)
+                return;
+            deltaUpdateScheduled = true;
+        }
+        IceExecutorService.getInstance().runTask(new UpdateBlastIndexTask());
+    }
+
+    /**
+     * Applies all pending sequence changes to the delta blast database and exclusion list. The delta fasta file is
+     * re-written without the records for the changed entries, and the new records are appended.
+     * Cost is proportional to the size of the delta and not the size of the main database.
+     * <p>
+     * If the main database does not exist, it is built instead. If the delta has grown too large or too old,
+     * a rebuild of the main database (which merges the delta) is scheduled. Changes that could not be applied
+     * are returned to the pending list and retried with the next update
+     *
+     * @throws BlastException on exception writing the delta fasta file or running makeblastdb
+     */
+    public static void updateDeltaDatabase() throws BlastException {
+        boolean rebuild;
+
+        synchronized (DELTA_LOCK) {
+            Map<Long, String> updates;
+            synchronized (PENDING_DELTA_UPDATES) {
+                updates = new LinkedHashMap<>(PENDING_DELTA_UPDATES);
+                PENDING_DELTA_UPDATES.clear();
+                deltaUpdateScheduled = false;
+            }
+
+            String blastInstallDir = Utils.getConfigValue(ConfigurationKey.BLAST_INSTALL_DIR);
+            if (updates.isEmpty() || StringUtils.isEmpty(blastInstallDir))
+                return;
+
+            rebuild = !blastDatabaseExists();
+            if (rebuild) {
+                // applied to the delta once the rebuild completes
+                requeueDeltaUpdates(updates, false);
+            } else {
+                boolean applied = false;
+                try {
+                    applyDeltaUpdates(Paths.get(blastInstallDir), updates);
+                    applied = true;
+                } finally {
+                    if (!applied)
+                        requeueDeltaUpdates(updates, false);
+                }
+            }
+        }
+
+        if (rebuild)
+            rebuildDatabase(false);
+    }
+
+    /**
+     * Writes the specified changes to the delta database and exclusion list. Caller must hold {@link #DELTA_LOCK}
+     *
+     * @param blastDir blast installation directory
+     * @param updates  entry id to fasta record (or null for removal)
+     * @throws BlastException on exception writing the delta fasta file or running makeblastdb
+     */
+    private static void applyDeltaUpdates(Path blastDir, Map<Long, String> updates) throws BlastException {
+        if (!Files.exists(blastDir))
+            throw new BlastException("Could not locate Blast installation in " + blastDir.toString());
+
+        Path blastFolder = Paths.get(Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY), BLAST_DB_FOLDER);
+        BlastDelta delta = getDelta(blastFolder);
+
+        try {
+            int recordCount = delta.writeFasta(updates);
+            if (recordCount == 0)
+                deleteDeltaDatabaseFiles(blastFolder);
+            else
+                formatBlastDb(blastFolder, blastDir, BlastDelta.FASTA_FILE_NAME, BLAST_DELTA_DB_NAME);
+
+            // main database records for changed entries are no longer valid
+            Set<Long> excluded = delta.addExcludedIds(updates.keySet());
+            excludedIds = excluded;
+            if (rebuildDeltaUpdates != null)
+                rebuildDeltaUpdates.putAll(updates);
+
+            if (delta.isMergeDue(excluded.size(), System.currentTimeMillis())) {
+                Logger.info("Scheduling merge of blast delta database (" + recordCount + " records, "
+                        + excluded.size() + " changed entries)");
+                scheduleBlastIndexRebuildTask(true);
+            }
+        } catch (IOException ioe) {
+            throw new BlastException(ioe);
+        }
+    }
+
+    /**
+     * Returns changes that were taken from the pending list but not applied. Changes made to the same entries
+     * since then take precedence
+     *
+     * @param updates  entry id to fasta record (or null for removal)
+     * @param schedule true to schedule a delta update if one is not already scheduled
+     */
+    private static void requeueDeltaUpdates(Map<Long, String> updates, boolean schedule) {
+        synchronized (PENDING_DELTA_UPDATES) {
+            updates.forEach(PENDING_DELTA_UPDATES::putIfAbsent);
+            if (!schedule || deltaUpdateScheduled || PENDING_DELTA_UPDATES.isEmpty())
+                return;
+            deltaUpdateScheduled = true;
+        }
+        IceExecutorService.getInstance().runTask(new UpdateBlastIndexTask());
+    }
+
+    private static BlastDelta getDelta(Path blastFolder) {
+        return new BlastDelta(blastFolder, DELTA_MERGE_THRESHOLD, TimeUnit.HOURS.toMillis(DELTA_MAX_AGE_HOURS));
+    }
+
+    /**
+     * @return ids of entries whose records in the main blast database are no longer valid
+     */
+    private static Set<Long> getExcludedIds() {
+        Set<Long> excluded = excludedIds;
+        if (excluded != null)
+            return excluded;
+
+        Path blastFolder = Paths.get(Utils.getConfigValue(ConfigurationKey.DATA_DIRECTORY), BLAST_DB_FOLDER);
+        excluded = getDelta(blastFolder).getExcludedIds();
+        excludedIds = excluded;
+        return excluded;
+    }
+
+    /**
+     * Removes the delta database, delta fasta file, exclusion list and start time. Expected to be called after
+     * the main database has been rebuilt (which merges the delta)
+     *
+     * @param blastFolder folder for the blast search database
+     */
+    private static void deleteDeltaDatabase(Path blastFolder) throws IOException {
+        deleteDeltaDatabaseFiles(blastFolder);
+        getDelta(blastFolder).delete();
+        excludedIds = new HashSet<>();
+    }
+
+    private static void deleteDeltaDatabaseFiles(Path blastFolder) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(blastFolder, BLAST_DELTA_DB_NAME + ".*")) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
     /**
      * Build the blast search or sequence database database.
      * <p>
      * <p/>First dump the sequences from the sql database into a fasta file, than create the blast
-     * database by calling formatBlastDb.
+     * database by calling formatBlastDb. The search database is built in a staging folder so that queries and
+     * delta updates can continue while it is built. It replaces the existing database (and its delta) once
+     * complete, and changes applied to the delta in the meantime are then re-applied to the new delta
      *
      * @param blastInstall the installation directory path for blast
      * @param blastDb      folder location for the blast database
      * @param isFeatures   determines which database to rebuild. True for sequence features database, false for
      *                     blast search database
+     * @param progress     optional callback for progress of the fasta file write. Only used for the search database
      * @throws BlastException
      */
-    private static void rebuildSequenceDatabase(Path blastInstall, Path blastDb, boolean isFeatures) throws BlastException {
+    private static void rebuildSequenceDatabase(Path blastInstall, Path blastDb, boolean isFeatures,
+                                                BiConsumer<Long, Long> progress) throws BlastException {
 
-        Path newFastaFile = Paths.get(blastDb.toString(), "bigfastafile.new");
+        Path buildFolder = isFeatures ? blastDb : Paths.get(blastDb.toString(), STAGING_FOLDER_NAME);
+        Path newFastaFile = Paths.get(buildFolder.toString(), "bigfastafile.new");
 
         // check if file exists
         if (Files.exists(newFastaFile)) {
@@ -518,36 +764,100 @@ public class BlastPlus {
             }
         }
 
-        try (BufferedWriter write = Files.newBufferedWriter(newFastaFile, Charset.defaultCharset(),
-                StandardOpenOption.CREATE_NEW)) {
-            if (isFeatures)
-                writeBigFastaFileForFeatures(write);
-            else
-                writeBigFastaFile(write);
-        } catch (IOException ioe) {
-            throw new BlastException(ioe);
+        if (!isFeatures) {
+            synchronized (DELTA_LOCK) {
+                rebuildDeltaUpdates = new LinkedHashMap<>();
+            }
         }
 
-        formatBlastDb(blastDb, blastInstall);
         try {
-            Path fastaFile = Paths.get(blastDb.toString(), "bigfastafile");
-            Files.move(newFastaFile, fastaFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.createDirectories(buildFolder);
+            try (BufferedWriter write = Files.newBufferedWriter(newFastaFile, Charset.defaultCharset(),
+                    StandardOpenOption.CREATE_NEW)) {
+                if (isFeatures)
+                    writeBigFastaFileForFeatures(write);
+                else
+                    writeBigFastaFile(write, progress);
+            }
+
+            formatBlastDb(buildFolder, blastInstall, "bigfastafile.new", BLAST_DB_NAME);
+            if (isFeatures) {
+                Files.move(newFastaFile, Paths.get(blastDb.toString(), "bigfastafile"),
+                        StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+
+            synchronized (DELTA_LOCK) {
+                replaceBlastDatabase(buildFolder, blastDb);
+                deleteDeltaDatabase(blastDb);
+
+                Map<Long, String> updates = rebuildDeltaUpdates;
+                rebuildDeltaUpdates = null;
+                if (!updates.isEmpty()) {
+                    try {
+                        applyDeltaUpdates(blastInstall, updates);
+                    } catch (BlastException be) {
+                        Logger.error(be);
+                        requeueDeltaUpdates(updates, false);
+                    }
+                }
+
+                // changes deferred while the database was rebuilt
+                requeueDeltaUpdates(Collections.emptyMap(), true);
+            }
         } catch (IOException ioe) {
-            Logger.error(ioe);
+            throw new BlastException(ioe);
+        } finally {
+            if (!isFeatures) {
+                synchronized (DELTA_LOCK) {
+                    rebuildDeltaUpdates = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the search database files and fasta file built in the staging folder into the blast folder, replacing
+     * the existing ones. Files for the existing database that were not replaced (e.g. from a different number of
+     * volumes) are removed
+     *
+     * @param buildFolder staging folder the database was built in
+     * @param blastDb     folder location for the blast database
+     * @throws IOException on exception moving or deleting the files
+     */
+    private static void replaceBlastDatabase(Path buildFolder, Path blastDb) throws IOException {
+        Set<Path> replaced = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(buildFolder, BLAST_DB_NAME + ".*")) {
+            for (Path path : stream) {
+                Path target = blastDb.resolve(path.getFileName());
+                Files.move(path, target, StandardCopyOption.REPLACE_EXISTING);
+                replaced.add(target);
+            }
         }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(blastDb, BLAST_DB_NAME + ".*")) {
+            for (Path path : stream) {
+                if (!replaced.contains(path))
+                    Files.deleteIfExists(path);
+            }
+        }
+
+        Files.move(Paths.get(buildFolder.toString(), "bigfastafile.new"), Paths.get(blastDb.toString(), "bigfastafile"),
+                StandardCopyOption.REPLACE_EXISTING);
     }
 
-    private static void formatBlastDb(Path blastDb, Path blastInstall) throws BlastException {
+    private static void formatBlastDb(Path blastDb, Path blastInstall, String fastaFileName, String dbName)
+            throws BlastException {
         ArrayList<String> commands = new ArrayList<>();
         String makeBlastDbCmd = blastInstall.toAbsolutePath().toString() + File.separator + "makeblastdb";
         commands.add(makeBlastDbCmd);
         commands.add("-dbtype nucl");
         commands.add("-in");
-        commands.add("bigfastafile.new");
+        commands.add(fastaFileName);
         commands.add("-logfile");
-        commands.add(BLAST_DB_NAME + ".log");
+        commands.add(dbName + ".log");
         commands.add("-out");
-        commands.add(BLAST_DB_NAME);
+        commands.add(dbName);
 //        commands.add("-title");
 //        commands.add("ICE Blast DB");
         String commandString = Utils.join(" ", commands);
@@ -584,67 +894,94 @@ public class BlastPlus {
 
     /**
      * Retrieve all the sequences from the database, and writes it out to a fasta file on disk.
+     * Sequences are retrieved in batches of {@link #FASTA_BATCH_SIZE} without loading the associated entries
      *
+     * @param writer   writer for fasta file
+     * @param progress optional callback that is notified with the number of sequences processed and the total
+     *                 after each batch
      * @throws BlastException
      */
-    private static void writeBigFastaFile(BufferedWriter writer) throws BlastException {
+    private static void writeBigFastaFile(BufferedWriter writer, BiConsumer<Long, Long> progress)
+            throws BlastException {
         SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
         long count = sequenceDAO.getSequenceCount();
         if (count <= 0)
             return;
 
-        int offset = 0;
-        while (offset < count) {
-            Sequence sequence = sequenceDAO.getSequence(offset++);
-            if (sequence == null || sequence.getEntry() == null)
-                continue;
-            long id = sequence.getEntry().getId();
+        long processed = 0;
+        long lastId = 0;
+        List<Object[]> batch;
 
-            String sequenceString = "";
-            String temp = sequence.getSequence();
-//            int sequenceLength = 0;
-            if (temp != null) {
-                SymbolList symL;
-                try {
-                    symL = DNATools.createDNA(sequence.getSequence().trim());
-                } catch (IllegalSymbolException e1) {
-                    // maybe it's rna?
-                    try {
-                        symL = RNATools.createRNA(sequence.getSequence().trim());
-                    } catch (IllegalSymbolException e2) {
-                        // skip this sequence
-                        Logger.debug("Invalid characters in sequence for " + sequence.getEntry().getId()
-                                + ". Skipped for indexing");
-                        Logger.debug(e2.toString());
-                        continue;
-                    }
-                }
-
-//                sequenceLength = symL.seqString().length();
-                sequenceString = SequenceUtils.breakUpLines(symL.seqString() + symL.seqString());
-            }
+        while (!(batch = sequenceDAO.getSequenceFastaData(lastId, FASTA_BATCH_SIZE)).isEmpty()) {
+            for (Object[] record : batch) {
+                String fastaRecord = createFastaRecord(Long.toString((Long) record[1]), (String) record[2],
+                        (String) record[3], (String) record[4], (String) record[5]);
+                if (fastaRecord == null)
+                    continue;
 
-            if (sequenceString.length() > 0) {
                 try {
-                    String idString = ">" + id;
-                    idString += DELIMITER + sequence.getEntry().getRecordType();
-                    String name = sequence.getEntry().getName() == null ? "None" : sequence.getEntry().getName();
-                    idString += DELIMITER + name;
-                    String pNumber = sequence.getEntry().getPartNumber();
-                    idString += DELIMITER + pNumber;
-                    idString += "\n";
-                    writer.write(idString);
-                    writer.write(sequenceString + "\n");
+                    writer.write(fastaRecord);
                 } catch (IOException e) {
                     throw new BlastException(e);
                 }
             }
+
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+            processed += batch.size();
+            Logger.info("Wrote " + processed + " of " + count + " sequences to blast fasta file");
+            if (progress != null)
+                progress.accept(processed, count);
         }
     }
 
+    /**
+     * Creates the fasta record (header and sequence) for an entry's sequence in the blast search database.
+     * The sequence is written twice to enable matches across the origin of circular sequences
+     *
+     * @param id         identifier for the record. Typically the entry id
+     * @param recordType entry record type
+     * @param name       entry name
+     * @param partNumber entry part number
+     * @param sequence   entry sequence
+     * @return fasta record or null if the sequence is empty or contains invalid characters
+     */
+    private static String createFastaRecord(String id, String recordType, String name, String partNumber,
+                                            String sequence) {
+        if (sequence == null)
+            return null;
+
+        SymbolList symL;
+        try {
+            symL = DNATools.createDNA(sequence.trim());
+        } catch (IllegalSymbolException e1) {
+            // maybe it's rna?
+            try {
+                symL = RNATools.createRNA(sequence.trim());
+            } catch (IllegalSymbolException e2) {
+                // skip this sequence
+                Logger.debug("Invalid characters in sequence for " + id + ". Skipped for indexing");
+                Logger.debug(e2.toString());
+                return null;
+            }
+        }
+
+        String sequenceString = SequenceUtils.breakUpLines(symL.seqString() + symL.seqString());
+        if (sequenceString.length() == 0)
+            return null;
+
+        String idString = ">" + id;
+        idString += DELIMITER + recordType;
+        idString += DELIMITER + (name == null ? "None" : name);
+        idString += DELIMITER + partNumber;
+        idString += "\n";
+        return idString + sequenceString + "\n";
+    }
+
     /**
      * Writes the fasta file (part of the blast database) that contains all the features that exists on this system.
-     * This routine is expected to be called as part of the blast sequence feature database rebuild
+     * This routine is expected to be called as part of the blast sequence feature database rebuild.
+     * <p>
+     * Features, and the strands they have been annotated on, are retrieved in batches of {@link #FASTA_BATCH_SIZE}
      *
      * @param writer writer for fasta file
      * @throws BlastException
@@ -657,64 +994,65 @@ public class BlastPlus {
         if (count <= 0)
             return;
 
-        int offset = 0;
-        while (offset < count) {
-            List<Feature> features = featureDAO.getFeatures(offset++, 1);
-            Feature feature = features.get(0);
-            String featureName = feature.getName();
-            if (featureName == null || featureName.trim().isEmpty())
-                continue;
-
-            if (feature.getCuration() != null && feature.getCuration().isExclude())
-                continue;
+        long processed = 0;
+        long lastId = 0;
+        List<Object[]> batch;
 
-            boolean hasNegativeStrand = false;
-            boolean hasPositiveStrand = false;
+        while (!(batch = featureDAO.getFeatureFastaData(lastId, FASTA_BATCH_SIZE)).isEmpty()) {
+            List<Long> featureIds = new ArrayList<>(batch.size());
+            for (Object[] record : batch)
+                featureIds.add((Long) record[0]);
+            Map<Long, Set<Integer>> strands = sequenceFeatureDAO.getFeatureStrands(featureIds);
 
-            List<SequenceFeature> sequenceFeatures = sequenceFeatureDAO.getByFeature(feature);
-            if (sequenceFeatures == null || sequenceFeatures.isEmpty()) {
-                hasPositiveStrand = true;
-            } else {
-                for (SequenceFeature sequenceFeature : sequenceFeatures) {
-                    if (sequenceFeature.getStrand() == 1) {
-                        hasPositiveStrand = true;
-                    } else if (sequenceFeature.getStrand() == -1) {
-                        hasNegativeStrand = true;
-                    }
-                }
-            }
+            for (Object[] record : batch) {
+                long featureId = (Long) record[0];
+                String featureName = (String) record[1];
+                if (featureName == null || featureName.trim().isEmpty())
+                    continue;
 
-            try {
-                String sequenceString = feature.getSequence().trim();
-                if (StringUtils.isEmpty(sequenceString))
+                if (record[4] != null && (Boolean) record[4])
                     continue;
 
-                if (hasNegativeStrand) {
-                    try {
-                        SymbolList symbolList = DNATools.createDNA(sequenceString);
-                        symbolList = DNATools.reverseComplement(symbolList);
-                        writeSequenceString(feature, writer, symbolList.seqString(), -1);
-                    } catch (IllegalSymbolException | IllegalAlphabetException e) {
-                        Logger.warn(e.getMessage());
+                Set<Integer> featureStrands = strands.get(featureId);
+                boolean hasNegativeStrand = featureStrands != null && featureStrands.contains(-1);
+                boolean hasPositiveStrand = featureStrands == null || featureStrands.contains(1);
+
+                try {
+                    String sequenceString = record[3] == null ? null : ((String) record[3]).trim();
+                    if (StringUtils.isEmpty(sequenceString))
                         continue;
+
+                    String genbankType = (String) record[2];
+                    if (hasNegativeStrand) {
+                        try {
+                            String reverseComplement = SequenceUtils.reverseComplement(sequenceString);
+                            writeSequenceString(featureId, featureName, genbankType, writer, reverseComplement, -1);
+                        } catch (UtilityException e) {
+                            Logger.warn(e.getMessage());
+                            continue;
+                        }
                     }
-                }
 
-                if (hasPositiveStrand) {
-                    writeSequenceString(feature, writer, sequenceString, 1);
+                    if (hasPositiveStrand) {
+                        writeSequenceString(featureId, featureName, genbankType, writer, sequenceString, 1);
+                    }
+                } catch (IOException e) {
+                    throw new BlastException(e);
                 }
-            } catch (IOException e) {
-                throw new BlastException(e);
             }
+
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+            processed += batch.size();
+            Logger.info("Wrote " + processed + " of " + count + " features to blast fasta file");
         }
     }
 
-    private static void writeSequenceString(Feature feature, BufferedWriter writer, String seq, int strand)
-            throws IOException {
+    private static void writeSequenceString(long featureId, String featureName, String genbankType,
+                                            BufferedWriter writer, String seq, int strand) throws IOException {
         String idString = ">"
-                + feature.getId() + DELIMITER
-                + feature.getName() + DELIMITER
-                + feature.getGenbankType() + DELIMITER
+                + featureId + DELIMITER
+                + featureName + DELIMITER
+                + genbankType + DELIMITER
                 + Integer.toString(strand);
         idString += "\n";
         writer.write(idString);
@@ -11,6 +11,8 @@ import org.jbei.ice.lib.executor.Task;
 public class RebuildBlastIndexTask extends Task {
 
     private final boolean force;
+    private volatile long processed;
+    private volatile long total;
 
     public RebuildBlastIndexTask(boolean force) {
         this.force = force;
@@ -20,9 +22,37 @@ public class RebuildBlastIndexTask extends Task {
     public void execute() {
         Logger.info("Running blast rebuild task");
         try {
-            BlastPlus.rebuildDatabase(force);
+            BlastPlus.rebuildDatabase(force, (processed, total) -> {
+                this.processed = processed;
+                this.total = total;
+            });
         } catch (BlastException e) {
             Logger.error(e);
         }
     }
+
+    /**
+     * @return number of sequences written to the blast fasta file so far by this task
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return total number of sequences expected to be written to the blast fasta file.
+     * Zero until the rebuild starts writing sequences
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return 1;
+    }
+
+    @Override
+    public String getDeduplicationKey() {
+        return getClass().getName() + ":" + force;
+    }
 }
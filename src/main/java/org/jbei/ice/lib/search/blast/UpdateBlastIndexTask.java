@@ -0,0 +1,26 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.executor.Task;
+
+/**
+ * Task to apply pending sequence changes to the blast delta database
+ *
+ * @author Hector Plahar
+ */
+public class UpdateBlastIndexTask extends Task {
+
+    @Override
+    public void execute() {
+        try {
+            BlastPlus.updateDeltaDatabase();
+        } catch (BlastException e) {
+            Logger.error(e);
+        }
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return 1;
+    }
+}
@@ -0,0 +1,26 @@
+package org.jbei.ice.lib.search.kmer;
+
+import org.jbei.ice.lib.executor.Task;
+
+/**
+ * Task to build the in-memory k-mer sequence index
+ *
+ * @author Hector Plahar
+ */
+public class BuildKmerIndexTask extends Task {
+
+    @Override
+    public void execute() {
+        KmerSequenceIndex.getInstance().build();
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return 1;
+    }
+
+    @Override
+    public String getDeduplicationKey() {
+        return getClass().getName();
+    }
+}
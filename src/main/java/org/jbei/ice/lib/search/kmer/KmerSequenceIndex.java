@@ -0,0 +1,427 @@
+package org.jbei.ice.lib.search.kmer;
+
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.lib.dto.entry.EntryType;
+import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.lib.dto.search.SearchResult;
+import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.utils.SequenceUtils;
+import org.jbei.ice.lib.utils.UtilityException;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.dao.SequenceDAO;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the nucleotide k-mers in all entry sequences, used to answer exact and high-identity
+ * sequence searches without running BLAST+.
+ * <p>
+ * Only the k-mers starting at every {@link #STEP}th position of each sequence are indexed, which keeps the index
+ * at roughly one int per {@link #STEP} bases. Any query of at least {@link #MIN_QUERY_LENGTH} bases that occurs
+ * in a sequence therefore shares at least one indexed k-mer with it. Candidate sequences (those sharing the most
+ * k-mers with the query on either strand) are then retrieved and checked for a full-length ungapped alignment
+ * with at least 95% identity; the same identity cutoff used for BLAST searches.
+ * <p>
+ * Queries that this index cannot answer (too short, ambiguous bases, no high-identity full-length match) are
+ * expected to fall back to BLAST.
+ * <p>
+ * Sequence changes are applied by marking the previous sequence for an entry as removed and indexing the new one.
+ * The index is rebuilt once more than a quarter of the indexed sequences have been removed.
+ *
+ * @author Hector Plahar
+ */
+public class KmerSequenceIndex {
+
+    static final int K = 11;
+    static final int STEP = 16;
+    static final int MIN_QUERY_LENGTH = K + STEP - 1;
+    private static final int KMER_MASK = (1 << (2 * K)) - 1;
+    private static final int MAX_CANDIDATES = 500;
+    private static final float MIN_IDENTITY = 0.95f;
+    private static final int BATCH_SIZE = 1000;
+
+    // blastn (megablast) scoring defaults; used so scores and e-values are comparable to BLAST results
+    private static final int MATCH_REWARD = 1;
+    private static final int MISMATCH_PENALTY = -2;
+    private static final double LAMBDA = 1.28;
+    private static final double KARLIN_K = 0.46;
+
+    private static final KmerSequenceIndex INSTANCE = new KmerSequenceIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    // changes made while the index is being built. Applied once the build completes
+    private final Map<Long, String> pendingUpdates = new LinkedHashMap<>();
+
+    private volatile boolean built;
+    private Postings postings;
+
+    private KmerSequenceIndex() {
+    }
+
+    public static KmerSequenceIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if the index has been built and can be searched
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Schedules a task to build (or rebuild) the index, if it is not currently being built. The current index,
+     * if any, continues to be used for searches until the build completes
+     */
+    public void scheduleBuild() {
+        if (building.get())
+            return;
+        IceExecutorService.getInstance().runTask(new BuildKmerIndexTask());
+    }
+
+    /**
+     * Builds the index from the sequences of all entries, replacing the current index once complete.
+     * Sequences are retrieved in batches. Expected to be run in a task.
+     */
+    void build() {
+        if (!building.compareAndSet(false, true))
+            return;
+
+        try {
+            Logger.info("Building k-mer sequence index");
+            Postings newPostings = new Postings();
+            SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
+            long lastId = 0;
+            List<Object[]> batch;
+
+            while (!(batch = sequenceDAO.getSequenceFastaData(lastId, BATCH_SIZE)).isEmpty()) {
+                for (Object[] record : batch) {
+                    newPostings.add((Long) record[1], (String) record[5]);
+                }
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+            }
+
+            lock.writeLock().lock();
+            try {
+                synchronized (pendingUpdates) {
+                    for (Map.Entry<Long, String> update : pendingUpdates.entrySet()) {
+                        newPostings.remove(update.getKey());
+                        if (update.getValue() != null)
+                            newPostings.add(update.getKey(), update.getValue());
+                    }
+                    pendingUpdates.clear();
+                }
+                postings = newPostings;
+                built = true;
+                building.set(false);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Logger.info("K-mer sequence index built for " + newPostings.liveCount + " sequences");
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * Replaces the indexed sequence for the specified entry. Cost is proportional to the length of the sequence
+     *
+     * @param entryId  unique identifier for entry
+     * @param sequence new sequence for entry or null if the sequence has been deleted
+     */
+    public void update(long entryId, String sequence) {
+        if (!built && !building.get())
+            return;
+
+        boolean rebuild;
+        lock.writeLock().lock();
+        try {
+            if (building.get()) {
+                synchronized (pendingUpdates) {
+                    pendingUpdates.remove(entryId);
+                    pendingUpdates.put(entryId, sequence);
+                }
+            }
+
+            if (postings == null)
+                return;
+
+            postings.remove(entryId);
+            if (sequence != null)
+                postings.add(entryId, sequence);
+            rebuild = postings.removedCount > postings.liveCount / 4 + BATCH_SIZE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (rebuild)
+            scheduleBuild();
+    }
+
+    /**
+     * Searches for entries whose sequence contains a full-length, ungapped match (on either strand) to the query
+     * with at least 95% identity.
+     *
+     * @param querySequence nucleotide query sequence
+     * @return mapping of entry id to search result, in descending order of score. Null if the index cannot
+     * answer the query; the index has not been built, the query is too short or contains characters other than
+     * a, c, g, t, or no high-identity matches were found
+     */
+    public LinkedHashMap<String, SearchResult> search(String querySequence) {
+        if (!built || querySequence == null)
+            return null;
+
+        String query = normalizeQuery(querySequence);
+        if (query == null || query.length() < MIN_QUERY_LENGTH)
+            return null;
+
+        String reverseComplement;
+        try {
+            reverseComplement = SequenceUtils.reverseComplement(query);
+        } catch (UtilityException e) {
+            return null;
+        }
+
+        // rank candidate entries by number of shared k-mers
+        List<Long> candidates;
+        long residueCount;
+        lock.readLock().lock();
+        try {
+            if (postings == null)
+                return null;
+
+            final Map<Integer, Integer> hits = new HashMap<>();
+            postings.countHits(query, hits);
+            postings.countHits(reverseComplement, hits);
+            if (hits.isEmpty())
+                return null;
+
+            List<Integer> ranked = new ArrayList<>(hits.keySet());
+            ranked.sort((a, b) -> Integer.compare(hits.get(b), hits.get(a)));
+            candidates = new ArrayList<>(Math.min(ranked.size(), MAX_CANDIDATES));
+            for (int i = 0; i < ranked.size() && candidates.size() < MAX_CANDIDATES; i += 1) {
+                candidates.add(postings.entryIds[ranked.get(i)]);
+            }
+            residueCount = postings.residueCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // verify candidates
+        List<SearchResult> results = new ArrayList<>();
+        for (Object[] record : DAOFactory.getSequenceDAO().getSequenceSearchData(candidates)) {
+            String sequence = (String) record[5];
+            if (sequence == null)
+                continue;
+
+            sequence = sequence.toLowerCase();
+            int nident = Math.max(bestUngappedMatch(sequence, query), bestUngappedMatch(sequence, reverseComplement));
+            if (nident < MIN_IDENTITY * query.length())
+                continue;
+
+            PartData view = new PartData(EntryType.nameToType((String) record[1]));
+            view.setId((Long) record[0]);
+            view.setName((String) record[2]);
+            view.setPartId((String) record[3]);
+            view.setShortDescription((String) record[4]);
+
+            int score = nident * MATCH_REWARD + (query.length() - nident) * MISMATCH_PENALTY;
+            SearchResult searchResult = new SearchResult();
+            searchResult.setEntryInfo(view);
+            searchResult.seteValue(formatEValue(KARLIN_K * query.length() * residueCount * Math.exp(-LAMBDA * score)));
+            searchResult.setScore(score);
+            searchResult.setAlignment(Integer.toString(nident));
+            searchResult.setQueryLength(query.length());
+            searchResult.setNident(nident);
+            results.add(searchResult);
+        }
+
+        if (results.isEmpty())
+            return null;
+
+        results.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+        LinkedHashMap<String, SearchResult> resultMap = new LinkedHashMap<>();
+        for (SearchResult result : results) {
+            resultMap.put(Long.toString(result.getEntryInfo().getId()), result);
+        }
+        return resultMap;
+    }
+
+    /**
+     * Strips whitespace from and lower cases the query
+     *
+     * @return normalized query or null if the query contains characters other than a, c, g, t (e.g. fasta headers,
+     * ambiguity codes)
+     */
+    static String normalizeQuery(String querySequence) {
+        StringBuilder builder = new StringBuilder(querySequence.length());
+        for (int i = 0; i < querySequence.length(); i += 1) {
+            char c = Character.toLowerCase(querySequence.charAt(i));
+            if (Character.isWhitespace(c))
+                continue;
+            if (encode(c) == -1)
+                return null;
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Determines the best full-length ungapped alignment of the query to the sequence (treated as circular), using
+     * the non-overlapping k-mers of the query as seeds
+     *
+     * @param sequence lower case sequence
+     * @param query    normalized query
+     * @return number of identical bases for the best alignment
+     */
+    static int bestUngappedMatch(String sequence, String query) {
+        int length = sequence.length();
+        if (length == 0)
+            return 0;
+
+        // append start of sequence to allow matches that span the origin
+        String subject = length >= query.length() - 1 ? sequence + sequence.substring(0, query.length() - 1)
+                : sequence;
+        if (subject.contains(query))
+            return query.length();
+
+        int best = 0;
+        Set<Integer> checked = new HashSet<>();
+        for (int queryStart = 0; queryStart + K <= query.length(); queryStart += K) {
+            String seed = query.substring(queryStart, queryStart + K);
+            int index = subject.indexOf(seed);
+            while (index != -1) {
+                int subjectStart = index - queryStart;
+                if (subjectStart >= 0 && subjectStart < length && subjectStart + query.length() <= subject.length()
+                        && checked.add(subjectStart)) {
+                    int identical = 0;
+                    for (int i = 0; i < query.length(); i += 1) {
+                        if (subject.charAt(subjectStart + i) == query.charAt(i))
+                            identical += 1;
+                    }
+                    best = Math.max(best, identical);
+                }
+                index = subject.indexOf(seed, index + 1);
+            }
+        }
+        return best;
+    }
+
+    private static String formatEValue(double eValue) {
+        if (eValue < 1e-180)
+            return "0.0";
+        return String.format("%.2e", eValue);
+    }
+
+    private static int encode(char c) {
+        switch (c) {
+            case 'a':
+                return 0;
+            case 'c':
+                return 1;
+            case 'g':
+                return 2;
+            case 't':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Posting lists for each k-mer (2 bits per base) of the internal index of the sequences that contain it
+     * at a sampled position. Internal indices are never re-used; removed sequences have an entry id of -1
+     */
+    private static class Postings {
+        private final int[][] lists = new int[1 << (2 * K)][];
+        private final int[] sizes = new int[1 << (2 * K)];
+        private final Map<Long, Integer> entryIndex = new HashMap<>();
+        private long[] entryIds = new long[1024];
+        private int entryCount;
+        private int liveCount;
+        private int removedCount;
+        private long residueCount;
+
+        void add(long entryId, String sequence) {
+            if (sequence == null || sequence.isEmpty())
+                return;
+
+            if (entryCount == entryIds.length)
+                entryIds = Arrays.copyOf(entryIds, entryIds.length * 2);
+            int index = entryCount++;
+            entryIds[index] = entryId;
+            entryIndex.put(entryId, index);
+            liveCount += 1;
+            residueCount += sequence.length();
+
+            // include k-mers that span the origin of circular sequences
+            int length = sequence.length();
+            int total = length + K - 1;
+            int kmer = 0;
+            int valid = 0;
+            for (int i = 0; i < total; i += 1) {
+                int code = encode(Character.toLowerCase(sequence.charAt(i % length)));
+                if (code == -1) {
+                    valid = 0;
+                    continue;
+                }
+
+                kmer = ((kmer << 2) | code) & KMER_MASK;
+                valid += 1;
+                int start = i - K + 1;
+                if (valid >= K && start % STEP == 0)
+                    append(kmer, index);
+            }
+        }
+
+        void remove(long entryId) {
+            Integer index = entryIndex.remove(entryId);
+            if (index == null)
+                return;
+            entryIds[index] = -1;
+            liveCount -= 1;
+            removedCount += 1;
+        }
+
+        private void append(int kmer, int index) {
+            int[] list = lists[kmer];
+            int size = sizes[kmer];
+            if (list == null) {
+                list = new int[2];
+                lists[kmer] = list;
+            } else if (list[size - 1] == index) {
+                return;
+            } else if (size == list.length) {
+                list = Arrays.copyOf(list, size + (size >> 1) + 1);
+                lists[kmer] = list;
+            }
+            list[size] = index;
+            sizes[kmer] = size + 1;
+        }
+
+        /**
+         * Counts, for each sequence, the number of k-mers in the query that are indexed for that sequence
+         */
+        void countHits(String query, Map<Integer, Integer> hits) {
+            int kmer = 0;
+            for (int i = 0; i < query.length(); i += 1) {
+                kmer = ((kmer << 2) | encode(query.charAt(i))) & KMER_MASK;
+                if (i < K - 1)
+                    continue;
+
+                int[] list = lists[kmer];
+                for (int j = 0; j < sizes[kmer]; j += 1) {
+                    int index = list[j];
+                    if (entryIds[index] == -1)
+                        continue;
+                    Integer count = hits.get(index);
+                    hits.put(index, count == null ? 1 : count + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-memory k-mer sequence index used as a fast first stage for sequence searches.
+ */
+package org.jbei.ice.lib.search.kmer;
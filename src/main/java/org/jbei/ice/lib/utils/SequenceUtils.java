@@ -1,16 +1,63 @@
 package org.jbei.ice.lib.utils;
 
-import org.biojava.bio.seq.DNATools;
-import org.biojava.bio.symbol.IllegalAlphabetException;
-import org.biojava.bio.symbol.IllegalSymbolException;
-import org.biojava.bio.symbol.SymbolList;
+import org.jbei.ice.lib.common.logging.Logger;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * Utility methods for sequences.
+ * <p>
+ * Sequences are handled as arrays of (ascii) bytes without creating symbol objects for each residue. The
+ * symbols accepted (and the results) are the same as those for the BioJava DNA alphabet: IUPAC nucleotide and
+ * ambiguity codes in upper or lower case, <code>x</code> (which is read as <code>n</code>) and gaps
+ * (<code>-</code>, <code>.</code>, <code>~</code> and space). Results are in lower case
  *
  * @author Zinovii Dmytriv, Timothy Ham
  */
 public class SequenceUtils {
+
+    private static final int HASH_BUFFER_SIZE = 8192;
+
+    // nucleotides (and ambiguity codes) indexed by 4 bit encoding (a = 1, c = 2, g = 4, t = 8) of the bases they
+    // represent. 0 is a gap
+    private static final byte[] NUCLEOTIDES = "-acmgrsvtwyhkdbn".getBytes(StandardCharsets.US_ASCII);
+
+    // 4 bit encoding of each (ascii) symbol or -1 if the symbol is not valid
+    private static final byte[] SYMBOL_BITS = new byte[128];
+
+    // complement of each (ascii) symbol or 0 if the symbol is not valid
+    private static final byte[] COMPLEMENTS = new byte[128];
+
+    // amino acids indexed by the 4 bit encodings of the bases of a codon (first base in the highest bits)
+    private static final char[] AMINO_ACIDS = new char[16 * 16 * 16];
+
+    // standard genetic code with bases in the order t, c, a, g
+    private static final String GENETIC_CODE = "FFLLSSSSYY**CC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG";
+    private static final int[] GENETIC_CODE_BASES = {8, 2, 1, 4};
+
+    static {
+        Arrays.fill(SYMBOL_BITS, (byte) -1);
+        for (int bits = 0; bits < NUCLEOTIDES.length; bits += 1) {
+            SYMBOL_BITS[NUCLEOTIDES[bits]] = (byte) bits;
+            SYMBOL_BITS[Character.toUpperCase(NUCLEOTIDES[bits])] = (byte) bits;
+        }
+        SYMBOL_BITS['x'] = SYMBOL_BITS['X'] = SYMBOL_BITS['n'];
+        SYMBOL_BITS['.'] = SYMBOL_BITS['~'] = SYMBOL_BITS[' '] = 0;
+
+        for (int i = 0; i < SYMBOL_BITS.length; i += 1) {
+            if (SYMBOL_BITS[i] != -1)
+                COMPLEMENTS[i] = NUCLEOTIDES[complementBits(SYMBOL_BITS[i])];
+        }
+
+        for (int codon = 0; codon < AMINO_ACIDS.length; codon += 1) {
+            AMINO_ACIDS[codon] = translateCodon(codon >> 8, (codon >> 4) & 0xF, codon & 0xF);
+        }
+    }
+
     /**
      * Calculate the SHA-1 sequence hash of the given sequence.
      * <p/>
@@ -20,21 +67,55 @@ public class SequenceUtils {
      * @return Hex digest of SHA-1 hash.
      */
     public static String calculateSequenceHash(String sequence) {
-        return Utils.encryptSHA(sequence.trim().toLowerCase());
+        int start = 0;
+        int end = sequence.length();
+        while (start < end && sequence.charAt(start) <= ' ')
+            start += 1;
+        while (end > start && sequence.charAt(end - 1) <= ' ')
+            end -= 1;
+
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[Math.min(HASH_BUFFER_SIZE, end - start + 1)];
+        int count = 0;
+        for (int i = start; i < end; i += 1) {
+            char c = sequence.charAt(i);
+            if (c >= 0x80) {
+                // not a sequence; hash the utf-8 encoding
+                return Utils.encryptSHA(sequence.trim().toLowerCase());
+            }
+
+            buffer[count++] = (byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+            if (count == buffer.length) {
+                digest.update(buffer, 0, count);
+                count = 0;
+            }
+        }
+        digest.update(buffer, 0, count);
+        return toHexString(digest.digest());
     }
 
     /**
-     * Calculate the SHA-1 sequence hash of the reverse complement of the given sequence.
-     * <p/>
-     * Normalize by trimming and converting to lower case. Does not verify valid symbol.
+     * Calculate the SHA-1 sequence hash of the reverse complement of the given sequence. The (lower case) reverse
+     * complement is hashed as it is computed
      *
      * @param sequence sequence to hash.
      * @return Hex digest of SHA-1 hash.
-     * @throws UtilityException
+     * @throws UtilityException if the sequence contains symbols that are not valid
      */
     public static String calculateReverseComplementSequenceHash(String sequence)
             throws UtilityException {
-        return calculateSequenceHash(reverseComplement(sequence));
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[Math.min(HASH_BUFFER_SIZE, sequence.length() + 1)];
+        int count = 0;
+        for (int i = sequence.length() - 1; i >= 0; i -= 1) {
+            buffer[count++] = complement(sequence.charAt(i), i);
+            if (count == buffer.length) {
+                digest.update(buffer, 0, count);
+                count = 0;
+            }
+        }
+        digest.update(buffer, 0, count);
+        return toHexString(digest.digest());
     }
 
     /**
@@ -42,39 +123,64 @@ public class SequenceUtils {
      *
      * @param sequence DNA sequence to reverse complement.
      * @return Reversed, complemented sequence.
-     * @throws UtilityException
+     * @throws UtilityException if the sequence contains symbols that are not valid
      */
     public static String reverseComplement(String sequence) throws UtilityException {
-        SymbolList symL;
-
-        try {
-            symL = DNATools.createDNA(sequence);
-            symL = DNATools.reverseComplement(symL);
-        } catch (IllegalSymbolException | IllegalAlphabetException e) {
-            throw new UtilityException(e);
+        int length = sequence.length();
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i += 1) {
+            result[length - 1 - i] = complement(sequence.charAt(i), i);
         }
+        return new String(result, StandardCharsets.ISO_8859_1);
+    }
 
-        return symL.seqString();
+    /**
+     * Calculate the reverse complement of the given DNA sequence.
+     *
+     * @param sequence ascii encoded DNA sequence to reverse complement.
+     * @return ascii encoded reversed, complemented sequence.
+     * @throws UtilityException if the sequence contains symbols that are not valid
+     */
+    public static byte[] reverseComplement(byte[] sequence) throws UtilityException {
+        int length = sequence.length;
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i += 1) {
+            result[length - 1 - i] = complement((char) (sequence[i] & 0xFF), i);
+        }
+        return result;
     }
 
     /**
-     * Calculate the amino acid translation of the given dnaSequence string.
+     * Calculate the amino acid translation of the given dnaSequence string. Incomplete codons at the end of the
+     * sequence are ignored. Codons with ambiguity codes are translated to the amino acid they code for if there is
+     * only one, to <code>B</code>, <code>Z</code> or <code>J</code> for the ambiguous amino acids
+     * (<code>D</code> or <code>N</code>, <code>E</code> or <code>Q</code> and <code>I</code> or <code>L</code>
+     * respectively), and otherwise to <code>X</code>. Codons with a gap are translated to a gap.
      *
      * @param dnaSequence DNA sequence to translate.
      * @return String of amino acid symbols.
-     * @throws UtilityException
+     * @throws UtilityException if the sequence contains symbols that are not valid
      */
     public static String translateToProtein(String dnaSequence) throws UtilityException {
-        SymbolList symL = null;
+        return translate(encode(dnaSequence), 0, false);
+    }
 
-        try {
-            symL = DNATools.createDNA(dnaSequence);
-            symL = DNATools.toProtein(symL);
-        } catch (IllegalSymbolException | IllegalAlphabetException e) {
-            throw new UtilityException(e);
+    /**
+     * Translates the given DNA sequence in all six reading frames. See {@link #translateToProtein(String)}
+     *
+     * @param dnaSequence DNA sequence to translate
+     * @return translations for frames +1, +2, +3 (starting at the first, second and third base of the sequence) and
+     * -1, -2, -3 (starting at the first, second and third base of the reverse complement) in that order
+     * @throws UtilityException if the sequence contains symbols that are not valid
+     */
+    public static String[] translateSixFrames(String dnaSequence) throws UtilityException {
+        byte[] bits = encode(dnaSequence);
+        String[] frames = new String[6];
+        for (int frame = 0; frame < 3; frame += 1) {
+            frames[frame] = translate(bits, frame, false);
+            frames[frame + 3] = translate(bits, frame, true);
         }
-
-        return symL.seqString();
+        return frames;
     }
 
     /**
@@ -101,4 +207,114 @@ public class SequenceUtils {
         }
         return result.toString();
     }
+
+    private static byte complement(char symbol, int position) throws UtilityException {
+        byte complement = symbol < COMPLEMENTS.length ? COMPLEMENTS[symbol] : 0;
+        if (complement == 0)
+            throw new UtilityException("Invalid symbol '" + symbol + "' at position " + (position + 1));
+        return complement;
+    }
+
+    /**
+     * @return complement of 4 bit encoded nucleotide (reverses the bits; a <-> t and c <-> g)
+     */
+    private static int complementBits(int bits) {
+        return ((bits & 1) << 3) | ((bits & 2) << 1) | ((bits & 4) >> 1) | ((bits & 8) >> 3);
+    }
+
+    /**
+     * @return 4 bit encodings of the symbols in the sequence
+     */
+    private static byte[] encode(String sequence) throws UtilityException {
+        byte[] bits = new byte[sequence.length()];
+        for (int i = 0; i < bits.length; i += 1) {
+            char symbol = sequence.charAt(i);
+            byte value = symbol < SYMBOL_BITS.length ? SYMBOL_BITS[symbol] : -1;
+            if (value == -1)
+                throw new UtilityException("Invalid symbol '" + symbol + "' at position " + (i + 1));
+            bits[i] = value;
+        }
+        return bits;
+    }
+
+    private static String translate(byte[] bits, int frame, boolean reverse) {
+        int codons = Math.max(0, (bits.length - frame) / 3);
+        char[] protein = new char[codons];
+        for (int i = 0; i < codons; i += 1) {
+            int codon;
+            if (reverse) {
+                int position = bits.length - 1 - frame - 3 * i;
+                codon = (complementBits(bits[position]) << 8) | (complementBits(bits[position - 1]) << 4)
+                        | complementBits(bits[position - 2]);
+            } else {
+                int position = frame + 3 * i;
+                codon = (bits[position] << 8) | (bits[position + 1] << 4) | bits[position + 2];
+            }
+            protein[i] = AMINO_ACIDS[codon];
+        }
+        return new String(protein);
+    }
+
+    /**
+     * Translates a codon of (possibly ambiguous) 4 bit encoded bases by translating each codon it represents
+     */
+    private static char translateCodon(int first, int second, int third) {
+        if (first == 0 || second == 0 || third == 0)
+            return '-';
+
+        String aminoAcids = "";
+        for (int i = 0; i < 4; i += 1) {
+            if ((first & GENETIC_CODE_BASES[i]) == 0)
+                continue;
+            for (int j = 0; j < 4; j += 1) {
+                if ((second & GENETIC_CODE_BASES[j]) == 0)
+                    continue;
+                for (int k = 0; k < 4; k += 1) {
+                    if ((third & GENETIC_CODE_BASES[k]) == 0)
+                        continue;
+                    char aminoAcid = GENETIC_CODE.charAt(16 * i + 4 * j + k);
+                    if (aminoAcids.indexOf(aminoAcid) == -1)
+                        aminoAcids += aminoAcid;
+                }
+            }
+        }
+
+        if (aminoAcids.length() == 1)
+            return aminoAcids.charAt(0);
+
+        switch (aminoAcids.length() == 2 ? aminoAcids : "") {
+            case "DN":
+            case "ND":
+                return 'B';
+
+            case "EQ":
+            case "QE":
+                return 'Z';
+
+            case "IL":
+            case "LI":
+                return 'J';
+
+            default:
+                return 'X';
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // required to be supported by all java platforms
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHexString(byte[] hash) {
+        try {
+            return Utils.getHexString(hash);
+        } catch (UnsupportedEncodingException e) {
+            Logger.error(e);
+            return "";
+        }
+    }
 }
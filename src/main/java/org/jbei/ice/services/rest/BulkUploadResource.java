@@ -1,10 +1,14 @@
 package org.jbei.ice.services.rest;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.jbei.ice.lib.access.AuthorizationException;
+import org.jbei.ice.lib.access.PermissionException;
 import org.jbei.ice.lib.bulkupload.*;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.ConfigurationKey;
@@ -19,9 +23,9 @@ import org.jbei.ice.lib.utils.Utils;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -57,6 +61,61 @@ public class BulkUploadResource extends RestResource {
         return controller.getBulkImport(userId, id, offset, limit);
     }
 
+    /**
+     * Retrieves the progress of creating entries for an uploaded file
+     *
+     * @param id unique identifier for bulk upload
+     * @return Response with the status of the upload and the number of rows processed
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/{id}/progress")
+    public Response getProgress(@PathParam("id") long id) {
+        String userId = requireUserId();
+        try {
+            return super.respond(controller.getProgress(userId, id));
+        } catch (PermissionException e) {
+            return super.respond(Response.Status.FORBIDDEN);
+        }
+    }
+
+    /**
+     * Validates the uploaded file of a bulk upload (e.g. one that failed processing). Errors are written (as a json
+     * array) as each row is validated
+     *
+     * @param id unique identifier for bulk upload
+     * @return Response with validation errors for rows of the file
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/{id}/errors")
+    public Response getValidationErrors(@PathParam("id") long id) {
+        String userId = requireUserId();
+        try {
+            if (controller.getProgress(userId, id) == null)
+                return super.respond(Response.Status.NOT_FOUND);
+        } catch (PermissionException e) {
+            return super.respond(Response.Status.FORBIDDEN);
+        }
+
+        StreamingOutput stream = output -> {
+            Gson gson = new GsonBuilder().create();
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writer.beginArray();
+            controller.validateFile(userId, id, error -> {
+                try {
+                    gson.toJson(error, BulkUploadError.class, writer);
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.endArray();
+            writer.flush();
+        };
+        return Response.ok(stream).build();
+    }
+
     /**
      * Retrieves matching part numbers to be linked to entries in a bulk upload
      *
@@ -287,6 +346,9 @@ public class BulkUploadResource extends RestResource {
     }
 
     /**
+     * Accepts an uploaded file. Entries for csv and zip files are created in the background; use
+     * <code>/{id}/progress</code> to monitor
+     *
      * @return Response with the id of the imported bulk upload
      */
     @POST
@@ -306,7 +368,7 @@ public class BulkUploadResource extends RestResource {
 
             EntryType addType = EntryType.valueOf(type.toUpperCase());
             FileBulkUpload bulkUpload = new FileBulkUpload(userId, file.toPath(), addType);
-            ProcessedBulkUpload processedBulkUpload = bulkUpload.process();
+            ProcessedBulkUpload processedBulkUpload = bulkUpload.submit();
             if (processedBulkUpload.isSuccess())
                 return Response.status(Response.Status.OK).entity(processedBulkUpload).build();
             return Response.status(Response.Status.BAD_REQUEST).entity(processedBulkUpload).build();
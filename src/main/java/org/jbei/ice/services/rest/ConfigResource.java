@@ -1,6 +1,8 @@
 package org.jbei.ice.services.rest;
 
+import org.jbei.ice.lib.access.PermissionException;
 import org.jbei.ice.lib.config.ConfigurationController;
+import org.jbei.ice.lib.dto.CacheStatistics;
 import org.jbei.ice.lib.dto.Setting;
 
 import javax.ws.rs.*;
@@ -9,6 +11,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Hector Plahar
@@ -49,6 +52,25 @@ public class ConfigResource extends RestResource {
         return controller.getSystemVersion(url);
     }
 
+    /**
+     * Retrieves usage statistics (including hit ratios) for the second-level and query caches, and the cache of
+     * rendered sequence formats.
+     * Available to administrators only
+     *
+     * @return statistics for each cache region
+     */
+    @GET
+    @Path("/cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<CacheStatistics> getCacheStatistics() {
+        final String userId = requireUserId();
+        try {
+            return controller.getCacheStatistics(userId);
+        } catch (PermissionException e) {
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        }
+    }
+
     /**
      * Retrieves the value for the specified config key
      *
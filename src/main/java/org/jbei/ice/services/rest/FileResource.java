@@ -60,7 +60,9 @@ public class FileResource extends RestResource {
         File assetFile = configurationController.getUIAsset(assetName);
         if (assetFile == null)
             return super.respond(Response.Status.NOT_FOUND);
-        return addHeaders(Response.ok(assetFile), assetFile.getName());
+        // assets can be replaced so the tag includes the modification time
+        return respondFile(assetFile, assetFile.getName(),
+                assetFile.getName() + "-" + Long.toHexString(assetFile.lastModified()));
     }
 
     /**
@@ -104,7 +106,7 @@ public class FileResource extends RestResource {
         if (StringUtils.isEmpty(fileName))
             fileName = tmpFile.getName();
 
-        return addHeaders(Response.ok(tmpFile), fileName);
+        return respondFile(tmpFile, fileName, tmpFile.getName());
     }
 
     @GET
@@ -121,7 +123,7 @@ public class FileResource extends RestResource {
         }
 
         String name = attachmentController.getFileName(userId, fileId);
-        return addHeaders(Response.ok(file), name);
+        return respondFile(file, name, fileId);
     }
 
     @GET
@@ -179,24 +181,22 @@ public class FileResource extends RestResource {
             sessionId = sid;
 
         final String userId = getUserId(sessionId);
-        final ByteArrayWrapper wrapper;
         if (remoteId != -1) {
             RemoteSequence sequence = new RemoteSequence(remoteId, partId);
-            wrapper = sequence.get(downloadType);
-        } else {
-            wrapper = sequenceController.getSequenceFile(userId, partId, downloadType);
+            final ByteArrayWrapper wrapper = sequence.get(downloadType);
+            StreamingOutput stream = output -> output.write(wrapper.getBytes());
+            return addHeaders(Response.ok(stream), wrapper.getName());
         }
 
-        StreamingOutput stream = new StreamingOutput() {
-            @Override
-            public void write(final OutputStream output) throws IOException,
-                    WebApplicationException {
-                final ByteArrayInputStream stream = new ByteArrayInputStream(wrapper.getBytes());
-                IOUtils.copy(stream, output);
-            }
-        };
+        final Sequence sequence = sequenceController.getByPart(userId, partId);
+        if (sequence == null) {
+            StreamingOutput stream = output -> output.write('\0');
+            return addHeaders(Response.ok(stream), "no_sequence");
+        }
 
-        return addHeaders(Response.ok(stream), wrapper.getName());
+        // formatted sequence is written to the response as it is generated
+        StreamingOutput stream = output -> sequenceController.writeSequenceFile(sequence, downloadType, output);
+        return addHeaders(Response.ok(stream), sequenceController.getSequenceFileName(sequence, downloadType));
     }
 
     @GET
@@ -207,7 +207,9 @@ public class FileResource extends RestResource {
         final TraceSequence traceSequence = sequenceAnalysisController.getTraceSequenceByFileId(fileId);
         if (traceSequence != null) {
             final File file = sequenceAnalysisController.getFile(traceSequence);
-            return addHeaders(Response.ok(file), traceSequence.getFilename());
+            if (!file.exists())
+                return respond(Response.Status.NOT_FOUND);
+            return respondFile(file, traceSequence.getFilename(), traceSequence.getFileId());
         }
         return Response.serverError().build();
     }
@@ -221,7 +223,9 @@ public class FileResource extends RestResource {
 
         try {
             final File file = dao.getFile(fileId);
-            return addHeaders(Response.ok(file), shotgunSequence.getFilename());
+            if (shotgunSequence == null || !file.exists())
+                return respond(Response.Status.NOT_FOUND);
+            return respondFile(file, shotgunSequence.getFilename(), fileId);
         } catch (Exception e) {
             Logger.error(e);
             return Response.serverError().build();
@@ -299,9 +303,9 @@ public class FileResource extends RestResource {
     }
 
     /**
-     * Extracts the csv information and writes it to the temp dir and returns the file uuid. Then
-     * the client is expected to make another rest call with the uuid in a separate window. This
-     * workaround is due to not being able to download files using XHR or sumsuch
+     * Prepares the csv export of the selected entries and returns its key. Then
+     * the client is expected to make another rest call with the key in a separate window (which streams
+     * the export). This workaround is due to not being able to download files using XHR or sumsuch
      */
     @POST
     @Path("csv")
@@ -311,15 +315,24 @@ public class FileResource extends RestResource {
                                 EntrySelection selection) {
         String userId = super.requireUserId();
         EntriesAsCSV entriesAsCSV = new EntriesAsCSV(sequenceFormats.toArray(new String[sequenceFormats.size()]));
-        boolean success = entriesAsCSV.setSelectedEntries(userId, selection);
-        if (!success)
+        String key = entriesAsCSV.prepare(userId, selection);
+        if (key == null)
             return super.respond(false);
+        return Response.ok(new Setting("key", key)).build();
+    }
 
-        final File file = entriesAsCSV.getFilePath().toFile();
-        if (file.exists()) {
-            return Response.ok(new Setting("key", file.getName())).build();
-        }
+    /**
+     * Streams the csv (or zip archive if sequences were requested) export prepared with a call to
+     * {@link #downloadCSV(List, EntrySelection)}
+     */
+    @GET
+    @Path("csv/{key}")
+    public Response getCSV(@PathParam("key") final String key) {
+        final EntriesAsCSV entriesAsCSV = EntriesAsCSV.getPrepared(key);
+        if (entriesAsCSV == null)
+            return respond(Response.Status.NOT_FOUND);
 
-        return Response.serverError().build();
+        final StreamingOutput stream = entriesAsCSV::write;
+        return addHeaders(Response.ok(stream), entriesAsCSV.getFileName());
     }
 }
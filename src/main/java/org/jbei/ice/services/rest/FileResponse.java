@@ -0,0 +1,195 @@
+package org.jbei.ice.services.rest;
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+/**
+ * Builds responses for files stored on disk (attachments, traces etc). The file contents are transferred to the
+ * response using {@link FileChannel#transferTo(long, long, WritableByteChannel)} and the following are supported:
+ * <ul>
+ * <li>Conditional requests (<code>If-None-Match</code> and <code>If-Modified-Since</code>) using a strong
+ * <code>ETag</code> derived from the stored file id, and the last modified time of the file</li>
+ * <li>Single byte range requests (<code>Range</code> and <code>If-Range</code>)</li>
+ * </ul>
+ * Files are identified by ids that are not re-used so the contents for a given id do not change
+ *
+ * @author Hector Plahar
+ */
+public class FileResponse {
+
+    private static final String BYTES_UNIT = "bytes";
+
+    private final File file;
+    private final String eTag;
+    private final long lastModified;
+
+    /**
+     * @param file   file to serve
+     * @param fileId unique identifier for the stored file. Used for the entity tag
+     */
+    public FileResponse(File file, String fileId) {
+        this.file = file;
+        this.eTag = "\"" + fileId + "\"";
+        // http dates have a resolution of seconds
+        this.lastModified = (file.lastModified() / 1000) * 1000;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Creates the response for a request with the specified headers
+     *
+     * @param ifNoneMatch     value of <code>If-None-Match</code> header; can be null
+     * @param ifModifiedSince value of <code>If-Modified-Since</code> header in ms; -1 if not specified
+     * @param range           value of <code>Range</code> header; can be null
+     * @param ifRange         value of <code>If-Range</code> header; can be null
+     * @return response builder. The response has no entity if the status is not 200 or 206
+     */
+    public Response.ResponseBuilder build(String ifNoneMatch, long ifModifiedSince, String range, String ifRange) {
+        if (isNotModified(ifNoneMatch, ifModifiedSince)) {
+            return setValidators(Response.notModified());
+        }
+
+        long length = file.length();
+        if (!StringUtils.isBlank(range) && isRangeApplicable(ifRange)) {
+            long[] bytes = parseRange(range, length);
+            if (bytes != null) {
+                if (bytes.length == 0) {
+                    return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header("Content-Range", BYTES_UNIT + " */" + length);
+                }
+
+                long count = bytes[1] - bytes[0] + 1;
+                return setValidators(Response.status(Response.Status.PARTIAL_CONTENT)
+                        .entity(transfer(bytes[0], count)))
+                        .header("Content-Range", BYTES_UNIT + " " + bytes[0] + "-" + bytes[1] + "/" + length)
+                        .header(HttpHeaders.CONTENT_LENGTH, count);
+            }
+        }
+
+        return setValidators(Response.ok(transfer(0, length)))
+                .header(HttpHeaders.CONTENT_LENGTH, length);
+    }
+
+    private Response.ResponseBuilder setValidators(Response.ResponseBuilder builder) {
+        return builder.header(HttpHeaders.ETAG, eTag)
+                .lastModified(new Date(lastModified))
+                .header("Accept-Ranges", BYTES_UNIT);
+    }
+
+    /**
+     * <code>If-None-Match</code> takes precedence over <code>If-Modified-Since</code> when both are specified
+     */
+    protected boolean isNotModified(String ifNoneMatch, long ifModifiedSince) {
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                // weak comparison
+                if (tag.startsWith("W/"))
+                    tag = tag.substring(2);
+                if (tag.equals("*") || tag.equals(eTag))
+                    return true;
+            }
+            return false;
+        }
+
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * The range is ignored (and the full file is sent) if the <code>If-Range</code> validator does not match
+     * the current one. Only the entity tag is used for comparison
+     */
+    protected boolean isRangeApplicable(String ifRange) {
+        return StringUtils.isBlank(ifRange) || eTag.equals(ifRange.trim());
+    }
+
+    /**
+     * Parses a byte range specification. Only single ranges are supported; multiple ranges (and syntactically invalid
+     * specifications) are ignored
+     *
+     * @param range  value of range header e.g. <code>bytes=0-499</code>, <code>bytes=500-</code> or
+     *               <code>bytes=-500</code>
+     * @param length length of the file
+     * @return first and last byte positions (inclusive) of the range, an empty array if the range cannot be
+     * satisfied, or null if the range should be ignored
+     */
+    protected static long[] parseRange(String range, long length) {
+        range = range.trim();
+        if (!range.startsWith(BYTES_UNIT + "="))
+            return null;
+
+        String spec = range.substring(BYTES_UNIT.length() + 1).trim();
+        if (spec.contains(","))
+            return null;
+
+        int dash = spec.indexOf('-');
+        if (dash == -1)
+            return null;
+
+        String firstValue = spec.substring(0, dash).trim();
+        String lastValue = spec.substring(dash + 1).trim();
+        long first;
+        long last;
+        try {
+            if (firstValue.isEmpty()) {
+                // suffix range (last n bytes)
+                if (lastValue.isEmpty())
+                    return null;
+                long suffix = Long.parseLong(lastValue);
+                if (suffix < 0)
+                    return null;
+                if (suffix == 0 || length == 0)
+                    return new long[0];
+                first = Math.max(0, length - suffix);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(firstValue);
+                last = lastValue.isEmpty() ? length - 1 : Long.parseLong(lastValue);
+                if (!lastValue.isEmpty() && last < first)
+                    return null;
+                if (first >= length)
+                    return new long[0];
+                last = Math.min(last, length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        if (first < 0 || last < 0)
+            return null;
+        return new long[]{first, last};
+    }
+
+    /**
+     * @return output that transfers <code>count</code> bytes of the file starting at <code>position</code>
+     */
+    private StreamingOutput transfer(long position, long count) {
+        return (OutputStream outputStream) -> {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long transferred = 0;
+                while (transferred < count) {
+                    long written = channel.transferTo(position + transferred, count - transferred, target);
+                    if (written <= 0)
+                        throw new IOException("Unexpected end of file " + file.getName());
+                    transferred += written;
+                }
+            }
+            outputStream.flush();
+        };
+    }
+}
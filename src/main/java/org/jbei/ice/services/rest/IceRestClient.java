@@ -3,6 +3,7 @@ package org.jbei.ice.services.rest;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.jbei.ice.lib.common.logging.Logger;
@@ -69,6 +70,16 @@ public class IceRestClient extends RestClient {
     // post to Wor
     public <T> T postWor(String url, String resourcePath, Object object, Class<T> responseClass,
                          Map<String, Object> queryParams, String token) {
+        return postWor(url, resourcePath, object, responseClass, queryParams, token, 0);
+    }
+
+    /**
+     * Post to Wor partner with a timeout for connecting and for reading the response
+     *
+     * @param timeout connect and read timeout in milliseconds. 0 for no timeout
+     */
+    public <T> T postWor(String url, String resourcePath, Object object, Class<T> responseClass,
+                         Map<String, Object> queryParams, String token, int timeout) {
         WebTarget target = client.target("https://" + url).path(resourcePath);
         if (queryParams != null) {
             for (Map.Entry<String, Object> entry : queryParams.entrySet()) {
@@ -77,6 +88,10 @@ public class IceRestClient extends RestClient {
         }
 
         Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON_TYPE);
+        if (timeout > 0) {
+            invocationBuilder.property(ClientProperties.CONNECT_TIMEOUT, timeout);
+            invocationBuilder.property(ClientProperties.READ_TIMEOUT, timeout);
+        }
         setHeaders(invocationBuilder, token);
         Response postResponse = invocationBuilder.post(Entity.entity(object, MediaType.APPLICATION_JSON_TYPE));
         if (postResponse.hasEntity() && postResponse.getStatus() == Response.Status.OK.getStatusCode())
@@ -13,7 +13,9 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import java.io.File;
 
 /**
  * Parent class for all rest resource objects.
@@ -230,4 +232,30 @@ public class RestResource {
         response.header("Content-Type", mimeType + "; name=\"" + fileName + "\"");
         return response.build();
     }
+
+    /**
+     * Creates response for a stored file; supporting conditional and byte range requests (see {@link FileResponse})
+     *
+     * @param file     file to send
+     * @param fileName name of file sent to client
+     * @param fileId   unique identifier for stored file
+     * @return response
+     */
+    protected Response respondFile(File file, String fileName, String fileId) {
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            ifModifiedSince = -1;
+        }
+
+        FileResponse fileResponse = new FileResponse(file, fileId);
+        Response.ResponseBuilder builder = fileResponse.build(request.getHeader(HttpHeaders.IF_NONE_MATCH),
+                ifModifiedSince, request.getHeader("Range"), request.getHeader("If-Range"));
+        Response response = builder.build();
+        if (response.getStatus() != Response.Status.OK.getStatusCode()
+                && response.getStatus() != Response.Status.PARTIAL_CONTENT.getStatusCode())
+            return response;
+        return addHeaders(builder, fileName);
+    }
 }
@@ -1,6 +1,7 @@
 package org.jbei.ice.services.rest;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jbei.ice.lib.access.PermissionException;
 import org.jbei.ice.lib.dto.entry.AutoCompleteFieldValues;
 import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.dto.search.IndexType;
@@ -134,4 +135,19 @@ public class SearchResource extends RestResource {
         controller.rebuildIndexes(userId, IndexType.BLAST);
         return super.respond(Response.Status.OK);
     }
+
+    /**
+     * Retrieves the queue depth and latency statistics for blast queries
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/blast/status")
+    public Response getBlastServiceStatus() {
+        final String userId = requireUserId();
+        try {
+            return super.respond(controller.getBlastServiceStatus(userId));
+        } catch (PermissionException e) {
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package org.jbei.ice.services.rest;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jbei.ice.lib.access.PermissionException;
+import org.jbei.ice.lib.executor.TaskStatus;
+import org.jbei.ice.lib.executor.Tasks;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for viewing the tasks run by the executor service
+ *
+ * @author Hector Plahar
+ */
+@Path("/tasks")
+public class TaskResource extends RestResource {
+
+    /**
+     * Retrieves the queued, running and recently finished tasks with their durations
+     *
+     * @param status optional task status (e.g. <code>PENDING</code>, <code>IN_PROGRESS</code>) to filter by
+     * @return list of tasks
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response get(@QueryParam("status") String status) {
+        String userId = requireUserId();
+        TaskStatus taskStatus = null;
+        if (!StringUtils.isEmpty(status)) {
+            try {
+                taskStatus = TaskStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new WebApplicationException(Response.Status.BAD_REQUEST);
+            }
+        }
+
+        try {
+            Tasks tasks = new Tasks(userId);
+            return super.respond(tasks.get(taskStatus));
+        } catch (PermissionException e) {
+            throw new WebApplicationException(Response.Status.FORBIDDEN);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.hibernate.SessionFactory;
 import org.jbei.ice.ApplicationInitialize;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.executor.IceExecutorService;
+import org.jbei.ice.lib.search.blast.BlastExecutionService;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
 
 import javax.servlet.ServletContextEvent;
@@ -30,6 +31,7 @@ public class IceServletContextListener implements ServletContextListener {
 
         // shutdown executor service
         IceExecutorService.getInstance().stopService();
+        BlastExecutionService.getInstance().stopService();
 
         closeSessionFactory(HibernateUtil.getSessionFactory());
 
@@ -16,6 +16,7 @@ public class DAOFactory {
     private static EntryDAO entryDAO;
     private static FolderDAO folderDAO;
     private static GroupDAO groupDAO;
+    private static GroupClosureDAO groupClosureDAO;
     private static MessageDAO messageDAO;
     private static PermissionDAO permissionDAO;
     private static PreferencesDAO preferencesDAO;
@@ -37,6 +38,7 @@ public class DAOFactory {
     private static SequenceFeatureDAO sequenceFeatureDAO;
     private static FeatureDAO featureDAO;
     private static FeatureCurationModelDAO featureCurationModelDAO;
+    private static UserSessionDAO userSessionDAO;
 
     public static AccountDAO getAccountDAO() {
         if (accountDAO == null)
@@ -98,6 +100,12 @@ public class DAOFactory {
         return groupDAO;
     }
 
+    public static GroupClosureDAO getGroupClosureDAO() {
+        if (groupClosureDAO == null)
+            groupClosureDAO = new GroupClosureDAO();
+        return groupClosureDAO;
+    }
+
     public static MessageDAO getMessageDAO() {
         if (messageDAO == null)
             messageDAO = new MessageDAO();
@@ -217,4 +225,10 @@ public class DAOFactory {
             featureCurationModelDAO = new FeatureCurationModelDAO();
         return featureCurationModelDAO;
     }
+
+    public static UserSessionDAO getUserSessionDAO() {
+        if (userSessionDAO == null)
+            userSessionDAO = new UserSessionDAO();
+        return userSessionDAO;
+    }
 }
@@ -11,8 +11,7 @@ import org.jbei.ice.storage.model.*;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Factory for converting {@link Entry}s to a {@link org.jbei.ice.lib.dto.entry.PartData}
@@ -264,18 +263,7 @@ public class ModelToInfoFactory {
         if (entry == null)
             return null;
 
-        EntryType type = EntryType.nameToType(entry.getRecordType());
-        PartData view = new PartData(type);
-        view.setId(entry.getId());
-        view.setRecordId(entry.getRecordId());
-        view.setPartId(entry.getPartNumber());
-        view.setName(entry.getName());
-        view.setShortDescription(entry.getShortDescription());
-        view.setCreationTime(entry.getCreationTime().getTime());
-        view.setStatus(entry.getStatus());
-        view.setAlias(entry.getAlias());
-        view.setOwnerEmail(entry.getOwnerEmail());
-        view.setVisibility(Visibility.valueToEnum(entry.getVisibility()));
+        PartData view = createTableView(entry);
 
         if (userId != null) {
             EntryAuthorization authorization = new EntryAuthorization();
@@ -304,6 +292,100 @@ public class ModelToInfoFactory {
         return view;
     }
 
+    /**
+     * Creates the table view data for a list of entries (e.g. a page of results). Produces the same
+     * data as {@link #createTableViewData(String, Entry, boolean)} for each entry but the related information
+     * (permissions, owner ids, samples, sequences and view counts) is retrieved for all the entries at once
+     * instead of entry by entry
+     *
+     * @param userId           unique identifier for user the data is being created for. used to determine
+     *                         whether each entry can be edited. If null, this is not determined.
+     * @param entries          entries to create the data for
+     * @param includeOwnerInfo whether to include owner and creator information
+     * @param includeViewCount whether to include the number of times each entry has been viewed
+     * @return list of table view data in the same order as the entries
+     */
+    public static List<PartData> createTableViewData(String userId, List<Entry> entries, boolean includeOwnerInfo,
+                                                     boolean includeViewCount) {
+        List<PartData> data = new ArrayList<>();
+        if (entries == null || entries.isEmpty())
+            return data;
+
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            ids.add(entry.getId());
+        }
+
+        Set<Long> writable = null;
+        if (userId != null)
+            writable = new EntryAuthorization().getWritableEntries(userId, entries);
+
+        Map<String, Long> accountIds = null;
+        if (includeOwnerInfo) {
+            Set<String> emails = new HashSet<>();
+            for (Entry entry : entries) {
+                emails.add(entry.getOwnerEmail());
+                emails.add(entry.getCreatorEmail());
+            }
+            accountIds = DAOFactory.getAccountDAO().getAccountIds(emails);
+        }
+
+        Set<Long> withSamples = DAOFactory.getSampleDAO().getEntriesWithSamples(ids);
+        SequenceDAO sequenceDAO = DAOFactory.getSequenceDAO();
+        Set<Long> withSequence = sequenceDAO.getEntriesWithSequence(ids, false);
+        Set<Long> withOriginalSequence = sequenceDAO.getEntriesWithSequence(ids, true);
+        Map<Long, Integer> viewCounts = includeViewCount ? DAOFactory.getAuditDAO().getHistoryCounts(ids) : null;
+
+        for (Entry entry : entries) {
+            PartData view = createTableView(entry);
+
+            if (writable != null)
+                view.setCanEdit(writable.contains(entry.getId()));
+
+            if (accountIds != null) {
+                view.setOwner(entry.getOwner());
+                view.setOwnerId(getAccountId(accountIds, entry.getOwnerEmail()));
+
+                // creator
+                view.setCreator(entry.getCreator());
+                view.setCreatorEmail(entry.getCreatorEmail());
+                view.setCreatorId(getAccountId(accountIds, entry.getCreatorEmail()));
+            }
+
+            view.setHasSample(withSamples.contains(entry.getId()));
+            view.setHasSequence(withSequence.contains(entry.getId()));
+            view.setHasOriginalSequence(withOriginalSequence.contains(entry.getId()));
+            if (viewCounts != null)
+                view.setViewCount(viewCounts.getOrDefault(entry.getId(), 0));
+            data.add(view);
+        }
+        return data;
+    }
+
+    private static long getAccountId(Map<String, Long> accountIds, String email) {
+        if (StringUtils.isBlank(email))
+            return 0;
+
+        Long id = accountIds.get(email.trim().toLowerCase());
+        return id == null ? 0 : id;
+    }
+
+    private static PartData createTableView(Entry entry) {
+        EntryType type = EntryType.nameToType(entry.getRecordType());
+        PartData view = new PartData(type);
+        view.setId(entry.getId());
+        view.setRecordId(entry.getRecordId());
+        view.setPartId(entry.getPartNumber());
+        view.setName(entry.getName());
+        view.setShortDescription(entry.getShortDescription());
+        view.setCreationTime(entry.getCreationTime().getTime());
+        view.setStatus(entry.getStatus());
+        view.setAlias(entry.getAlias());
+        view.setOwnerEmail(entry.getOwnerEmail());
+        view.setVisibility(Visibility.valueToEnum(entry.getVisibility()));
+        return view;
+    }
+
     public static PartData createTipView(Entry entry) {
         EntryType type = EntryType.nameToType(entry.getRecordType());
         if (type == null)
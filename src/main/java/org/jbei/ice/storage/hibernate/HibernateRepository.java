@@ -69,6 +69,21 @@ public abstract class HibernateRepository<T extends DataModel> implements IRepos
         }
     }
 
+    /**
+     * Removes the object (and associations that cascade) from the session. Changes to it are no longer tracked.
+     * Used to bound the size of the session when reading large numbers of objects
+     *
+     * @param object object to remove from the session
+     */
+    public void evict(T object) {
+        try {
+            currentSession().evict(object);
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
     /**
      * Retrieve an {@link DataModel} object from the database by Class and database id.
      *
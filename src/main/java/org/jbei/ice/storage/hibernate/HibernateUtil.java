@@ -2,12 +2,17 @@ package org.jbei.ice.storage.hibernate;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.service.ServiceRegistry;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.storage.model.FeatureCurationModel;
 
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
 /**
  * Helper class to Initialize Hibernate, and obtain new sessions.
  *
@@ -51,6 +56,33 @@ public class HibernateUtil {
         getSessionFactory().getCurrentSession().getTransaction().rollback();
     }
 
+    /**
+     * Runs the action once the current transaction has been committed. Used for starting background work on data
+     * created in the transaction, which is not visible to other sessions until then. The action is not run if the
+     * transaction is rolled back. If there is no active transaction, the action is run immediately
+     *
+     * @param action action to run
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction transaction = getSessionFactory().getCurrentSession().getTransaction();
+        if (transaction.getStatus() != TransactionStatus.ACTIVE) {
+            action.run();
+            return;
+        }
+
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED)
+                    action.run();
+            }
+        });
+    }
+
     /**
      * Initialize a in-memory mock database for testing.
      */
@@ -76,6 +108,7 @@ public class HibernateUtil {
                 } else {
                     configuration.configure();
                 }
+                configureCache(configuration);
 
                 ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder().applySettings(
                         configuration.getProperties()).build();
@@ -120,6 +153,8 @@ public class HibernateUtil {
                 configuration.addAnnotatedClass(org.jbei.ice.storage.model.RemoteAccessModel.class);
                 configuration.addAnnotatedClass(org.jbei.ice.storage.model.ManuscriptModel.class);
                 configuration.addAnnotatedClass(FeatureCurationModel.class);
+                configuration.addAnnotatedClass(org.jbei.ice.storage.model.UserSessionModel.class);
+                configuration.addAnnotatedClass(org.jbei.ice.storage.model.GroupClosureModel.class);
 
                 sessionFactory = configuration.buildSessionFactory(serviceRegistry);
             } catch (Throwable e) {
@@ -129,6 +164,22 @@ public class HibernateUtil {
         }
     }
 
+    /**
+     * Enables the (in-memory) second-level and query caches. Regions and their bounds are specified in
+     * <code>ehcache.xml</code>. Only entities annotated with {@link org.hibernate.annotations.Cache} and queries
+     * marked as cacheable are cached. Statistics are collected to report cache hit ratios.
+     *
+     * @param configuration hibernate configuration
+     */
+    private static void configureCache(Configuration configuration) {
+        configuration.setProperty("hibernate.cache.use_second_level_cache", "true");
+        configuration.setProperty("hibernate.cache.use_query_cache", "true");
+        configuration.setProperty("hibernate.cache.region.factory_class",
+                "org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory");
+        configuration.setProperty("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+        configuration.setProperty("hibernate.generate_statistics", "true");
+    }
+
     /**
      * Retrieve the {@link SessionFactory}.
      *
@@ -4,14 +4,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
 import org.hibernate.criterion.*;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.Account;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Data accessor object to manipulate {@link Account} objects in the database.
@@ -20,6 +19,26 @@ import java.util.Set;
  */
 public class AccountDAO extends HibernateRepository<Account> {
 
+    // changes to group memberships invalidate the cached groups of the account
+    @Override
+    public Account create(Account account) {
+        Account created = super.create(account);
+        PermissionResolver.invalidate(account);
+        return created;
+    }
+
+    @Override
+    public Account update(Account account) {
+        PermissionResolver.invalidate(account);
+        return super.update(account);
+    }
+
+    @Override
+    public void delete(Account account) {
+        PermissionResolver.invalidate(account);
+        super.delete(account);
+    }
+
     /**
      * Retrieve {@link Account} by id from the database.
      *
@@ -75,6 +94,7 @@ public class AccountDAO extends HibernateRepository<Account> {
         try {
             return (Account) currentSession().createCriteria(Account.class)
                     .add(Restrictions.eq("email", email.trim()).ignoreCase())
+                    .setCacheable(true)
                     .uniqueResult();
         } catch (HibernateException e) {
             Logger.error(e);
@@ -137,4 +157,35 @@ public class AccountDAO extends HibernateRepository<Account> {
             throw new DAOException(he);
         }
     }
+
+    /**
+     * Retrieves the identifiers of the accounts with the specified emails. Emails are matched ignoring case
+     *
+     * @param emails account emails
+     * @return mapping of (lower case) email to account id for the accounts that were found
+     * @throws DAOException on exception retrieving the accounts
+     */
+    public Map<String, Long> getAccountIds(Collection<String> emails) {
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> lowerCaseEmails = new HashSet<>();
+        for (String email : emails) {
+            if (!StringUtils.isBlank(email))
+                lowerCaseEmails.add(email.trim().toLowerCase());
+        }
+        if (lowerCaseEmails.isEmpty())
+            return ids;
+
+        try {
+            List<Object[]> results = currentSession().createQuery("select lower(a.email), a.id from "
+                    + Account.class.getName() + " a where lower(a.email) in (:emails)")
+                    .setParameterList("emails", lowerCaseEmails).list();
+            for (Object[] result : results) {
+                ids.put((String) result[0], (Long) result[1]);
+            }
+            return ids;
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
 }
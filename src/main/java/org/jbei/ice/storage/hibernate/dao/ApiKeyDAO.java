@@ -5,6 +5,7 @@ import org.hibernate.HibernateException;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.jbei.ice.lib.access.VerifiedTokenCache;
 import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.ApiKey;
@@ -18,6 +19,25 @@ import java.util.List;
  */
 public class ApiKeyDAO extends HibernateRepository<ApiKey> {
 
+    // changes invalidate the cached token verifications
+    @Override
+    public ApiKey create(ApiKey apiKey) {
+        VerifiedTokenCache.getInstance().invalidate();
+        return super.create(apiKey);
+    }
+
+    @Override
+    public ApiKey update(ApiKey apiKey) {
+        VerifiedTokenCache.getInstance().invalidate();
+        return super.update(apiKey);
+    }
+
+    @Override
+    public void delete(ApiKey apiKey) {
+        VerifiedTokenCache.getInstance().invalidate();
+        super.delete(apiKey);
+    }
+
     @Override
     public ApiKey get(long id) throws DAOException {
         return super.get(ApiKey.class, id);
@@ -12,7 +12,7 @@ import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.Audit;
 import org.jbei.ice.storage.model.Entry;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Accessor for {@link Audit} objects
@@ -66,4 +66,31 @@ public class AuditDAO extends HibernateRepository<Audit> {
             throw new DAOException(he);
         }
     }
+
+    /**
+     * Retrieves the number of audit (view) records for each of the specified entries
+     *
+     * @param entryIds unique identifiers of entries
+     * @return mapping of entry id to number of audit records. Entries with none are not included
+     * @throws DAOException on exception retrieving the counts
+     */
+    public Map<Long, Integer> getHistoryCounts(Collection<Long> entryIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (entryIds.isEmpty())
+            return counts;
+
+        try {
+            Query query = currentSession().createQuery("select a.entry.id, count(distinct a.id) from "
+                    + Audit.class.getName() + " a where a.entry.id in (:ids) group by a.entry.id");
+            query.setParameterList("ids", entryIds);
+            List<Object[]> results = query.list();
+            for (Object[] result : results) {
+                counts.put((Long) result[0], ((Number) result[1]).intValue());
+            }
+            return counts;
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
 }
@@ -16,6 +16,7 @@ import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.BulkUpload;
 import org.jbei.ice.storage.model.Entry;
 
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -103,22 +104,38 @@ public class BulkUploadDAO extends HibernateRepository<BulkUpload> {
         }
     }
 
+    /**
+     * Retrieves the identifiers of the entries in the bulk upload along with those of the entries linked to them
+     *
+     * @param upload bulk upload
+     * @return unique identifiers for entries and their linked entries
+     * @throws DAOException on exception retrieving the entries
+     */
     @SuppressWarnings("unchecked")
-    public int setEntryStatus(BulkUpload upload, Visibility status) {
-        // get all entries (and linked)
+    public List<Long> getEntryIdsWithLinks(BulkUpload upload) throws DAOException {
         try {
-            Criteria criteria = currentSession().createCriteria(BulkUpload.class)
-                    .add(Restrictions.eq("id", upload.getId()))
-                    .createAlias("contents", "entry")
-                    .setProjection(Projections.property("entry.id"));
-
-            List<Long> entryIds = criteria.list();
+            List<Long> entryIds = getEntryIds(upload);
+            if (entryIds.isEmpty())
+                return entryIds;
 
             Criteria c = currentSession().createCriteria(Entry.class)
                     .add(Restrictions.in("id", entryIds))
                     .createAlias("linkedEntries", "links")
                     .setProjection(Projections.property("links.id"));
             entryIds.addAll(c.list());
+            return entryIds;
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
+    public int setEntryStatus(BulkUpload upload, Visibility status) {
+        // get all entries (and linked)
+        try {
+            List<Long> entryIds = getEntryIdsWithLinks(upload);
+            if (entryIds.isEmpty())
+                return 0;
 
             String hql = "update " + Entry.class.getName() + " set visibility=:v where id in :ids";
             return currentSession().createQuery(hql)
@@ -132,6 +149,39 @@ public class BulkUploadDAO extends HibernateRepository<BulkUpload> {
         }
     }
 
+    /**
+     * Adds the specified entries to the contents of the bulk upload using batched inserts into the join table.
+     * Pending changes in the current session are flushed first. The contents collection of any loaded
+     * instance of the upload is not updated
+     *
+     * @param uploadId unique identifier for bulk upload
+     * @param entryIds unique identifiers for entries to add
+     * @throws DAOException on exception adding the entries
+     */
+    public void addEntries(long uploadId, List<Long> entryIds) throws DAOException {
+        if (entryIds.isEmpty())
+            return;
+
+        try {
+            Session session = currentSession();
+            session.flush();
+            session.doWork(connection -> {
+                String sql = "insert into bulk_upload_entry (bulk_upload_id, entry_id) values (?, ?)";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    for (Long entryId : entryIds) {
+                        statement.setLong(1, uploadId);
+                        statement.setLong(2, entryId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
     @Override
     public BulkUpload get(long id) throws DAOException {
         return super.get(BulkUpload.class, id);
@@ -36,6 +36,7 @@ public class ConfigurationDAO extends HibernateRepository<Configuration> {
         try {
             Query query = session.createQuery("from " + Configuration.class.getName() + " where key = :key");
             query.setParameter("key", key);
+            query.setCacheable(true);
             Object queryResult = query.uniqueResult();
 
             if (queryResult != null) {
@@ -433,13 +433,25 @@ public class EntryDAO extends HibernateRepository<Entry> {
 
     @Override
     public Entry create(Entry entry) throws DAOException {
+        return create(entry, EntryUtil.getPartNumberPrefix());
+    }
+
+    /**
+     * Creates the entry using the specified part number prefix. Used when creating a large number of entries to
+     * avoid looking up the prefix for each
+     *
+     * @param entry            entry to create
+     * @param partNumberPrefix prefix (including delimiter) for the part number of the entry
+     * @return created entry
+     * @throws DAOException on exception creating the entry
+     */
+    public Entry create(Entry entry, String partNumberPrefix) throws DAOException {
         try {
             entry = super.create(entry);
             if (entry == null)
                 throw new DAOException("Could not save entry");
 
             // partNumber
-            String partNumberPrefix = EntryUtil.getPartNumberPrefix();
             String formatted = String.format("%06d", entry.getId());
             entry.setPartNumber(partNumberPrefix + formatted);
             return update(entry);
@@ -1,9 +1,13 @@
 package org.jbei.ice.storage.hibernate.dao;
 
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
 import org.hibernate.ScrollableResults;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.Feature;
 
@@ -40,6 +44,29 @@ public class FeatureDAO extends HibernateRepository<Feature> {
                 .list();
     }
 
+    /**
+     * Retrieves, in a single query, the fields needed to write a fasta record for a batch of named features.
+     * Batches are keyed on the feature id instead of an offset and full {@link Feature} objects are not loaded.
+     *
+     * @param afterId only features with an id greater than this value are retrieved
+     * @param limit   maximum number of records to retrieve
+     * @return list of records ordered by feature id. Each record has the form
+     * <code>[feature id, name, genbank type, sequence, curation exclude flag (null if not curated)]</code>
+     */
+    public List<Object[]> getFeatureFastaData(long afterId, int limit) {
+        try {
+            Query query = currentSession().createQuery("select f.id, f.name, f.genbankType, f.sequence, c.exclude "
+                    + "from " + Feature.class.getName() + " f left join f.curation c where f.name is not null "
+                    + "and f.name <> '' and f.id > :id order by f.id asc");
+            query.setParameter("id", afterId);
+            query.setMaxResults(limit);
+            return query.list();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     public long getFeaturesGroupByCount() {
         Number number = (Number) currentSession().createCriteria(Feature.class)
                 .add(Restrictions.neOrIsNotNull("name", ""))
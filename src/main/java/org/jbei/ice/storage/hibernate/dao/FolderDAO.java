@@ -14,10 +14,7 @@ import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.*;
 
-import java.util.Date;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Manipulate {@link Folder} objects in the database.
@@ -27,6 +24,8 @@ import java.util.Set;
 @SuppressWarnings("unchecked")
 public class FolderDAO extends HibernateRepository<Folder> {
 
+    private static final int BATCH_SIZE = 1000;
+
     /**
      * Retrieves stored folder by locally unique identifier
      *
@@ -40,27 +39,56 @@ public class FolderDAO extends HibernateRepository<Folder> {
 
     /**
      * Removes, from the list of entries in the specified folder, those whose ids match the ids passed in the
-     * parameter
+     * parameter. The rows are deleted from the folder/entry join table directly so the current contents of the
+     * folder are not loaded
      *
      * @param folder  folder to remove entries from
      * @param entries unique identifiers for list of entries to remove from the folder
      * @return folder whose entries where removed
      */
     public Folder removeFolderEntries(Folder folder, List<Long> entries) {
+        String sql = "delete from folder_entry where folder_id = :folder and entry_id in (:ids)";
+        updateFolderEntries(folder, entries, sql);
+        return currentSession().get(Folder.class, folder.getId());
+    }
+
+    /**
+     * Adds the specified entries to the folder. The rows are inserted into the folder/entry join table directly so
+     * the current contents of the folder are not loaded. Entries that are already in the folder or that do not
+     * exist are skipped
+     *
+     * @param folder   folder to add entries to
+     * @param entryIds unique identifiers for entries to add to the folder
+     * @return number of entries added
+     * @throws DAOException on HibernateException adding the entries
+     */
+    public int addFolderEntries(Folder folder, Collection<Long> entryIds) {
+        String sql = "insert into folder_entry (folder_id, entry_id) select :folder, e.id from entries e"
+                + " where e.id in (:ids) and not exists (select 1 from folder_entry fe"
+                + " where fe.folder_id = :folder and fe.entry_id = e.id)";
+        return updateFolderEntries(folder, entryIds, sql);
+    }
+
+    // executes the (folder_entry) statement for each batch of entry ids and updates the modification time
+    private int updateFolderEntries(Folder folder, Collection<Long> entryIds, String sql) {
         Session session = currentSession();
         try {
-            folder = session.get(Folder.class, folder.getId());
-            Iterator<Entry> it = folder.getContents().iterator();
-
-            while (it.hasNext()) {
-                Entry entry = it.next();
-                if (entries.contains(entry.getId()))
-                    it.remove();
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(entryIds));
+            int count = 0;
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                count += session.createSQLQuery(sql)
+                        .addSynchronizedQuerySpace("folder_entry")
+                        .setParameter("folder", folder.getId())
+                        .setParameterList("ids", ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())))
+                        .executeUpdate();
             }
 
+            // the contents (or their size) may have been read already in this session
+            folder = session.get(Folder.class, folder.getId());
+            if (count > 0)
+                session.refresh(folder);
             folder.setModificationTime(new Date());
-            session.update(folder);
-            return folder;
+            return count;
         } catch (HibernateException he) {
             Logger.error(he);
             throw new DAOException(he);
@@ -180,18 +208,20 @@ public class FolderDAO extends HibernateRepository<Folder> {
                 .add(Restrictions.ilike("partNumber", filterText, MatchMode.ANYWHERE)));
     }
 
+    /**
+     * Adds the specified entries to the folder. See {@link #addFolderEntries(Folder, Collection)}
+     *
+     * @param folder folder to add entries to
+     * @param entrys entries to add to the folder
+     * @return folder that the entries were added to
+     */
     public Folder addFolderContents(Folder folder, List<Entry> entrys) {
-        Session session = currentSession();
-        try {
-            folder = session.get(Folder.class, folder.getId());
-            folder.getContents().addAll(entrys);
-            folder.setModificationTime(new Date());
-            session.saveOrUpdate(folder);
-            return folder;
-        } catch (HibernateException e) {
-            Logger.error(e);
-            throw new DAOException(e);
+        List<Long> entryIds = new ArrayList<>(entrys.size());
+        for (Entry entry : entrys) {
+            entryIds.add(entry.getId());
         }
+        addFolderEntries(folder, entryIds);
+        return currentSession().get(Folder.class, folder.getId());
     }
 
     /**
@@ -0,0 +1,223 @@
+package org.jbei.ice.storage.hibernate.dao;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.storage.DAOException;
+import org.jbei.ice.storage.hibernate.HibernateRepository;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Group;
+import org.jbei.ice.storage.model.GroupClosureModel;
+
+import java.util.*;
+
+/**
+ * Data Accessor Object for managing the {@link GroupClosureModel} rows of the group hierarchy
+ *
+ * @author Hector Plahar
+ */
+@SuppressWarnings("unchecked")
+public class GroupClosureDAO extends HibernateRepository<GroupClosureModel> {
+
+    @Override
+    public GroupClosureModel get(long id) {
+        return super.get(GroupClosureModel.class, id);
+    }
+
+    /**
+     * Retrieves the identifiers of the groups that the account is a member of and all their ancestors
+     *
+     * @param account account whose groups are being retrieved
+     * @return set of group identifiers
+     * @throws DAOException on HibernateException retrieving the groups
+     */
+    public Set<Long> getAccountGroupIds(Account account) {
+        try {
+            List<Long> list = currentSession().createQuery("select distinct c.ancestor.id from "
+                    + Account.class.getName() + " a join a.groups g, " + GroupClosureModel.class.getName()
+                    + " c where a.id = :account and c.descendant = g")
+                    .setParameter("account", account.getId())
+                    .list();
+            return new HashSet<>(list);
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Retrieves the UUIDs of the groups that the account either owns or is a member of and all their ancestors
+     *
+     * @param account account whose groups are being retrieved
+     * @return set of group UUIDs
+     * @throws DAOException on HibernateException retrieving the groups
+     */
+    public Set<String> getAccountGroupUUIDs(Account account) {
+        try {
+            List<String> list = currentSession().createQuery("select distinct c.ancestor.uuid from "
+                    + GroupClosureModel.class.getName() + " c where c.descendant.id in (select g.id from "
+                    + Group.class.getName() + " g left join g.members m where g.owner = :account or m = :account)")
+                    .setParameter("account", account)
+                    .list();
+            return new HashSet<>(list);
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Adds the rows for a newly created group; one for the group itself and one for each ancestor of its parent
+     *
+     * @param group newly created group
+     * @throws DAOException on HibernateException adding the rows
+     */
+    public void addGroup(Group group) {
+        try {
+            Session session = currentSession();
+            session.save(new GroupClosureModel(group, group, 0));
+            if (group.getParent() == null)
+                return;
+
+            for (Object[] ancestor : getAncestors(group.getParent().getId())) {
+                Group ancestorGroup = session.load(Group.class, (Long) ancestor[0]);
+                session.save(new GroupClosureModel(ancestorGroup, group, (Integer) ancestor[1] + 1));
+            }
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Updates the rows for a group whose parent may have changed. The group and its descendants are detached from
+     * the ancestors of the previous parent and attached to the ancestors of the current parent.
+     * Nothing is written if the parent has not changed
+     *
+     * @param group group whose parent may have changed
+     * @throws DAOException if the new parent is a descendant of the group or on HibernateException updating the rows
+     */
+    public void updateParent(Group group) {
+        Long parentId = group.getParent() == null ? null : group.getParent().getId();
+        try {
+            Session session = currentSession();
+            Long previousParentId = (Long) session.createQuery("select c.ancestor.id from "
+                    + GroupClosureModel.class.getName() + " c where c.descendant.id = :group and c.depth = 1")
+                    .setParameter("group", group.getId())
+                    .uniqueResult();
+            if (Objects.equals(previousParentId, parentId))
+                return;
+
+            // descendants (including the group itself) and their depth relative to the group
+            Map<Long, Integer> subtree = new HashMap<>();
+            List<Object[]> descendants = session.createQuery("select c.descendant.id, c.depth from "
+                    + GroupClosureModel.class.getName() + " c where c.ancestor.id = :group")
+                    .setParameter("group", group.getId())
+                    .list();
+            for (Object[] descendant : descendants) {
+                subtree.put((Long) descendant[0], (Integer) descendant[1]);
+            }
+
+            if (subtree.isEmpty()) {
+                session.save(new GroupClosureModel(group, group, 0));
+                subtree.put(group.getId(), 0);
+            }
+
+            if (parentId != null && subtree.containsKey(parentId))
+                throw new DAOException("Group " + parentId + " is a descendant of group " + group.getId());
+
+            session.createQuery("delete from " + GroupClosureModel.class.getName()
+                    + " c where c.descendant.id in (:subtree) and c.ancestor.id not in (:subtree)")
+                    .setParameterList("subtree", subtree.keySet())
+                    .executeUpdate();
+
+            if (parentId == null)
+                return;
+
+            for (Object[] ancestor : getAncestors(parentId)) {
+                Group ancestorGroup = session.load(Group.class, (Long) ancestor[0]);
+                for (Map.Entry<Long, Integer> descendant : subtree.entrySet()) {
+                    Group descendantGroup = session.load(Group.class, descendant.getKey());
+                    int depth = (Integer) ancestor[1] + descendant.getValue() + 1;
+                    session.save(new GroupClosureModel(ancestorGroup, descendantGroup, depth));
+                }
+            }
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Removes all rows that reference the group
+     *
+     * @param group group being deleted
+     * @throws DAOException on HibernateException removing the rows
+     */
+    public void removeGroup(Group group) {
+        try {
+            currentSession().createQuery("delete from " + GroupClosureModel.class.getName()
+                    + " c where c.ancestor.id = :group or c.descendant.id = :group")
+                    .setParameter("group", group.getId())
+                    .executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Rebuilds all rows from the parent references of the groups if any group is missing its own row; for example,
+     * for groups created before the rows were maintained. Cycles in the parent references are ignored
+     *
+     * @return true if the rows were rebuilt, false if they were already complete
+     * @throws DAOException on HibernateException rebuilding the rows
+     */
+    public boolean rebuildIfIncomplete() {
+        try {
+            Session session = currentSession();
+            Number groupCount = (Number) session.createQuery("select count(g.id) from " + Group.class.getName()
+                    + " g").uniqueResult();
+            Number rowCount = (Number) session.createQuery("select count(c.id) from "
+                    + GroupClosureModel.class.getName() + " c where c.depth = 0").uniqueResult();
+            if (groupCount.longValue() == rowCount.longValue())
+                return false;
+
+            Logger.info("Rebuilding group hierarchy for " + groupCount + " groups");
+            session.createQuery("delete from " + GroupClosureModel.class.getName()).executeUpdate();
+
+            Map<Long, Long> parents = new HashMap<>();
+            List<Object[]> groups = session.createQuery("select g.id, p.id from " + Group.class.getName()
+                    + " g left join g.parent p").list();
+            for (Object[] group : groups) {
+                parents.put((Long) group[0], (Long) group[1]);
+            }
+
+            for (Long groupId : parents.keySet()) {
+                Group descendant = session.load(Group.class, groupId);
+                Set<Long> visited = new HashSet<>();
+                int depth = 0;
+                for (Long ancestorId = groupId; ancestorId != null && visited.add(ancestorId);
+                     ancestorId = parents.get(ancestorId)) {
+                    session.save(new GroupClosureModel(session.load(Group.class, ancestorId), descendant, depth));
+                    depth += 1;
+                }
+            }
+            return true;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    // ancestors (including the group itself) and their depth relative to the group
+    private List<Object[]> getAncestors(long groupId) {
+        List<Object[]> ancestors = currentSession().createQuery("select c.ancestor.id, c.depth from "
+                + GroupClosureModel.class.getName() + " c where c.descendant.id = :group")
+                .setParameter("group", groupId)
+                .list();
+        if (ancestors.isEmpty())
+            ancestors.add(new Object[]{groupId, 0});
+        return ancestors;
+    }
+}
@@ -7,10 +7,12 @@ import org.hibernate.Session;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.sql.JoinType;
+import org.jbei.ice.lib.access.PermissionResolver;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.group.GroupType;
 import org.jbei.ice.lib.group.GroupController;
 import org.jbei.ice.storage.DAOException;
+import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Group;
@@ -26,6 +28,30 @@ import java.util.Set;
  */
 @SuppressWarnings("unchecked")
 public class GroupDAO extends HibernateRepository<Group> {
+
+    // changes to groups (e.g. parents) update the group hierarchy and invalidate the cached groups of accounts
+    @Override
+    public Group create(Group group) {
+        Group created = super.create(group);
+        DAOFactory.getGroupClosureDAO().addGroup(created);
+        PermissionResolver.invalidate();
+        return created;
+    }
+
+    @Override
+    public Group update(Group group) {
+        DAOFactory.getGroupClosureDAO().updateParent(group);
+        PermissionResolver.invalidate();
+        return super.update(group);
+    }
+
+    @Override
+    public void delete(Group group) {
+        DAOFactory.getGroupClosureDAO().removeGroup(group);
+        PermissionResolver.invalidate();
+        super.delete(group);
+    }
+
     /**
      * Retrieve {@link Group} object from the database by its uuid.
      *
@@ -37,6 +63,7 @@ public class GroupDAO extends HibernateRepository<Group> {
         try {
             return (Group) currentSession().createCriteria(Group.class)
                     .add(Restrictions.eq("uuid", uuid))
+                    .setCacheable(true)
                     .uniqueResult();
         } catch (HibernateException e) {
             Logger.error(e);
@@ -68,7 +95,8 @@ public class GroupDAO extends HibernateRepository<Group> {
         Session session = currentSession();
 
         try {
-            Criteria criteria = session.createCriteria(Group.class).add(Restrictions.in("id", idsSet));
+            Criteria criteria = session.createCriteria(Group.class).add(Restrictions.in("id", idsSet))
+                    .setCacheable(true);
             List list = criteria.list();
             return new HashSet<>(list);
 
@@ -129,26 +157,6 @@ public class GroupDAO extends HibernateRepository<Group> {
         }
     }
 
-    /**
-     * Retrieves all UUIDs that the specified account either owns or is a member of
-     *
-     * @param account account
-     * @return list of UUIDs matching the query
-     * @throws DAOException on hibernate exception
-     */
-    public Set<String> getMemberGroupUUIDs(Account account) throws DAOException {
-        try {
-            Criteria criteria = currentSession().createCriteria(Group.class)
-                    .createAlias("members", "member", JoinType.LEFT_OUTER_JOIN)
-                    .add(Restrictions.disjunction(Restrictions.eq("owner", account),
-                            Restrictions.eq("member.email", account.getEmail())))
-                    .setProjection(Projections.property("uuid"));
-            return new HashSet<>(criteria.list());
-        } catch (HibernateException he) {
-            throw new DAOException(he);
-        }
-    }
-
     public List<Group> getGroupsByType(GroupType type, int offset, int limit) throws DAOException {
         try {
             Criteria criteria = currentSession().createCriteria(Group.class)
@@ -5,16 +5,14 @@ import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.criterion.*;
-import org.hibernate.sql.JoinType;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.lib.dto.entry.Visibility;
+import org.jbei.ice.lib.dto.folder.FolderType;
 import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
 import org.jbei.ice.storage.model.*;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * {@link Permission} data accessor Object
@@ -24,6 +22,9 @@ import java.util.Set;
 @SuppressWarnings("unchecked")
 public class PermissionDAO extends HibernateRepository<Permission> {
 
+    // maximum number of entry ids checked in one query
+    private static final int BATCH_SIZE = 1000;
+
     public boolean hasPermission(Entry entry, Folder folder, BulkUpload upload, Account account, Group group,
                                  boolean canRead, boolean canWrite) {
         try {
@@ -237,12 +238,23 @@ public class PermissionDAO extends HibernateRepository<Permission> {
         }
     }
 
+    /**
+     * Removes the permissions for the entry one at a time (instead of a bulk delete) so that the entry is
+     * re-indexed without the <code>canRead</code> values used by the search security filter
+     *
+     * @param entry entry whose permissions are being removed
+     * @return number of permissions removed
+     * @throws DAOException on HibernateException removing the permissions
+     */
     public int clearPermissions(Entry entry) throws DAOException {
-        Session session = currentSession();
-        Query query = session.createQuery("delete " + Permission.class.getName() + " where entry = :entry");
-        query.setParameter("entry", entry);
+        Set<Permission> permissions = getEntryPermissions(entry);
         try {
-            return query.executeUpdate();
+            Session session = currentSession();
+            for (Permission permission : permissions) {
+                entry.getPermissions().remove(permission);
+                session.delete(permission);
+            }
+            return permissions.size();
         } catch (HibernateException he) {
             Logger.error(he);
             throw new DAOException(he);
@@ -261,6 +273,7 @@ public class PermissionDAO extends HibernateRepository<Permission> {
         }
     }
 
+    // bulk delete; entries indexed with the group's uuid keep it, but it cannot match once the group is deleted
     public int clearPermissions(Group group) throws DAOException {
         Session session = currentSession();
         Query query = session.createQuery("delete " + Permission.class.getName() + " where group = :group");
@@ -320,62 +333,168 @@ public class PermissionDAO extends HibernateRepository<Permission> {
     }
 
     /**
-     * Filters the given list, removing those that the specified account does not have read privileges on
+     * Filters the given list, removing those that the specified account does not have read privileges on or that
+     * are not visible. See {@link #getReadableEntryIds(Account, Set, Collection)}
      *
-     * @param account account to filter entries by
-     * @param groups  groups that this account belongs to
-     * @param entries list of entry ids to filter
-     * @return filtered list such that specified account have read privileges on entries contained in it
+     * @param account  account to filter entries by
+     * @param groupIds identifiers of groups that this account belongs to (including parent groups)
+     * @param entries  list of entry ids to filter
+     * @return filtered list (in the same order) such that specified account have read privileges on entries
+     * contained in it
      */
-    public List<Long> getCanReadEntries(Account account, Set<Group> groups, List<Long> entries) {
-        Criteria criteria = currentSession().createCriteria(Permission.class);
-        Disjunction disjunction = Restrictions.disjunction();
-        disjunction.add(Restrictions.eq("account", account));
-        disjunction.add(Restrictions.eq("entry.ownerEmail", account.getEmail()));
-
-        if (!groups.isEmpty()) {
-            disjunction.add(Restrictions.in("group", groups));
+    public List<Long> getCanReadEntries(Account account, Set<Long> groupIds, List<Long> entries) {
+        Set<Long> readable = getEntryIds(account, groupIds, entries, true, true, true);
+        List<Long> result = new ArrayList<>(readable.size());
+        for (Long entryId : entries) {
+            if (readable.remove(entryId))
+                result.add(entryId);
         }
+        return result;
+    }
 
-        criteria.createAlias("entry", "entry", JoinType.LEFT_OUTER_JOIN)
-                .add(Restrictions.in("entry.id", entries))
-                .add(Restrictions.eq("entry.visibility", Visibility.OK.getValue()));
-
-        criteria.add(disjunction);
-
-        return criteria.setProjection(
-                Projections.distinct(Projections.property("entry.id")))
-                .list();
+    /**
+     * Retrieves the subset of the specified entries that the account can read. These are entries that the account
+     * owns, entries that the account or one of the specified groups has read or write permissions for (either
+     * directly or through a folder that contains the entry) and entries in public folders. Administrative
+     * privileges are not taken into account.
+     * <p>
+     * Entries are checked with one query for each batch of {@link #BATCH_SIZE}
+     *
+     * @param account  account to check permissions for. If null, only group permissions and public folders are
+     *                 checked
+     * @param groupIds identifiers of groups the account belongs to (including parent groups)
+     * @param entryIds unique identifiers of entries to check
+     * @return identifiers of entries that can be read
+     * @throws DAOException on exception retrieving the permissions
+     */
+    public Set<Long> getReadableEntryIds(Account account, Set<Long> groupIds, Collection<Long> entryIds) {
+        return getEntryIds(account, groupIds, entryIds, true, true, false);
     }
 
     /**
-     * Determines if the specified account has write privileges on the entries passed on the parameter
+     * Retrieves the subset of the specified entries that the account can write to. These are entries that the
+     * account owns and entries that the account or one of the specified groups has write permissions for.
+     * Administrative privileges are not taken into account.
      *
-     * @param account user account
-     * @param groups  groups that the account belongs to
-     * @param entries list of entry Ids to check
-     * @return true if the user has write privileges on <b>all</b> the entries specified in the parameter
+     * @param account  account to check permissions for
+     * @param groupIds identifiers of groups the account belongs to (including parent groups)
+     * @param entryIds unique identifiers of entries to check
+     * @return identifiers of entries that can be written to
+     * @throws DAOException on exception retrieving the permissions
      */
-    public boolean canWrite(Account account, Set<Group> groups, List<Long> entries) {
-        Criteria criteria = currentSession().createCriteria(Permission.class);
-        criteria.add(Restrictions.in("entry.id", entries));
-        criteria.add(Restrictions.or(Restrictions.eq("entry.ownerEmail", account.getEmail())));
+    public Set<Long> getWritableEntryIds(Account account, Set<Long> groupIds, Collection<Long> entryIds) {
+        return getWritableEntryIds(account, groupIds, entryIds, false);
+    }
 
-        Disjunction disjunction = Restrictions.disjunction();
+    /**
+     * Retrieves the subset of the specified entries that the account can write to, optionally including the
+     * entries in folders that the account or one of the specified groups has write permissions for.
+     * See {@link #getWritableEntryIds(Account, Set, Collection)}
+     *
+     * @param account        account to check permissions for
+     * @param groupIds       identifiers of groups the account belongs to (including parent groups)
+     * @param entryIds       unique identifiers of entries to check
+     * @param includeFolders whether write permissions on folders that contain the entries are included
+     * @return identifiers of entries that can be written to
+     * @throws DAOException on exception retrieving the permissions
+     */
+    public Set<Long> getWritableEntryIds(Account account, Set<Long> groupIds, Collection<Long> entryIds,
+                                         boolean includeFolders) {
+        return getEntryIds(account, groupIds, entryIds, false, includeFolders, false);
+    }
 
-        if (!groups.isEmpty()) {
-            disjunction.add(Restrictions.in("group", groups));
+    /**
+     * Retrieves the subset of the specified entries that already have an entry permission matching the specified
+     * values, in the same way as {@link #hasPermission(Entry, Folder, BulkUpload, Account, Group, boolean, boolean)}
+     *
+     * @param entryIds unique identifiers of entries to check
+     * @param account  account of the permission. If null, the permission must not have an account
+     * @param group    group of the permission. If null, the permission must not have a group
+     * @param canRead  read value of the permission
+     * @param canWrite write value of the permission
+     * @return identifiers of entries that have the permission
+     * @throws DAOException on HibernateException retrieving the permissions
+     */
+    public Set<Long> getEntryIdsWithPermission(Collection<Long> entryIds, Account account, Group group,
+                                               boolean canRead, boolean canWrite) {
+        Set<Long> result = new HashSet<>();
+        String queryString = "select p.entry.id from " + Permission.class.getName() + " p where p.entry.id in (:ids)"
+                + " and p.canRead = :read and p.canWrite = :write and p.folder is null and p.upload is null"
+                + (account == null ? " and p.account is null" : " and p.account = :account")
+                + (group == null ? " and p.group is null" : " and p.group = :group");
+        try {
+            List<Long> ids = new ArrayList<>(entryIds);
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                Query query = currentSession().createQuery(queryString);
+                query.setParameterList("ids", ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())));
+                query.setParameter("read", canRead);
+                query.setParameter("write", canWrite);
+                if (account != null)
+                    query.setParameter("account", account);
+                if (group != null)
+                    query.setParameter("group", group);
+                result.addAll(query.list());
+            }
+            return result;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
         }
+    }
 
-        disjunction.add(Restrictions.eq("account", account));
-        criteria.createAlias("entry", "entry", JoinType.LEFT_OUTER_JOIN);
-
-        LogicalExpression logicalExpression = Restrictions.and(disjunction, Restrictions.eq("canWrite", true));
+    private Set<Long> getEntryIds(Account account, Set<Long> groupIds, Collection<Long> entryIds, boolean read,
+                                  boolean includeFolders, boolean visibleOnly) {
+        Set<Long> result = new HashSet<>();
+        if (entryIds.isEmpty())
+            return result;
+
+        boolean hasAccount = account != null;
+        boolean hasGroups = groupIds != null && !groupIds.isEmpty();
+        List<String> holders = new ArrayList<>();
+        if (hasAccount)
+            holders.add("p.account = :account");
+        if (hasGroups)
+            holders.add("p.group.id in (:groups)");
+        String holder = holders.isEmpty() ? "1 = 0" : "(" + String.join(" or ", holders) + ")";
+
+        String queryString = "select e.id from " + Entry.class.getName() + " e where e.id in (:ids)";
+        if (visibleOnly)
+            queryString += " and e.visibility = :visibility";
+        queryString += " and (" + (hasAccount ? "lower(e.ownerEmail) = :owner" : "1 = 0");
+        String rights = read ? "(p.canRead = true or p.canWrite = true)" : "p.canWrite = true";
+        queryString += " or exists (select p.id from " + Permission.class.getName() + " p where p.entry = e"
+                + " and " + rights + " and " + holder + ")";
+        if (includeFolders) {
+            // entries in folders with permissions (or in public folders, for read)
+            queryString += " or exists (select f.id from " + Folder.class.getName() + " f join f.contents c"
+                    + " where c = e and (" + (read ? "f.type = :publicType or " : "") + "exists (select p.id from "
+                    + Permission.class.getName() + " p where p.folder = f and p.entry is null and " + rights
+                    + " and " + holder + ")))";
+        }
+        queryString += ")";
 
-        criteria.add(logicalExpression);
-        criteria.setProjection(Projections.countDistinct("entry.id"));
-        Number number = (Number) criteria.uniqueResult();
-        return number.intValue() == entries.size();
+        try {
+            List<Long> ids = new ArrayList<>(entryIds);
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                Query query = currentSession().createQuery(queryString);
+                query.setParameterList("ids", ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())));
+                if (hasAccount) {
+                    query.setParameter("owner", account.getEmail().toLowerCase());
+                    query.setParameter("account", account);
+                }
+                if (hasGroups)
+                    query.setParameterList("groups", groupIds);
+                if (read && includeFolders)
+                    query.setParameter("publicType", FolderType.PUBLIC);
+                if (visibleOnly)
+                    query.setParameter("visibility", Visibility.OK.getValue());
+                result.addAll(query.list());
+            }
+            return result;
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
     }
 
     @Override
@@ -34,7 +34,8 @@ public class PreferencesDAO extends HibernateRepository<Preference> {
         try {
             Criteria criteria = session.createCriteria(Preference.class)
                                        .add(Restrictions.eq("account", account))
-                                       .add(Restrictions.in("key", keyString));
+                                       .add(Restrictions.in("key", keyString))
+                                       .setCacheable(true);
             return new ArrayList<>(criteria.list());
         } catch (HibernateException he) {
             Logger.error(he);
@@ -46,7 +47,8 @@ public class PreferencesDAO extends HibernateRepository<Preference> {
         Session session = currentSession();
         Criteria criteria = session.createCriteria(Preference.class)
                                    .add(Restrictions.eq("account", account))
-                                   .add(Restrictions.eq("key", key.toUpperCase()));
+                                   .add(Restrictions.eq("key", key.toUpperCase()))
+                                   .setCacheable(true);
         try {
             return (Preference) criteria.uniqueResult();
         } catch (HibernateException he) {
@@ -2,6 +2,7 @@ package org.jbei.ice.storage.hibernate.dao;
 
 import org.hibernate.HibernateException;
 import org.hibernate.criterion.Restrictions;
+import org.jbei.ice.lib.access.VerifiedTokenCache;
 import org.jbei.ice.lib.common.logging.Logger;
 import org.jbei.ice.storage.DAOException;
 import org.jbei.ice.storage.hibernate.HibernateRepository;
@@ -17,10 +18,29 @@ import java.util.List;
  */
 public class RemotePartnerDAO extends HibernateRepository<RemotePartner> {
 
+    // changes invalidate the cached token verifications
+    @Override
+    public RemotePartner create(RemotePartner partner) {
+        VerifiedTokenCache.getInstance().invalidate();
+        return super.create(partner);
+    }
+
+    @Override
+    public RemotePartner update(RemotePartner partner) {
+        VerifiedTokenCache.getInstance().invalidate();
+        return super.update(partner);
+    }
+
+    @Override
+    public void delete(RemotePartner partner) {
+        VerifiedTokenCache.getInstance().invalidate();
+        super.delete(partner);
+    }
+
     @SuppressWarnings("unchecked")
     public List<RemotePartner> getRegistryPartners() throws DAOException {
         try {
-            List list = currentSession().createCriteria(RemotePartner.class).list();
+            List list = currentSession().createCriteria(RemotePartner.class).setCacheable(true).list();
             return new ArrayList<>(list);
         } catch (HibernateException he) {
             Logger.error(he);
@@ -38,7 +58,7 @@ public class RemotePartnerDAO extends HibernateRepository<RemotePartner> {
     public RemotePartner getByUrl(String url) throws DAOException {
         try {
             Object object = currentSession().createCriteria(RemotePartner.class.getName())
-                    .add(Restrictions.eq("url", url)).uniqueResult();
+                    .add(Restrictions.eq("url", url)).setCacheable(true).uniqueResult();
             if (object == null)
                 return null;
 
@@ -12,8 +12,7 @@ import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Sample;
 import org.jbei.ice.storage.model.Storage;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author Timothy Ham, Zinovii Dmytriv, Hector Plahar
@@ -83,4 +82,26 @@ public class SampleDAO extends HibernateRepository<Sample> {
         }
         return samples;
     }
+
+    /**
+     * Retrieves the subset of the specified entries that have at least one sample
+     *
+     * @param entryIds unique identifiers of entries to check
+     * @return identifiers of entries with samples
+     * @throws DAOException on exception retrieving the entries
+     */
+    public Set<Long> getEntriesWithSamples(Collection<Long> entryIds) {
+        if (entryIds.isEmpty())
+            return new HashSet<>();
+
+        try {
+            Query query = currentSession().createQuery("select distinct s.entry.id from " + Sample.class.getName()
+                    + " s where s.entry.id in (:ids)");
+            query.setParameterList("ids", entryIds);
+            return new HashSet<>(query.list());
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
 }
@@ -19,8 +19,7 @@ import org.jbei.ice.storage.model.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Manipulate {@link Sequence} and associated objects in the database.
@@ -260,6 +259,68 @@ public class SequenceDAO extends HibernateRepository<Sequence> {
         }
     }
 
+    /**
+     * Retrieves, in a single query, the fields needed to write a fasta record for a batch of sequences associated
+     * with valid (visibility=9) entries. Batches are keyed on the sequence id instead of an offset so the cost of
+     * retrieving each batch does not depend on its position in the table. Full {@link Entry} or {@link Sequence}
+     * objects are not loaded.
+     * <p>
+     * Expected usage is
+     * <code>
+     * long lastId = 0;
+     * List&lt;Object[]&gt; batch;
+     * while (!(batch = dao.getSequenceFastaData(lastId, size)).isEmpty()) {
+     * // do something with batch
+     * lastId = (Long) batch.get(batch.size() - 1)[0];
+     * }
+     * </code>
+     *
+     * @param afterId only sequences with an id greater than this value are retrieved
+     * @param limit   maximum number of records to retrieve
+     * @return list of records ordered by sequence id. Each record has the form
+     * <code>[sequence id, entry id, entry record type, entry name, entry part number, sequence]</code>
+     * @throws DAOException on hibernate exception
+     */
+    public List<Object[]> getSequenceFastaData(long afterId, int limit) {
+        try {
+            Query query = currentSession().createQuery("select s.id, e.id, e.recordType, e.name, e.partNumber, "
+                    + "s.sequence from " + Sequence.class.getName() + " s join s.entry e where e.visibility = :v "
+                    + "and s.id > :id order by s.id asc");
+            query.setParameter("v", Visibility.OK.getValue());
+            query.setParameter("id", afterId);
+            query.setMaxResults(limit);
+            return query.list();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Retrieves, in a single query, the entry fields needed to display a sequence search result along with
+     * the sequence for each of the specified entries
+     *
+     * @param entryIds unique identifiers for entries of interest
+     * @return list of records. Each record has the form
+     * <code>[entry id, entry record type, entry name, entry part number, entry summary, sequence]</code>
+     * @throws DAOException on hibernate exception
+     */
+    public List<Object[]> getSequenceSearchData(Collection<Long> entryIds) {
+        if (entryIds == null || entryIds.isEmpty())
+            return new ArrayList<>();
+
+        try {
+            Query query = currentSession().createQuery("select e.id, e.recordType, e.name, e.partNumber, "
+                    + "e.shortDescription, s.sequence from " + Sequence.class.getName() + " s join s.entry e "
+                    + "where e.id in (:ids)");
+            query.setParameterList("ids", entryIds);
+            return query.list();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
     /**
      * @return number of sequences available for all valid (visibility=9) entry object
      */
@@ -362,4 +423,54 @@ public class SequenceDAO extends HibernateRepository<Sequence> {
     public Sequence get(long id) {
         return super.get(Sequence.class, id);
     }
+
+    /**
+     * Retrieves the subset of the specified entries that have a sequence
+     *
+     * @param entryIds     unique identifiers of entries to check
+     * @param originalOnly true to only include entries whose sequence has the original (user uploaded)
+     *                     sequence file
+     * @return identifiers of entries with sequences
+     * @throws DAOException on exception retrieving the entries
+     */
+    public Set<Long> getEntriesWithSequence(Collection<Long> entryIds, boolean originalOnly) {
+        if (entryIds.isEmpty())
+            return new HashSet<>();
+
+        try {
+            String queryString = "select distinct s.entry.id from " + Sequence.class.getName()
+                    + " s where s.entry.id in (:ids)";
+            if (originalOnly)
+                queryString += " and s.sequenceUser is not null and s.sequenceUser <> ''";
+            Query query = currentSession().createQuery(queryString);
+            query.setParameterList("ids", entryIds);
+            return new HashSet<>(query.list());
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
+
+    /**
+     * Retrieves the sequences (along with their entries) of the specified entries
+     *
+     * @param entryIds unique identifiers of entries whose sequences are to be retrieved
+     * @return sequences for the subset of entries that have one
+     * @throws DAOException on exception retrieving the sequences
+     */
+    @SuppressWarnings("unchecked")
+    public List<Sequence> getByEntries(Collection<Long> entryIds) {
+        if (entryIds.isEmpty())
+            return new ArrayList<>();
+
+        try {
+            Query query = currentSession().createQuery("select s from " + Sequence.class.getName()
+                    + " s join fetch s.entry where s.entry.id in (:ids)");
+            query.setParameterList("ids", entryIds);
+            return query.list();
+        } catch (HibernateException e) {
+            Logger.error(e);
+            throw new DAOException(e);
+        }
+    }
 }
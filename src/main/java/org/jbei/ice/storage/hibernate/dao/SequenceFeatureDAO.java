@@ -8,7 +8,7 @@ import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Feature;
 import org.jbei.ice.storage.model.SequenceFeature;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Hibernate Data accessor object for {@link SequenceFeature}s
@@ -36,6 +36,37 @@ public class SequenceFeatureDAO extends HibernateRepository<SequenceFeature> {
                 .list();
     }
 
+    /**
+     * Retrieves the distinct strands on which each of the specified features has been annotated
+     *
+     * @param featureIds unique identifiers for the features of interest
+     * @return mapping of feature id to the set of strands (1 or -1) the feature has been annotated on. Features that
+     * are not referenced by any sequence feature are not included
+     */
+    public Map<Long, Set<Integer>> getFeatureStrands(List<Long> featureIds) {
+        Map<Long, Set<Integer>> strands = new HashMap<>();
+        if (featureIds == null || featureIds.isEmpty())
+            return strands;
+
+        List<Object[]> results = currentSession().createCriteria(SequenceFeature.class)
+                .add(Restrictions.in("feature.id", featureIds))
+                .setProjection(Projections.distinct(Projections.projectionList()
+                        .add(Projections.property("feature.id"))
+                        .add(Projections.property("strand"))))
+                .list();
+
+        for (Object[] result : results) {
+            Long featureId = (Long) result[0];
+            Set<Integer> featureStrands = strands.get(featureId);
+            if (featureStrands == null) {
+                featureStrands = new HashSet<>();
+                strands.put(featureId, featureStrands);
+            }
+            featureStrands.add((Integer) result[1]);
+        }
+        return strands;
+    }
+
     public int getFeatureCount(Entry entry) {
         Number number = (Number) currentSession().createCriteria(SequenceFeature.class)
                 .createAlias("sequence", "sequence")
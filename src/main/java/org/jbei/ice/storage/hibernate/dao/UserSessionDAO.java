@@ -0,0 +1,97 @@
+package org.jbei.ice.storage.hibernate.dao;
+
+import org.hibernate.HibernateException;
+import org.hibernate.criterion.Restrictions;
+import org.jbei.ice.lib.common.logging.Logger;
+import org.jbei.ice.storage.DAOException;
+import org.jbei.ice.storage.hibernate.HibernateRepository;
+import org.jbei.ice.storage.model.UserSessionModel;
+
+import java.util.Date;
+
+/**
+ * Data Accessor Object for managing {@link UserSessionModel} objects
+ *
+ * @author Hector Plahar
+ */
+public class UserSessionDAO extends HibernateRepository<UserSessionModel> {
+
+    @Override
+    public UserSessionModel get(long id) {
+        return super.get(UserSessionModel.class, id);
+    }
+
+    public UserSessionModel getBySessionHash(String sessionHash) {
+        try {
+            return (UserSessionModel) currentSession().createCriteria(UserSessionModel.class)
+                    .add(Restrictions.eq("sessionHash", sessionHash))
+                    .uniqueResult();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Updates the last access time of a session without loading it
+     *
+     * @param sessionHash    hash of the unique session identifier
+     * @param lastAccessTime access time
+     * @return number of sessions updated
+     */
+    public int updateLastAccessTime(String sessionHash, Date lastAccessTime) {
+        try {
+            return currentSession().createQuery("update " + UserSessionModel.class.getName()
+                    + " set lastAccessTime=:time where sessionHash=:sessionHash")
+                    .setParameter("time", lastAccessTime)
+                    .setParameter("sessionHash", sessionHash)
+                    .executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    public int deleteBySessionHash(String sessionHash) {
+        try {
+            return currentSession().createQuery("delete from " + UserSessionModel.class.getName()
+                    + " where sessionHash=:sessionHash")
+                    .setParameter("sessionHash", sessionHash)
+                    .executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    public int deleteByUserId(String userId) {
+        try {
+            return currentSession().createQuery("delete from " + UserSessionModel.class.getName()
+                    + " where userId=:userId")
+                    .setParameter("userId", userId)
+                    .executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+
+    /**
+     * Deletes sessions created before <code>createdBefore</code> or last accessed before
+     * <code>accessedBefore</code>
+     *
+     * @return number of sessions deleted
+     */
+    public int deleteExpired(Date createdBefore, Date accessedBefore) {
+        try {
+            return currentSession().createQuery("delete from " + UserSessionModel.class.getName()
+                    + " where creationTime<:created or lastAccessTime<:accessed")
+                    .setParameter("created", createdBefore)
+                    .setParameter("accessed", accessedBefore)
+                    .executeUpdate();
+        } catch (HibernateException he) {
+            Logger.error(he);
+            throw new DAOException(he);
+        }
+    }
+}
@@ -3,10 +3,25 @@ package org.jbei.ice.storage.hibernate.filter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.hibernate.search.annotations.Factory;
+import org.hibernate.search.annotations.Key;
+import org.hibernate.search.filter.FilterKey;
+import org.hibernate.search.filter.StandardFilterKey;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.TreeSet;
 
 /**
+ * Filter factory for restricting entry search results to those that the account, or one of its groups, can read.
+ * <p>
+ * The filter is defined with <code>INSTANCE_AND_DOCIDSETRESULTS</code> caching so filter instances are cached
+ * using the key returned by {@link #getKey()} (account id and sorted group uuids) and the doc id sets they produce are
+ * cached per index segment. Repeated searches by the same user therefore only evaluate the filter against segments
+ * written since the last search (index commits add new segments; the cached sets for unchanged segments remain
+ * valid). Permission changes re-index the affected entries (see {@link org.jbei.ice.storage.model.Permission}), so
+ * the cached sets never need to be discarded: the previous version of an entry is deleted from its old segment and
+ * the new version is evaluated as part of the new segment.
+ *
  * @author Hector Plahar
  */
 public class EntrySecurityFilterFactory {
@@ -24,6 +39,14 @@ public class EntrySecurityFilterFactory {
         this.groupUUids = groupUUids;
     }
 
+    @Key
+    public FilterKey getKey() {
+        StandardFilterKey key = new StandardFilterKey();
+        key.addParameter(accountId);
+        key.addParameter(groupUUids == null ? new ArrayList<String>() : new ArrayList<>(new TreeSet<>(groupUUids)));
+        return key;
+    }
+
     @Factory
     public Filter getFilter() {
         BooleanQuery.Builder builder = new BooleanQuery.Builder();
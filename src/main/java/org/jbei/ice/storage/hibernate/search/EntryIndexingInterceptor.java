@@ -0,0 +1,55 @@
+package org.jbei.ice.storage.hibernate.search;
+
+import org.hibernate.search.indexes.interceptor.EntityIndexingInterceptor;
+import org.hibernate.search.indexes.interceptor.IndexingOverride;
+import org.jbei.ice.storage.model.Entry;
+
+/**
+ * Allows the automatic indexing of entries (when transactions are committed) to be deferred for the current thread.
+ * This is used when a large number of entries are created in chunks (e.g. bulk imports) so that the index is
+ * updated once at the end instead of with each chunk.
+ * <p>
+ * Entries that are created or updated while indexing is deferred are not indexed and must be explicitly indexed
+ * using {@link HibernateSearch#index(java.util.Collection)}. Deletions are always applied.
+ *
+ * @author Hector Plahar
+ */
+public class EntryIndexingInterceptor implements EntityIndexingInterceptor<Entry> {
+
+    private static final ThreadLocal<Boolean> DEFERRED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * @param deferred true to stop entries created or updated by the current thread from being indexed, false
+     *                 to resume automatic indexing
+     */
+    public static void setDeferred(boolean deferred) {
+        if (deferred)
+            DEFERRED.set(Boolean.TRUE);
+        else
+            DEFERRED.remove();
+    }
+
+    public static boolean isDeferred() {
+        return DEFERRED.get();
+    }
+
+    @Override
+    public IndexingOverride onAdd(Entry entity) {
+        return isDeferred() ? IndexingOverride.SKIP : IndexingOverride.APPLY_DEFAULT;
+    }
+
+    @Override
+    public IndexingOverride onUpdate(Entry entity) {
+        return isDeferred() ? IndexingOverride.SKIP : IndexingOverride.APPLY_DEFAULT;
+    }
+
+    @Override
+    public IndexingOverride onDelete(Entry entity) {
+        return IndexingOverride.APPLY_DEFAULT;
+    }
+
+    @Override
+    public IndexingOverride onCollectionUpdate(Entry entity) {
+        return isDeferred() ? IndexingOverride.SKIP : IndexingOverride.APPLY_DEFAULT;
+    }
+}
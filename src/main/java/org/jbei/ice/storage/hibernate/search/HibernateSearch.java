@@ -2,8 +2,11 @@ package org.jbei.ice.storage.hibernate.search;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.queries.TermsQuery;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.BytesRef;
 import org.hibernate.Session;
+import org.hibernate.criterion.Restrictions;
 import org.hibernate.search.FullTextQuery;
 import org.hibernate.search.FullTextSession;
 import org.hibernate.search.Search;
@@ -23,7 +26,6 @@ import org.jbei.ice.lib.search.QueryType;
 import org.jbei.ice.lib.search.filter.SearchFieldFactory;
 import org.jbei.ice.lib.shared.BioSafetyOption;
 import org.jbei.ice.lib.shared.ColumnField;
-import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.ModelToInfoFactory;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.model.Entry;
@@ -39,6 +41,8 @@ import java.util.*;
 @SuppressWarnings("unchecked")
 public class HibernateSearch {
 
+    private static final int INDEX_BATCH_SIZE = 100;
+
     private HibernateSearch() {
     }
 
@@ -130,9 +134,16 @@ public class HibernateSearch {
         List result = fullTextQuery.list();
 
         LinkedList<SearchResult> searchResults = new LinkedList<>();
-
+        List<Entry> entries = new ArrayList<>(result.size());
         for (Object object : result) {
-            Entry entry = (Entry) object;
+            entries.add((Entry) object);
+        }
+
+        List<PartData> infos = blastResults == null
+                ? ModelToInfoFactory.createTableViewData(userId, entries, true, false) : null;
+
+        for (int i = 0; i < entries.size(); i += 1) {
+            Entry entry = entries.get(i);
             SearchResult searchResult;
             if (blastResults != null) {
                 searchResult = blastResults.get(Long.toString(entry.getId()));
@@ -141,8 +152,7 @@ public class HibernateSearch {
             } else {
                 searchResult = new SearchResult();
                 searchResult.setScore(1f);
-                PartData info = ModelToInfoFactory.createTableViewData(userId, entry, true);
-                searchResult.setEntryInfo(info);
+                searchResult.setEntryInfo(infos.get(i));
             }
 
             searchResult.setMaxScore(1f);
@@ -175,11 +185,18 @@ public class HibernateSearch {
         FullTextSession fullTextSession = Search.getFullTextSession(session);
 
         QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
-        Query query = qb.keyword().onField("visibility").matching(Visibility.OK.getValue()).createQuery();
-
-        // todo : there is a limit of 1024 boolean clauses so return only return top blast results
         BooleanQuery.Builder builder = new BooleanQuery.Builder();
-        builder.add(query, BooleanClause.Occur.FILTER);
+
+        // restrict to visible entries in the blast results
+        createBlastFilterQuery(fullTextSession, blastResults, builder);
+
+        // bio-safety level
+        if (searchQuery.getBioSafetyOption() != null) {
+            TermContext levelContext = qb.keyword();
+            Query biosafetyQuery = levelContext.onField("bioSafetyLevel").ignoreFieldBridge()
+                    .matching(searchQuery.getBioSafetyOption().getValue()).createQuery();
+            builder.add(biosafetyQuery, BooleanClause.Occur.FILTER);
+        }
 
         // wrap Lucene query in a org.hibernate.Query
         Class<?>[] classes = SearchFieldFactory.classesForTypes(searchQuery.getEntryTypes());
@@ -191,14 +208,6 @@ public class HibernateSearch {
         // enable has attachment/sequence/sample (if needed)
         checkEnableHasAttribute(fullTextQuery, searchQuery.getParameters());
 
-        // bio-safety level
-        if (searchQuery.getBioSafetyOption() != null) {
-            TermContext levelContext = qb.keyword();
-            Query biosafetyQuery = levelContext.onField("bioSafetyLevel").ignoreFieldBridge()
-                    .matching(searchQuery.getBioSafetyOption().getValue()).createQuery();
-            builder.add(biosafetyQuery, BooleanClause.Occur.MUST);
-        }
-
         // execute search
         fullTextQuery.setProjection("id");
 
@@ -294,6 +303,16 @@ public class HibernateSearch {
         Logger.info(resultCount + " results for \"" + searchQuery.getQueryString() + "\"");
 
         LinkedList<SearchResult> searchResults = new LinkedList<>();
+        List<Entry> entries = new ArrayList<>(result.size());
+        for (Object[] objects : (Iterable<Object[]>) result) {
+            entries.add((Entry) objects[1]);
+        }
+
+        // table view data for the whole page is retrieved at once
+        List<PartData> infos = blastResults == null
+                ? ModelToInfoFactory.createTableViewData(userId, entries, true, true) : null;
+
+        int index = 0;
         for (Object[] objects : (Iterable<Object[]>) result) {
             float score = (Float) objects[0];
             Entry entry = (Entry) objects[1];
@@ -305,11 +324,7 @@ public class HibernateSearch {
             } else {
                 searchResult = new SearchResult();
                 searchResult.setScore(score);
-                PartData info = ModelToInfoFactory.createTableViewData(userId, entry, true);
-                if (info == null)
-                    continue;
-                info.setViewCount(DAOFactory.getAuditDAO().getHistoryCount(entry));
-                searchResult.setEntryInfo(info);
+                searchResult.setEntryInfo(infos.get(index++));
             }
 
             searchResult.setMaxScore(maxScore);
@@ -392,7 +407,15 @@ public class HibernateSearch {
         }
     }
 
-    // empty blast results indicates valid results
+    /**
+     * Restricts the search to visible entries with ids in the blast results using a single terms filter, so the
+     * number of blast results is not limited by the maximum number of boolean clauses. An empty set of blast
+     * results matches no entries
+     *
+     * @param fullTextSession current full text session
+     * @param blastResults    blast results keyed by entry id. null indicates no blast query
+     * @param builder         query builder to add the filter clauses to
+     */
     protected void createBlastFilterQuery(FullTextSession fullTextSession,
                                           final HashMap<String, SearchResult> blastResults,
                                           BooleanQuery.Builder builder) {
@@ -404,10 +427,12 @@ public class HibernateSearch {
         QueryBuilder qb = fullTextSession.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
         Query query = qb.keyword().onField("visibility").matching(Visibility.OK.getValue()).createQuery();
         builder.add(query, BooleanClause.Occur.FILTER);
+
+        List<BytesRef> ids = new ArrayList<>(blastResults.size());
         for (String id : blastResults.keySet()) {
-            Query filterQuery = qb.keyword().onField("id").matching(id).createQuery();
-            builder.add(filterQuery, BooleanClause.Occur.FILTER);
+            ids.add(new BytesRef(id));
         }
+        builder.add(new TermsQuery("id", ids), BooleanClause.Occur.FILTER);
     }
 
     /**
@@ -461,6 +486,35 @@ public class HibernateSearch {
                 .setParameter("field", terms);
     }
 
+    /**
+     * Indexes the specified entries (e.g. ones created while automatic indexing was deferred using
+     * {@link EntryIndexingInterceptor}). Pending changes in the current session are flushed and entries are
+     * then loaded and written to the index in batches. The session is cleared after each batch
+     *
+     * @param entryIds unique identifiers of entries to index
+     */
+    public void index(Collection<Long> entryIds) {
+        if (entryIds == null || entryIds.isEmpty())
+            return;
+
+        Session session = HibernateUtil.getSessionFactory().getCurrentSession();
+        FullTextSession fullTextSession = Search.getFullTextSession(session);
+        fullTextSession.flush();
+        List<Long> ids = new ArrayList<>(entryIds);
+        for (int i = 0; i < ids.size(); i += INDEX_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(ids.size(), i + INDEX_BATCH_SIZE));
+            List<Entry> entries = session.createCriteria(Entry.class)
+                    .add(Restrictions.in("id", batch))
+                    .list();
+            for (Entry entry : entries) {
+                fullTextSession.index(entry);
+            }
+            fullTextSession.flushToIndexes();
+            fullTextSession.clear();
+        }
+        Logger.info("Indexed " + ids.size() + " entries");
+    }
+
     protected static String cleanQuery(String query) {
         if (query == null)
             return null;
@@ -50,6 +50,22 @@ public class BulkUpload implements DataModel {
     @Column(name = "status")
     private BulkUploadStatus status;
 
+    // number of rows in the uploaded file (if created from one)
+    @Column(name = "row_count")
+    private Integer rowCount;
+
+    // number of rows of the uploaded file for which entries have been created
+    @Column(name = "processed_row_count")
+    private Integer processedRowCount;
+
+    // uploaded file that entries are created from. retained until all entries are created
+    @Column(name = "file_path", length = 1024)
+    private String filePath;
+
+    // reason processing of the uploaded file failed
+    @Column(name = "message", length = 1024)
+    private String message;
+
     @OneToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "bulk_upload_entry",
             joinColumns = {@JoinColumn(name = "bulk_upload_id", nullable = false)},
@@ -124,6 +140,38 @@ public class BulkUpload implements DataModel {
         this.status = status;
     }
 
+    public int getRowCount() {
+        return rowCount == null ? 0 : rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getProcessedRowCount() {
+        return processedRowCount == null ? 0 : processedRowCount;
+    }
+
+    public void setProcessedRowCount(int processedRowCount) {
+        this.processedRowCount = processedRowCount;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
     public Set<Permission> getPermissions() {
         return permissions;
     }
@@ -134,6 +182,8 @@ public class BulkUpload implements DataModel {
         bulkUploadInfo.setId(getId());
         bulkUploadInfo.setLastUpdate(getLastUpdateTime());
         bulkUploadInfo.setStatus(getStatus());
+        bulkUploadInfo.setRowCount(getRowCount());
+        bulkUploadInfo.setProcessedRowCount(getProcessedRowCount());
 
         // draft account
         Account draftAccount = getAccount();
@@ -13,6 +13,7 @@ import org.jbei.ice.storage.DataModel;
 import org.jbei.ice.storage.ModelToInfoFactory;
 import org.jbei.ice.storage.hibernate.filter.EntryHasFilterFactory;
 import org.jbei.ice.storage.hibernate.filter.EntrySecurityFilterFactory;
+import org.jbei.ice.storage.hibernate.search.EntryIndexingInterceptor;
 
 import javax.persistence.*;
 import java.util.*;
@@ -69,9 +70,10 @@ import org.jbei.ice.storage.model.Parameter;
  * @author Timothy Ham, Zinovii Dmytriv, Hector Plahar
  */
 @Entity
-@Indexed(index = "Entry")
+@Indexed(index = "Entry", interceptor = EntryIndexingInterceptor.class)
 @FullTextFilterDefs({
-        @FullTextFilterDef(name = "security", impl = EntrySecurityFilterFactory.class, cache = FilterCacheModeType.INSTANCE_ONLY),
+        @FullTextFilterDef(name = "security", impl = EntrySecurityFilterFactory.class,
+                cache = FilterCacheModeType.INSTANCE_AND_DOCIDSETRESULTS),
         @FullTextFilterDef(name = "boolean", impl = EntryHasFilterFactory.class, cache = FilterCacheModeType.INSTANCE_ONLY)
 })
 @AnalyzerDef(name = "customanalyzer",
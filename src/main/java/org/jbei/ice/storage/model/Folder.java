@@ -1,5 +1,7 @@
 package org.jbei.ice.storage.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
 import org.jbei.ice.lib.dto.folder.FolderDetails;
@@ -18,6 +20,7 @@ import java.util.Set;
  * @author Hector Plahar
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "folder")
 @SequenceGenerator(name = "sequence", sequenceName = "folder_id_seq", allocationSize = 1)
 public class Folder implements DataModel {
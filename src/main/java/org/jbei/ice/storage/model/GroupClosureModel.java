@@ -0,0 +1,82 @@
+package org.jbei.ice.storage.model;
+
+import org.jbei.ice.storage.DataModel;
+import org.jbei.ice.storage.IDataTransferModel;
+
+import javax.persistence.*;
+
+/**
+ * Ancestor/descendant pair in the group hierarchy. Every group has a row for itself (with a depth of 0)
+ * and one for each of its ancestors so that all the parent groups of a set of groups can be retrieved with a single
+ * query instead of walking up the {@link Group#getParent()} references.
+ * <p>
+ * Rows are maintained by {@link org.jbei.ice.storage.hibernate.dao.GroupDAO} when groups are created, deleted
+ * or their parent changes
+ *
+ * @author Hector Plahar
+ */
+@Entity
+@Table(name = "group_closure",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"ancestor_id", "descendant_id"}),
+       indexes = @Index(name = "group_closure_descendant_idx", columnList = "descendant_id"))
+@SequenceGenerator(name = "sequence", sequenceName = "group_closure_id_seq", allocationSize = 1)
+public class GroupClosureModel implements DataModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "sequence")
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "ancestor_id", nullable = false)
+    private Group ancestor;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "descendant_id", nullable = false)
+    private Group descendant;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    public GroupClosureModel() {
+    }
+
+    public GroupClosureModel(Group ancestor, Group descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    public Group getAncestor() {
+        return ancestor;
+    }
+
+    public void setAncestor(Group ancestor) {
+        this.ancestor = ancestor;
+    }
+
+    public Group getDescendant() {
+        return descendant;
+    }
+
+    public void setDescendant(Group descendant) {
+        this.descendant = descendant;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    public IDataTransferModel toDataTransferObject() {
+        return null;
+    }
+}
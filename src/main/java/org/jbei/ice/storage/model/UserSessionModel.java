@@ -0,0 +1,89 @@
+package org.jbei.ice.storage.model;
+
+import org.jbei.ice.lib.account.session.UserSession;
+import org.jbei.ice.storage.DataModel;
+import org.jbei.ice.storage.IDataTransferModel;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Stored session of a user who has successfully authenticated. Used by
+ * {@link org.jbei.ice.lib.account.session.DatabaseSessionStore} so that sessions survive restarts and can be
+ * shared by several instances. Only a SHA-256 hash of the session id is stored since the session id
+ * is a bearer credential
+ *
+ * @author Hector Plahar
+ */
+@Entity
+@Table(name = "user_session")
+@SequenceGenerator(name = "sequence", sequenceName = "user_session_id_seq", allocationSize = 1)
+public class UserSessionModel implements DataModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "sequence")
+    private long id;
+
+    @Column(name = "session_hash", length = 64, nullable = false, unique = true)
+    private String sessionHash;
+
+    @Column(name = "user_id", length = 255, nullable = false)
+    private String userId;
+
+    @Column(name = "creation_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date creationTime;
+
+    @Column(name = "last_access_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastAccessTime;
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    public String getSessionHash() {
+        return sessionHash;
+    }
+
+    public void setSessionHash(String sessionHash) {
+        this.sessionHash = sessionHash;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(Date creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    public Date getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public void setLastAccessTime(Date lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    /**
+     * @param sessionId session id (whose hash is stored in this model)
+     */
+    public UserSession toUserSession(String sessionId) {
+        return new UserSession(sessionId, userId, creationTime.getTime(), lastAccessTime.getTime());
+    }
+
+    @Override
+    public IDataTransferModel toDataTransferObject() {
+        return null;
+    }
+}
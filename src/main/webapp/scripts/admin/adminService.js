@@ -14,7 +14,9 @@ adminService.factory('AdminSettings', function () {
         'PASSWORD_CHANGE_ALLOWED',
         'PART_NUMBER_PREFIX',
         'URI_PREFIX',
-        'BLAST_INSTALL_DIR'
+        'BLAST_INSTALL_DIR',
+        'SEQUENCE_SEARCH_ENGINE',
+        'SESSION_STORE'
     ];
 
     var emailSettingKeys = [
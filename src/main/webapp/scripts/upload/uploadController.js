@@ -2,8 +2,9 @@
 
 angular.module('ice.upload.controller', [])
     .controller('UploadController', function ($rootScope, $location, $scope, $uibModal, $cookieStore, $resource,
-                                              $stateParams, FileUploader, $http, UploadUtil, Util) {
+                                              $stateParams, $timeout, $window, FileUploader, $http, UploadUtil, Util) {
         var sid = $cookieStore.get("sessionId");
+        var progressTimer;
         //var upload = Upload(sid);
         var sheetData = [
             []
@@ -810,6 +811,26 @@ angular.module('ice.upload.controller', [])
             loop(0);//init
         };
 
+        //
+        // checks the progress of creating entries for an uploaded file and reloads the upload once complete
+        //
+        var checkProgress = function (id) {
+            Util.get("rest/uploads/" + id + "/progress", function (result) {
+                $scope.uploadProgress = result;
+                if (result.status == 'PROCESSING') {
+                    progressTimer = $timeout(function () {
+                        checkProgress(id);
+                    }, 2000);
+                } else {
+                    $window.location.reload();
+                }
+            });
+        };
+
+        $scope.$on('$destroy', function () {
+            $timeout.cancel(progressTimer);
+        });
+
         // retrieve
         $scope.uploadEntries = [];
 
@@ -828,6 +849,13 @@ angular.module('ice.upload.controller', [])
                             if (start === 0)
                                 createSheet();
 
+                            // entries are still being created for an uploaded file. no changes until complete
+                            if (start === 0 && result.status == 'PROCESSING') {
+                                angular.element("#dataTable").handsontable('updateSettings',
+                                    {readOnly: true, contextMenu: false});
+                                checkProgress(result.id);
+                            }
+
                             // else render on append data
                             $scope.bulkUpload.id = result.id;
                             $scope.bulkUpload.lastUpdate = result.lastUpdate;
@@ -946,8 +974,10 @@ angular.module('ice.upload.controller', [])
         };
     })
     .controller('BulkUploadModalController', function ($window, $scope, $location, $cookieStore, $routeParams, uploadId,
-                                                       $uibModalInstance, FileUploader, addType, linkedAddType, Util) {
+                                                       $uibModalInstance, $timeout, FileUploader, addType, linkedAddType,
+                                                       Util) {
         var sid = $cookieStore.get("sessionId");
+        var progressTimer;
         $scope.addType = addType;
 
         //
@@ -965,9 +995,48 @@ angular.module('ice.upload.controller', [])
 
         $scope.retryUpload = function () {
             $scope.uploadError = undefined;
+            $scope.uploadProgress = undefined;
             createUploader();
         };
 
+        //
+        // entries for the uploaded file are created on the server after the upload. check the progress until
+        // processing completes, then show the upload or the rows that could not be processed
+        //
+        var checkProgress = function (id) {
+            Util.get("rest/uploads/" + id + "/progress", function (result) {
+                $scope.uploadProgress = result;
+                if (result.status == 'PROCESSING') {
+                    progressTimer = $timeout(function () {
+                        checkProgress(id);
+                    }, 2000);
+                    return;
+                }
+
+                if (result.status == 'FAILED') {
+                    $scope.uploadProgress = undefined;
+                    $scope.uploadError = {
+                        message: "Error processing uploaded file",
+                        userMessage: result.message
+                    };
+                    Util.list("rest/uploads/" + id + "/errors", function (errors) {
+                        $scope.uploadError.rows = errors;
+                    });
+                    return;
+                }
+
+                $uibModalInstance.close();
+                $location.path("upload/" + id);
+            }, {}, function (error) {
+                $scope.uploadProgress = undefined;
+                $scope.uploadError = {message: "Unknown server error"};
+            });
+        };
+
+        $scope.$on('$destroy', function () {
+            $timeout.cancel(progressTimer);
+        });
+
         var createUploader = function () {
             if ($scope.importUploader) {
                 $scope.importUploader.cancelAll();
@@ -992,8 +1061,8 @@ angular.module('ice.upload.controller', [])
             $scope.modalClose = "Close";
             $scope.processing = false;
             if (response.success && response.uploadInfo.id) {
-                $uibModalInstance.close();
-                $location.path("upload/" + response.uploadInfo.id);
+                $scope.uploadProgress = {status: 'PROCESSING'};
+                checkProgress(response.uploadInfo.id);
             } else {
                 $scope.uploadError = "Unknown server error";
             }
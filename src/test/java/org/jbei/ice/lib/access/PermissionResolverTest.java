@@ -0,0 +1,157 @@
+package org.jbei.ice.lib.access;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.folder.FolderType;
+import org.jbei.ice.lib.group.GroupController;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.*;
+import org.junit.*;
+
+import java.util.*;
+
+/**
+ * @author Hector Plahar
+ */
+public class PermissionResolverTest {
+
+    private PermissionResolver resolver;
+
+    @BeforeClass
+    public static void init() {
+        HibernateUtil.initializeMock();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.beginTransaction();
+        resolver = new PermissionResolver();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testCanRead() throws Exception {
+        Account owner = AccountCreator.createTestAccount("PermissionResolverTest.testCanRead", false);
+        Account account = AccountCreator.createTestAccount("PermissionResolverTest.testCanRead2", false);
+
+        Strain owned = TestEntryCreator.createTestStrain(account);
+        Strain explicit = TestEntryCreator.createTestStrain(owner);
+        Strain inFolder = TestEntryCreator.createTestStrain(owner);
+        Strain inPublicFolder = TestEntryCreator.createTestStrain(owner);
+        Strain notShared = TestEntryCreator.createTestStrain(owner);
+        List<Long> entries = Arrays.asList(notShared.getId(), inPublicFolder.getId(), inFolder.getId(),
+                explicit.getId(), owned.getId());
+
+        Assert.assertEquals(Collections.singletonList(owned.getId()), resolver.getCanReadEntries(account, entries));
+
+        // explicit read permission
+        createPermission(account, null, explicit, null, true, false);
+
+        // folder permission
+        Folder folder = createFolder(owner, FolderType.PRIVATE, inFolder);
+        createPermission(account, null, null, folder, false, true);
+
+        // public folder
+        createFolder(owner, FolderType.PUBLIC, inPublicFolder);
+
+        Assert.assertEquals(Arrays.asList(inPublicFolder.getId(), inFolder.getId(), explicit.getId(),
+                owned.getId()), resolver.getCanReadEntries(account, entries));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(inPublicFolder.getId(), inFolder.getId(),
+                explicit.getId(), owned.getId())), resolver.canRead(account, entries));
+
+        // only the public folder without an account
+        Assert.assertEquals(Collections.singleton(inPublicFolder.getId()), resolver.canRead(null, entries));
+        Assert.assertTrue(resolver.canRead(account, new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void testCanWrite() throws Exception {
+        Account owner = AccountCreator.createTestAccount("PermissionResolverTest.testCanWrite", false);
+        Account account = AccountCreator.createTestAccount("PermissionResolverTest.testCanWrite2", false);
+
+        Strain owned = TestEntryCreator.createTestStrain(account);
+        Strain readable = TestEntryCreator.createTestStrain(owner);
+        Strain writable = TestEntryCreator.createTestStrain(owner);
+        createPermission(account, null, readable, null, true, false);
+        createPermission(account, null, writable, null, false, true);
+
+        Set<Long> result = resolver.canWrite(account, Arrays.asList(owned.getId(), readable.getId(),
+                writable.getId()));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(owned.getId(), writable.getId())), result);
+        Assert.assertTrue(resolver.canRead(account, Collections.singletonList(readable.getId()))
+                .contains(readable.getId()));
+    }
+
+    @Test
+    public void testGroupPermissions() throws Exception {
+        Account owner = AccountCreator.createTestAccount("PermissionResolverTest.testGroupPermissions", false);
+        Account account = AccountCreator.createTestAccount("PermissionResolverTest.testGroupPermissions2", false);
+        Strain strain = TestEntryCreator.createTestStrain(owner);
+        List<Long> entries = Collections.singletonList(strain.getId());
+
+        GroupController controller = new GroupController();
+        Group parent = createGroup(owner, "parent", null);
+        Group child = createGroup(owner, "child", parent);
+        createPermission(null, parent, strain, null, false, true);
+
+        Set<Long> groupIds = resolver.getGroupIds(account);
+        Assert.assertTrue(groupIds.contains(controller.createOrRetrievePublicGroup().getId()));
+        Assert.assertFalse(groupIds.contains(parent.getId()));
+        Assert.assertTrue(resolver.canWrite(account, entries).isEmpty());
+
+        // cached
+        Assert.assertSame(groupIds, resolver.getGroupIds(account));
+
+        // membership of the child group grants the permissions of the parent group
+        account.getGroups().add(child);
+        DAOFactory.getAccountDAO().update(account);
+
+        groupIds = resolver.getGroupIds(account);
+        Assert.assertTrue(groupIds.contains(child.getId()));
+        Assert.assertTrue(groupIds.contains(parent.getId()));
+        Assert.assertEquals(entries, resolver.getCanReadEntries(account, entries));
+        Assert.assertEquals(new HashSet<>(entries), resolver.canWrite(account, entries));
+
+        // changes to groups invalidate all accounts
+        child.setParent(null);
+        DAOFactory.getGroupDAO().update(child);
+        Assert.assertFalse(resolver.getGroupIds(account).contains(parent.getId()));
+        Assert.assertTrue(resolver.canWrite(account, entries).isEmpty());
+        Assert.assertTrue(PermissionResolver.getStatistics().getHitCount() > 0);
+    }
+
+    private Group createGroup(Account owner, String label, Group parent) {
+        Group group = new Group();
+        group.setOwner(owner);
+        group.setLabel(label);
+        group.setDescription(label);
+        group.setParent(parent);
+        return new GroupController().save(group);
+    }
+
+    private Folder createFolder(Account owner, FolderType type, Entry entry) {
+        Folder folder = new Folder("folder");
+        folder.setOwnerEmail(owner.getEmail());
+        folder.setType(type);
+        folder.setCreationTime(new Date());
+        folder = DAOFactory.getFolderDAO().create(folder);
+        return DAOFactory.getFolderDAO().addFolderContents(folder, Collections.singletonList(entry));
+    }
+
+    private void createPermission(Account account, Group group, Entry entry, Folder folder, boolean read,
+                                  boolean write) {
+        Permission permission = new Permission();
+        permission.setAccount(account);
+        permission.setGroup(group);
+        permission.setEntry(entry);
+        permission.setFolder(folder);
+        permission.setCanRead(read);
+        permission.setCanWrite(write);
+        DAOFactory.getPermissionDAO().create(permission);
+    }
+}
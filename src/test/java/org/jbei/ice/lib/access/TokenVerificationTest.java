@@ -8,6 +8,7 @@ import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.ApiKey;
 import org.jbei.ice.storage.model.RemotePartner;
 import org.junit.*;
 
@@ -67,4 +68,59 @@ public class TokenVerificationTest {
         Assert.assertNotNull(DAOFactory.getRemotePartnerDAO().create(remotePartner));
         Assert.assertNotNull(verification.verifyPartnerToken(remotePartner.getUrl(), token));
     }
+
+    @Test
+    public void testVerifyCachedTokens() throws Exception {
+        Account account = AccountCreator.createTestAccount("testVerifyCachedTokens", false);
+        String userId = account.getEmail();
+        AccessKey accessKey = new UserApiKeys(userId).requestKey("cached.jbei.org");
+
+        long hits = VerifiedTokenCache.getInstance().getStatistics().getHitCount();
+        Assert.assertEquals(userId, verification.verifyAPIKey(accessKey.getToken(), accessKey.getClientId(), userId));
+        Assert.assertEquals(userId, verification.verifyAPIKey(accessKey.getToken(), accessKey.getClientId(), userId));
+        Assert.assertEquals(hits + 1, VerifiedTokenCache.getInstance().getStatistics().getHitCount());
+
+        // a verified token does not verify other tokens for the same client
+        try {
+            verification.verifyAPIKey(accessKey.getToken() + "a", accessKey.getClientId(), userId);
+            Assert.fail("Invalid token verified");
+        } catch (PermissionException e) {
+            // expected
+        }
+
+        // changed token
+        ApiKey apiKey = DAOFactory.getApiKeyDAO().getByClientId(accessKey.getClientId());
+        apiKey.setHashedToken("changed");
+        DAOFactory.getApiKeyDAO().update(apiKey);
+        try {
+            verification.verifyAPIKey(accessKey.getToken(), accessKey.getClientId(), userId);
+            Assert.fail("Changed token verified");
+        } catch (PermissionException e) {
+            // expected
+        }
+
+        RemotePartner remotePartner = new RemotePartner();
+        remotePartner.setName("jbei-cached");
+        remotePartner.setUrl("cached.jbei.org");
+        remotePartner.setPartnerStatus(RemotePartnerStatus.APPROVED);
+        TokenHash tokenHash = new TokenHash();
+        remotePartner.setSalt(tokenHash.generateSalt());
+        String token = tokenHash.generateRandomToken();
+        remotePartner.setAuthenticationToken(tokenHash.encrypt(token + remotePartner.getUrl(),
+                remotePartner.getSalt()));
+        remotePartner.setApiKey("foo");
+        remotePartner.setAdded(new Date());
+        remotePartner = DAOFactory.getRemotePartnerDAO().create(remotePartner);
+        Assert.assertNotNull(verification.verifyPartnerToken(remotePartner.getUrl(), token));
+        Assert.assertNotNull(verification.verifyPartnerToken(remotePartner.getUrl(), token));
+        Assert.assertNull(verification.verifyPartnerToken(remotePartner.getUrl(), tokenHash.generateRandomToken()));
+
+        // new token for partner
+        String newToken = tokenHash.generateRandomToken();
+        remotePartner.setAuthenticationToken(tokenHash.encrypt(newToken + remotePartner.getUrl(),
+                remotePartner.getSalt()));
+        DAOFactory.getRemotePartnerDAO().update(remotePartner);
+        Assert.assertNull(verification.verifyPartnerToken(remotePartner.getUrl(), token));
+        Assert.assertNotNull(verification.verifyPartnerToken(remotePartner.getUrl(), newToken));
+    }
 }
\ No newline at end of file
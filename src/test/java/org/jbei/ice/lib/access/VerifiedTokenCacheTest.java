@@ -0,0 +1,66 @@
+package org.jbei.ice.lib.access;
+
+import org.jbei.ice.lib.dto.CacheStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Hector Plahar
+ */
+public class VerifiedTokenCacheTest {
+
+    @Test
+    public void testGetKey() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60000);
+        String key = cache.getKey("api", "client", "token");
+        Assert.assertEquals(key, cache.getKey("api", "client", "token"));
+        Assert.assertFalse(key.contains("token"));
+        Assert.assertNotEquals(key, cache.getKey("api", "clien", "ttoken"));
+        Assert.assertNotEquals(key, cache.getKey("partner", "client", "token"));
+
+        // keys are not shared by caches
+        Assert.assertNotEquals(key, new VerifiedTokenCache(10, 60000).getKey("api", "client", "token"));
+    }
+
+    @Test
+    public void testIsVerified() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, 60000);
+        String key = cache.getKey("api", "client", "token");
+        Assert.assertFalse(cache.isVerified(key, "hash"));
+        cache.put(key, "hash");
+        Assert.assertTrue(cache.isVerified(key, "hash"));
+
+        // stored hash changed
+        Assert.assertFalse(cache.isVerified(key, "hash2"));
+        Assert.assertFalse(cache.isVerified(key, "hash"));
+
+        // least recently used entry is removed
+        cache.put(key, "hash");
+        String key2 = cache.getKey("api", "client2", "token");
+        cache.put(key2, "hash");
+        Assert.assertTrue(cache.isVerified(key, "hash"));
+        cache.put(cache.getKey("api", "client3", "token"), "hash");
+        Assert.assertTrue(cache.isVerified(key, "hash"));
+        Assert.assertFalse(cache.isVerified(key2, "hash"));
+
+        cache.invalidate();
+        Assert.assertFalse(cache.isVerified(key, "hash"));
+
+        CacheStatistics statistics = cache.getStatistics();
+        Assert.assertEquals(VerifiedTokenCache.REGION, statistics.getRegion());
+        Assert.assertEquals(3, statistics.getHitCount());
+        Assert.assertEquals(5, statistics.getMissCount());
+        Assert.assertEquals(4, statistics.getPutCount());
+        Assert.assertEquals(0, statistics.getElementCount());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 50);
+        String key = cache.getKey("partner", "test.jbei.org", "token");
+        cache.put(key, "hash");
+        Assert.assertTrue(cache.isVerified(key, "hash"));
+        Thread.sleep(100);
+        Assert.assertFalse(cache.isVerified(key, "hash"));
+    }
+}
@@ -0,0 +1,56 @@
+package org.jbei.ice.lib.account;
+
+import org.jbei.ice.lib.account.session.MemorySessionStore;
+import org.jbei.ice.lib.account.session.SessionStoreType;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.junit.*;
+
+/**
+ * @author Hector Plahar
+ */
+public class UserSessionsTest {
+
+    @BeforeClass
+    public static void init() {
+        HibernateUtil.initializeMock();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testGetSessionStoreType() throws Exception {
+        Assert.assertEquals(SessionStoreType.MEMORY, UserSessions.getSessionStoreType());
+        Assert.assertTrue(UserSessions.getStore() instanceof MemorySessionStore);
+    }
+
+    @Test
+    public void testCreateSessionForUser() throws Exception {
+        Assert.assertNull(UserSessions.getUserIdBySession(null));
+        Assert.assertNull(UserSessions.getUserIdBySession(""));
+
+        String sessionId = UserSessions.createNewSessionForUser("testCreateSessionForUser");
+        Assert.assertEquals("testCreateSessionForUser", UserSessions.getUserIdBySession(sessionId));
+
+        // session id too short
+        String other = UserSessions.createSessionForUser("testCreateSessionForUser", "abc");
+        Assert.assertNotEquals("abc", other);
+        Assert.assertEquals("testCreateSessionForUser", UserSessions.getUserIdBySession(other));
+
+        Assert.assertEquals("session-id", UserSessions.createSessionForUser("testCreateSessionForUser2",
+                "session-id"));
+        Assert.assertEquals("testCreateSessionForUser2", UserSessions.getUserIdBySession("session-id"));
+
+        UserSessions.invalidateSession("testCreateSessionForUser");
+        Assert.assertNull(UserSessions.getUserIdBySession(sessionId));
+        Assert.assertNull(UserSessions.getUserIdBySession(other));
+        Assert.assertEquals("testCreateSessionForUser2", UserSessions.getUserIdBySession("session-id"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.jbei.ice.lib.account.session;
+
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.UserSessionModel;
+import org.junit.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Hector Plahar
+ */
+public class DatabaseSessionStoreTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @BeforeClass
+    public static void init() {
+        HibernateUtil.initializeMock();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testGetUserId() throws Exception {
+        DatabaseSessionStore store = new DatabaseSessionStore(DAY, DAY, 60000, 60000, 100);
+        Assert.assertNull(store.getUserId("db-session1"));
+        store.put("db-session1", "db-user1");
+        store.put("db-session2", "db-user1");
+        Assert.assertEquals("db-user1", store.getUserId("db-session1"));
+
+        // sessions are shared with other stores using the same database
+        DatabaseSessionStore other = new DatabaseSessionStore(DAY, DAY, 60000, 60000, 100);
+        Assert.assertEquals("db-user1", other.getUserId("db-session2"));
+        other.put("db-session3", "db-user2");
+        Assert.assertEquals("db-user2", store.getUserId("db-session3"));
+
+        // replaced
+        store.put("db-session1", "db-user2");
+        Assert.assertEquals("db-user2", store.getUserId("db-session1"));
+        UserSessionModel model = DAOFactory.getUserSessionDAO()
+                .getBySessionHash(DatabaseSessionStore.hash("db-session1"));
+        Assert.assertEquals("db-user2", model.getUserId());
+
+        // the session id itself is not stored
+        Assert.assertNotEquals("db-session1", model.getSessionHash());
+        Assert.assertEquals(64, model.getSessionHash().length());
+
+        store.remove("db-session3");
+        Assert.assertNull(store.getUserId("db-session3"));
+        Assert.assertNull(DAOFactory.getUserSessionDAO().getBySessionHash(DatabaseSessionStore.hash("db-session3")));
+
+        store.removeUserSessions("db-user1");
+        Assert.assertNull(store.getUserId("db-session2"));
+        Assert.assertEquals("db-user2", store.getUserId("db-session1"));
+    }
+
+    @Test
+    public void testCachedSessions() throws Exception {
+        DatabaseSessionStore store = new DatabaseSessionStore(DAY, DAY, 200, 0, 100);
+        DatabaseSessionStore other = new DatabaseSessionStore(DAY, DAY, 200, 0, 100);
+        store.put("db-cached1", "db-cached-user");
+        Assert.assertEquals("db-cached-user", other.getUserId("db-cached1"));
+
+        // removal is seen by other stores once their cached copy expires
+        store.remove("db-cached1");
+        Assert.assertNull(store.getUserId("db-cached1"));
+        Assert.assertEquals("db-cached-user", other.getUserId("db-cached1"));
+        Thread.sleep(300);
+        Assert.assertNull(other.getUserId("db-cached1"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        DatabaseSessionStore store = new DatabaseSessionStore(DAY, TimeUnit.HOURS.toMillis(1), 0, 0, 100);
+        long now = System.currentTimeMillis();
+
+        // idle
+        UserSessionModel model = new UserSessionModel();
+        model.setSessionHash(DatabaseSessionStore.hash("db-expired1"));
+        model.setUserId("db-expired-user");
+        model.setCreationTime(new Date(now - TimeUnit.HOURS.toMillis(3)));
+        model.setLastAccessTime(new Date(now - TimeUnit.HOURS.toMillis(2)));
+        DAOFactory.getUserSessionDAO().create(model);
+
+        // too old
+        model = new UserSessionModel();
+        model.setSessionHash(DatabaseSessionStore.hash("db-expired2"));
+        model.setUserId("db-expired-user");
+        model.setCreationTime(new Date(now - 2 * DAY));
+        model.setLastAccessTime(new Date(now));
+        DAOFactory.getUserSessionDAO().create(model);
+
+        store.put("db-expired3", "db-expired-user");
+        Assert.assertNull(store.getUserId("db-expired1"));
+        Assert.assertNull(DAOFactory.getUserSessionDAO().getBySessionHash(DatabaseSessionStore.hash("db-expired1")));
+
+        store.removeExpired();
+        Assert.assertNull(DAOFactory.getUserSessionDAO().getBySessionHash(DatabaseSessionStore.hash("db-expired2")));
+        Assert.assertEquals("db-expired-user", store.getUserId("db-expired3"));
+    }
+}
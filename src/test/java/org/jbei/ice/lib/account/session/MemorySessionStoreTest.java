@@ -0,0 +1,104 @@
+package org.jbei.ice.lib.account.session;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Hector Plahar
+ */
+public class MemorySessionStoreTest {
+
+    @Test
+    public void testGetUserId() throws Exception {
+        MemorySessionStore store = new MemorySessionStore(TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1));
+        Assert.assertNull(store.getUserId("session1"));
+        store.put("session1", "user1");
+        store.put("session2", "user1");
+        store.put("session3", "user2");
+        Assert.assertEquals("user1", store.getUserId("session1"));
+        Assert.assertEquals("user1", store.getUserId("session2"));
+        Assert.assertEquals("user2", store.getUserId("session3"));
+
+        // replaced
+        store.put("session2", "user2");
+        Assert.assertEquals("user2", store.getUserId("session2"));
+
+        store.remove("session3");
+        Assert.assertNull(store.getUserId("session3"));
+
+        store.removeUserSessions("user2");
+        Assert.assertNull(store.getUserId("session2"));
+        Assert.assertEquals("user1", store.getUserId("session1"));
+        store.removeUserSessions("user1");
+        Assert.assertNull(store.getUserId("session1"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        // idle timeout
+        MemorySessionStore store = new MemorySessionStore(TimeUnit.DAYS.toMillis(1), 200);
+        store.put("session1", "user1");
+        store.put("session2", "user1");
+        for (int i = 0; i < 3; i += 1) {
+            Thread.sleep(100);
+            Assert.assertEquals("user1", store.getUserId("session1"));
+        }
+        Assert.assertNull(store.getUserId("session2"));
+        Thread.sleep(300);
+        Assert.assertNull(store.getUserId("session1"));
+
+        // maximum age
+        store = new MemorySessionStore(200, TimeUnit.DAYS.toMillis(1));
+        store.put("session1", "user1");
+        store.put("session2", "user2");
+        Thread.sleep(300);
+        store.put("session3", "user2");
+        store.removeExpired();
+        Assert.assertNull(store.getUserId("session1"));
+        Assert.assertNull(store.getUserId("session2"));
+        Assert.assertEquals("user2", store.getUserId("session3"));
+    }
+
+    @Test
+    public void testConcurrentPut() throws Exception {
+        MemorySessionStore store = new MemorySessionStore(TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread += 1) {
+                final int id = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i += 1) {
+                        store.put("session" + id + "-" + i, "user" + (i % 5));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int thread = 0; thread < 4; thread += 1) {
+            for (int i = 0; i < 1000; i += 1) {
+                Assert.assertEquals("user" + (i % 5), store.getUserId("session" + thread + "-" + i));
+            }
+        }
+
+        // all sessions of the user were recorded
+        store.removeUserSessions("user0");
+        for (int thread = 0; thread < 4; thread += 1) {
+            for (int i = 0; i < 1000; i += 5) {
+                Assert.assertNull(store.getUserId("session" + thread + "-" + i));
+            }
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package org.jbei.ice.lib.bulkupload;
 
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.query.dsl.QueryBuilder;
 import org.jbei.ice.lib.AccountCreator;
 import org.jbei.ice.lib.dto.entry.EntryType;
 import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.lib.dto.entry.Visibility;
 import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.hibernate.dao.BulkUploadDAO;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.BulkUpload;
+import org.jbei.ice.storage.model.Entry;
 import org.junit.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
 /**
  * @author Hector Plahar
  */
@@ -88,6 +100,113 @@ public class BulkEntryCreatorTest {
         Assert.assertTrue(retrievedPart.getLinkedParts().size() == 1);
     }
 
+    @Test
+    public void testCreateEntries() throws Exception {
+        Account account = AccountCreator.createTestAccount("testCreateEntries", false);
+        Account pi = AccountCreator.createTestAccount("testCreateEntriesPI", false);
+        long uploadId = creator.createBulkUpload(account.getEmail(), EntryType.PLASMID);
+
+        // spans multiple chunks
+        int count = BulkEntryCreator.CHUNK_SIZE * 2 + 50;
+        List<PartWithSample> data = new ArrayList<>();
+        HashMap<String, InputStream> files = new HashMap<>();
+        int expectedSequences = 0;
+        for (int i = 0; i < count; i += 1) {
+            PartData partData = new PartData(EntryType.PLASMID);
+            partData.setName("bulkcreateentries" + i);
+            partData.setShortDescription("bulkcreateentries summary");
+            partData.setBioSafetyLevel(1);
+            partData.setIndex(i);
+            if (i % 2 == 0)
+                partData.setPrincipalInvestigatorEmail(pi.getEmail());
+            if (i % 50 == 0) {
+                String fileName = "sequence" + i + ".fasta";
+                partData.setSequenceFileName(fileName);
+                files.put(fileName, new ByteArrayInputStream(">seq\natgcatgcatgcatgcatgc\n".getBytes()));
+                expectedSequences += 1;
+            }
+            data.add(new PartWithSample(null, partData));
+        }
+
+        Assert.assertTrue(creator.createEntries(account.getEmail(), uploadId, data, files::get));
+
+        BulkUploadDAO dao = DAOFactory.getBulkUploadDAO();
+        BulkUpload upload = dao.get(uploadId);
+        Assert.assertEquals(BulkUploadStatus.IN_PROGRESS, upload.getStatus());
+        Assert.assertEquals(count, upload.getRowCount());
+        Assert.assertEquals(count, upload.getProcessedRowCount());
+        Assert.assertEquals(count, dao.retrieveSavedDraftCount(uploadId));
+
+        List<Long> entryIds = dao.getEntryIds(upload);
+        Assert.assertEquals(count, entryIds.size());
+        int sequenceCount = 0;
+        for (Long entryId : entryIds) {
+            Entry entry = DAOFactory.getEntryDAO().get(entryId);
+            Assert.assertEquals(Visibility.DRAFT.getValue(), entry.getVisibility().intValue());
+            Assert.assertTrue(DAOFactory.getPermissionDAO().hasPermissionMulti(entry, null, account, null,
+                    false, true));
+            if (DAOFactory.getSequenceDAO().hasSequence(entryId))
+                sequenceCount += 1;
+        }
+        Assert.assertEquals(expectedSequences, sequenceCount);
+
+        // entries are indexed once all are created
+        FullTextSession session = Search.getFullTextSession(HibernateUtil.getSessionFactory().getCurrentSession());
+        QueryBuilder qb = session.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
+        org.apache.lucene.search.Query query = qb.keyword().onField("shortDescription")
+                .matching("bulkcreateentries").createQuery();
+        Assert.assertEquals(count, session.createFullTextQuery(query, Entry.class).getResultSize());
+    }
+
+    @Test
+    public void testCreateEntriesFailure() throws Exception {
+        Account account = AccountCreator.createTestAccount("testCreateEntriesFailure", false);
+        long uploadId = creator.createBulkUpload(account.getEmail(), EntryType.PLASMID);
+
+        // fails in the second chunk
+        String failName = "bulkcreatefailure" + (BulkEntryCreator.CHUNK_SIZE + 10);
+        BulkEntryCreator failingCreator = new BulkEntryCreator() {
+            @Override
+            protected void addWritePermission(Account account, Entry entry) {
+                if (failName.equals(entry.getName()))
+                    throw new IllegalStateException("failed");
+                super.addWritePermission(account, entry);
+            }
+        };
+
+        int count = BulkEntryCreator.CHUNK_SIZE * 2;
+        List<PartWithSample> data = new ArrayList<>();
+        for (int i = 0; i < count; i += 1) {
+            PartData partData = new PartData(EntryType.PLASMID);
+            partData.setName("bulkcreatefailure" + i);
+            partData.setShortDescription("bulkcreatefailure summary");
+            partData.setBioSafetyLevel(1);
+            partData.setIndex(i);
+            data.add(new PartWithSample(null, partData));
+        }
+
+        try {
+            failingCreator.createEntries(account.getEmail(), uploadId, data, null);
+            Assert.fail("Expected entry creation to fail");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("failed", e.getMessage());
+        }
+
+        // first chunk is committed and indexed
+        BulkUploadDAO dao = DAOFactory.getBulkUploadDAO();
+        BulkUpload upload = dao.get(uploadId);
+        Assert.assertEquals(BulkUploadStatus.PROCESSING, upload.getStatus());
+        Assert.assertEquals(BulkEntryCreator.CHUNK_SIZE, upload.getProcessedRowCount());
+        Assert.assertEquals(BulkEntryCreator.CHUNK_SIZE, dao.retrieveSavedDraftCount(uploadId));
+
+        FullTextSession session = Search.getFullTextSession(HibernateUtil.getSessionFactory().getCurrentSession());
+        QueryBuilder qb = session.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
+        org.apache.lucene.search.Query query = qb.keyword().onField("shortDescription")
+                .matching("bulkcreatefailure").createQuery();
+        Assert.assertEquals(BulkEntryCreator.CHUNK_SIZE, session.createFullTextQuery(query, Entry.class)
+                .getResultSize());
+    }
+
     @After
     public void tearDown() throws Exception {
         HibernateUtil.commitTransaction();
@@ -0,0 +1,288 @@
+package org.jbei.ice.lib.bulkupload;
+
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.config.ConfigurationController;
+import org.jbei.ice.lib.dto.ConfigurationKey;
+import org.jbei.ice.lib.dto.entry.EntryField;
+import org.jbei.ice.lib.dto.entry.EntryType;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.hibernate.dao.BulkUploadDAO;
+import org.jbei.ice.storage.model.*;
+import org.junit.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @author Hector Plahar
+ */
+public class FileBulkUploadTest {
+
+    private static final String HEADER = "Name,Summary,BioSafety Level,Status,Creator,Creator Email,Sequence File\n";
+
+    private BulkUploadDAO dao;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        HibernateUtil.initializeMock();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.beginTransaction();
+        dao = DAOFactory.getBulkUploadDAO();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        Account account = AccountCreator.createTestAccount("FileBulkUploadTest.testSubmit", false);
+        Path path = createCSVFile("fileuploadsubmit", 10);
+
+        ProcessedBulkUpload processed = new FileBulkUpload(account.getEmail(), path, EntryType.PART).submit();
+        Assert.assertTrue(processed.isSuccess());
+        long uploadId = processed.getUploadInfo().getId();
+        BulkUpload upload = dao.get(uploadId);
+        Assert.assertEquals(BulkUploadStatus.PROCESSING, upload.getStatus());
+        Assert.assertEquals(path.toAbsolutePath().toString(), upload.getFilePath());
+
+        // task is run once the upload is committed
+        upload = waitForProcessing(uploadId);
+        Assert.assertEquals(BulkUploadStatus.IN_PROGRESS, upload.getStatus());
+        Assert.assertEquals(10, upload.getRowCount());
+        Assert.assertEquals(10, upload.getProcessedRowCount());
+        Assert.assertEquals(10, dao.retrieveSavedDraftCount(uploadId));
+        Assert.assertNull(upload.getFilePath());
+        Assert.assertFalse(path.toFile().exists());
+
+        BulkUploadProgress progress = new BulkUploadController().getProgress(account.getEmail(), uploadId);
+        Assert.assertEquals(BulkUploadStatus.IN_PROGRESS, progress.getStatus());
+        Assert.assertEquals(10, progress.getProcessedRowCount());
+    }
+
+    @Test
+    public void testSubmitInvalid() throws Exception {
+        Account account = AccountCreator.createTestAccount("FileBulkUploadTest.testSubmitInvalid", false);
+        String csv = HEADER + "name1,summary,1,Complete,creator,creator@example.com,\n"
+                + ",summary,1,Complete,creator,creator@example.com,\n"
+                + "name3,summary,1,Complete,creator,creator@example.com,\n"
+                + "name4,,1,Complete,creator,creator@example.com,\n";
+        Path path = Files.createTempFile("FileBulkUploadTest", ".csv");
+        Files.write(path, csv.getBytes(StandardCharsets.UTF_8));
+
+        long uploadId = new FileBulkUpload(account.getEmail(), path, EntryType.PART).submit().getUploadInfo().getId();
+        BulkUpload upload = waitForProcessing(uploadId);
+        Assert.assertEquals(BulkUploadStatus.FAILED, upload.getStatus());
+        Assert.assertEquals("Validation failed for 2 row(s)", upload.getMessage());
+        Assert.assertEquals(0, dao.retrieveSavedDraftCount(uploadId));
+        Assert.assertTrue(path.toFile().exists());
+
+        // errors are reported by line
+        List<BulkUploadError> errors = new ArrayList<>();
+        new BulkUploadController().validateFile(account.getEmail(), uploadId, errors::add);
+        Assert.assertEquals(2, errors.size());
+        Assert.assertEquals(3, errors.get(0).getRow());
+        Assert.assertTrue(errors.get(0).getFields().contains(EntryField.NAME));
+        Assert.assertEquals(5, errors.get(1).getRow());
+        Assert.assertTrue(errors.get(1).getFields().contains(EntryField.SUMMARY));
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        Account account = AccountCreator.createTestAccount("FileBulkUploadTest.testResume", false);
+        int count = BulkEntryCreator.CHUNK_SIZE + 20;
+        Path path = createCSVFile("fileuploadresume", count);
+
+        // upload whose processing was interrupted after the first chunk was committed
+        BulkEntryCreator creator = new BulkEntryCreator();
+        long uploadId = creator.createBulkUpload(account.getEmail(), EntryType.PART);
+        BulkUpload upload = dao.get(uploadId);
+        upload.setStatus(BulkUploadStatus.PROCESSING);
+        upload.setFilePath(path.toString());
+        upload.setRowCount(count);
+        upload.setProcessedRowCount(BulkEntryCreator.CHUNK_SIZE);
+        dao.update(upload);
+
+        new BulkUploadTask(uploadId).execute();
+
+        upload = dao.get(uploadId);
+        Assert.assertEquals(BulkUploadStatus.IN_PROGRESS, upload.getStatus());
+        Assert.assertEquals(count, upload.getProcessedRowCount());
+        Assert.assertEquals(count - BulkEntryCreator.CHUNK_SIZE, dao.retrieveSavedDraftCount(uploadId));
+
+        // only the remaining rows were created
+        FullTextSession session = Search.getFullTextSession(HibernateUtil.getSessionFactory().getCurrentSession());
+        QueryBuilder qb = session.getSearchFactory().buildQueryBuilder().forEntity(Entry.class).get();
+        org.apache.lucene.search.Query query = qb.keyword().onField("name")
+                .matching("fileuploadresume" + (count - 1)).createQuery();
+        Assert.assertEquals(1, session.createFullTextQuery(query, Entry.class).getResultSize());
+        query = qb.keyword().onField("name").matching("fileuploadresume0").createQuery();
+        Assert.assertEquals(0, session.createFullTextQuery(query, Entry.class).getResultSize());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        Account account = AccountCreator.createTestAccount("FileBulkUploadTest.testRetry", false);
+        int count = BulkEntryCreator.CHUNK_SIZE + 20;
+        Path path = createCSVFile("fileuploadretry", count);
+
+        // upload that failed with a server error after the first chunk was committed
+        BulkEntryCreator creator = new BulkEntryCreator();
+        long uploadId = creator.createBulkUpload(account.getEmail(), EntryType.PART);
+        BulkUpload upload = dao.get(uploadId);
+        upload.setStatus(BulkUploadStatus.FAILED);
+        upload.setMessage("Server error processing upload.");
+        upload.setFilePath(path.toString());
+        upload.setRowCount(count);
+        upload.setProcessedRowCount(BulkEntryCreator.CHUNK_SIZE);
+        dao.update(upload);
+
+        // only failed uploads can be retried
+        Assert.assertNull(creator.updateStatus(account.getEmail(), creator.createBulkUpload(account.getEmail(),
+                EntryType.PART), BulkUploadStatus.PROCESSING));
+
+        Assert.assertNotNull(creator.updateStatus(account.getEmail(), uploadId, BulkUploadStatus.PROCESSING));
+
+        // no other status changes while the upload is processing
+        Assert.assertNull(creator.updateStatus(account.getEmail(), uploadId, BulkUploadStatus.PENDING_APPROVAL));
+        Assert.assertNull(creator.updateStatus(account.getEmail(), uploadId, BulkUploadStatus.BULK_EDIT));
+        Assert.assertNull(creator.updateStatus(account.getEmail(), uploadId, BulkUploadStatus.APPROVED));
+        Assert.assertNull(creator.updateStatus(account.getEmail(), uploadId, BulkUploadStatus.PROCESSING));
+        Assert.assertEquals(BulkUploadStatus.PROCESSING, dao.get(uploadId).getStatus());
+
+        upload = waitForProcessing(uploadId);
+        Assert.assertEquals(BulkUploadStatus.IN_PROGRESS, upload.getStatus());
+        Assert.assertNull(upload.getMessage());
+        Assert.assertEquals(count, upload.getProcessedRowCount());
+        Assert.assertEquals(count - BulkEntryCreator.CHUNK_SIZE, dao.retrieveSavedDraftCount(uploadId));
+        Assert.assertFalse(path.toFile().exists());
+    }
+
+    @Test
+    public void testValidateZip() throws Exception {
+        Account account = AccountCreator.createTestAccount("FileBulkUploadTest.testValidateZip", false);
+        String csv = HEADER + "name1,summary,1,Complete,creator,creator@example.com,sequence1.fasta\n"
+                + "name2,summary,1,Complete,creator,creator@example.com,sequence2.fasta\n";
+
+        File file = Files.createTempFile("FileBulkUploadTest", ".zip").toFile();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("upload.csv"));
+            zip.write(csv.getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("sequence1.fasta"));
+            zip.write(">seq\natgcatgc\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<BulkUploadError> errors = new ArrayList<>();
+        new FileBulkUpload(account.getEmail(), file.toPath(), EntryType.PART).validate(errors::add);
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals(3, errors.get(0).getRow());
+        Assert.assertEquals("Sequence file \"sequence2.fasta\" not found in the zip archive",
+                errors.get(0).getMessage());
+
+        ProcessedBulkUpload processed = new FileBulkUpload(account.getEmail(), file.toPath(), EntryType.PART)
+                .process();
+        Assert.assertFalse(processed.isSuccess());
+        Assert.assertEquals(errors.get(0).getMessage(), processed.getUserMessage());
+        Assert.assertTrue(file.delete());
+    }
+
+    @Test
+    public void testProcessZip() throws Exception {
+        Account account = AccountCreator.createTestAccount("FileBulkUploadTest.testProcessZip", false);
+        ConfigurationController configurationController = new ConfigurationController();
+        String dataDirectory = configurationController.getPropertyValue(ConfigurationKey.DATA_DIRECTORY);
+        Path directory = Files.createTempDirectory("FileBulkUploadTest");
+        configurationController.setPropertyValue(ConfigurationKey.DATA_DIRECTORY, directory.toString());
+
+        try {
+            int count = 20;
+            StringBuilder csv = new StringBuilder(HEADER.replace("\n", ",Attachment File\n"));
+            for (int i = 0; i < count; i += 1) {
+                csv.append("zipname").append(i).append(",summary,1,Complete,creator,creator@example.com,")
+                        .append("sequence").append(i).append(".fasta,attachment").append(i).append(".txt\n");
+            }
+
+            File file = Files.createTempFile("FileBulkUploadTest", ".zip").toFile();
+            try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+                // members before and after the csv
+                for (int i = 0; i < count; i += 1) {
+                    if (i == count / 2) {
+                        zip.putNextEntry(new ZipEntry("upload/upload.csv"));
+                        zip.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+                    }
+                    zip.putNextEntry(new ZipEntry("upload/sequence" + i + ".fasta"));
+                    zip.write((">seq" + i + "\natgcatgcatgc\n").getBytes(StandardCharsets.UTF_8));
+                    zip.putNextEntry(new ZipEntry("upload/attachment" + i + ".txt"));
+                    zip.write(("attachment " + i).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            ProcessedBulkUpload processed = new FileBulkUpload(account.getEmail(), file.toPath(), EntryType.PART)
+                    .process();
+            Assert.assertTrue(processed.getUserMessage(), processed.isSuccess());
+            BulkUpload upload = dao.get(processed.getUploadInfo().getId());
+            List<Long> entryIds = dao.getEntryIds(upload);
+            Assert.assertEquals(count, entryIds.size());
+
+            for (Long entryId : entryIds) {
+                Entry entry = DAOFactory.getEntryDAO().get(entryId);
+                String index = entry.getName().substring("zipname".length());
+                Sequence sequence = DAOFactory.getSequenceDAO().getByEntry(entry);
+                Assert.assertEquals("sequence" + index + ".fasta", sequence.getFileName());
+                Assert.assertEquals("atgcatgcatgc", sequence.getSequence());
+
+                List<Attachment> attachments = DAOFactory.getAttachmentDAO().getByEntry(entry);
+                Assert.assertEquals(1, attachments.size());
+                Path attachmentFile = directory.resolve("attachments").resolve(attachments.get(0).getFileId());
+                Assert.assertEquals("attachment " + index,
+                        new String(Files.readAllBytes(attachmentFile), StandardCharsets.UTF_8));
+            }
+            Assert.assertTrue(file.delete());
+        } finally {
+            configurationController.setPropertyValue(ConfigurationKey.DATA_DIRECTORY, dataDirectory);
+            org.apache.commons.io.FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    private Path createCSVFile(String name, int rows) throws Exception {
+        StringBuilder builder = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i += 1) {
+            builder.append(name).append(i).append(",summary,1,Complete,creator,creator@example.com,\n");
+        }
+        Path path = Files.createTempFile("FileBulkUploadTest", ".csv");
+        Files.write(path, builder.toString().getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    /**
+     * Commits the current transaction (which starts processing of submitted uploads) and waits for the specified
+     * upload to be processed
+     */
+    private BulkUpload waitForProcessing(long uploadId) throws Exception {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (true) {
+            HibernateUtil.commitTransaction();
+            HibernateUtil.beginTransaction();
+            BulkUpload upload = dao.get(uploadId);
+            if (upload.getStatus() != BulkUploadStatus.PROCESSING || System.currentTimeMillis() > deadline)
+                return upload;
+            Thread.sleep(100);
+        }
+    }
+}
@@ -1,10 +1,26 @@
 package org.jbei.ice.lib.entry;
 
+import org.apache.commons.io.IOUtils;
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Entry;
+import org.jbei.ice.storage.model.Sequence;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
 /**
  * @author Hector Plahar
  */
@@ -23,6 +39,81 @@ public class EntriesAsCSVTest {
 
     @Test
     public void testSetEntries() throws Exception {
+        Account account = AccountCreator.createTestAccount("EntriesAsCSVTest.testSetEntries", false);
+        List<Long> ids = createEntries(account, 5);
+
+        EntriesAsCSV entriesAsCSV = new EntriesAsCSV();
+        Assert.assertTrue(entriesAsCSV.setEntries(account.getEmail(), ids));
+        List<String> lines = Files.readAllLines(entriesAsCSV.getFilePath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(6, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("\"Created\",\"Part ID\""));
+        Files.delete(entriesAsCSV.getFilePath());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        Account account = AccountCreator.createTestAccount("EntriesAsCSVTest.testWrite", false);
+        List<Long> ids = createEntries(account, 250);
+
+        // csv only
+        EntriesAsCSV entriesAsCSV = new EntriesAsCSV();
+        Assert.assertTrue(entriesAsCSV.setEntries(account.getEmail(), ids));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        entriesAsCSV.write(outputStream);
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(ids.size() + 1, lines.length);
+
+        // order of entries is retained
+        for (int i = 0; i < ids.size(); i += 1) {
+            Entry entry = DAOFactory.getEntryDAO().get(ids.get(i));
+            Assert.assertTrue(lines[i + 1].contains("\"" + entry.getPartNumber() + "\""));
+        }
+
+        // with sequences
+        entriesAsCSV = new EntriesAsCSV("genbank", "fasta");
+        Assert.assertTrue(entriesAsCSV.setEntries(account.getEmail(), ids));
+        Assert.assertEquals("entries.zip", entriesAsCSV.getFileName());
+        outputStream = new ByteArrayOutputStream();
+        entriesAsCSV.write(outputStream);
 
+        Map<String, String> files = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zis.getNextEntry()) != null) {
+                files.put(zipEntry.getName(), IOUtils.toString(zis, StandardCharsets.UTF_8));
+            }
+        }
+
+        Assert.assertEquals("entries.csv", files.keySet().iterator().next());
+        Assert.assertEquals(ids.size() + 1, files.get("entries.csv").split("\n").length);
+
+        // every other entry has a sequence
+        Assert.assertEquals(1 + ids.size(), files.size());
+        for (int i = 0; i < ids.size(); i += 2) {
+            Entry entry = DAOFactory.getEntryDAO().get(ids.get(i));
+            Assert.assertTrue(files.get(entry.getPartNumber() + ".gb").contains("ORIGIN"));
+            Assert.assertTrue(files.get(entry.getPartNumber() + ".fasta").startsWith(">"));
+        }
+        Files.deleteIfExists(entriesAsCSV.getFilePath());
+    }
+
+    private List<Long> createEntries(Account account, int count) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i += 1) {
+            Entry entry = TestEntryCreator.createTestStrain(account);
+            ids.add(entry.getId());
+
+            if (i % 2 == 0) {
+                Sequence sequence = new Sequence();
+                sequence.setEntry(entry);
+                sequence.setSequence("atgcatgcatgc");
+                DAOFactory.getSequenceDAO().create(sequence);
+            }
+        }
+
+        // formatting of sequences happens in separate sessions
+        HibernateUtil.commitTransaction();
+        HibernateUtil.beginTransaction();
+        return ids;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package org.jbei.ice.lib.entry.sequence;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Sequence;
+import org.jbei.ice.storage.model.Strain;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * @author Hector Plahar
+ */
+public class SequenceControllerTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.initializeMock();
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testWriteSequenceFile() throws Exception {
+        Account account = AccountCreator.createTestAccount("SequenceControllerTest.testWriteSequenceFile", false);
+        Strain strain = TestEntryCreator.createTestStrain(account);
+        PartSequence partSequence = new PartSequence(account.getEmail(), strain.getRecordId());
+        partSequence.parseSequenceFile(new ByteArrayInputStream(genbank.getBytes()), "pTest.gb");
+
+        // features are retrieved in new session
+        HibernateUtil.commitTransaction();
+        HibernateUtil.beginTransaction();
+
+        SequenceController controller = new SequenceController();
+        Sequence sequence = controller.getByPart(account.getEmail(), strain.getId());
+        Assert.assertNotNull(sequence);
+
+        // second write is from cache
+        for (int i = 0; i < 2; i += 1) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            controller.writeSequenceFile(sequence, "genbank", outputStream);
+            Assert.assertEquals(formatted, outputStream.toString());
+        }
+
+        ByteArrayWrapper wrapper = controller.getSequenceFile(account.getEmail(), strain.getId(), "genbank");
+        Assert.assertEquals(strain.getPartNumber() + ".gb", wrapper.getName());
+        Assert.assertEquals(formatted, new String(wrapper.getBytes()));
+
+        wrapper = controller.getSequenceFile(account.getEmail(), strain.getId(), "fasta");
+        Assert.assertEquals(strain.getPartNumber() + ".fasta", wrapper.getName());
+        Assert.assertTrue(new String(wrapper.getBytes()).startsWith(">"));
+
+        wrapper = controller.getSequenceFile(account.getEmail(), strain.getId(), "original");
+        Assert.assertEquals("pTest.gb", wrapper.getName());
+        Assert.assertEquals(genbank, new String(wrapper.getBytes()));
+
+        // deleting removes cached outputs
+        String key = SequenceFormatCache.getKey(sequence, "genbank");
+        Assert.assertTrue(controller.deleteSequence(account.getEmail(), strain.getId()));
+        Assert.assertNull(SequenceFormatCache.getInstance().get(key));
+        Assert.assertNull(DAOFactory.getSequenceDAO().getByEntry(strain));
+        Assert.assertEquals("no_sequence",
+                controller.getSequenceFile(account.getEmail(), strain.getId(), "genbank").getName());
+    }
+
+    private static final String genbank =
+            "LOCUS       pTest                    240 bp    DNA     circular\n" +
+            "ACCESSION   pTest\n" +
+            "VERSION     pTest.1\n" +
+            "KEYWORDS    .\n" +
+            "FEATURES             Location/Qualifiers\n" +
+            "     misc_feature    join(130..150,160..200)\n" +
+            "                     /label=joined\n" +
+            "                     /note=\"a note with \\\"quotes\\\"\"\n" +
+            "ORIGIN\n" +
+            "        1 cgactgcacg gtgcaccaat gcttctggcg tcaggcagcc atcggaagct gtggtatggc\n" +
+            "       61 tgtgcaggtc gtaaatcact gcataattcg tgtcgctcaa ggcgcactcc cgttctggat\n" +
+            "      121 aatgtttttt gcgccgacat cataacggtt ctggcaaata ttctgaaatg agctgttgac\n" +
+            "      181 aattaatcat ccggctcgta taatgtgtgg aattgtgagc ggataacaat ttcaggatcc\n" +
+            "//\n";
+
+    // output of genbank formatter for the sequence above
+    private static final String formatted =
+            "LOCUS       sTrain                   240 bp    DNA     linear\n" +
+            "ACCESSION   sTrain\n" +
+            "VERSION     sTrain.1\n" +
+            "KEYWORDS    .\n" +
+            "FEATURES             Location/Qualifiers\n" +
+            "     misc_feature    join(130..150,160..200)\n" +
+            "                     /label=joined\n" +
+            "                     /note=\"note with  \"quotes\"\n" +
+            "ORIGIN\n" +
+            "        1 cgactgcacg gtgcaccaat gcttctggcg tcaggcagcc atcggaagct gtggtatggc\n" +
+            "       61 tgtgcaggtc gtaaatcact gcataattcg tgtcgctcaa ggcgcactcc cgttctggat\n" +
+            "      121 aatgtttttt gcgccgacat cataacggtt ctggcaaata ttctgaaatg agctgttgac\n" +
+            "      181 aattaatcat ccggctcgta taatgtgtgg aattgtgagc ggataacaat ttcaggatcc\n" +
+            "//\n";
+}
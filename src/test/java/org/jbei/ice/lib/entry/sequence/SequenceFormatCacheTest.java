@@ -0,0 +1,125 @@
+package org.jbei.ice.lib.entry.sequence;
+
+import org.apache.commons.io.FileUtils;
+import org.jbei.ice.lib.dto.CacheStatistics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author Hector Plahar
+ */
+public class SequenceFormatCacheTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("sequence-format-cache");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void testGetAndPut() throws Exception {
+        SequenceFormatCache cache = new SequenceFormatCache(directory, 90, 50, 1000);
+        Assert.assertNull(cache.get("1-genbank-0"));
+
+        cache.put("1-genbank-0", new byte[40]);
+        cache.put("1-fasta-0", new byte[10]);
+        cache.put("2-genbank-0", new byte[60]);    // too large for memory
+        Assert.assertEquals(40, cache.get("1-genbank-0").length);
+        Assert.assertEquals(60, cache.get("2-genbank-0").length);
+        Assert.assertTrue(Files.exists(directory.resolve("2-genbank-0")));
+
+        // evicts least recently used (1-fasta-0) from memory, which is then retrieved from disk
+        cache.put("3-genbank-0", new byte[50]);
+        Assert.assertEquals(10, cache.get("1-fasta-0").length);
+
+        List<CacheStatistics> statistics = cache.getStatistics();
+        CacheStatistics memory = statistics.get(0);
+        Assert.assertEquals(1, memory.getHitCount());
+        Assert.assertEquals(3, memory.getMissCount());
+        CacheStatistics disk = statistics.get(1);
+        Assert.assertEquals(2, disk.getHitCount());
+        Assert.assertEquals(1, disk.getMissCount());
+        Assert.assertEquals(4, disk.getElementCount());
+        Assert.assertEquals(2.0 / 3, disk.getHitRatio(), 0.001);
+
+        // retained on disk for a new cache
+        cache = new SequenceFormatCache(directory, 100, 50, 1000);
+        Assert.assertEquals(40, cache.get("1-genbank-0").length);
+    }
+
+    @Test
+    public void testDiskLimit() throws Exception {
+        SequenceFormatCache cache = new SequenceFormatCache(directory, 0, 0, 100);
+        cache.put("1-genbank-0", new byte[40]);
+        cache.put("2-genbank-0", new byte[40]);
+        Assert.assertNotNull(cache.get("1-genbank-0"));
+        cache.put("3-genbank-0", new byte[40]);
+
+        // least recently used removed
+        Assert.assertNull(cache.get("2-genbank-0"));
+        Assert.assertFalse(Files.exists(directory.resolve("2-genbank-0")));
+        Assert.assertNotNull(cache.get("1-genbank-0"));
+        Assert.assertNotNull(cache.get("3-genbank-0"));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        SequenceFormatCache cache = new SequenceFormatCache(directory, 1000, 1000, 1000);
+        cache.put("1-genbank-0", new byte[10]);
+        cache.put("1-fasta-0", new byte[10]);
+        cache.put("11-genbank-0", new byte[10]);
+
+        cache.invalidate(1);
+        Assert.assertNull(cache.get("1-genbank-0"));
+        Assert.assertNull(cache.get("1-fasta-0"));
+        Assert.assertFalse(Files.exists(directory.resolve("1-fasta-0")));
+        Assert.assertNotNull(cache.get("11-genbank-0"));
+    }
+
+    @Test
+    public void testOutputStream() throws Exception {
+        SequenceFormatCache cache = new SequenceFormatCache(directory, 1000, 10, 1000);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (SequenceFormatCache.CachingOutputStream outputStream = cache.newOutputStream("1-genbank-0", target)) {
+            outputStream.write("not committed".getBytes());
+        }
+        Assert.assertEquals("not committed", target.toString());
+        Assert.assertNull(cache.get("1-genbank-0"));
+        Assert.assertEquals(0, directory.toFile().list().length);
+
+        // larger than memory item limit so written from disk
+        target = new ByteArrayOutputStream();
+        try (SequenceFormatCache.CachingOutputStream outputStream = cache.newOutputStream("1-genbank-0", target)) {
+            outputStream.write("committed output".getBytes());
+            outputStream.commit();
+        }
+        Assert.assertEquals("committed output", target.toString());
+
+        target = new ByteArrayOutputStream();
+        Assert.assertTrue(cache.write("1-genbank-0", target));
+        Assert.assertEquals("committed output", target.toString());
+        Assert.assertFalse(cache.write("2-genbank-0", target));
+
+        // small enough for memory
+        try (SequenceFormatCache.CachingOutputStream outputStream = cache.newOutputStream("3-fasta-0",
+                new ByteArrayOutputStream())) {
+            outputStream.write("small".getBytes());
+            outputStream.commit();
+        }
+        Files.delete(directory.resolve("3-fasta-0"));
+        Assert.assertEquals("small", new String(cache.get("3-fasta-0")));
+    }
+}
@@ -0,0 +1,115 @@
+package org.jbei.ice.lib.executor;
+
+import org.jbei.ice.lib.dto.TaskInfo;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Hector Plahar
+ */
+public class IceExecutorServiceTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.initializeMock();
+    }
+
+    @Test
+    public void testRunTask() throws Exception {
+        IceExecutorService service = IceExecutorService.getInstance();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        LimitedTask first = new LimitedTask(started, release);
+        Assert.assertTrue(service.runTask(first));
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // held back by the concurrency limit
+        LimitedTask second = new LimitedTask(null, null);
+        Assert.assertTrue(service.runTask(second));
+        Assert.assertEquals(TaskStatus.PENDING, second.getStatus());
+
+        // duplicate of waiting task
+        Assert.assertFalse(service.runTask(new LimitedTask(null, null)));
+
+        // interactive tasks are not affected by batch tasks
+        CountDownLatch interactive = new CountDownLatch(1);
+        Task interactiveTask = new Task() {
+            @Override
+            public void execute() {
+                interactive.countDown();
+            }
+
+            @Override
+            public TaskLane getLane() {
+                return TaskLane.INTERACTIVE;
+            }
+        };
+        service.runTask(interactiveTask);
+        Assert.assertTrue(interactive.await(10, TimeUnit.SECONDS));
+
+        List<TaskInfo> tasks = service.getTasks();
+        Assert.assertEquals(TaskStatus.PENDING.name(), getInfo(tasks, second.getId()).getStatus());
+        Assert.assertEquals(TaskStatus.IN_PROGRESS.name(), getInfo(tasks, first.getId()).getStatus());
+
+        release.countDown();
+        for (int i = 0; i < 100 && second.getStatus() != TaskStatus.COMPLETED; i += 1)
+            Thread.sleep(50);
+        Assert.assertEquals(TaskStatus.COMPLETED, first.getStatus());
+        Assert.assertEquals(TaskStatus.COMPLETED, second.getStatus());
+        Assert.assertTrue(second.getStarted() >= first.getFinished());
+
+        TaskInfo info = getInfo(service.getTasks(), first.getId());
+        Assert.assertEquals(TaskLane.BATCH.name(), info.getLane());
+        Assert.assertTrue(info.getRunTime() >= 0);
+    }
+
+    private TaskInfo getInfo(List<TaskInfo> tasks, long id) {
+        for (TaskInfo info : tasks) {
+            if (info.getId() == id)
+                return info;
+        }
+        Assert.fail("No task with id " + id);
+        return null;
+    }
+
+    private static class LimitedTask extends Task {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        LimitedTask(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void execute() {
+            if (started == null)
+                return;
+
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public int getConcurrencyLimit() {
+            return 1;
+        }
+
+        @Override
+        public String getDeduplicationKey() {
+            return getClass().getName();
+        }
+    }
+}
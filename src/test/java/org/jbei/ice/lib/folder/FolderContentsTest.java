@@ -14,6 +14,7 @@ import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.model.Account;
 import org.jbei.ice.storage.model.Entry;
 import org.jbei.ice.storage.model.Folder;
+import org.jbei.ice.storage.model.Permission;
 import org.jbei.ice.storage.model.Strain;
 import org.junit.After;
 import org.junit.Assert;
@@ -78,7 +79,54 @@ public class FolderContentsTest {
 
     @Test
     public void testAddEntriesToFolders() throws Exception {
+        Account account = AccountCreator.createTestAccount("FolderContentsTest.testAddEntriesToFolders", false);
+        Account other = AccountCreator.createTestAccount("FolderContentsTest.testAddEntriesToFolders2", false);
 
+        Folder folder = new Folder("testAddEntriesToFolders");
+        folder.setOwnerEmail(account.getEmail());
+        folder.setType(FolderType.PRIVATE);
+        folder.setPropagatePermissions(true);
+        folder = DAOFactory.getFolderDAO().create(folder);
+
+        // folder is shared with other account
+        Permission folderPermission = new Permission();
+        folderPermission.setFolder(folder);
+        folderPermission.setAccount(other);
+        folderPermission.setCanRead(true);
+        DAOFactory.getPermissionDAO().create(folderPermission);
+
+        List<Long> entries = new ArrayList<>();
+        for (int i = 0; i < 3; i += 1) {
+            entries.add(TestEntryCreator.createTestStrain(account).getId());
+        }
+
+        FolderContents folderContents = new FolderContents();
+        List<FolderDetails> folders = new ArrayList<>();
+        folders.add(new FolderDetails(folder.getId(), folder.getName()));
+        folders = folderContents.addEntriesToFolders(account.getEmail(), entries, folders);
+        Assert.assertEquals(3, folders.get(0).getCount());
+
+        // permissions propagated
+        Assert.assertEquals(new HashSet<>(entries), DAOFactory.getPermissionDAO().getEntryIdsWithPermission(entries,
+                other, null, true, false));
+
+        // adding again has no effect
+        Map<Long, Integer> permissionCounts = new HashMap<>();
+        for (Long entryId : entries) {
+            permissionCounts.put(entryId, DAOFactory.getEntryDAO().get(entryId).getPermissions().size());
+        }
+        folders = folderContents.addEntriesToFolders(account.getEmail(), entries, folders);
+        Assert.assertEquals(3, folders.get(0).getCount());
+        for (Long entryId : entries) {
+            Entry entry = DAOFactory.getEntryDAO().get(entryId);
+            Assert.assertEquals(permissionCounts.get(entryId).intValue(), entry.getPermissions().size());
+        }
+
+        // other account cannot add entries that it cannot read
+        Strain strain = TestEntryCreator.createTestStrain(account);
+        folders = folderContents.addEntriesToFolders(other.getEmail(),
+                Collections.singletonList(strain.getId()), folders);
+        Assert.assertTrue(folders.isEmpty());
     }
 
     @Test
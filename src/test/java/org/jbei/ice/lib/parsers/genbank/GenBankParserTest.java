@@ -1,10 +1,14 @@
 package org.jbei.ice.lib.parsers.genbank;
 
+import org.jbei.ice.lib.dto.DNAFeature;
 import org.jbei.ice.lib.dto.DNASequence;
 import org.jbei.ice.lib.dto.FeaturedDNASequence;
+import org.jbei.ice.lib.parsers.InvalidFormatParserException;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.StringReader;
+
 /**
  * @author Hector Plahar
  */
@@ -25,6 +29,38 @@ public class GenBankParserTest {
         Assert.assertEquals(3, sequence2.getFeatures().size());
     }
 
+    @Test
+    public void testParseReader() throws Exception {
+        GenBankParser parser = new GenBankParser();
+        FeaturedDNASequence expected = (FeaturedDNASequence) parser.parse(getGenbank2);
+        FeaturedDNASequence sequence = (FeaturedDNASequence) parser.parse(new StringReader(getGenbank2));
+        Assert.assertNotNull(sequence);
+        Assert.assertEquals("AB648464", sequence.getName());
+        Assert.assertFalse(sequence.getIsCircular());
+        Assert.assertEquals(452, sequence.getSequence().length());
+        Assert.assertEquals(expected.getSequence(), sequence.getSequence());
+        Assert.assertTrue(sequence.getSequence().startsWith("ggcgtagcgcgtaaaccggg"));
+        Assert.assertEquals(3, sequence.getFeatures().size());
+
+        DNAFeature cds = sequence.getFeatures().get(2);
+        Assert.assertEquals("CDS", cds.getType());
+        Assert.assertEquals(1, cds.getStrand());
+        Assert.assertEquals(1, cds.getLocations().get(0).getGenbankStart());
+        Assert.assertEquals(452, cds.getLocations().get(0).getEnd());
+        Assert.assertEquals(7, cds.getNotes().size());
+
+        // windows line endings
+        sequence = (FeaturedDNASequence) parser.parse(new StringReader(genbank.replace("\n", "\r\n")));
+        Assert.assertNotNull(sequence);
+        Assert.assertEquals(3, sequence.getFeatures().size());
+        Assert.assertEquals(936, sequence.getSequence().length());
+    }
+
+    @Test(expected = InvalidFormatParserException.class)
+    public void testParseNoLocus() throws Exception {
+        new GenBankParser().parse(new StringReader("DEFINITION  test\nSOURCE  test\nORIGIN\n        1 atgc\n//\n"));
+    }
+
     @Test
     public void testParseFeaturesTag() throws Exception {
         GenBankParser parser = new GenBankParser();
@@ -0,0 +1,130 @@
+package org.jbei.ice.lib.search;
+
+import org.jbei.ice.lib.dto.search.PartnerSearchState;
+import org.jbei.ice.lib.dto.search.PartnerSearchStatus;
+import org.jbei.ice.lib.dto.search.SearchQuery;
+import org.jbei.ice.lib.dto.search.SearchResult;
+import org.jbei.ice.lib.dto.search.SearchResults;
+import org.jbei.ice.lib.dto.web.RemotePartnerStatus;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.RemotePartner;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Hector Plahar
+ */
+public class WebSearchTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.initializeMock();
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        createPartner("fast.websearchtest");
+        createPartner("slow.websearchtest");
+        createPartner("failed.websearchtest");
+
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Map<String, SearchQuery> queries = new ConcurrentHashMap<>();
+        WebSearch webSearch = new WebSearch(500, 2000) {
+            @Override
+            protected SearchResults searchPartner(RemotePartner partner, SearchQuery query) {
+                queries.put(partner.getUrl(), query);
+                SearchResults results = new SearchResults();
+                switch (partner.getUrl()) {
+                    case "fast.websearchtest":
+                        results.getResults().add(createResult(1));
+                        results.getResults().add(createResult(3));
+                        results.setResultCount(2);
+                        return results;
+
+                    case "slow.websearchtest":
+                        try {
+                            Thread.sleep(3000);
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                            Thread.currentThread().interrupt();
+                        }
+                        results.getResults().add(createResult(2));
+                        results.setResultCount(1);
+                        return results;
+
+                    case "failed.websearchtest":
+                        throw new IllegalStateException("unavailable");
+
+                    default:
+                        return results;
+                }
+            }
+        };
+
+        SearchQuery query = new SearchQuery();
+        query.getParameters().setStart(0);
+        query.getParameters().setRetrieveCount(15);
+        long start = System.currentTimeMillis();
+        SearchResults results = webSearch.run(query);
+        Assert.assertTrue(System.currentTimeMillis() - start < 2500);
+
+        // results from the slow partner are not included and the rest are ordered by score
+        Assert.assertEquals(2, results.getResults().size());
+        Assert.assertEquals(3, results.getResults().get(0).getScore(), 0);
+        Assert.assertEquals(1, results.getResults().get(1).getScore(), 0);
+        Assert.assertEquals(2, results.getResultCount());
+
+        Map<String, PartnerSearchState> states = new HashMap<>();
+        for (PartnerSearchStatus status : results.getPartnerStatus()) {
+            states.put(status.getPartner().getUrl(), status.getState());
+        }
+        Assert.assertEquals(PartnerSearchState.COMPLETED, states.get("fast.websearchtest"));
+        Assert.assertEquals(PartnerSearchState.TIMED_OUT, states.get("slow.websearchtest"));
+        Assert.assertEquals(PartnerSearchState.FAILED, states.get("failed.websearchtest"));
+
+        // the search of the slow partner is cancelled
+        Assert.assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+
+        // each partner is sent its own copy of the query; the query passed in is not changed
+        Set<SearchQuery> partnerQueries = Collections.newSetFromMap(new IdentityHashMap<>());
+        partnerQueries.add(queries.get("fast.websearchtest"));
+        partnerQueries.add(queries.get("slow.websearchtest"));
+        partnerQueries.add(queries.get("failed.websearchtest"));
+        Assert.assertEquals(3, partnerQueries.size());
+        for (SearchQuery partnerQuery : partnerQueries) {
+            Assert.assertNotSame(query, partnerQuery);
+            Assert.assertEquals(0, partnerQuery.getParameters().getStart());
+            Assert.assertEquals(20, partnerQuery.getParameters().getRetrieveCount());
+        }
+        Assert.assertEquals(15, query.getParameters().getRetrieveCount());
+    }
+
+    private void createPartner(String url) {
+        RemotePartner partner = new RemotePartner();
+        partner.setUrl(url);
+        partner.setName(url);
+        partner.setPartnerStatus(RemotePartnerStatus.APPROVED);
+        partner.setAdded(new Date());
+        DAOFactory.getRemotePartnerDAO().create(partner);
+    }
+
+    private static SearchResult createResult(float score) {
+        SearchResult result = new SearchResult();
+        result.setScore(score);
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Hector Plahar
+ */
+public class BlastDeltaTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteFasta() throws Exception {
+        Path blastFolder = folder.getRoot().toPath();
+        BlastDelta delta = new BlastDelta(blastFolder, 1000, DAY);
+
+        Map<Long, String> updates = new LinkedHashMap<>();
+        updates.put(1L, record(1, "ATGC"));
+        updates.put(2L, record(2, "GGCC"));
+        updates.put(3L, record(3, "TTAA"));
+        Assert.assertEquals(3, delta.writeFasta(updates));
+
+        // replace 2, remove 3 and add 4
+        updates = new LinkedHashMap<>();
+        updates.put(2L, record(2, "CCCC"));
+        updates.put(3L, null);
+        updates.put(4L, record(4, "AAAA"));
+        Assert.assertEquals(3, delta.writeFasta(updates));
+
+        String fasta = new String(Files.readAllBytes(Paths.get(blastFolder.toString(), BlastDelta.FASTA_FILE_NAME)),
+                Charset.defaultCharset());
+        Assert.assertEquals(record(1, "ATGC") + record(2, "CCCC") + record(4, "AAAA"), fasta);
+
+        // remove all
+        updates = new LinkedHashMap<>();
+        updates.put(1L, null);
+        updates.put(2L, null);
+        updates.put(4L, null);
+        Assert.assertEquals(0, delta.writeFasta(updates));
+    }
+
+    @Test
+    public void testExcludedIds() throws Exception {
+        Path blastFolder = folder.getRoot().toPath();
+        BlastDelta delta = new BlastDelta(blastFolder, 1000, DAY);
+        Assert.assertTrue(delta.getExcludedIds().isEmpty());
+        Assert.assertEquals(-1, delta.getStartTime());
+
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), delta.addExcludedIds(Arrays.asList(1L, 2L)));
+        long startTime = delta.getStartTime();
+        Assert.assertTrue(startTime >= now);
+
+        // list is persisted and start time is not changed by later updates
+        BlastDelta other = new BlastDelta(blastFolder, 1000, DAY);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), other.addExcludedIds(Arrays.asList(2L, 3L)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), delta.getExcludedIds());
+        Assert.assertEquals(3, Files.readAllLines(Paths.get(blastFolder.toString(),
+                BlastDelta.EXCLUDED_IDS_FILE_NAME), Charset.defaultCharset()).size());
+        Assert.assertEquals(startTime, other.getStartTime());
+
+        delta.delete();
+        Assert.assertTrue(delta.getExcludedIds().isEmpty());
+        Assert.assertEquals(-1, delta.getStartTime());
+        Assert.assertFalse(Files.exists(Paths.get(blastFolder.toString(), BlastDelta.FASTA_FILE_NAME)));
+    }
+
+    @Test
+    public void testIsMergeDue() throws Exception {
+        Path blastFolder = folder.getRoot().toPath();
+        BlastDelta delta = new BlastDelta(blastFolder, 3, DAY);
+        long now = System.currentTimeMillis();
+        Assert.assertFalse(delta.isMergeDue(0, now));
+
+        // removals count towards the threshold
+        Map<Long, String> updates = new LinkedHashMap<>();
+        updates.put(1L, null);
+        updates.put(2L, null);
+        Assert.assertEquals(0, delta.writeFasta(updates));
+        Set<Long> excluded = delta.addExcludedIds(updates.keySet());
+        Assert.assertFalse(delta.isMergeDue(excluded.size(), now));
+        excluded = delta.addExcludedIds(Collections.singletonList(3L));
+        Assert.assertTrue(delta.isMergeDue(excluded.size(), now));
+
+        // age is measured from the start of the delta, not from the last update
+        Assert.assertFalse(delta.isMergeDue(0, now + DAY - 1000));
+        delta.addExcludedIds(Collections.singletonList(4L));
+        Assert.assertTrue(delta.isMergeDue(0, now + DAY + 1000));
+    }
+
+    @Test
+    public void testGetRecordEntryId() {
+        Assert.assertEquals(12, BlastDelta.getRecordEntryId(">d12,PART,name,JBEI_1"));
+        Assert.assertEquals(-1, BlastDelta.getRecordEntryId(">12"));
+        Assert.assertEquals(-1, BlastDelta.getRecordEntryId(">dx,PART"));
+    }
+
+    private String record(long entryId, String sequence) {
+        return ">" + BlastDelta.ID_PREFIX + entryId + ",PART,name" + entryId + ",JBEI_" + entryId + "\n"
+                + sequence + "\n";
+    }
+}
@@ -0,0 +1,91 @@
+package org.jbei.ice.lib.search.blast;
+
+import org.jbei.ice.lib.dto.search.BlastServiceStatus;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Hector Plahar
+ */
+public class BlastExecutionServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testExecute() throws Exception {
+        // stand-in for a blast program: outputs one line per query sequence, prefixed by the query id if any
+        File program = folder.newFile("blastn");
+        String script = "#!/bin/sh\nawk '/^>/{id=substr($0,2)\",\";next} {print id \"hit,\" $0}'\n";
+        Files.write(program.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(program.setExecutable(true));
+
+        BlastExecutionService service = BlastExecutionService.getInstance();
+        long processes = service.getStatus().getProcesses();
+        Assert.assertEquals("hit,acgt\n", service.execute(program.getAbsolutePath(), "db", "acgt",
+                "-outfmt", "10 stitle"));
+
+        // concurrent queries each receive their own output
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i += 1) {
+            final String sequence = "acgt" + i;
+            results.add(executor.submit(() -> service.execute(program.getAbsolutePath(), "db", sequence,
+                    "-outfmt", "10 stitle")));
+        }
+        for (int i = 0; i < 100; i += 1) {
+            Assert.assertEquals("hit,acgt" + i + "\n", results.get(i).get());
+        }
+        executor.shutdown();
+
+        // fasta formatted queries are not combined
+        Assert.assertEquals("seq1,hit,acgt\n", service.execute(program.getAbsolutePath(), "db", ">seq1\nacgt",
+                "-outfmt", "10 stitle"));
+
+        BlastServiceStatus status = service.getStatus();
+        Assert.assertEquals(0, status.getQueueDepth());
+        Assert.assertEquals(Runtime.getRuntime().availableProcessors(), status.getPoolSize());
+        Assert.assertTrue(status.getProcesses() - processes <= 102);
+        Assert.assertTrue(status.getCompleted() >= 102);
+    }
+
+    @Test
+    public void testExecuteWithErrors() throws Exception {
+        // stand-in for a blast program that writes a lot to standard error and fails if any query is invalid
+        File program = folder.newFile("blastn");
+        String script = "#!/bin/sh\nhead -c 200000 /dev/zero | tr '\\0' 'w' >&2\n"
+                + "input=$(cat)\n"
+                + "if echo \"$input\" | grep -q invalid; then exit 1; fi\n"
+                + "echo \"$input\" | awk '/^>/{id=substr($0,2)\",\";next} {print id \"hit,\" $0}'\n";
+        Files.write(program.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(program.setExecutable(true));
+
+        // invalid query does not fail the queries it is combined with
+        BlastExecutionService service = BlastExecutionService.getInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i += 1) {
+            final String sequence = (i == 20 ? "invalid" : "acgt") + i;
+            results.add(executor.submit(() -> service.execute(program.getAbsolutePath(), "db", sequence,
+                    "-outfmt", "10 stitle")));
+        }
+        for (int i = 0; i < 40; i += 1) {
+            if (i == 20)
+                Assert.assertNull(results.get(i).get());
+            else
+                Assert.assertEquals("hit,acgt" + i + "\n", results.get(i).get());
+        }
+        executor.shutdown();
+    }
+}
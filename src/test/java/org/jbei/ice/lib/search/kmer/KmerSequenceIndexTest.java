@@ -0,0 +1,108 @@
+package org.jbei.ice.lib.search.kmer;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.search.SearchResult;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Plasmid;
+import org.jbei.ice.storage.model.Sequence;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * @author Hector Plahar
+ */
+public class KmerSequenceIndexTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.initializeMock();
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Account account = AccountCreator.createTestAccount("KmerSequenceIndexTest.testSearch", false);
+        Plasmid plasmid = TestEntryCreator.createTestPlasmid(account);
+        String sequenceString = randomSequence(1000);
+        Sequence sequence = new Sequence();
+        sequence.setSequence(sequenceString);
+        sequence.setEntry(plasmid);
+        DAOFactory.getSequenceDAO().saveSequence(sequence);
+
+        KmerSequenceIndex index = KmerSequenceIndex.getInstance();
+        index.build();
+        Assert.assertTrue(index.isBuilt());
+        String id = Long.toString(plasmid.getId());
+
+        // exact
+        HashMap<String, SearchResult> results = index.search(sequenceString.substring(200, 300).toUpperCase());
+        Assert.assertNotNull(results);
+        Assert.assertEquals(100, results.get(id).getNident());
+        Assert.assertEquals(100, results.get(id).getQueryLength());
+
+        // single mismatch
+        char[] query = sequenceString.substring(400, 500).toCharArray();
+        query[50] = query[50] == 'a' ? 'c' : 'a';
+        results = index.search(new String(query));
+        Assert.assertNotNull(results);
+        Assert.assertEquals(99, results.get(id).getNident());
+
+        // reverse complement
+        results = index.search(reverseComplement(sequenceString.substring(600, 700)));
+        Assert.assertNotNull(results);
+        Assert.assertEquals(100, results.get(id).getNident());
+
+        // spans origin
+        results = index.search(sequenceString.substring(970) + sequenceString.substring(0, 30));
+        Assert.assertNotNull(results);
+        Assert.assertEquals(60, results.get(id).getNident());
+
+        // too short or not a nucleotide sequence
+        Assert.assertNull(index.search(sequenceString.substring(0, KmerSequenceIndex.MIN_QUERY_LENGTH - 1)));
+        Assert.assertNull(index.search(">header\n" + sequenceString.substring(200, 300)));
+
+        // sequence removed
+        index.update(plasmid.getId(), null);
+        results = index.search(sequenceString.substring(200, 300));
+        Assert.assertTrue(results == null || !results.containsKey(id));
+    }
+
+    @Test
+    public void testBestUngappedMatch() throws Exception {
+        String sequence = randomSequence(200);
+        Assert.assertEquals(50, KmerSequenceIndex.bestUngappedMatch(sequence, sequence.substring(20, 70)));
+
+        char[] query = sequence.substring(100, 150).toCharArray();
+        for (int i = 0; i < query.length; i += 25)
+            query[i] = query[i] == 'g' ? 't' : 'g';
+        Assert.assertEquals(48, KmerSequenceIndex.bestUngappedMatch(sequence, new String(query)));
+    }
+
+    private static String randomSequence(int length) {
+        Random random = new Random(length);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i += 1)
+            builder.append("acgt".charAt(random.nextInt(4)));
+        return builder.toString();
+    }
+
+    private static String reverseComplement(String sequence) {
+        StringBuilder builder = new StringBuilder(sequence.length());
+        for (int i = sequence.length() - 1; i >= 0; i -= 1)
+            builder.append("tgca".charAt("acgt".indexOf(sequence.charAt(i))));
+        return builder.toString();
+    }
+}
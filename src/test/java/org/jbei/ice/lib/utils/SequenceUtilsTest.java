@@ -0,0 +1,124 @@
+package org.jbei.ice.lib.utils;
+
+import org.biojava.bio.seq.DNATools;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Results are compared with those of the BioJava DNA alphabet
+ *
+ * @author Hector Plahar
+ */
+public class SequenceUtilsTest {
+
+    private static final String SYMBOLS = "acgtrykmswbdhvnxACGTRYKMSWBDHVNX-. ";
+
+    @Test
+    public void testReverseComplement() throws Exception {
+        Assert.assertEquals("", SequenceUtils.reverseComplement(""));
+        Assert.assertEquals("nbdhvwskmryacgt-nbdhvwskmryacgt", SequenceUtils.reverseComplement(
+                "ACGTRYKMSWBDHVN-acgtrykmswbdhvn"));
+        Assert.assertEquals("a-n", SequenceUtils.reverseComplement("x.t"));
+
+        for (String sequence : randomSequences()) {
+            String expected = DNATools.reverseComplement(DNATools.createDNA(sequence)).seqString();
+            Assert.assertEquals(expected, SequenceUtils.reverseComplement(sequence));
+            Assert.assertArrayEquals(expected.getBytes(StandardCharsets.US_ASCII),
+                    SequenceUtils.reverseComplement(sequence.getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        for (String invalid : new String[]{"acgu", "acg\n", "ac*g", "acég"}) {
+            try {
+                SequenceUtils.reverseComplement(invalid);
+                Assert.fail("Expected exception for " + invalid);
+            } catch (UtilityException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testTranslateToProtein() throws Exception {
+        Assert.assertEquals("", SequenceUtils.translateToProtein(""));
+        Assert.assertEquals("M", SequenceUtils.translateToProtein("atgg"));
+        Assert.assertEquals("MAX***XV", SequenceUtils.translateToProtein("atggcnnnntaatagtgartrgtr"));
+        Assert.assertEquals("BZJ-", SequenceUtils.translateToProtein("ratsaamtaa-a"));
+
+        // all codons of symbols
+        String symbols = "acgtrykmswbdhvn-";
+        StringBuilder codons = new StringBuilder();
+        for (char first : symbols.toCharArray()) {
+            for (char second : symbols.toCharArray()) {
+                for (char third : symbols.toCharArray()) {
+                    codons.append(first).append(second).append(third);
+                }
+            }
+        }
+        Assert.assertEquals(DNATools.toProtein(DNATools.createDNA(codons.toString())).seqString(),
+                SequenceUtils.translateToProtein(codons.toString()));
+
+        for (String sequence : randomSequences()) {
+            if (sequence.length() < 3)
+                continue;
+            Assert.assertEquals(DNATools.toProtein(DNATools.createDNA(sequence)).seqString(),
+                    SequenceUtils.translateToProtein(sequence));
+        }
+    }
+
+    @Test
+    public void testTranslateSixFrames() throws Exception {
+        String[] frames = SequenceUtils.translateSixFrames("atggcatga");
+        Assert.assertArrayEquals(new String[]{"MA*", "WH", "GM", "SCH", "HA", "MP"}, frames);
+
+        for (String sequence : randomSequences()) {
+            if (sequence.length() < 5)
+                continue;
+            frames = SequenceUtils.translateSixFrames(sequence);
+            String reverseComplement = SequenceUtils.reverseComplement(sequence);
+            for (int frame = 0; frame < 3; frame += 1) {
+                Assert.assertEquals(translate(sequence.substring(frame)), frames[frame]);
+                Assert.assertEquals(translate(reverseComplement.substring(frame)), frames[frame + 3]);
+            }
+        }
+    }
+
+    @Test
+    public void testCalculateSequenceHash() throws Exception {
+        for (String sequence : randomSequences()) {
+            String padded = " \n" + sequence + "\r\n";
+            Assert.assertEquals(Utils.encryptSHA(padded.trim().toLowerCase()),
+                    SequenceUtils.calculateSequenceHash(padded));
+
+            String reverseComplement = DNATools.reverseComplement(DNATools.createDNA(sequence)).seqString();
+            Assert.assertEquals(Utils.encryptSHA(reverseComplement),
+                    SequenceUtils.calculateReverseComplementSequenceHash(sequence));
+        }
+
+        // not a sequence
+        Assert.assertEquals(Utils.encryptSHA("été"), SequenceUtils.calculateSequenceHash("ÉTÉ"));
+    }
+
+    private String translate(String sequence) throws Exception {
+        return DNATools.toProtein(DNATools.createDNA(sequence)).seqString();
+    }
+
+    /**
+     * Random sequences of (valid) symbols including sequences longer than the hash buffer
+     */
+    private String[] randomSequences() {
+        Random random = new Random(11);
+        int[] lengths = {0, 1, 2, 3, 7, 100, 1001, 8192, 20000};
+        String[] sequences = new String[lengths.length];
+        for (int i = 0; i < lengths.length; i += 1) {
+            char[] symbols = new char[lengths[i]];
+            for (int j = 0; j < symbols.length; j += 1) {
+                symbols[j] = SYMBOLS.charAt(random.nextInt(SYMBOLS.length()));
+            }
+            sequences[i] = new String(symbols);
+        }
+        return sequences;
+    }
+}
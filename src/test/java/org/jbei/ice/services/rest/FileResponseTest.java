@@ -0,0 +1,102 @@
+package org.jbei.ice.services.rest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * @author Hector Plahar
+ */
+public class FileResponseTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("file-response", ".txt");
+        Files.write(file.toPath(), "0123456789".getBytes());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    public void testParseRange() throws Exception {
+        Assert.assertArrayEquals(new long[]{0, 4}, FileResponse.parseRange("bytes=0-4", 10));
+        Assert.assertArrayEquals(new long[]{5, 9}, FileResponse.parseRange("bytes=5-", 10));
+        Assert.assertArrayEquals(new long[]{7, 9}, FileResponse.parseRange("bytes=-3", 10));
+        Assert.assertArrayEquals(new long[]{0, 9}, FileResponse.parseRange("bytes=-30", 10));
+        Assert.assertArrayEquals(new long[]{8, 9}, FileResponse.parseRange("bytes=8-100", 10));
+
+        // not satisfiable
+        Assert.assertEquals(0, FileResponse.parseRange("bytes=10-", 10).length);
+        Assert.assertEquals(0, FileResponse.parseRange("bytes=12-20", 10).length);
+        Assert.assertEquals(0, FileResponse.parseRange("bytes=-0", 10).length);
+
+        // ignored
+        Assert.assertNull(FileResponse.parseRange("bytes=5-2", 10));
+        Assert.assertNull(FileResponse.parseRange("bytes=0-1,3-4", 10));
+        Assert.assertNull(FileResponse.parseRange("bytes=a-b", 10));
+        Assert.assertNull(FileResponse.parseRange("lines=0-1", 10));
+        Assert.assertNull(FileResponse.parseRange("bytes=-", 10));
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        FileResponse fileResponse = new FileResponse(file, "file-id");
+        Assert.assertEquals("\"file-id\"", fileResponse.getETag());
+
+        // full
+        Response response = fileResponse.build(null, -1, null, null).build();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("\"file-id\"", response.getHeaderString(HttpHeaders.ETAG));
+        Assert.assertEquals("bytes", response.getHeaderString("Accept-Ranges"));
+        Assert.assertEquals("10", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+        Assert.assertNotNull(response.getLastModified());
+        Assert.assertEquals("0123456789", write(response));
+
+        // conditional
+        Assert.assertEquals(304, fileResponse.build("\"file-id\"", -1, null, null).build().getStatus());
+        Assert.assertEquals(304, fileResponse.build("\"other\", W/\"file-id\"", -1, null, null).build().getStatus());
+        Assert.assertEquals(200, fileResponse.build("\"other\"", -1, null, null).build().getStatus());
+        Assert.assertEquals(304, fileResponse.build(null, file.lastModified(), null, null).build().getStatus());
+        Assert.assertEquals(200, fileResponse.build(null, file.lastModified() - 5000, null, null).build().getStatus());
+        Assert.assertEquals(200, fileResponse.build("\"other\"", file.lastModified(), null, null).build().getStatus());
+
+        // range
+        response = fileResponse.build(null, -1, "bytes=2-5", null).build();
+        Assert.assertEquals(206, response.getStatus());
+        Assert.assertEquals("bytes 2-5/10", response.getHeaderString("Content-Range"));
+        Assert.assertEquals("4", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+        Assert.assertEquals("2345", write(response));
+
+        response = fileResponse.build(null, -1, "bytes=-2", "\"file-id\"").build();
+        Assert.assertEquals(206, response.getStatus());
+        Assert.assertEquals("89", write(response));
+
+        // if-range does not match
+        response = fileResponse.build(null, -1, "bytes=2-5", "\"other\"").build();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("0123456789", write(response));
+
+        response = fileResponse.build(null, -1, "bytes=20-", null).build();
+        Assert.assertEquals(416, response.getStatus());
+        Assert.assertEquals("bytes */10", response.getHeaderString("Content-Range"));
+    }
+
+    private String write(Response response) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(outputStream);
+        return new String(outputStream.toByteArray());
+    }
+}
@@ -0,0 +1,148 @@
+package org.jbei.ice.storage;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @author Hector Plahar
+ */
+public class ModelToInfoFactoryTest {
+
+    private static final int ENTRY_COUNT = 50;
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.initializeMock();
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testCreateTableViewData() throws Exception {
+        Account owner = AccountCreator.createTestAccount("ModelToInfoFactoryTest.testCreateTableViewData", false);
+        Account viewer = AccountCreator.createTestAccount("ModelToInfoFactoryTest.testCreateTableViewData2", false);
+
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < ENTRY_COUNT; i += 1) {
+            Entry entry = TestEntryCreator.createTestStrain(owner);
+            entries.add(entry);
+
+            if (i % 3 == 0) {
+                Permission permission = new Permission();
+                permission.setEntry(entry);
+                permission.setAccount(viewer);
+                permission.setCanWrite(true);
+                DAOFactory.getPermissionDAO().create(permission);
+            }
+
+            if (i % 4 == 0) {
+                Sample sample = new Sample();
+                sample.setEntry(entry);
+                sample.setLabel("sample " + i);
+                sample.setDepositor(owner.getEmail());
+                sample.setCreationTime(new Date());
+                DAOFactory.getSampleDAO().create(sample);
+            }
+
+            if (i % 5 == 0) {
+                Sequence sequence = new Sequence();
+                sequence.setEntry(entry);
+                sequence.setSequence("atgcatgcatgc");
+                if (i % 10 == 0)
+                    sequence.setSequenceUser("ATGCATGCATGC");
+                DAOFactory.getSequenceDAO().create(sequence);
+            }
+
+            for (int j = 0; j < i % 3; j += 1) {
+                Audit audit = new Audit();
+                audit.setEntry(entry);
+                audit.setAction("READ");
+                audit.setUserId(viewer.getEmail());
+                audit.setTime(new Date());
+                DAOFactory.getAuditDAO().create(audit);
+            }
+        }
+        HibernateUtil.getSessionFactory().getCurrentSession().flush();
+
+        for (String userId : new String[]{viewer.getEmail(), owner.getEmail(), null}) {
+            List<PartData> batch = ModelToInfoFactory.createTableViewData(userId, entries, true, true);
+            Assert.assertEquals(ENTRY_COUNT, batch.size());
+
+            for (int i = 0; i < ENTRY_COUNT; i += 1) {
+                Entry entry = entries.get(i);
+                PartData expected = ModelToInfoFactory.createTableViewData(userId, entry, true);
+                PartData data = batch.get(i);
+                Assert.assertEquals(expected.getId(), data.getId());
+                Assert.assertEquals(expected.getPartId(), data.getPartId());
+                Assert.assertEquals(expected.getName(), data.getName());
+                Assert.assertEquals(expected.isCanEdit(), data.isCanEdit());
+                Assert.assertEquals(expected.getOwnerId(), data.getOwnerId());
+                Assert.assertEquals(expected.getCreatorId(), data.getCreatorId());
+                Assert.assertEquals(expected.isHasSample(), data.isHasSample());
+                Assert.assertEquals(expected.isHasSequence(), data.isHasSequence());
+                Assert.assertEquals(expected.isHasOriginalSequence(), data.isHasOriginalSequence());
+                Assert.assertEquals(DAOFactory.getAuditDAO().getHistoryCount(entry), data.getViewCount());
+            }
+        }
+
+        PartData data = ModelToInfoFactory.createTableViewData(viewer.getEmail(), entries, false, false).get(3);
+        Assert.assertTrue(data.isCanEdit());
+        Assert.assertFalse(data.isHasSample());
+        Assert.assertEquals(0, data.getOwnerId());
+        Assert.assertTrue(ModelToInfoFactory.createTableViewData(viewer.getEmail(), new ArrayList<>(), true, true)
+                .isEmpty());
+    }
+
+    /**
+     * Compares the number of statements executed to create the table view data for a page of entries one entry at
+     * a time against creating it for the whole page at once
+     */
+    @Test
+    public void testCreateTableViewDataQueryCount() throws Exception {
+        Account owner = AccountCreator.createTestAccount("ModelToInfoFactoryTest.testQueryCount", false);
+        Account viewer = AccountCreator.createTestAccount("ModelToInfoFactoryTest.testQueryCount2", false);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < ENTRY_COUNT; i += 1) {
+            entries.add(TestEntryCreator.createTestStrain(owner));
+        }
+        HibernateUtil.getSessionFactory().getCurrentSession().flush();
+
+        org.hibernate.stat.Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        boolean enabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            for (Entry entry : entries) {
+                PartData info = ModelToInfoFactory.createTableViewData(viewer.getEmail(), entry, true);
+                info.setViewCount(DAOFactory.getAuditDAO().getHistoryCount(entry));
+            }
+            long perEntry = statistics.getPrepareStatementCount();
+
+            statistics.clear();
+            ModelToInfoFactory.createTableViewData(viewer.getEmail(), entries, true, true);
+            long batch = statistics.getPrepareStatementCount();
+
+            // permissions (admin check, account, groups, write permissions), account ids, samples,
+            // sequences (2) and view counts
+            Assert.assertTrue("batch used " + batch + " statements", batch <= 15);
+            Assert.assertTrue("entry by entry used " + perEntry + " statements", perEntry >= ENTRY_COUNT * 5);
+        } finally {
+            statistics.setStatisticsEnabled(enabled);
+        }
+    }
+}
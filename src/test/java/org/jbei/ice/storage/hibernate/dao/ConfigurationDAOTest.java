@@ -1,5 +1,7 @@
 package org.jbei.ice.storage.hibernate.dao;
 
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
 import org.jbei.ice.lib.dto.ConfigurationKey;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.model.Configuration;
@@ -55,4 +57,38 @@ public class ConfigurationDAOTest {
         Assert.assertNotNull(config);
         Assert.assertEquals("true", config.getValue());
     }
+
+    @Test
+    public void testGetCached() throws Exception {
+        Configuration config = new Configuration();
+        config.setKey("testGetCached");
+        config.setValue("first");
+        dao.create(config);
+        HibernateUtil.commitTransaction();
+
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(
+                Configuration.class.getName());
+        long queryHits = statistics.getQueryCacheHitCount();
+        long entityHits = regionStatistics.getHitCount();
+
+        // each lookup is in a new session; the second is served from the query and entity caches
+        for (int i = 0; i < 2; i += 1) {
+            HibernateUtil.beginTransaction();
+            Assert.assertEquals("first", dao.get("testGetCached").getValue());
+            HibernateUtil.commitTransaction();
+        }
+        Assert.assertTrue(statistics.getQueryCacheHitCount() > queryHits);
+        Assert.assertTrue(regionStatistics.getHitCount() > entityHits);
+
+        // updates are visible to subsequent lookups
+        HibernateUtil.beginTransaction();
+        config = dao.get("testGetCached");
+        config.setValue("second");
+        dao.update(config);
+        HibernateUtil.commitTransaction();
+
+        HibernateUtil.beginTransaction();
+        Assert.assertEquals("second", dao.get("testGetCached").getValue());
+    }
 }
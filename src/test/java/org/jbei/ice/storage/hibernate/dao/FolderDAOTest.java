@@ -1,6 +1,7 @@
 package org.jbei.ice.storage.hibernate.dao;
 
 import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
 import org.jbei.ice.lib.dto.common.PageParameters;
 import org.jbei.ice.lib.entry.EntryCreator;
 import org.jbei.ice.lib.shared.ColumnField;
@@ -15,6 +16,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -223,6 +225,32 @@ public class FolderDAOTest {
         }
     }
 
+    @Test
+    public void testAddFolderEntries() throws Exception {
+        Account account = AccountCreator.createTestAccount("testAddFolderEntries", false);
+        Folder folder = dao.create(createFolderObject(account.getEmail()));
+
+        List<Long> entries = new ArrayList<>();
+        for (int i = 0; i < 3; i += 1) {
+            entries.add(TestEntryCreator.createTestStrain(account).getId());
+        }
+
+        Assert.assertEquals(2, dao.addFolderEntries(folder, entries.subList(0, 2)));
+        Assert.assertEquals(2, dao.get(folder.getId()).getContents().size());
+
+        // entries already in the folder, duplicates and unknown entries are skipped
+        List<Long> more = new ArrayList<>(entries);
+        more.add(entries.get(2));
+        more.add(Long.MAX_VALUE);
+        Assert.assertEquals(1, dao.addFolderEntries(folder, more));
+        Assert.assertEquals(3, dao.get(folder.getId()).getContents().size());
+        Assert.assertEquals(0, dao.addFolderEntries(folder, entries));
+
+        dao.removeFolderEntries(folder, Arrays.asList(entries.get(0), entries.get(0), Long.MAX_VALUE));
+        Assert.assertEquals(2, dao.get(folder.getId()).getContents().size());
+        Assert.assertEquals(2L, dao.getFolderSize(folder.getId(), null, false).longValue());
+    }
+
     private Folder createFolderObject(String ownerEmail) {
         Folder folder = new Folder();
         folder.setDescription("test");
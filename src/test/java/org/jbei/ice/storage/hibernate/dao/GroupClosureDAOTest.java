@@ -0,0 +1,135 @@
+package org.jbei.ice.storage.hibernate.dao;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.storage.DAOException;
+import org.jbei.ice.storage.DAOFactory;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Group;
+import org.junit.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author Hector Plahar
+ */
+public class GroupClosureDAOTest {
+
+    private GroupClosureDAO dao;
+    private GroupDAO groupDAO;
+
+    @BeforeClass
+    public static void init() {
+        HibernateUtil.initializeMock();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.beginTransaction();
+        dao = DAOFactory.getGroupClosureDAO();
+        groupDAO = DAOFactory.getGroupDAO();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testGetAccountGroupIds() throws Exception {
+        Account account = AccountCreator.createTestAccount("GroupClosureDAOTest.testGetAccountGroupIds", false);
+        Group root = createGroup("root", null);
+        Group middle = createGroup("middle", root);
+        Group leaf = createGroup("leaf", middle);
+        Group other = createGroup("other", null);
+
+        Assert.assertTrue(dao.getAccountGroupIds(account).isEmpty());
+
+        account.getGroups().add(leaf);
+        DAOFactory.getAccountDAO().update(account);
+        Assert.assertEquals(ids(leaf, middle, root), dao.getAccountGroupIds(account));
+        Assert.assertEquals(uuids(leaf, middle, root), dao.getAccountGroupUUIDs(account));
+
+        account.getGroups().add(other);
+        DAOFactory.getAccountDAO().update(account);
+        Assert.assertEquals(ids(leaf, middle, root, other), dao.getAccountGroupIds(account));
+    }
+
+    @Test
+    public void testUpdateParent() throws Exception {
+        Account account = AccountCreator.createTestAccount("GroupClosureDAOTest.testUpdateParent", false);
+        Group root = createGroup("root", null);
+        Group middle = createGroup("middle", root);
+        Group leaf = createGroup("leaf", middle);
+        Group other = createGroup("other", null);
+        account.getGroups().add(leaf);
+        DAOFactory.getAccountDAO().update(account);
+
+        // move the middle group (and the leaf with it)
+        middle.setParent(other);
+        groupDAO.update(middle);
+        Assert.assertEquals(ids(leaf, middle, other), dao.getAccountGroupIds(account));
+
+        // detach
+        middle.setParent(null);
+        groupDAO.update(middle);
+        Assert.assertEquals(ids(leaf, middle), dao.getAccountGroupIds(account));
+
+        // cannot be a descendant of itself
+        middle.setParent(leaf);
+        try {
+            groupDAO.update(middle);
+            Assert.fail("Expected cycle to be rejected");
+        } catch (DAOException e) {
+            middle.setParent(null);
+        }
+
+        // delete
+        leaf.setParent(root);
+        groupDAO.update(leaf);
+        account.getGroups().remove(leaf);
+        account.getGroups().add(middle);
+        DAOFactory.getAccountDAO().update(account);
+        groupDAO.delete(leaf);
+        Assert.assertEquals(ids(middle), dao.getAccountGroupIds(account));
+    }
+
+    @Test
+    public void testRebuildIfIncomplete() throws Exception {
+        Assert.assertFalse(dao.rebuildIfIncomplete());
+
+        Account account = AccountCreator.createTestAccount("GroupClosureDAOTest.testRebuildIfIncomplete", false);
+        Group root = createGroup("root", null);
+        Group leaf = createGroup("leaf", root);
+        account.getGroups().add(leaf);
+        DAOFactory.getAccountDAO().update(account);
+
+        dao.removeGroup(leaf);
+        Assert.assertTrue(dao.getAccountGroupIds(account).isEmpty());
+        Assert.assertTrue(dao.rebuildIfIncomplete());
+        Assert.assertEquals(ids(leaf, root), dao.getAccountGroupIds(account));
+    }
+
+    private Group createGroup(String label, Group parent) {
+        Group group = new Group();
+        group.setUuid(label + "-" + System.nanoTime());
+        group.setLabel(label);
+        group.setDescription(label);
+        group.setParent(parent);
+        return groupDAO.create(group);
+    }
+
+    private Set<Long> ids(Group... groups) {
+        Set<Long> ids = new HashSet<>();
+        Arrays.stream(groups).forEach(group -> ids.add(group.getId()));
+        return ids;
+    }
+
+    private Set<String> uuids(Group... groups) {
+        Set<String> uuids = new HashSet<>();
+        Arrays.stream(groups).forEach(group -> uuids.add(group.getUuid()));
+        return uuids;
+    }
+}
@@ -3,8 +3,10 @@ package org.jbei.ice.storage.hibernate.dao;
 import org.jbei.ice.lib.AccountCreator;
 import org.jbei.ice.lib.TestEntryCreator;
 import org.jbei.ice.lib.account.AccountController;
+import org.jbei.ice.storage.DAOFactory;
 import org.jbei.ice.storage.hibernate.HibernateUtil;
 import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Group;
 import org.jbei.ice.storage.model.Strain;
 import org.junit.After;
 import org.junit.Assert;
@@ -13,6 +15,8 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class PermissionDAOTest {
     Account adminAccount, regularAccount;
@@ -24,7 +28,9 @@ public class PermissionDAOTest {
         HibernateUtil.beginTransaction();
 
         adminAccount = new AccountController().createAdminAccount();
-        regularAccount = AccountCreator.createTestAccount("Joe", false);
+        regularAccount = DAOFactory.getAccountDAO().getByEmail("Joe@TESTER");
+        if (regularAccount == null)
+            regularAccount = AccountCreator.createTestAccount("Joe", false);
         dao = new PermissionDAO();
     }
 
@@ -45,6 +51,16 @@ public class PermissionDAOTest {
     @Test
     public void testNonAdminCantReadWithoutPermissions() throws Exception {
         List<Long> entryIds = makePrivateEntryIds(adminAccount);
-        Assert.assertArrayEquals(new Object[0], dao.getCanReadEntries(regularAccount, regularAccount.getGroups(), entryIds).toArray());
+        Set<Long> groupIds = regularAccount.getGroups().stream().map(Group::getId).collect(Collectors.toSet());
+        Assert.assertArrayEquals(new Object[0], dao.getCanReadEntries(regularAccount, groupIds, entryIds).toArray());
+    }
+
+    @Test
+    public void testClearEntryPermissions() throws Exception {
+        Strain strain = TestEntryCreator.createTestStrain(adminAccount);
+        int count = dao.getEntryPermissions(strain).size();
+        Assert.assertTrue(count > 0);
+        Assert.assertEquals(count, dao.clearPermissions(strain));
+        Assert.assertTrue(dao.getEntryPermissions(strain).isEmpty());
     }
 }
@@ -151,6 +151,29 @@ public class SequenceDAOTest {
 
     }
 
+    @Test
+    public void testGetSequenceFastaData() throws Exception {
+        Account account = AccountCreator.createTestAccount("SequenceDAOTest.testGetSequenceFastaData", false);
+        Plasmid plasmid = TestEntryCreator.createTestPlasmid(account);
+        DNASequence dnaSequence = GeneralParser.getInstance().parse(sequenceString);
+        Sequence sequence = SequenceController.dnaSequenceToSequence(dnaSequence);
+        sequence.setEntry(plasmid);
+        sequence = sequenceDAO.saveSequence(sequence);
+        Assert.assertNotNull(sequence);
+
+        List<Object[]> batch = sequenceDAO.getSequenceFastaData(sequence.getId() - 1, 10);
+        Assert.assertEquals(1, batch.size());
+        Object[] record = batch.get(0);
+        Assert.assertEquals(sequence.getId(), record[0]);
+        Assert.assertEquals(plasmid.getId(), record[1]);
+        Assert.assertEquals(plasmid.getRecordType(), record[2]);
+        Assert.assertEquals(plasmid.getPartNumber(), record[4]);
+        Assert.assertEquals(sequence.getSequence(), record[5]);
+
+        // nothing after last sequence
+        Assert.assertTrue(sequenceDAO.getSequenceFastaData(sequence.getId(), 10).isEmpty());
+    }
+
     static String sequenceString =
             "LOCUS       pj5_00001                804 bp    dna     circular UNK \n" +
                     "ACCESSION   pj5_00001\n" +
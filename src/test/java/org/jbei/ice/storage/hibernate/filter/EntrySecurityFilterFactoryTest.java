@@ -0,0 +1,36 @@
+package org.jbei.ice.storage.hibernate.filter;
+
+import org.hibernate.search.filter.FilterKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * @author Hector Plahar
+ */
+public class EntrySecurityFilterFactoryTest {
+
+    @Test
+    public void testGetKey() throws Exception {
+        EntrySecurityFilterFactory factory = createFactory("user@example.com", "c", "a", "b");
+        EntrySecurityFilterFactory sameGroups = createFactory("user@example.com", "b", "c", "a");
+        EntrySecurityFilterFactory otherUser = createFactory("other@example.com", "a", "b", "c");
+        EntrySecurityFilterFactory otherGroups = createFactory("user@example.com", "a", "b");
+
+        FilterKey key = factory.getKey();
+        Assert.assertEquals(key, sameGroups.getKey());
+        Assert.assertEquals(key.hashCode(), sameGroups.getKey().hashCode());
+        Assert.assertNotEquals(key, otherUser.getKey());
+        Assert.assertNotEquals(key, otherGroups.getKey());
+        Assert.assertEquals(key, factory.getKey());
+    }
+
+    private EntrySecurityFilterFactory createFactory(String accountId, String... groups) {
+        EntrySecurityFilterFactory factory = new EntrySecurityFilterFactory();
+        factory.setAccount(accountId);
+        factory.setGroupUUids(new HashSet<>(Arrays.asList(groups)));
+        return factory;
+    }
+}
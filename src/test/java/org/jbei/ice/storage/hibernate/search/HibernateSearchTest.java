@@ -0,0 +1,81 @@
+package org.jbei.ice.storage.hibernate.search;
+
+import org.jbei.ice.lib.AccountCreator;
+import org.jbei.ice.lib.TestEntryCreator;
+import org.jbei.ice.lib.dto.entry.EntryType;
+import org.jbei.ice.lib.dto.entry.PartData;
+import org.jbei.ice.lib.dto.search.SearchQuery;
+import org.jbei.ice.lib.dto.search.SearchResult;
+import org.jbei.ice.lib.dto.search.SearchResults;
+import org.jbei.ice.lib.search.QueryType;
+import org.jbei.ice.storage.hibernate.HibernateUtil;
+import org.jbei.ice.storage.model.Account;
+import org.jbei.ice.storage.model.Plasmid;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * @author Hector Plahar
+ */
+public class HibernateSearchTest {
+
+    @Before
+    public void setUp() throws Exception {
+        HibernateUtil.initializeMock();
+        HibernateUtil.beginTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HibernateUtil.commitTransaction();
+    }
+
+    @Test
+    public void testFilterBlastResults() throws Exception {
+        Account account = AccountCreator.createTestAccount("HibernateSearchTest.testFilterBlastResults", false);
+        Plasmid plasmid1 = TestEntryCreator.createTestPlasmid(account);
+        Plasmid plasmid2 = TestEntryCreator.createTestPlasmid(account);
+        HibernateUtil.commitTransaction();   // commit triggers indexing
+
+        HibernateUtil.beginTransaction();
+
+        // more hits than the maximum number of boolean clauses, most of which do not exist
+        HashMap<String, SearchResult> blastResults = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i += 1) {
+            blastResults.put(Long.toString(1000000 + i), createResult(1000000 + i));
+        }
+        blastResults.put(Long.toString(plasmid2.getId()), createResult(plasmid2.getId()));
+        blastResults.put(Long.toString(plasmid1.getId()), createResult(plasmid1.getId()));
+
+        SearchQuery query = new SearchQuery();
+        SearchResults results = HibernateSearch.getInstance().filterBlastResults(account.getEmail(), 0, 15, query,
+                new HashMap<>(blastResults));
+        Assert.assertEquals(2, results.getResultCount());
+        Assert.assertEquals(2, results.getResults().size());
+
+        // term search restricted to blast results
+        HashMap<String, QueryType> terms = new HashMap<>();
+        terms.put(plasmid1.getName(), QueryType.TERM);
+        query.setQueryString(plasmid1.getName());
+        results = HibernateSearch.getInstance().executeSearch(account.getEmail(), terms, query, blastResults);
+        Assert.assertEquals(2, results.getResultCount());
+
+        blastResults.remove(Long.toString(plasmid1.getId()));
+        results = HibernateSearch.getInstance().executeSearch(account.getEmail(), terms, query, blastResults);
+        Assert.assertEquals(1, results.getResultCount());
+        Assert.assertEquals(plasmid2.getId(), results.getResults().get(0).getEntryInfo().getId());
+    }
+
+    private SearchResult createResult(long id) {
+        SearchResult result = new SearchResult();
+        PartData data = new PartData(EntryType.PLASMID);
+        data.setId(id);
+        result.setEntryInfo(data);
+        return result;
+    }
+}